@@ -0,0 +1,41 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
+import org.jboss.pressgang.ccms.contentspec.builder.PublicanPODocBookBuilder;
+import org.jboss.pressgang.ccms.contentspec.builder.exception.BuilderCreationException;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.BuildData;
+import org.jboss.pressgang.ccms.provider.DataProviderFactory;
+
+/**
+ * A PO builder that exposes the string cleaning step, so that it can be benchmarked without running a full build.
+ */
+public class BenchmarkPODocBookBuilder extends PublicanPODocBookBuilder {
+    public BenchmarkPODocBookBuilder(final DataProviderFactory providerFactory) throws BuilderCreationException {
+        super(providerFactory);
+    }
+
+    @Override
+    public String cleanForPublican(final BuildData buildData, final SpecTopic specTopic, final String translationString) {
+        return super.cleanForPublican(buildData, specTopic, translationString);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.jboss.pressgang.ccms.contentspec.builder.DocBookBuilder;
+
+/**
+ * Records the wall time, allocation and peak heap usage of each phase of a build. The builders log a message at the start of
+ * each pass (eg "Doing en-US First topic pass"), so the recorder listens to the builders log and treats each of those messages
+ * as the start of a new phase.
+ * <p/>
+ * Allocation is measured from the heap, as the bytes freed by each garbage collection during a phase plus the change in the
+ * used heap over the phase. This includes the allocation of any worker threads that finished before the end of the phase,
+ * which per thread allocation counters would miss. Garbage collection notifications are delivered asynchronously, so a
+ * collection right at the end of a phase may be counted in the next phase.
+ */
+public class BuildPhaseRecorder extends AppenderSkeleton {
+    private static final Pattern PHASE_PATTERN = Pattern.compile("^(Doing .*|Building the ZIP file)$");
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+    private final List<String> heapPoolNames = new ArrayList<String>();
+    private final AtomicLong collectedBytes = new AtomicLong();
+    private final NotificationListener gcListener = new NotificationListener() {
+        @Override
+        public void handleNotification(final Notification notification, final Object handback) {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                collected(GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData()));
+            }
+        }
+    };
+    private final List<BuildPhase> phases = new ArrayList<BuildPhase>();
+    private String currentPhase;
+    private long phaseStartTime;
+    private long phaseStartAllocation;
+
+    public BuildPhaseRecorder() {
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+                heapPoolNames.add(pool.getName());
+            }
+        }
+    }
+
+    /**
+     * Start recording a build. The recorder will listen to the builders log until {@link #stop()} is called.
+     *
+     * @param firstPhase The name of the phase that the build starts in.
+     */
+    public synchronized void start(final String firstPhase) {
+        phases.clear();
+        final Logger logger = Logger.getLogger(DocBookBuilder.class);
+        logger.setLevel(Level.INFO);
+        logger.addAppender(this);
+        for (final GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gcBean instanceof NotificationEmitter) {
+                ((NotificationEmitter) gcBean).addNotificationListener(gcListener, null, null);
+            }
+        }
+        startPhase(firstPhase);
+    }
+
+    /**
+     * Stop recording a build, and finish the current phase.
+     */
+    public synchronized void stop() {
+        endPhase();
+        Logger.getLogger(DocBookBuilder.class).removeAppender(this);
+        for (final GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gcBean instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) gcBean).removeNotificationListener(gcListener);
+                } catch (ListenerNotFoundException e) {
+                    // The listener was never added, so there is nothing to remove
+                }
+            }
+        }
+    }
+
+    public synchronized List<BuildPhase> getPhases() {
+        return Collections.unmodifiableList(new ArrayList<BuildPhase>(phases));
+    }
+
+    @Override
+    protected synchronized void append(final LoggingEvent event) {
+        final String message = event.getRenderedMessage();
+        if (currentPhase != null && message != null && PHASE_PATTERN.matcher(message).matches()) {
+            endPhase();
+            startPhase(message);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean requiresLayout() {
+        return false;
+    }
+
+    protected void startPhase(final String name) {
+        for (final MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+        currentPhase = name;
+        phaseStartAllocation = getAllocatedBytes();
+        phaseStartTime = System.nanoTime();
+    }
+
+    protected void endPhase() {
+        if (currentPhase == null) return;
+
+        final long wallTime = System.nanoTime() - phaseStartTime;
+        final long allocatedBytes = getAllocatedBytes() - phaseStartAllocation;
+        long peakHeap = 0;
+        for (final MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+
+        phases.add(new BuildPhase(currentPhase, wallTime, Math.max(0, allocatedBytes), peakHeap));
+        currentPhase = null;
+    }
+
+    /**
+     * Get the number of bytes that have been allocated since the recorder was started, as the bytes freed by garbage
+     * collections plus the bytes currently used in the heap.
+     *
+     * @return The allocated bytes.
+     */
+    protected long getAllocatedBytes() {
+        return collectedBytes.get() + memoryBean.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Add the bytes freed in the heap by a garbage collection to the collected total.
+     *
+     * @param info The information about the garbage collection.
+     */
+    protected void collected(final GarbageCollectionNotificationInfo info) {
+        final Map<String, MemoryUsage> before = info.getGcInfo().getMemoryUsageBeforeGc();
+        final Map<String, MemoryUsage> after = info.getGcInfo().getMemoryUsageAfterGc();
+
+        long freedBytes = 0;
+        for (final String poolName : heapPoolNames) {
+            if (before.containsKey(poolName) && after.containsKey(poolName)) {
+                freedBytes += before.get(poolName).getUsed() - after.get(poolName).getUsed();
+            }
+        }
+        collectedBytes.addAndGet(freedBytes);
+    }
+
+    /**
+     * The measurements for a single phase of a build.
+     */
+    public static class BuildPhase {
+        private final String name;
+        private final long wallTime;
+        private final long allocatedBytes;
+        private final long peakHeap;
+
+        public BuildPhase(final String name, final long wallTime, final long allocatedBytes, final long peakHeap) {
+            this.name = name;
+            this.wallTime = wallTime;
+            this.allocatedBytes = allocatedBytes;
+            this.peakHeap = peakHeap;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The wall time of the phase in nanoseconds.
+         */
+        public long getWallTime() {
+            return wallTime;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * @return The peak heap usage during the phase, in bytes.
+         */
+        public long getPeakHeap() {
+            return peakHeap;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
+import org.jboss.pressgang.ccms.contentspec.builder.DocBookBuilder;
+import org.jboss.pressgang.ccms.contentspec.builder.exception.BuilderCreationException;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.BuildData;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.DocBookBuildingOptions;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.IdAttributeIndex;
+import org.jboss.pressgang.ccms.contentspec.builder.utils.DocBookBuildUtilities;
+import org.jboss.pressgang.ccms.provider.DataProviderFactory;
+import org.jboss.pressgang.ccms.utils.structures.DocBookVersion;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.w3c.dom.Document;
+
+/**
+ * The benchmark state that holds a synthetic corpus, along with the builder and build data needed to process it.
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+    public static final long SEED = 20140101L;
+
+    @Param({"DOCBOOK_45", "DOCBOOK_50"})
+    public DocBookVersion docBookVersion;
+
+    @Param({"100", "1000"})
+    public int topicCount;
+
+    @Param({"0.1", "0.5"})
+    public double linkDensity;
+
+    private SyntheticCorpus corpus;
+    private DataProviderFactory providerFactory;
+    private DocBookBuilder builder;
+    private BuildData buildData;
+    private Map<SpecTopic, Document> documents;
+    private Map<SpecTopic, Set<String>> usedIdAttributes;
+    private IdAttributeIndex idAttributeIndex;
+
+    @Setup(Level.Trial)
+    public void setup() throws BuilderCreationException {
+        corpus = new SyntheticCorpus(docBookVersion, topicCount, linkDensity, SEED);
+        providerFactory = StubProviderFactory.create();
+        builder = new DocBookBuilder(providerFactory);
+        buildData = createBuildData();
+        documents = corpus.createDocuments();
+
+        usedIdAttributes = new HashMap<SpecTopic, Set<String>>();
+        for (final Map.Entry<SpecTopic, Document> entry : documents.entrySet()) {
+            DocBookBuildUtilities.collectIdAttributes(docBookVersion, entry.getKey(), entry.getValue(), usedIdAttributes);
+        }
+        idAttributeIndex = new IdAttributeIndex(usedIdAttributes);
+    }
+
+    /**
+     * Create a new set of build data for the corpus, with the topics added to its build database.
+     *
+     * @return The new build data.
+     */
+    public BuildData createBuildData() {
+        final BuildData buildData = new BuildData("benchmark", corpus.getContentSpec(), new DocBookBuildingOptions(), null,
+                providerFactory, false);
+        corpus.populateBuildDatabase(buildData);
+        return buildData;
+    }
+
+    public SyntheticCorpus getCorpus() {
+        return corpus;
+    }
+
+    public DataProviderFactory getProviderFactory() {
+        return providerFactory;
+    }
+
+    public DocBookBuilder getBuilder() {
+        return builder;
+    }
+
+    public BuildData getBuildData() {
+        return buildData;
+    }
+
+    /**
+     * Get the parsed topic documents. These documents are shared, so they must not be modified by a benchmark.
+     *
+     * @return A mapping of the spec topics to their parsed XML.
+     */
+    public Map<SpecTopic, Document> getDocuments() {
+        return documents;
+    }
+
+    public Map<SpecTopic, Set<String>> getUsedIdAttributes() {
+        return usedIdAttributes;
+    }
+
+    public IdAttributeIndex getIdAttributeIndex() {
+        return idAttributeIndex;
+    }
+}
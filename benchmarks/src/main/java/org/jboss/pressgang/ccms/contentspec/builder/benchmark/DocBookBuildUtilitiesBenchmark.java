@@ -0,0 +1,95 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicNodeIndex;
+import org.jboss.pressgang.ccms.contentspec.builder.utils.DocBookBuildUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+
+/**
+ * Benchmarks for the id and link handling, and XML formatting in {@link DocBookBuildUtilities}, and for indexing a topic in a
+ * single traversal with {@link TopicNodeIndex}. Each benchmark processes every topic in the corpus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DocBookBuildUtilitiesBenchmark {
+    @Benchmark
+    public Set<String> getTopicLinkIds(final CorpusState state) {
+        final Set<String> linkIds = new HashSet<String>();
+        for (final Document doc : state.getDocuments().values()) {
+            DocBookBuildUtilities.getTopicLinkIds(doc, linkIds);
+        }
+        return linkIds;
+    }
+
+    @Benchmark
+    public void createTopicNodeIndex(final CorpusState state, final Blackhole blackhole) {
+        for (final Document doc : state.getDocuments().values()) {
+            blackhole.consume(TopicNodeIndex.create(state.docBookVersion, doc));
+        }
+    }
+
+    @Benchmark
+    public void isUniqueAttributeId(final CorpusState state, final Blackhole blackhole) {
+        for (final Map.Entry<SpecTopic, Set<String>> entry : state.getUsedIdAttributes().entrySet()) {
+            for (final String id : entry.getValue()) {
+                blackhole.consume(DocBookBuildUtilities.isUniqueAttributeId(state.getBuildData(), id, entry.getKey(),
+                        state.getIdAttributeIndex()));
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<SpecTopic, Document> setUniqueIds(final CorpusState state, final DocumentsState documentsState) {
+        final Map<SpecTopic, Document> documents = documentsState.getDocuments();
+        for (final Map.Entry<SpecTopic, Document> entry : documents.entrySet()) {
+            final Document doc = entry.getValue();
+            DocBookBuildUtilities.setUniqueIds(state.getBuildData(), entry.getKey(), doc.getDocumentElement(), doc,
+                    state.getIdAttributeIndex());
+        }
+        return documents;
+    }
+
+    @Benchmark
+    public void convertDocumentToDocBookFormattedString(final CorpusState state, final Blackhole blackhole) {
+        for (final Document doc : state.getDocuments().values()) {
+            blackhole.consume(DocBookBuildUtilities.convertDocumentToDocBookFormattedString(state.docBookVersion, doc, "section",
+                    state.getBuildData().getEntityFileName(), state.getBuilder().getXMLFormatProperties()));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import java.util.Map;
+
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.w3c.dom.Document;
+
+/**
+ * A freshly parsed copy of the topic documents in a corpus, for benchmarks that modify the documents. The documents are parsed
+ * before each invocation, so the parsing isn't included in the measured time.
+ */
+@State(Scope.Thread)
+public class DocumentsState {
+    private Map<SpecTopic, Document> documents;
+
+    @Setup(Level.Invocation)
+    public void setup(final CorpusState corpusState) {
+        documents = corpusState.getCorpus().createDocuments();
+    }
+
+    public Map<SpecTopic, Document> getDocuments() {
+        return documents;
+    }
+}
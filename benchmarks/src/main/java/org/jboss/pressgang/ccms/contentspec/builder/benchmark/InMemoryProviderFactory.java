@@ -0,0 +1,324 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.pressgang.ccms.provider.BlobConstantProvider;
+import org.jboss.pressgang.ccms.provider.CSNodeProvider;
+import org.jboss.pressgang.ccms.provider.ContentSpecProvider;
+import org.jboss.pressgang.ccms.provider.DataProviderFactory;
+import org.jboss.pressgang.ccms.provider.FileProvider;
+import org.jboss.pressgang.ccms.provider.ImageProvider;
+import org.jboss.pressgang.ccms.provider.PropertyTagProvider;
+import org.jboss.pressgang.ccms.provider.ServerSettingsProvider;
+import org.jboss.pressgang.ccms.provider.StringConstantProvider;
+import org.jboss.pressgang.ccms.provider.TagProvider;
+import org.jboss.pressgang.ccms.provider.TopicProvider;
+import org.jboss.pressgang.ccms.provider.TranslatedCSNodeProvider;
+import org.jboss.pressgang.ccms.provider.TranslatedContentSpecProvider;
+import org.jboss.pressgang.ccms.provider.TranslatedTopicProvider;
+import org.jboss.pressgang.ccms.utils.constants.CommonFilterConstants;
+import org.jboss.pressgang.ccms.wrapper.BlobConstantWrapper;
+import org.jboss.pressgang.ccms.wrapper.ContentSpecWrapper;
+import org.jboss.pressgang.ccms.wrapper.ImageWrapper;
+import org.jboss.pressgang.ccms.wrapper.LocaleWrapper;
+import org.jboss.pressgang.ccms.wrapper.ServerEntitiesWrapper;
+import org.jboss.pressgang.ccms.wrapper.ServerSettingsWrapper;
+import org.jboss.pressgang.ccms.wrapper.StringConstantWrapper;
+import org.jboss.pressgang.ccms.wrapper.TopicWrapper;
+import org.jboss.pressgang.ccms.wrapper.TranslatedContentSpecWrapper;
+import org.jboss.pressgang.ccms.wrapper.TranslatedTopicWrapper;
+import org.jboss.pressgang.ccms.wrapper.collection.CollectionWrapper;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * A DataProviderFactory that serves topics, translations, images and the build templates from memory, so that complete books
+ * can be built without a PressGang CCMS server.
+ */
+public class InMemoryProviderFactory {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int BOOK_STRING_CONSTANT_ID = 1;
+    private static final int ARTICLE_STRING_CONSTANT_ID = 2;
+    private static final int BOOK_INFO_STRING_CONSTANT_ID = 3;
+    private static final int ARTICLE_INFO_STRING_CONSTANT_ID = 4;
+    private static final int REVISION_HISTORY_STRING_CONSTANT_ID = 5;
+    private static final int PUBLICAN_CFG_STRING_CONSTANT_ID = 6;
+    private static final int POM_STRING_CONSTANT_ID = 7;
+    private static final int EMPTY_TOPIC_STRING_CONSTANT_ID = 8;
+    private static final int INVALID_INJECTION_STRING_CONSTANT_ID = 9;
+    private static final int INVALID_TOPIC_STRING_CONSTANT_ID = 10;
+    private static final int XML_FORMATTING_STRING_CONSTANT_ID = 11;
+    private static final int ROCBOOK_DTD_BLOB_CONSTANT_ID = 1;
+    private static final int DOCBOOK_RNG_BLOB_CONSTANT_ID = 2;
+    private static final int FAIL_PENGUIN_BLOB_CONSTANT_ID = 3;
+
+    private final Map<Integer, TopicWrapper> topics = new ConcurrentHashMap<Integer, TopicWrapper>();
+    private final Map<Integer, TranslatedTopicWrapper> translatedTopics = new ConcurrentHashMap<Integer, TranslatedTopicWrapper>();
+    private final Map<Integer, ImageWrapper> images = new ConcurrentHashMap<Integer, ImageWrapper>();
+    private final Map<Integer, StringConstantWrapper> stringConstants = new HashMap<Integer, StringConstantWrapper>();
+    private final Map<Integer, BlobConstantWrapper> blobConstants = new HashMap<Integer, BlobConstantWrapper>();
+    private final Map<String, LocaleWrapper> locales = new LinkedHashMap<String, LocaleWrapper>();
+    private final TranslatedContentSpecWrapper translatedContentSpec;
+    private final DataProviderFactory providerFactory;
+
+    /**
+     * @param defaultLocale     The default locale of the server.
+     * @param additionalLocales Any other locales the server supports.
+     */
+    public InMemoryProviderFactory(final String defaultLocale, final String... additionalLocales) {
+        addLocale(defaultLocale);
+        for (final String locale : additionalLocales) {
+            addLocale(locale);
+        }
+
+        // Load the templates and schemas
+        addStringConstant(BOOK_STRING_CONSTANT_ID, getTemplate("Book.xml"));
+        addStringConstant(ARTICLE_STRING_CONSTANT_ID, getTemplate("Article.xml"));
+        addStringConstant(BOOK_INFO_STRING_CONSTANT_ID, getTemplate("Book_Info.xml"));
+        addStringConstant(ARTICLE_INFO_STRING_CONSTANT_ID, getTemplate("Article_Info.xml"));
+        addStringConstant(REVISION_HISTORY_STRING_CONSTANT_ID, getTemplate("Revision_History.xml"));
+        addStringConstant(PUBLICAN_CFG_STRING_CONSTANT_ID, getTemplate("publican.cfg"));
+        addStringConstant(POM_STRING_CONSTANT_ID, getTemplate("pom.xml"));
+        addStringConstant(EMPTY_TOPIC_STRING_CONSTANT_ID, getTemplate("EmptyTopic.xml"));
+        addStringConstant(INVALID_INJECTION_STRING_CONSTANT_ID, getTemplate("InvalidInjection.xml"));
+        addStringConstant(INVALID_TOPIC_STRING_CONSTANT_ID, getTemplate("InvalidTopic.xml"));
+        addStringConstant(XML_FORMATTING_STRING_CONSTANT_ID, StubProviderFactory.XML_FORMATTING_PROPERTIES);
+        addBlobConstant(ROCBOOK_DTD_BLOB_CONSTANT_ID, StubProviderFactory.getSchema());
+        addBlobConstant(DOCBOOK_RNG_BLOB_CONSTANT_ID, StubProviderFactory.getResource("/benchmark-docbook.rng"));
+        addBlobConstant(FAIL_PENGUIN_BLOB_CONSTANT_ID, SyntheticBook.createImageData(1024));
+
+        // There are no translated content spec strings, so translations only come from the translated topics
+        translatedContentSpec = InMemoryWrappers.create(TranslatedContentSpecWrapper.class);
+        InMemoryWrappers.set(translatedContentSpec, "ContentSpec", InMemoryWrappers.create(ContentSpecWrapper.class));
+
+        providerFactory = mock(DataProviderFactory.class);
+        when(providerFactory.getProvider(ServerSettingsProvider.class)).thenReturn(createServerSettingsProvider(defaultLocale));
+        when(providerFactory.getProvider(TopicProvider.class)).thenReturn(createTopicProvider());
+        when(providerFactory.getProvider(TranslatedTopicProvider.class)).thenReturn(createTranslatedTopicProvider());
+        when(providerFactory.getProvider(ImageProvider.class)).thenReturn(createImageProvider());
+        when(providerFactory.getProvider(StringConstantProvider.class)).thenReturn(createStringConstantProvider());
+        when(providerFactory.getProvider(BlobConstantProvider.class)).thenReturn(createBlobConstantProvider());
+        when(providerFactory.getProvider(TranslatedContentSpecProvider.class)).thenReturn(createTranslatedContentSpecProvider());
+
+        // Providers for data that the synthetic books don't use
+        when(providerFactory.getProvider(ContentSpecProvider.class)).thenReturn(mock(ContentSpecProvider.class));
+        when(providerFactory.getProvider(CSNodeProvider.class)).thenReturn(mock(CSNodeProvider.class));
+        when(providerFactory.getProvider(TranslatedCSNodeProvider.class)).thenReturn(mock(TranslatedCSNodeProvider.class));
+        when(providerFactory.getProvider(PropertyTagProvider.class)).thenReturn(mock(PropertyTagProvider.class));
+        when(providerFactory.getProvider(TagProvider.class)).thenReturn(mock(TagProvider.class));
+        when(providerFactory.getProvider(FileProvider.class)).thenReturn(mock(FileProvider.class));
+    }
+
+    public DataProviderFactory getProviderFactory() {
+        return providerFactory;
+    }
+
+    public LocaleWrapper getLocale(final String locale) {
+        return locales.get(locale);
+    }
+
+    public void addTopic(final TopicWrapper topic) {
+        topics.put(topic.getId(), topic);
+    }
+
+    public void addTranslatedTopic(final TranslatedTopicWrapper translatedTopic) {
+        translatedTopics.put(translatedTopic.getId(), translatedTopic);
+    }
+
+    public void addImage(final ImageWrapper image) {
+        images.put(image.getId(), image);
+    }
+
+    protected void addLocale(final String value) {
+        final LocaleWrapper locale = InMemoryWrappers.create(LocaleWrapper.class);
+        InMemoryWrappers.set(locale, "Value", value);
+        InMemoryWrappers.set(locale, "BuildValue", value);
+        InMemoryWrappers.set(locale, "TranslationValue", value);
+        locales.put(value, locale);
+    }
+
+    protected void addStringConstant(final int id, final String value) {
+        final StringConstantWrapper stringConstant = InMemoryWrappers.create(StringConstantWrapper.class);
+        InMemoryWrappers.set(stringConstant, "Id", id);
+        InMemoryWrappers.set(stringConstant, "Value", value);
+        stringConstants.put(id, stringConstant);
+    }
+
+    protected void addBlobConstant(final int id, final byte[] value) {
+        final BlobConstantWrapper blobConstant = InMemoryWrappers.create(BlobConstantWrapper.class);
+        InMemoryWrappers.set(blobConstant, "Id", id);
+        InMemoryWrappers.set(blobConstant, "Value", value);
+        blobConstants.put(id, blobConstant);
+    }
+
+    protected String getTemplate(final String name) {
+        return new String(StubProviderFactory.getResource("/templates/" + name), UTF8);
+    }
+
+    protected ServerSettingsProvider createServerSettingsProvider(final String defaultLocale) {
+        final ServerEntitiesWrapper serverEntities = mock(ServerEntitiesWrapper.class);
+        when(serverEntities.getBookStringConstantId()).thenReturn(BOOK_STRING_CONSTANT_ID);
+        when(serverEntities.getArticleStringConstantId()).thenReturn(ARTICLE_STRING_CONSTANT_ID);
+        when(serverEntities.getBookInfoStringConstantId()).thenReturn(BOOK_INFO_STRING_CONSTANT_ID);
+        when(serverEntities.getArticleInfoStringConstantId()).thenReturn(ARTICLE_INFO_STRING_CONSTANT_ID);
+        when(serverEntities.getRevisionHistoryStringConstantId()).thenReturn(REVISION_HISTORY_STRING_CONSTANT_ID);
+        when(serverEntities.getPublicanCfgStringConstantId()).thenReturn(PUBLICAN_CFG_STRING_CONSTANT_ID);
+        when(serverEntities.getPOMStringConstantId()).thenReturn(POM_STRING_CONSTANT_ID);
+        when(serverEntities.getEmptyTopicStringConstantId()).thenReturn(EMPTY_TOPIC_STRING_CONSTANT_ID);
+        when(serverEntities.getInvalidInjectionStringConstantId()).thenReturn(INVALID_INJECTION_STRING_CONSTANT_ID);
+        when(serverEntities.getInvalidTopicStringConstantId()).thenReturn(INVALID_TOPIC_STRING_CONSTANT_ID);
+        when(serverEntities.getXmlFormattingStringConstantId()).thenReturn(XML_FORMATTING_STRING_CONSTANT_ID);
+        when(serverEntities.getRocBook45DTDBlobConstantId()).thenReturn(ROCBOOK_DTD_BLOB_CONSTANT_ID);
+        when(serverEntities.getDocBook50RNGBlobConstantId()).thenReturn(DOCBOOK_RNG_BLOB_CONSTANT_ID);
+        when(serverEntities.getFailPenguinBlobConstantId()).thenReturn(FAIL_PENGUIN_BLOB_CONSTANT_ID);
+
+        final CollectionWrapper<LocaleWrapper> serverLocales = InMemoryWrappers.createCollection(
+                new ArrayList<LocaleWrapper>(locales.values()));
+        final ServerSettingsWrapper serverSettings = mock(ServerSettingsWrapper.class);
+        when(serverSettings.getLocales()).thenReturn(serverLocales);
+        when(serverSettings.getDefaultLocale()).thenReturn(locales.get(defaultLocale));
+        when(serverSettings.getEntities()).thenReturn(serverEntities);
+
+        final ServerSettingsProvider serverSettingsProvider = mock(ServerSettingsProvider.class);
+        when(serverSettingsProvider.getServerSettings()).thenReturn(serverSettings);
+        return serverSettingsProvider;
+    }
+
+    protected TopicProvider createTopicProvider() {
+        final Answer<TopicWrapper> topicAnswer = new Answer<TopicWrapper>() {
+            @Override
+            public TopicWrapper answer(final InvocationOnMock invocation) throws Throwable {
+                // Revisions aren't stored, so every revision of a topic is the same
+                return topics.get(invocation.getArguments()[0]);
+            }
+        };
+
+        final TopicProvider topicProvider = mock(TopicProvider.class);
+        when(topicProvider.getTopic(anyInt())).thenAnswer(topicAnswer);
+        when(topicProvider.getTopic(anyInt(), anyInt())).thenAnswer(topicAnswer);
+        when(topicProvider.getTopicsWithQuery(anyString())).thenAnswer(new Answer<CollectionWrapper<TopicWrapper>>() {
+            @Override
+            public CollectionWrapper<TopicWrapper> answer(final InvocationOnMock invocation) throws Throwable {
+                final List<TopicWrapper> matchingTopics = new ArrayList<TopicWrapper>();
+                for (final Integer topicId : getQueryIds((String) invocation.getArguments()[0])) {
+                    final TopicWrapper topic = topics.get(topicId);
+                    if (topic != null) {
+                        matchingTopics.add(topic);
+                    }
+                }
+                return InMemoryWrappers.createCollection(matchingTopics);
+            }
+        });
+        return topicProvider;
+    }
+
+    protected TranslatedTopicProvider createTranslatedTopicProvider() {
+        final TranslatedTopicProvider translatedTopicProvider = mock(TranslatedTopicProvider.class);
+        when(translatedTopicProvider.getTranslatedTopic(anyInt())).thenAnswer(new Answer<TranslatedTopicWrapper>() {
+            @Override
+            public TranslatedTopicWrapper answer(final InvocationOnMock invocation) throws Throwable {
+                return translatedTopics.get(invocation.getArguments()[0]);
+            }
+        });
+        when(translatedTopicProvider.newTranslatedTopic()).thenAnswer(new Answer<TranslatedTopicWrapper>() {
+            @Override
+            public TranslatedTopicWrapper answer(final InvocationOnMock invocation) throws Throwable {
+                return InMemoryWrappers.create(TranslatedTopicWrapper.class);
+            }
+        });
+        return translatedTopicProvider;
+    }
+
+    protected ImageProvider createImageProvider() {
+        final ImageProvider imageProvider = mock(ImageProvider.class);
+        when(imageProvider.getImage(anyInt())).thenAnswer(new Answer<ImageWrapper>() {
+            @Override
+            public ImageWrapper answer(final InvocationOnMock invocation) throws Throwable {
+                return images.get(invocation.getArguments()[0]);
+            }
+        });
+        return imageProvider;
+    }
+
+    protected StringConstantProvider createStringConstantProvider() {
+        final StringConstantProvider stringConstantProvider = mock(StringConstantProvider.class);
+        when(stringConstantProvider.getStringConstant(anyInt())).thenAnswer(new Answer<StringConstantWrapper>() {
+            @Override
+            public StringConstantWrapper answer(final InvocationOnMock invocation) throws Throwable {
+                return stringConstants.get(invocation.getArguments()[0]);
+            }
+        });
+        return stringConstantProvider;
+    }
+
+    protected BlobConstantProvider createBlobConstantProvider() {
+        final BlobConstantProvider blobConstantProvider = mock(BlobConstantProvider.class);
+        when(blobConstantProvider.getBlobConstant(anyInt())).thenAnswer(new Answer<BlobConstantWrapper>() {
+            @Override
+            public BlobConstantWrapper answer(final InvocationOnMock invocation) throws Throwable {
+                return blobConstants.get(invocation.getArguments()[0]);
+            }
+        });
+        return blobConstantProvider;
+    }
+
+    protected TranslatedContentSpecProvider createTranslatedContentSpecProvider() {
+        final CollectionWrapper<TranslatedContentSpecWrapper> translatedContentSpecs = InMemoryWrappers.createCollection(
+                Collections.singletonList(translatedContentSpec));
+        final TranslatedContentSpecProvider translatedContentSpecProvider = mock(TranslatedContentSpecProvider.class);
+        when(translatedContentSpecProvider.getTranslatedContentSpecsWithQuery(anyString())).thenReturn(translatedContentSpecs);
+        return translatedContentSpecProvider;
+    }
+
+    /**
+     * Get the ids from a query that filters on a list of topic ids. eg "query;topicIds=1,2,3"
+     *
+     * @param query The query to get the ids from.
+     * @return The ids in the query.
+     */
+    protected static List<Integer> getQueryIds(final String query) {
+        final List<Integer> ids = new ArrayList<Integer>();
+        for (final String queryParam : query.split(";")) {
+            final String[] keyValue = queryParam.split("=", 2);
+            if (keyValue.length == 2 && keyValue[0].equals(CommonFilterConstants.TOPIC_IDS_FILTER_VAR)) {
+                for (final String id : keyValue[1].split(",")) {
+                    ids.add(Integer.parseInt(id.trim()));
+                }
+            }
+        }
+        return ids;
+    }
+}
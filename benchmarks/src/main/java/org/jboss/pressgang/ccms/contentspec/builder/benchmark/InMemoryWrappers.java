@@ -0,0 +1,193 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.pressgang.ccms.wrapper.collection.CollectionWrapper;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Creates in-memory versions of the entity wrappers. The wrappers act like simple beans, so any value passed to a setter is
+ * returned by the matching getter, and collections default to being empty instead of null.
+ */
+public final class InMemoryWrappers {
+    private static final Map<Object, WrapperAnswer> WRAPPER_ANSWERS = Collections.synchronizedMap(
+            new IdentityHashMap<Object, WrapperAnswer>());
+
+    private InMemoryWrappers() {
+    }
+
+    /**
+     * Create a new in-memory wrapper.
+     *
+     * @param wrapperClass The wrapper interface to create an instance of.
+     * @param aliases      Properties that should return the value of another property, if they haven't been set themselves.
+     *                     For example, a topics "TopicId" is the same as its "Id".
+     * @return The new wrapper.
+     */
+    public static <T> T create(final Class<T> wrapperClass, final String... aliases) {
+        final WrapperAnswer answer = new WrapperAnswer(aliases);
+        final T wrapper = mock(wrapperClass, answer);
+        WRAPPER_ANSWERS.put(wrapper, answer);
+        return wrapper;
+    }
+
+    /**
+     * Set a property on an in-memory wrapper. This is the same as calling the properties setter, but doesn't require the wrapper
+     * interface to declare one.
+     *
+     * @param wrapper  The wrapper to set the property on.
+     * @param property The name of the property, as used in its getter. eg "Id" for getId().
+     * @param value    The value to set.
+     */
+    public static void set(final Object wrapper, final String property, final Object value) {
+        final WrapperAnswer answer = WRAPPER_ANSWERS.get(wrapper);
+        if (answer == null) {
+            throw new IllegalArgumentException("The wrapper wasn't created by " + InMemoryWrappers.class.getSimpleName());
+        }
+        answer.setProperty(property, value);
+    }
+
+    /**
+     * Set a collection property on an in-memory wrapper. The collection wrapper is created using the type returned by the
+     * properties getter.
+     *
+     * @param wrapper  The wrapper to set the property on.
+     * @param property The name of the property, as used in its getter. eg "Tags" for getTags().
+     * @param items    The items in the collection.
+     */
+    @SuppressWarnings("unchecked")
+    public static void setCollection(final Object wrapper, final String property, final List<?> items) {
+        final Class<?> collectionClass;
+        try {
+            collectionClass = wrapper.getClass().getMethod("get" + property).getReturnType();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("The wrapper doesn't have a " + property + " property", e);
+        }
+        set(wrapper, property, createCollection((Class<CollectionWrapper<?>>) collectionClass, items));
+    }
+
+    /**
+     * Create a collection wrapper that contains a list of items.
+     *
+     * @param collectionClass The collection wrapper interface to create an instance of.
+     * @param items           The items in the collection. Changes to the list will be visible in the collection.
+     * @return The new collection wrapper.
+     */
+    public static <T extends CollectionWrapper<?>> T createCollection(final Class<T> collectionClass, final List<?> items) {
+        return mock(collectionClass, new CollectionAnswer(items));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> CollectionWrapper<T> createCollection(final List<T> items) {
+        return createCollection(CollectionWrapper.class, items);
+    }
+
+    /**
+     * Stores the values passed to setters, so they can be returned by getters.
+     */
+    private static class WrapperAnswer implements Answer<Object> {
+        private final Map<String, Object> properties = new HashMap<String, Object>();
+        private final Map<String, String> aliases = new HashMap<String, String>();
+
+        private WrapperAnswer(final String... aliases) {
+            for (int i = 0; i + 1 < aliases.length; i += 2) {
+                this.aliases.put(aliases[i], aliases[i + 1]);
+            }
+        }
+
+        private synchronized void setProperty(final String property, final Object value) {
+            properties.put(property, value);
+        }
+
+        @Override
+        public synchronized Object answer(final InvocationOnMock invocation) throws Throwable {
+            final Method method = invocation.getMethod();
+            final String name = method.getName();
+            final Object[] arguments = invocation.getArguments();
+
+            if (name.length() > 3 && name.startsWith("set") && arguments.length == 1) {
+                properties.put(name.substring(3), arguments[0]);
+                return null;
+            } else if (arguments.length == 0 && ((name.length() > 3 && name.startsWith("get")) || (name.length() > 2 && name.startsWith(
+                    "is")))) {
+                String property = name.substring(name.startsWith("get") ? 3 : 2);
+                if (!properties.containsKey(property) && aliases.containsKey(property)) {
+                    property = aliases.get(property);
+                }
+
+                if (properties.containsKey(property)) {
+                    return properties.get(property);
+                } else if (CollectionWrapper.class.isAssignableFrom(method.getReturnType())) {
+                    // Use an empty collection, and keep it so that any items added to it are kept
+                    @SuppressWarnings("unchecked")
+                    final Object collection = createCollection((Class<CollectionWrapper<?>>) method.getReturnType(),
+                            new ArrayList<Object>());
+                    properties.put(property, collection);
+                    return collection;
+                }
+            }
+
+            return RETURNS_DEFAULTS.answer(invocation);
+        }
+    }
+
+    /**
+     * Backs a collection wrapper with a list.
+     */
+    private static class CollectionAnswer implements Answer<Object> {
+        private final List<?> items;
+
+        private CollectionAnswer(final List<?> items) {
+            this.items = items;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object answer(final InvocationOnMock invocation) throws Throwable {
+            final String name = invocation.getMethod().getName();
+            final Object[] arguments = invocation.getArguments();
+            if (name.equals("getItems") || name.equals("getUnchangedItems")) {
+                return items;
+            } else if (name.equals("isEmpty")) {
+                return items.isEmpty();
+            } else if (name.equals("size")) {
+                return items.size();
+            } else if (name.startsWith("add") && arguments.length == 1) {
+                ((List<Object>) items).add(arguments[0]);
+                return null;
+            } else {
+                return RETURNS_DEFAULTS.answer(invocation);
+            }
+        }
+    }
+}
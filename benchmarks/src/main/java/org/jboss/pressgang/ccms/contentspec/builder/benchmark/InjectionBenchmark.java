@@ -0,0 +1,60 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
+import org.jboss.pressgang.ccms.contentspec.builder.DocBookXMLPreProcessor;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.BuildData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+
+/**
+ * Benchmarks the processing of injection comments by the {@link DocBookXMLPreProcessor}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InjectionBenchmark {
+    @Benchmark
+    public void processInjections(final CorpusState state, final DocumentsState documentsState, final Blackhole blackhole) {
+        final BuildData buildData = state.getBuildData();
+        final DocBookXMLPreProcessor xmlPreProcessor = buildData.getXMLPreProcessor();
+        for (final Map.Entry<SpecTopic, Document> entry : documentsState.getDocuments().entrySet()) {
+            final List<String> errors = xmlPreProcessor.processInjections(buildData.getContentSpec(), entry.getKey(),
+                    new ArrayList<String>(), entry.getValue(), buildData.getBuildOptions(), buildData.getBuildDatabase(), false);
+            blackhole.consume(errors);
+        }
+    }
+}
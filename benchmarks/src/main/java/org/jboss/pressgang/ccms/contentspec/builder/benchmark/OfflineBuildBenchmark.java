@@ -0,0 +1,169 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jboss.pressgang.ccms.contentspec.builder.BuildType;
+import org.jboss.pressgang.ccms.contentspec.builder.ContentSpecBuilder;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.DocBookBuildingOptions;
+import org.jboss.pressgang.ccms.utils.structures.DocBookVersion;
+import org.jboss.pressgang.ccms.zanata.ZanataDetails;
+
+/**
+ * Builds a synthetic book end to end for every build type, using an in-memory server, and reports the wall time, allocation
+ * and peak heap usage of each phase of the build.
+ * <p/>
+ * Settings are passed as name=value arguments, eg:
+ * <pre>
+ * java -cp benchmarks.jar org.jboss.pressgang.ccms.contentspec.builder.benchmark.OfflineBuildBenchmark topics=1000 depth=3
+ * </pre>
+ * The available settings are: format (DOCBOOK_45 or DOCBOOK_50), topics, depth, duplicates, images, translations, links, seed,
+ * threads, warmup and iterations.
+ */
+public class OfflineBuildBenchmark {
+    private static final String REQUESTER = "benchmark";
+
+    private final Map<String, String> settings = new HashMap<String, String>();
+    private final PrintStream out;
+
+    public static void main(final String[] args) throws Exception {
+        new OfflineBuildBenchmark(args, System.out).run();
+    }
+
+    public OfflineBuildBenchmark(final String[] args, final PrintStream out) {
+        this.out = out;
+        settings.put("format", DocBookVersion.DOCBOOK_45.name());
+        settings.put("topics", "500");
+        settings.put("depth", "3");
+        settings.put("duplicates", "0.1");
+        settings.put("images", "50");
+        settings.put("translations", "0.5");
+        settings.put("links", "0.2");
+        settings.put("seed", "20140101");
+        settings.put("threads", Integer.toString(Runtime.getRuntime().availableProcessors()));
+        settings.put("warmup", "1");
+        settings.put("iterations", "3");
+
+        for (final String arg : args) {
+            final String[] nameValue = arg.split("=", 2);
+            if (nameValue.length != 2 || !settings.containsKey(nameValue[0])) {
+                throw new IllegalArgumentException("Unknown setting \"" + arg + "\". Valid settings are " + settings.keySet());
+            }
+            settings.put(nameValue[0], nameValue[1]);
+        }
+    }
+
+    public void run() throws Exception {
+        final SyntheticBook book = createBook();
+        out.println("Benchmarking " + book.getContentSpec().getAllTopicNodes().size() + " topics (" + book.getUniqueTopicCount() +
+                " unique, " + book.getTranslatedTopicCount() + " translated) with settings " + settings);
+
+        final boolean translate = Double.parseDouble(settings.get("translations")) > 0;
+        for (final BuildType buildType : BuildType.values()) {
+            report(buildType + " " + StubProviderFactory.DEFAULT_LOCALE, benchmarkBuild(buildType, false));
+            if (translate) {
+                report(buildType + " " + SyntheticBook.TRANSLATION_LOCALE, benchmarkBuild(buildType, true));
+            }
+        }
+    }
+
+    protected SyntheticBook createBook() {
+        return new SyntheticBook(DocBookVersion.valueOf(settings.get("format")), Integer.parseInt(settings.get("topics")),
+                Integer.parseInt(settings.get("depth")), Double.parseDouble(settings.get("duplicates")),
+                Integer.parseInt(settings.get("images")), Double.parseDouble(settings.get("translations")),
+                Double.parseDouble(settings.get("links")), Long.parseLong(settings.get("seed")));
+    }
+
+    /**
+     * Build a book multiple times, and combine the measurements for each phase. The wall time and allocation are averaged,
+     * while the peak heap is the highest peak from any of the builds.
+     *
+     * @param buildType   The type of build to run.
+     * @param translation Whether the book should be built as a translation.
+     * @return The combined measurements for each phase, in the order the phases ran.
+     * @throws Exception Thrown if the build fails.
+     */
+    protected Map<String, long[]> benchmarkBuild(final BuildType buildType, final boolean translation) throws Exception {
+        final int warmup = Integer.parseInt(settings.get("warmup"));
+        final int iterations = Math.max(1, Integer.parseInt(settings.get("iterations")));
+        final Map<String, long[]> results = new LinkedHashMap<String, long[]>();
+
+        for (int i = 0; i < warmup + iterations; i++) {
+            // The builder modifies the content spec, so build a fresh copy each time
+            final SyntheticBook book = createBook();
+            final ContentSpecBuilder builder = new ContentSpecBuilder(book.getProviderFactory().getProviderFactory());
+            final DocBookBuildingOptions options = new DocBookBuildingOptions();
+            options.setThreadCount(Integer.parseInt(settings.get("threads")));
+
+            System.gc();
+            final BuildPhaseRecorder recorder = new BuildPhaseRecorder();
+            recorder.start("Setup");
+            try {
+                if (translation) {
+                    options.setLocale(SyntheticBook.TRANSLATION_LOCALE);
+                    builder.buildTranslatedBook(book.getContentSpec(), REQUESTER, options, new ZanataDetails(), buildType);
+                } else {
+                    builder.buildBook(book.getContentSpec(), REQUESTER, options, buildType);
+                }
+            } finally {
+                recorder.stop();
+            }
+
+            if (i >= warmup) {
+                for (final BuildPhaseRecorder.BuildPhase phase : recorder.getPhases()) {
+                    if (!results.containsKey(phase.getName())) {
+                        results.put(phase.getName(), new long[3]);
+                    }
+                    final long[] result = results.get(phase.getName());
+                    result[0] += phase.getWallTime() / iterations;
+                    result[1] += phase.getAllocatedBytes() / iterations;
+                    result[2] = Math.max(result[2], phase.getPeakHeap());
+                }
+            }
+        }
+
+        return results;
+    }
+
+    protected void report(final String name, final Map<String, long[]> results) {
+        out.println();
+        out.println(name);
+        out.println(String.format("%-50s %12s %12s %15s", "Phase", "Wall (ms)", "Alloc (MB)", "Peak heap (MB)"));
+
+        final long[] total = new long[3];
+        for (final Map.Entry<String, long[]> entry : results.entrySet()) {
+            printRow(entry.getKey(), entry.getValue());
+            total[0] += entry.getValue()[0];
+            total[1] += entry.getValue()[1];
+            total[2] = Math.max(total[2], entry.getValue()[2]);
+        }
+        printRow("Total", total);
+    }
+
+    private void printRow(final String name, final long[] values) {
+        out.println(String.format("%-50s %12.1f %12.1f %15.1f", name, values[0] / 1000000.0, values[1] / (1024.0 * 1024.0),
+                values[2] / (1024.0 * 1024.0)));
+    }
+}
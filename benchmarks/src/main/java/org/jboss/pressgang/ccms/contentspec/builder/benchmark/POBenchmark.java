@@ -0,0 +1,108 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
+import org.jboss.pressgang.ccms.contentspec.builder.exception.BuilderCreationException;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.DocBookBuildingOptions;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.POBuildData;
+import org.jboss.pressgang.ccms.contentspec.builder.utils.POFileWriter;
+import org.jboss.pressgang.ccms.utils.structures.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the preparation of translation strings for PO/POT files. The strings are the contents of the paragraphs in the
+ * synthetic topics, so some are plain text and others contain markup, entities or injections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class POBenchmark {
+    private static final Pattern PARA_PATTERN = Pattern.compile("<para[^>]*>(.*?)</para>");
+
+    private final List<Pair<SpecTopic, String>> translationStrings = new ArrayList<Pair<SpecTopic, String>>();
+    private BenchmarkPODocBookBuilder builder;
+
+    /**
+     * The build data used to clean the strings. A new instance is created for each invocation, so that strings cleaned by
+     * previous invocations aren't cached.
+     */
+    @State(Scope.Thread)
+    public static class POBuildDataState {
+        private POBuildData buildData;
+
+        @Setup(Level.Invocation)
+        public void setup(final CorpusState corpusState) {
+            buildData = new POBuildData("benchmark", corpusState.getCorpus().getContentSpec(), new DocBookBuildingOptions(), null,
+                    corpusState.getProviderFactory(), false);
+            corpusState.getCorpus().populateBuildDatabase(buildData);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup(final CorpusState corpusState) throws BuilderCreationException {
+        builder = new BenchmarkPODocBookBuilder(corpusState.getProviderFactory());
+
+        translationStrings.clear();
+        final SyntheticCorpus corpus = corpusState.getCorpus();
+        for (final SpecTopic specTopic : corpus.getSpecTopics()) {
+            final Matcher matcher = PARA_PATTERN.matcher(corpus.getTopicXML(specTopic));
+            while (matcher.find()) {
+                translationStrings.add(new Pair<SpecTopic, String>(specTopic, matcher.group(1)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void escapeForPOFile(final Blackhole blackhole) {
+        for (final Pair<SpecTopic, String> translationString : translationStrings) {
+            blackhole.consume(POFileWriter.escape(translationString.getSecond(), true));
+        }
+    }
+
+    @Benchmark
+    public void cleanForPublican(final POBuildDataState buildDataState, final Blackhole blackhole) {
+        for (final Pair<SpecTopic, String> translationString : translationStrings) {
+            blackhole.consume(builder.cleanForPublican(buildDataState.buildData, translationString.getFirst(),
+                    translationString.getSecond()));
+        }
+    }
+}
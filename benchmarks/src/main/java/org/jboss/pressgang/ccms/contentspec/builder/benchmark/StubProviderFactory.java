@@ -0,0 +1,145 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.jboss.pressgang.ccms.provider.BlobConstantProvider;
+import org.jboss.pressgang.ccms.provider.DataProviderFactory;
+import org.jboss.pressgang.ccms.provider.ServerSettingsProvider;
+import org.jboss.pressgang.ccms.provider.StringConstantProvider;
+import org.jboss.pressgang.ccms.utils.constants.CommonConstants;
+import org.jboss.pressgang.ccms.wrapper.BlobConstantWrapper;
+import org.jboss.pressgang.ccms.wrapper.LocaleWrapper;
+import org.jboss.pressgang.ccms.wrapper.ServerEntitiesWrapper;
+import org.jboss.pressgang.ccms.wrapper.ServerSettingsWrapper;
+import org.jboss.pressgang.ccms.wrapper.StringConstantWrapper;
+import org.jboss.pressgang.ccms.wrapper.collection.CollectionWrapper;
+
+/**
+ * Creates a stub DataProviderFactory, that provides just enough server settings and constants for a builder and its build data
+ * to be created without a PressGang CCMS server.
+ */
+public class StubProviderFactory {
+    public static final String DEFAULT_LOCALE = "en-US";
+    public static final String SCHEMA_RESOURCE = "/benchmark-docbook.dtd";
+
+    /**
+     * The XML formatting settings used to pretty print the XML.
+     */
+    public static final String XML_FORMATTING_PROPERTIES = CommonConstants.VERBATIM_XML_ELEMENTS_PROPERTY_KEY +
+            "=programlisting, screen, literallayout\n" +
+            CommonConstants.INLINE_XML_ELEMENTS_PROPERTY_KEY + "=xref, emphasis, link, ulink, literal\n" +
+            CommonConstants.CONTENTS_INLINE_XML_ELEMENTS_PROPERTY_KEY + "=title, term, para\n";
+
+    private StubProviderFactory() {
+    }
+
+    /**
+     * Create a stub provider factory.
+     *
+     * @return A provider factory that can be used to create builders and build data.
+     */
+    @SuppressWarnings("unchecked")
+    public static DataProviderFactory create() {
+        final DataProviderFactory providerFactory = mock(DataProviderFactory.class);
+
+        // Server settings
+        final LocaleWrapper locale = mock(LocaleWrapper.class);
+        when(locale.getValue()).thenReturn(DEFAULT_LOCALE);
+        when(locale.getBuildValue()).thenReturn(DEFAULT_LOCALE);
+        final CollectionWrapper<LocaleWrapper> locales = mock(CollectionWrapper.class);
+        when(locales.getItems()).thenReturn(Arrays.asList(locale));
+
+        final ServerEntitiesWrapper serverEntities = mock(ServerEntitiesWrapper.class);
+        final ServerSettingsWrapper serverSettings = mock(ServerSettingsWrapper.class);
+        when(serverSettings.getLocales()).thenReturn(locales);
+        when(serverSettings.getDefaultLocale()).thenReturn(locale);
+        when(serverSettings.getEntities()).thenReturn(serverEntities);
+
+        final ServerSettingsProvider serverSettingsProvider = mock(ServerSettingsProvider.class);
+        when(serverSettingsProvider.getServerSettings()).thenReturn(serverSettings);
+        when(providerFactory.getProvider(ServerSettingsProvider.class)).thenReturn(serverSettingsProvider);
+
+        // String constants. Every constant uses the XML formatting settings, as the builder only parses that constant.
+        final StringConstantWrapper stringConstant = mock(StringConstantWrapper.class);
+        when(stringConstant.getValue()).thenReturn(XML_FORMATTING_PROPERTIES);
+        final StringConstantProvider stringConstantProvider = mock(StringConstantProvider.class);
+        when(stringConstantProvider.getStringConstant(anyInt())).thenReturn(stringConstant);
+        when(providerFactory.getProvider(StringConstantProvider.class)).thenReturn(stringConstantProvider);
+
+        // Blob constants. Every constant uses the benchmark DTD.
+        final BlobConstantWrapper blobConstant = mock(BlobConstantWrapper.class);
+        when(blobConstant.getValue()).thenReturn(getSchema());
+        final BlobConstantProvider blobConstantProvider = mock(BlobConstantProvider.class);
+        when(blobConstantProvider.getBlobConstant(anyInt())).thenReturn(blobConstant);
+        when(providerFactory.getProvider(BlobConstantProvider.class)).thenReturn(blobConstantProvider);
+
+        return providerFactory;
+    }
+
+    /**
+     * Get the DTD that the synthetic topics are valid against.
+     *
+     * @return The DTD content.
+     */
+    public static byte[] getSchema() {
+        return getResource(SCHEMA_RESOURCE);
+    }
+
+    /**
+     * Read a resource from the benchmark classpath.
+     *
+     * @param name The absolute name of the resource.
+     * @return The resource content.
+     */
+    public static byte[] getResource(final String name) {
+        final InputStream inputStream = StubProviderFactory.class.getResourceAsStream(name);
+        if (inputStream == null) {
+            throw new IllegalArgumentException("Unable to find " + name);
+        }
+
+        try {
+            final byte[] buffer = new byte[4096];
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return outputStream.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read " + name, e);
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                // Do nothing
+            }
+        }
+    }
+}
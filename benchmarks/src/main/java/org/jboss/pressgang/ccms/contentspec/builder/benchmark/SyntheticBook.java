@@ -0,0 +1,240 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.jboss.pressgang.ccms.contentspec.Chapter;
+import org.jboss.pressgang.ccms.contentspec.ContentSpec;
+import org.jboss.pressgang.ccms.contentspec.Level;
+import org.jboss.pressgang.ccms.contentspec.Section;
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
+import org.jboss.pressgang.ccms.utils.constants.CommonConstants;
+import org.jboss.pressgang.ccms.utils.structures.DocBookVersion;
+import org.jboss.pressgang.ccms.wrapper.ImageWrapper;
+import org.jboss.pressgang.ccms.wrapper.LanguageImageWrapper;
+import org.jboss.pressgang.ccms.wrapper.LocaleWrapper;
+import org.jboss.pressgang.ccms.wrapper.TopicWrapper;
+import org.jboss.pressgang.ccms.wrapper.TranslatedTopicWrapper;
+
+/**
+ * A synthetic content spec, along with an in-memory server that holds its topics, images and translations. The book is
+ * generated from a seed, so the same settings will always produce the same book.
+ */
+public class SyntheticBook {
+    public static final String TRANSLATION_LOCALE = "ja";
+    public static final int IMAGE_SIZE = 32 * 1024;
+    public static final int TOPICS_PER_LEVEL = 5;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final InMemoryProviderFactory providerFactory;
+    private final ContentSpec contentSpec;
+    private final Random random;
+    private int uniqueTopicCount;
+    private int translatedTopicCount;
+    private int nextTranslatedTopicId = 1;
+
+    /**
+     * @param docBookVersion      The DocBook version the topics should be written in.
+     * @param topicCount          The number of topics in the content spec, including duplicate topics.
+     * @param depth               The maximum depth of the levels in the content spec. A depth of 1 only uses chapters.
+     * @param duplicateRatio      The ratio (between 0 and 1) of topics in the content spec that are duplicates of another topic.
+     * @param imageCount          The number of images used by the topics.
+     * @param translationCoverage The ratio (between 0 and 1) of topics that have been translated.
+     * @param linkDensity         The chance (between 0 and 1) that a paragraph will contain a link or injection to another topic.
+     * @param seed                The seed used to generate the content.
+     */
+    public SyntheticBook(final DocBookVersion docBookVersion, final int topicCount, final int depth, final double duplicateRatio,
+            final int imageCount, final double translationCoverage, final double linkDensity, final long seed) {
+        random = new Random(seed);
+        providerFactory = new InMemoryProviderFactory(StubProviderFactory.DEFAULT_LOCALE, TRANSLATION_LOCALE);
+
+        contentSpec = new ContentSpec();
+        contentSpec.setId(1);
+        contentSpec.setRevision(1);
+        contentSpec.setTitle("Benchmark Book");
+        contentSpec.setProduct("PressGang CCMS");
+        contentSpec.setVersion("1.0");
+        contentSpec.setLocale(StubProviderFactory.DEFAULT_LOCALE);
+        contentSpec.setFormat(docBookVersion == DocBookVersion.DOCBOOK_50 ? CommonConstants.DOCBOOK_50_TITLE :
+                CommonConstants.DOCBOOK_45_TITLE);
+
+        // Create the images, and spread them over the topics
+        uniqueTopicCount = Math.max(1, Math.min(topicCount, (int) Math.round(topicCount * (1 - duplicateRatio))));
+        final Map<Integer, List<Integer>> topicImageIds = new HashMap<Integer, List<Integer>>();
+        for (int i = 0; i < imageCount; i++) {
+            final int imageId = i + 1;
+            final int topicId = SyntheticCorpus.FIRST_TOPIC_ID + (i % uniqueTopicCount);
+            if (!topicImageIds.containsKey(topicId)) {
+                topicImageIds.put(topicId, new ArrayList<Integer>());
+            }
+            topicImageIds.get(topicId).add(imageId);
+            providerFactory.addImage(createImage(imageId));
+        }
+
+        // Create the topics and their translations
+        for (int i = 0; i < uniqueTopicCount; i++) {
+            final int topicId = SyntheticCorpus.FIRST_TOPIC_ID + i;
+            final List<Integer> imageIds = topicImageIds.containsKey(topicId) ? topicImageIds.get(topicId) : new ArrayList<Integer>();
+            final String title = "Topic " + topicId;
+            final String xml = SyntheticCorpus.createTopicXML(docBookVersion, random, topicId, title, uniqueTopicCount, linkDensity,
+                    imageIds);
+
+            final TopicWrapper topic = createTopic(topicId, title, xml);
+            if (random.nextDouble() < translationCoverage) {
+                addTranslations(topic, xml);
+                translatedTopicCount++;
+            }
+            providerFactory.addTopic(topic);
+        }
+
+        // Create the levels and spec topics
+        final LinkedList<Level> levels = new LinkedList<Level>();
+        int levelCount = 0;
+        for (int i = 0; i < topicCount; i++) {
+            if (i % TOPICS_PER_LEVEL == 0) {
+                addLevel(levels, levelCount++, Math.max(1, depth));
+            }
+
+            final int topicId = SyntheticCorpus.FIRST_TOPIC_ID + (i < uniqueTopicCount ? i : random.nextInt(uniqueTopicCount));
+            levels.getLast().appendSpecTopic(new SpecTopic(topicId, "Topic " + topicId));
+        }
+    }
+
+    public ContentSpec getContentSpec() {
+        return contentSpec;
+    }
+
+    public InMemoryProviderFactory getProviderFactory() {
+        return providerFactory;
+    }
+
+    public int getUniqueTopicCount() {
+        return uniqueTopicCount;
+    }
+
+    public int getTranslatedTopicCount() {
+        return translatedTopicCount;
+    }
+
+    /**
+     * Create some image data, that starts with a PNG signature.
+     *
+     * @param size The size of the data in bytes.
+     * @return The image data.
+     */
+    public static byte[] createImageData(final int size) {
+        final byte[] imageData = new byte[Math.max(size, PNG_SIGNATURE.length)];
+        new Random(size).nextBytes(imageData);
+        System.arraycopy(PNG_SIGNATURE, 0, imageData, 0, PNG_SIGNATURE.length);
+        return imageData;
+    }
+
+    /**
+     * Add a new level to the content spec. Levels cycle through each depth, so the content spec has a chapter followed by a
+     * section, then a nested section and so on until the max depth is reached.
+     *
+     * @param levels     The current level at each depth.
+     * @param levelCount The number of levels that have been added to the content spec.
+     * @param maxDepth   The maximum depth of levels.
+     */
+    protected void addLevel(final LinkedList<Level> levels, final int levelCount, final int maxDepth) {
+        final int levelDepth = (levelCount % maxDepth) + 1;
+        while (levels.size() >= levelDepth) {
+            levels.removeLast();
+        }
+
+        if (levelDepth == 1) {
+            final Chapter chapter = new Chapter("Chapter " + (levelCount + 1));
+            contentSpec.appendChapter(chapter);
+            levels.add(chapter);
+        } else {
+            final Section section = new Section("Section " + (levelCount + 1));
+            levels.getLast().appendChild(section);
+            levels.add(section);
+        }
+    }
+
+    protected TopicWrapper createTopic(final int topicId, final String title, final String xml) {
+        final TopicWrapper topic = InMemoryWrappers.create(TopicWrapper.class, "TopicId", "Id", "TopicRevision", "Revision");
+        InMemoryWrappers.set(topic, "Id", topicId);
+        InMemoryWrappers.set(topic, "Revision", 1);
+        InMemoryWrappers.set(topic, "Title", title);
+        InMemoryWrappers.set(topic, "Xml", xml);
+        InMemoryWrappers.set(topic, "Locale", providerFactory.getLocale(StubProviderFactory.DEFAULT_LOCALE));
+        return topic;
+    }
+
+    /**
+     * Add the pushed (default locale) and translated versions of a topic.
+     *
+     * @param topic The topic to add the translations for.
+     * @param xml   The topics XML.
+     */
+    protected void addTranslations(final TopicWrapper topic, final String xml) {
+        final TranslatedTopicWrapper pushedTranslatedTopic = createTranslatedTopic(topic, xml, StubProviderFactory.DEFAULT_LOCALE);
+        final TranslatedTopicWrapper translatedTopic = createTranslatedTopic(topic, xml, TRANSLATION_LOCALE);
+        InMemoryWrappers.setCollection(topic, "TranslatedTopics", Arrays.asList(pushedTranslatedTopic, translatedTopic));
+    }
+
+    protected TranslatedTopicWrapper createTranslatedTopic(final TopicWrapper topic, final String xml, final String locale) {
+        final int translatedTopicId = nextTranslatedTopicId++;
+        final TranslatedTopicWrapper translatedTopic = InMemoryWrappers.create(TranslatedTopicWrapper.class);
+        InMemoryWrappers.set(translatedTopic, "Id", translatedTopicId);
+        InMemoryWrappers.set(translatedTopic, "TranslatedTopicId", translatedTopicId);
+        InMemoryWrappers.set(translatedTopic, "TopicId", topic.getId());
+        InMemoryWrappers.set(translatedTopic, "TopicRevision", topic.getRevision());
+        InMemoryWrappers.set(translatedTopic, "Title", topic.getTitle());
+        InMemoryWrappers.set(translatedTopic, "Xml", xml);
+        InMemoryWrappers.set(translatedTopic, "Locale", providerFactory.getLocale(locale));
+        InMemoryWrappers.set(translatedTopic, "TranslationPercentage", 100);
+        InMemoryWrappers.set(translatedTopic, "ContainsFuzzyTranslations", false);
+        InMemoryWrappers.set(translatedTopic, "Topic", topic);
+        providerFactory.addTranslatedTopic(translatedTopic);
+        return translatedTopic;
+    }
+
+    protected ImageWrapper createImage(final int imageId) {
+        final List<LanguageImageWrapper> languageImages = new ArrayList<LanguageImageWrapper>();
+        for (final String locale : Arrays.asList(StubProviderFactory.DEFAULT_LOCALE, TRANSLATION_LOCALE)) {
+            final LocaleWrapper localeWrapper = providerFactory.getLocale(locale);
+            final LanguageImageWrapper languageImage = InMemoryWrappers.create(LanguageImageWrapper.class);
+            InMemoryWrappers.set(languageImage, "Id", imageId);
+            InMemoryWrappers.set(languageImage, "Locale", localeWrapper);
+            InMemoryWrappers.set(languageImage, "Filename", imageId + ".png");
+            InMemoryWrappers.set(languageImage, "OriginalFileName", imageId + ".png");
+            InMemoryWrappers.set(languageImage, "ImageData", createImageData(IMAGE_SIZE));
+            languageImages.add(languageImage);
+        }
+
+        final ImageWrapper image = InMemoryWrappers.create(ImageWrapper.class);
+        InMemoryWrappers.set(image, "Id", imageId);
+        InMemoryWrappers.setCollection(image, "LanguageImages", languageImages);
+        return image;
+    }
+}
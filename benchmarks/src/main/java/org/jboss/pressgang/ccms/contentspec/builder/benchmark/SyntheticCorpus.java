@@ -0,0 +1,224 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.jboss.pressgang.ccms.contentspec.Chapter;
+import org.jboss.pressgang.ccms.contentspec.ContentSpec;
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.BuildData;
+import org.jboss.pressgang.ccms.contentspec.builder.utils.DocBookBuildUtilities;
+import org.jboss.pressgang.ccms.utils.common.TopicUtilities;
+import org.jboss.pressgang.ccms.utils.constants.CommonConstants;
+import org.jboss.pressgang.ccms.utils.structures.DocBookVersion;
+import org.jboss.pressgang.ccms.wrapper.TopicWrapper;
+import org.w3c.dom.Document;
+
+/**
+ * A synthetic set of DocBook topics and a content spec that uses them. The topics are generated from a seed, so the same
+ * parameters will always produce the same corpus.
+ */
+public class SyntheticCorpus {
+    public static final int FIRST_TOPIC_ID = 1000;
+    public static final int TOPICS_PER_CHAPTER = 10;
+    public static final int PARAS_PER_TOPIC = 12;
+
+    private static final String[] WORDS = {"the", "builder", "topic", "content", "specification", "server", "book", "publican",
+            "translation", "section", "chapter", "injection", "link", "build", "&", "<", ">", "\"quoted\"", "value", "with"};
+
+    private final DocBookVersion docBookVersion;
+    private final ContentSpec contentSpec;
+    private final List<SpecTopic> specTopics = new ArrayList<SpecTopic>();
+    private final Map<SpecTopic, String> topicXML = new LinkedHashMap<SpecTopic, String>();
+
+    /**
+     * @param docBookVersion The DocBook version the topics should be written in.
+     * @param topicCount     The number of topics to generate.
+     * @param linkDensity    The chance (between 0 and 1) that a paragraph will contain a link or injection to another topic.
+     * @param seed           The seed used to generate the content.
+     */
+    public SyntheticCorpus(final DocBookVersion docBookVersion, final int topicCount, final double linkDensity, final long seed) {
+        this.docBookVersion = docBookVersion;
+        final Random random = new Random(seed);
+
+        contentSpec = new ContentSpec();
+        contentSpec.setTitle("Benchmark Book");
+        contentSpec.setProduct("PressGang CCMS");
+        contentSpec.setVersion("1.0");
+        contentSpec.setLocale(StubProviderFactory.DEFAULT_LOCALE);
+        contentSpec.setFormat(docBookVersion == DocBookVersion.DOCBOOK_50 ? CommonConstants.DOCBOOK_50_TITLE :
+                CommonConstants.DOCBOOK_45_TITLE);
+
+        Chapter chapter = null;
+        for (int i = 0; i < topicCount; i++) {
+            if (i % TOPICS_PER_CHAPTER == 0) {
+                chapter = new Chapter("Chapter " + (i / TOPICS_PER_CHAPTER + 1));
+                contentSpec.appendChapter(chapter);
+            }
+
+            final int topicId = FIRST_TOPIC_ID + i;
+            final String title = "Topic " + topicId;
+            final String xml = createTopicXML(docBookVersion, random, topicId, title, topicCount, linkDensity,
+                    Collections.<Integer>emptyList());
+
+            final SpecTopic specTopic = new SpecTopic(topicId, title);
+            specTopic.setTopic(createTopic(topicId, title, xml));
+            chapter.appendSpecTopic(specTopic);
+
+            specTopics.add(specTopic);
+            topicXML.put(specTopic, xml);
+        }
+    }
+
+    public DocBookVersion getDocBookVersion() {
+        return docBookVersion;
+    }
+
+    public ContentSpec getContentSpec() {
+        return contentSpec;
+    }
+
+    public List<SpecTopic> getSpecTopics() {
+        return Collections.unmodifiableList(specTopics);
+    }
+
+    public String getTopicXML(final SpecTopic specTopic) {
+        return topicXML.get(specTopic);
+    }
+
+    /**
+     * Parse the XML for each topic into a new DOM Document.
+     *
+     * @return A mapping of the spec topics to their parsed XML, in the same order as the topics.
+     */
+    public Map<SpecTopic, Document> createDocuments() {
+        final Map<SpecTopic, Document> documents = new LinkedHashMap<SpecTopic, Document>();
+        for (final Map.Entry<SpecTopic, String> entry : topicXML.entrySet()) {
+            try {
+                documents.put(entry.getKey(), TopicUtilities.convertXMLStringToDocument(entry.getValue(), docBookVersion.getId()));
+            } catch (Exception e) {
+                throw new IllegalStateException("Unable to parse the XML for " + entry.getKey().getTitle(), e);
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Add the topics and levels in the corpus to the build database of some build data.
+     *
+     * @param buildData The build data to add the topics to.
+     */
+    public void populateBuildDatabase(final BuildData buildData) {
+        for (final SpecTopic specTopic : specTopics) {
+            buildData.getBuildDatabase().add(specTopic, DocBookBuildUtilities.getTopicBuildKey(specTopic.getTopic()));
+        }
+        buildData.getBuildDatabase().setDatabaseDuplicateIds();
+    }
+
+    /**
+     * Create the XML for a synthetic topic. Links and injections will point to topics with ids in the range of
+     * {@link #FIRST_TOPIC_ID} to {@link #FIRST_TOPIC_ID} + topicCount.
+     *
+     * @param docBookVersion The DocBook version the topic should be written in.
+     * @param random         The random number generator used to generate the content.
+     * @param topicId        The id of the topic.
+     * @param title          The title of the topic.
+     * @param topicCount     The number of topics that can be linked to.
+     * @param linkDensity    The chance (between 0 and 1) that a paragraph will contain a link or injection to another topic.
+     * @param imageIds       The ids of the images that the topic should display.
+     * @return The topic XML.
+     */
+    public static String createTopicXML(final DocBookVersion docBookVersion, final Random random, final int topicId,
+            final String title, final int topicCount, final double linkDensity, final List<Integer> imageIds) {
+        final String idAttribute = docBookVersion == DocBookVersion.DOCBOOK_50 ? "xml:id" : "id";
+        final StringBuilder xml = new StringBuilder();
+        if (docBookVersion == DocBookVersion.DOCBOOK_50) {
+            xml.append("<section xmlns=\"http://docbook.org/ns/docbook\" version=\"5.0\">");
+        } else {
+            xml.append("<section>");
+        }
+        xml.append("<title>").append(title).append("</title>");
+        for (final Integer imageId : imageIds) {
+            xml.append("<mediaobject><imageobject><imagedata fileref=\"images/").append(imageId).append(
+                    ".png\"/></imageobject></mediaobject>");
+        }
+
+        for (int i = 0; i < PARAS_PER_TOPIC; i++) {
+            if (i % 4 == 3) {
+                xml.append("<programlisting language=\"Java\">final String value = \"").append(i).append("\";</programlisting>");
+                continue;
+            } else if (i == PARAS_PER_TOPIC - 1) {
+                // Every topic uses the same id for its note, so the ids need to be made unique when building
+                xml.append("<note ").append(idAttribute).append("=\"benchmark-note\"><title>Note</title><para>")
+                        .append(createSentence(random)).append("</para></note>");
+                continue;
+            }
+
+            xml.append("<para ").append(idAttribute).append("=\"topic-").append(topicId).append("-para-").append(i).append("\">");
+            xml.append(createSentence(random));
+            if (random.nextDouble() < linkDensity) {
+                final int linkedTopicId = FIRST_TOPIC_ID + random.nextInt(topicCount);
+                if (random.nextBoolean()) {
+                    xml.append(" Refer to <xref linkend=\"topic-").append(linkedTopicId).append("-para-0\"/>.");
+                } else {
+                    xml.append(" <!-- Inject: ").append(linkedTopicId).append(" -->");
+                }
+            }
+            if (random.nextBoolean()) {
+                xml.append(" <emphasis>").append(createSentence(random)).append("</emphasis>");
+            }
+            xml.append("</para>");
+        }
+
+        xml.append("</section>");
+        return xml.toString();
+    }
+
+    public static String createSentence(final Random random) {
+        final StringBuilder sentence = new StringBuilder("This");
+        final int length = 5 + random.nextInt(15);
+        for (int i = 0; i < length; i++) {
+            final String word = WORDS[random.nextInt(WORDS.length)];
+            sentence.append(' ').append(word.equals("&") ? "&amp;" : word.equals("<") ? "&lt;" : word.equals(">") ? "&gt;" : word);
+        }
+        return sentence.append('.').toString();
+    }
+
+    protected TopicWrapper createTopic(final int topicId, final String title, final String xml) {
+        final TopicWrapper topic = mock(TopicWrapper.class);
+        when(topic.getId()).thenReturn(topicId);
+        when(topic.getTopicId()).thenReturn(topicId);
+        when(topic.getRevision()).thenReturn(1);
+        when(topic.getTopicRevision()).thenReturn(1);
+        when(topic.getTitle()).thenReturn(title);
+        when(topic.getXml()).thenReturn(xml);
+        return topic;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.pressgang.ccms.contentspec.builder.constants.BuilderConstants;
+import org.jboss.pressgang.ccms.contentspec.builder.utils.XMLValidatorPool;
+import org.jboss.pressgang.ccms.contentspec.constants.CSConstants;
+import org.jboss.pressgang.ccms.utils.common.DocBookUtilities;
+import org.jboss.pressgang.ccms.utils.common.XMLUtilities;
+import org.jboss.pressgang.ccms.utils.common.XMLValidator;
+import org.jboss.pressgang.ccms.utils.structures.DocBookVersion;
+import org.jboss.pressgang.ccms.utils.structures.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+
+/**
+ * Benchmarks the topic validation done when building, using the same wrapping and {@link XMLValidatorPool} as
+ * DocBookBuilder.validateTopicXML(). The real DTD is provided by the server, so the topics are validated against a minimal
+ * DocBook 4.5 DTD that covers the elements used in the synthetic topics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ValidationBenchmark {
+    @Param({"100", "1000"})
+    public int topicCount;
+
+    @Param({"0.1", "0.5"})
+    public double linkDensity;
+
+    /**
+     * Whether the validator pool should remember previous results. When false every topic is validated on every invocation.
+     */
+    @Param({"true", "false"})
+    public boolean cacheResults;
+
+    private final List<Pair<String, String>> wrappedTopics = new ArrayList<Pair<String, String>>();
+    private byte[] schema;
+    private String entities;
+    private XMLValidatorPool validatorPool;
+    private String validatorKey;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SyntheticCorpus corpus = new SyntheticCorpus(DocBookVersion.DOCBOOK_45, topicCount, linkDensity, CorpusState.SEED);
+        wrappedTopics.clear();
+        for (final Document doc : corpus.createDocuments().values()) {
+            final String xml = XMLUtilities.convertDocumentToString(doc, "UTF-8");
+            wrappedTopics.add(DocBookUtilities.wrapForValidation(DocBookVersion.DOCBOOK_45, xml));
+        }
+
+        schema = StubProviderFactory.getSchema();
+        entities = CSConstants.DUMMY_CS_NAME_ENT_FILE;
+        validatorPool = new XMLValidatorPool(cacheResults ? topicCount : 0);
+        validatorKey = validatorPool.getKey(DocBookVersion.DOCBOOK_45, XMLValidator.ValidationMethod.DTD, schema, entities);
+    }
+
+    @Benchmark
+    public void validateTopicXML(final Blackhole blackhole) {
+        for (final Pair<String, String> wrappedTopic : wrappedTopics) {
+            blackhole.consume(validatorPool.validate(validatorKey, XMLValidator.ValidationMethod.DTD, wrappedTopic.getSecond(),
+                    BuilderConstants.ROCBOOK_45_DTD, schema, entities, wrappedTopic.getFirst()));
+        }
+    }
+}
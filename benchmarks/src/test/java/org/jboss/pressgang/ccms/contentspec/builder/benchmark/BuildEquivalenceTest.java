@@ -0,0 +1,316 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.jboss.pressgang.ccms.contentspec.Chapter;
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
+import org.jboss.pressgang.ccms.contentspec.builder.BuildType;
+import org.jboss.pressgang.ccms.contentspec.builder.ContentSpecBuilder;
+import org.jboss.pressgang.ccms.contentspec.builder.DocBookBuilder;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.DocBookBuildingOptions;
+import org.jboss.pressgang.ccms.provider.TopicProvider;
+import org.jboss.pressgang.ccms.utils.structures.DocBookVersion;
+import org.jboss.pressgang.ccms.wrapper.TopicWrapper;
+import org.jboss.pressgang.ccms.zanata.ZanataDetails;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that the different ways of building a book produce the same output as a plain serial build. The build date is the
+ * only thing that is expected to differ between two builds, so it is removed from the output before comparing.
+ */
+public class BuildEquivalenceTest {
+    private static final String REQUESTER = "test";
+    private static final int THREAD_COUNT = 4;
+    // Builds store binary files (images) as well as text, so use an encoding that maps every byte to a character
+    private static final String OUTPUT_ENCODING = "ISO-8859-1";
+    private static final int CHANGED_TOPIC_ID = SyntheticCorpus.FIRST_TOPIC_ID + 1;
+    private static final int INJECTED_TOPIC_ID = SyntheticCorpus.FIRST_TOPIC_ID + 10000;
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldBuildTheSameBookInParallel() throws Exception {
+        for (final BuildType buildType : BuildType.values()) {
+            final Map<String, String> serialBuild = build(buildType, false, createBuildingOptions(1));
+            final Map<String, String> parallelBuild = build(buildType, false, createBuildingOptions(THREAD_COUNT));
+            assertSameBuild(buildType.name(), serialBuild, parallelBuild);
+        }
+    }
+
+    @Test
+    public void shouldBuildTheSameTranslatedBookInParallel() throws Exception {
+        for (final BuildType buildType : BuildType.values()) {
+            final Map<String, String> serialBuild = build(buildType, true, createBuildingOptions(1));
+            final Map<String, String> parallelBuild = build(buildType, true, createBuildingOptions(THREAD_COUNT));
+            assertSameBuild(buildType.name() + " " + SyntheticBook.TRANSLATION_LOCALE, serialBuild, parallelBuild);
+        }
+    }
+
+    @Test
+    public void shouldBuildTheSameBookWhenStreamed() throws Exception {
+        for (final BuildType buildType : BuildType.values()) {
+            for (final boolean translation : new boolean[]{false, true}) {
+                final String name = buildType.name() + (translation ? " " + SyntheticBook.TRANSLATION_LOCALE : "") + " Streamed";
+                final Map<String, String> build = build(buildType, translation, createBuildingOptions(THREAD_COUNT));
+                final Map<String, String> streamedBuild = buildStreamed(buildType, translation, createBuildingOptions(THREAD_COUNT));
+                assertSameBuild(name, build, streamedBuild);
+            }
+        }
+    }
+
+    @Test
+    public void shouldBuildTheSameBookFromTheTopicCache() throws Exception {
+        // Given a topic cache that has been filled by a build
+        final File cacheDirectory = folder.newFolder("cache");
+        final Map<String, String> uncachedBuild = build(BuildType.PUBLICAN, false, createCachedBuildingOptions(cacheDirectory));
+        assertTrue(cacheDirectory.list().length > 0);
+
+        // When the book is built again using the cache
+        final Map<String, String> cachedBuild = build(BuildType.PUBLICAN, false, createCachedBuildingOptions(cacheDirectory));
+
+        // Then the output should be the same
+        assertSameBuild("Cached", uncachedBuild, cachedBuild);
+    }
+
+    @Test
+    public void shouldBuildTheSameBookIncrementally() throws Exception {
+        // Given a previous build of the book
+        final Map<String, byte[]> previousBuild = buildDocBook(createBook(), null);
+
+        // When the unchanged book is built incrementally
+        final Map<String, byte[]> incrementalBuild = buildDocBook(createBook(), previousBuild);
+
+        // Then the output should be the same as the previous build
+        assertSameBuild("Incremental", normalise(previousBuild), normalise(incrementalBuild));
+    }
+
+    @Test
+    public void shouldRebuildChangedTopicsIncrementally() throws Exception {
+        // Given a previous build of the book
+        final Map<String, byte[]> previousBuild = buildDocBook(createBook(), null);
+
+        // When a topic has changed and the book is built incrementally
+        final Map<String, byte[]> incrementalBuild = buildDocBook(changeTopic(createBook()), previousBuild);
+
+        // Then the output should be the same as a full build of the changed book
+        final Map<String, byte[]> fullBuild = buildDocBook(changeTopic(createBook()), null);
+        assertSameBuild("Changed Incremental", normalise(fullBuild), normalise(incrementalBuild));
+        assertFalse(normalise(previousBuild).equals(normalise(incrementalBuild)));
+    }
+
+    @Test
+    public void shouldRebuildTopicsWhenAnInjectedTopicIsAdded() throws Exception {
+        // Given a previous build of a book where a topic injects a topic that isn't in the book
+        final Map<String, byte[]> previousBuild = buildDocBook(injectTopic(createBook(), false), null);
+
+        // When the injected topic is added to the book and the book is built incrementally
+        final Map<String, byte[]> incrementalBuild = buildDocBook(injectTopic(createBook(), true), previousBuild);
+
+        // Then the output should be the same as a full build, which includes the injected link
+        final Map<String, byte[]> fullBuild = buildDocBook(injectTopic(createBook(), true), null);
+        assertSameBuild("Injected Incremental", normalise(fullBuild), normalise(incrementalBuild));
+    }
+
+    protected SyntheticBook createBook() {
+        return new SyntheticBook(DocBookVersion.DOCBOOK_45, 40, 3, 0.1, 5, 0.5, 0.3, 20140101L);
+    }
+
+    protected DocBookBuildingOptions createBuildingOptions(final int threadCount) {
+        final DocBookBuildingOptions options = new DocBookBuildingOptions();
+        options.setThreadCount(threadCount);
+        // Bug links include the build date, and can't be built incrementally
+        options.setInsertBugLinks(false);
+        return options;
+    }
+
+    protected DocBookBuildingOptions createCachedBuildingOptions(final File cacheDirectory) {
+        final DocBookBuildingOptions options = createBuildingOptions(THREAD_COUNT);
+        options.setTopicCacheDirectory(cacheDirectory.getAbsolutePath());
+        return options;
+    }
+
+    /**
+     * Build the synthetic book, and extract the files from the built zip archive.
+     *
+     * @param buildType   The type of build to run.
+     * @param translation Whether the book should be built as a translation.
+     * @param options     The options to build with.
+     * @return The normalised contents of each file in the build, mapped by their path.
+     * @throws Exception Thrown if the build fails.
+     */
+    protected Map<String, String> build(final BuildType buildType, final boolean translation,
+            final DocBookBuildingOptions options) throws Exception {
+        // The builder modifies the content spec, so build a fresh copy each time
+        final SyntheticBook book = createBook();
+        final ContentSpecBuilder builder = new ContentSpecBuilder(book.getProviderFactory().getProviderFactory());
+
+        final byte[] zip;
+        if (translation) {
+            options.setLocale(SyntheticBook.TRANSLATION_LOCALE);
+            zip = builder.buildTranslatedBook(book.getContentSpec(), REQUESTER, options, new ZanataDetails(), buildType);
+        } else {
+            zip = builder.buildBook(book.getContentSpec(), REQUESTER, options, buildType);
+        }
+
+        return normalise(unzip(zip));
+    }
+
+    /**
+     * Build the synthetic book by streaming the zip archive to an output stream, and extract the files from the archive.
+     *
+     * @param buildType   The type of build to run.
+     * @param translation Whether the book should be built as a translation.
+     * @param options     The options to build with.
+     * @return The normalised contents of each file in the build, mapped by their path.
+     * @throws Exception Thrown if the build fails.
+     */
+    protected Map<String, String> buildStreamed(final BuildType buildType, final boolean translation,
+            final DocBookBuildingOptions options) throws Exception {
+        final SyntheticBook book = createBook();
+        final ContentSpecBuilder builder = new ContentSpecBuilder(book.getProviderFactory().getProviderFactory());
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        if (translation) {
+            options.setLocale(SyntheticBook.TRANSLATION_LOCALE);
+            builder.buildTranslatedBook(book.getContentSpec(), REQUESTER, options, new HashMap<String, byte[]>(), new ZanataDetails(),
+                    buildType, outputStream);
+        } else {
+            builder.buildBook(book.getContentSpec(), REQUESTER, options, new HashMap<String, byte[]>(), buildType, outputStream);
+        }
+
+        return normalise(unzip(outputStream.toByteArray()));
+    }
+
+    /**
+     * Build the synthetic book as DocBook, creating a build manifest so the output can be used for an incremental build.
+     *
+     * @param book          The book to build.
+     * @param previousBuild The files from a previous build, or null if the book shouldn't be built incrementally.
+     * @return The files in the build, mapped by their path.
+     * @throws Exception Thrown if the build fails.
+     */
+    protected Map<String, byte[]> buildDocBook(final SyntheticBook book, final Map<String, byte[]> previousBuild) throws Exception {
+        final DocBookBuilder builder = new DocBookBuilder(book.getProviderFactory().getProviderFactory());
+        final DocBookBuildingOptions options = createBuildingOptions(THREAD_COUNT);
+        options.setCreateBuildManifest(true);
+        return builder.buildBook(book.getContentSpec(), REQUESTER, options, null, previousBuild);
+    }
+
+    /**
+     * Add some content to a topic in the book, and update its revision.
+     *
+     * @param book The book to change.
+     * @return The changed book.
+     */
+    protected SyntheticBook changeTopic(final SyntheticBook book) {
+        final TopicWrapper topic = book.getProviderFactory().getProviderFactory().getProvider(TopicProvider.class).getTopic(
+                CHANGED_TOPIC_ID);
+        InMemoryWrappers.set(topic, "Revision", topic.getRevision() + 1);
+        InMemoryWrappers.set(topic, "Xml", topic.getXml().replaceFirst("</title>", "</title><para>Some changed content.</para>"));
+        return book;
+    }
+
+    /**
+     * Add a custom injection of a new topic to a topic in the book.
+     *
+     * @param book                 The book to change.
+     * @param includeInjectedTopic Whether the injected topic should be added to the content spec.
+     * @return The changed book.
+     */
+    protected SyntheticBook injectTopic(final SyntheticBook book, final boolean includeInjectedTopic) {
+        final TopicWrapper topic = book.getProviderFactory().getProviderFactory().getProvider(TopicProvider.class).getTopic(
+                CHANGED_TOPIC_ID);
+        InMemoryWrappers.set(topic, "Xml", topic.getXml().replaceFirst("</title>",
+                "</title><para><!-- Inject: " + INJECTED_TOPIC_ID + " --></para>"));
+
+        final String title = "Topic " + INJECTED_TOPIC_ID;
+        book.getProviderFactory().addTopic(book.createTopic(INJECTED_TOPIC_ID, title,
+                "<section><title>" + title + "</title><para>Some injected content.</para></section>"));
+        if (includeInjectedTopic) {
+            final Chapter chapter = new Chapter("Injected Chapter");
+            chapter.appendSpecTopic(new SpecTopic(INJECTED_TOPIC_ID, title));
+            book.getContentSpec().appendChapter(chapter);
+        }
+        return book;
+    }
+
+    protected static Map<String, byte[]> unzip(final byte[] zip) throws IOException {
+        final Map<String, byte[]> files = new TreeMap<String, byte[]>();
+        final ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zip));
+        try {
+            final byte[] buffer = new byte[8192];
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                int count;
+                while ((count = zipInputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, count);
+                }
+                // Streamed builds can't replace entries, so make sure that no file was written more than once
+                assertFalse("Duplicate entry " + entry.getName(), files.containsKey(entry.getName()));
+                files.put(entry.getName(), outputStream.toByteArray());
+            }
+        } finally {
+            zipInputStream.close();
+        }
+        return files;
+    }
+
+    /**
+     * Remove the build date from the files in a build, as it will differ between two builds.
+     *
+     * @param files The files in the build.
+     * @return The normalised contents of each file, mapped by their path.
+     * @throws UnsupportedEncodingException Thrown if the output encoding isn't supported.
+     */
+    protected static Map<String, String> normalise(final Map<String, byte[]> files) throws UnsupportedEncodingException {
+        final Map<String, String> normalisedFiles = new TreeMap<String, String>();
+        for (final Map.Entry<String, byte[]> file : files.entrySet()) {
+            final String content = new String(file.getValue(), OUTPUT_ENCODING);
+            normalisedFiles.put(file.getKey(), content.replaceAll("<date>[^<]*</date>", "<date></date>").replaceAll(
+                    "(POT-Creation-Date|PO-Revision-Date): [^\"\\\\]*", "$1: "));
+        }
+        return normalisedFiles;
+    }
+
+    protected static void assertSameBuild(final String name, final Map<String, String> expected, final Map<String, String> actual) {
+        assertEquals(name + " build files", expected.keySet(), actual.keySet());
+        for (final Map.Entry<String, String> file : expected.entrySet()) {
+            assertEquals(name + " build file " + file.getKey(), file.getValue(), actual.get(file.getKey()));
+        }
+    }
+}
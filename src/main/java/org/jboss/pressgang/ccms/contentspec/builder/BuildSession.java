@@ -0,0 +1,466 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.jboss.pressgang.ccms.contentspec.ContentSpec;
+import org.jboss.pressgang.ccms.contentspec.builder.exception.BuildProcessingException;
+import org.jboss.pressgang.ccms.contentspec.builder.exception.BuilderCreationException;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.DocBookBuildingOptions;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.SharedSourceData;
+import org.jboss.pressgang.ccms.contentspec.interfaces.ShutdownAbleApp;
+import org.jboss.pressgang.ccms.utils.common.ZipUtilities;
+import org.jboss.pressgang.ccms.zanata.ZanataDetails;
+
+/**
+ * A single build, or set of locale builds, started from a {@link ContentSpecBuilder}. Each session creates its own DocBook
+ * builders, so the state, warnings and errors of a build are isolated from any other builds that are running at the same time,
+ * while the resources, caches and validators used by the builders are shared.
+ * <p/>
+ * A session can only run one build at a time, so a separate session should be created for each concurrent build.
+ */
+public class BuildSession implements ShutdownAbleApp {
+    private final AtomicBoolean isShuttingDown = new AtomicBoolean(false);
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+    private final AtomicBoolean building = new AtomicBoolean(false);
+
+    private final ContentSpecBuilder contentSpecBuilder;
+    private final List<DocBookBuilder> builders = new ArrayList<DocBookBuilder>();
+
+    protected BuildSession(final ContentSpecBuilder contentSpecBuilder) {
+        this.contentSpecBuilder = contentSpecBuilder;
+    }
+
+    @Override
+    public void shutdown() {
+        isShuttingDown.set(true);
+        synchronized (builders) {
+            for (final DocBookBuilder builder : builders) {
+                builder.shutdown();
+            }
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown.get();
+    }
+
+    /**
+     * Gets the number of warnings that occurred during the last build in this session.
+     *
+     * @return The number of warnings that occurred.
+     */
+    public int getNumWarnings() {
+        int numWarnings = 0;
+        synchronized (builders) {
+            for (final DocBookBuilder builder : builders) {
+                numWarnings += builder.getNumWarnings();
+            }
+        }
+        return numWarnings;
+    }
+
+    /**
+     * Gets the number of errors that occurred during the last build in this session.
+     *
+     * @return The number of errors that occurred.
+     */
+    public int getNumErrors() {
+        int numErrors = 0;
+        synchronized (builders) {
+            for (final DocBookBuilder builder : builders) {
+                numErrors += builder.getNumErrors();
+            }
+        }
+        return numErrors;
+    }
+
+    /**
+     * Builds a book into a zip file for the passed Content Specification.
+     *
+     * @param contentSpec    The content specification that is to be built. It should have already been validated, if not errors may occur.
+     * @param requester      The user who requested the book to be built.
+     * @param builderOptions The set of options what are to be when building the book.
+     * @param buildType
+     * @return A byte array that is the zip file
+     * @throws BuildProcessingException Any unexpected errors that occur during building.
+     * @throws BuilderCreationException Any error that occurs while trying to setup/create the builder
+     */
+    public byte[] buildBook(final ContentSpec contentSpec, final String requester, final DocBookBuildingOptions builderOptions,
+            final BuildType buildType) throws BuilderCreationException, BuildProcessingException {
+        return buildBook(contentSpec, requester, builderOptions, new HashMap<String, byte[]>(), buildType);
+    }
+
+    /**
+     * Builds a book into a zip file for the passed Content Specification.
+     *
+     * @param contentSpec    The content specification that is to be built. It should have already been validated, if not errors may occur.
+     * @param requester      The user who requested the book to be built.
+     * @param builderOptions The set of options what are to be when building the book.
+     * @param overrideFiles
+     * @param buildType
+     * @return A byte array that is the zip file
+     * @throws BuildProcessingException Any unexpected errors that occur during building.
+     * @throws BuilderCreationException Any error that occurs while trying to setup/create the builder
+     */
+    public byte[] buildBook(final ContentSpec contentSpec, final String requester, final DocBookBuildingOptions builderOptions,
+            final Map<String, byte[]> overrideFiles, final BuildType buildType) throws BuilderCreationException, BuildProcessingException {
+        checkBuildParameters(contentSpec, requester);
+
+        startBuild();
+        try {
+            final DocBookBuilder docbookBuilder = addBuilder(buildType);
+            final HashMap<String, byte[]> files = docbookBuilder.buildBook(contentSpec, requester, builderOptions, overrideFiles);
+
+            // Create the zip file
+            return createZip(files);
+        } finally {
+            finishBuild();
+        }
+    }
+
+    /**
+     * Builds a book into a zip file for the passed Content Specification.
+     *
+     * @param contentSpec    The content specification that is to be built. It should have already been validated, if not errors may occur.
+     * @param requester      The user who requested the book to be built.
+     * @param builderOptions The set of options what are to be when building the book.
+     * @param zanataDetails  The Zanata details to be used when editor links are turned on.
+     * @param buildType
+     * @return A byte array that is the zip file
+     * @throws BuildProcessingException Any unexpected errors that occur during building.
+     * @throws BuilderCreationException Any error that occurs while trying to setup/create the builder
+     */
+    public byte[] buildTranslatedBook(final ContentSpec contentSpec, final String requester, final DocBookBuildingOptions builderOptions,
+            final ZanataDetails zanataDetails, final BuildType buildType) throws BuilderCreationException, BuildProcessingException {
+        return buildTranslatedBook(contentSpec, requester, builderOptions, new HashMap<String, byte[]>(), zanataDetails, buildType);
+    }
+
+    /**
+     * Builds a book into a zip file for the passed Content Specification.
+     *
+     * @param contentSpec    The content specification that is to be built. It should have already been validated, if not errors may occur.
+     * @param requester      The user who requested the book to be built.
+     * @param builderOptions The set of options what are to be when building the book.
+     * @param overrideFiles
+     * @param zanataDetails  The Zanata details to be used when editor links are turned on.
+     * @param buildType
+     * @return A byte array that is the zip file
+     * @throws BuildProcessingException Any unexpected errors that occur during building.
+     * @throws BuilderCreationException Any error that occurs while trying to setup/create the builder
+     */
+    public byte[] buildTranslatedBook(final ContentSpec contentSpec, final String requester, final DocBookBuildingOptions builderOptions,
+            final Map<String, byte[]> overrideFiles, final ZanataDetails zanataDetails,
+            final BuildType buildType) throws BuilderCreationException, BuildProcessingException {
+        checkBuildParameters(contentSpec, requester);
+
+        startBuild();
+        try {
+            final DocBookBuilder docbookBuilder = addBuilder(buildType);
+
+            // Always skip nested section validation for translation builds
+            builderOptions.setSkipNestedSectionValidation(true);
+
+            final HashMap<String, byte[]> files = docbookBuilder.buildTranslatedBook(contentSpec, requester, builderOptions,
+                    overrideFiles, zanataDetails);
+
+            // Create the zip file
+            return createZip(files);
+        } finally {
+            finishBuild();
+        }
+    }
+
+    /**
+     * Builds a book into a zip file for the passed Content Specification, and writes the zip file to an OutputStream as the book
+     * is built.
+     *
+     * @param contentSpec    The content specification that is to be built. It should have already been validated, if not errors may occur.
+     * @param requester      The user who requested the book to be built.
+     * @param builderOptions The set of options what are to be when building the book.
+     * @param overrideFiles
+     * @param buildType
+     * @param outputStream   The stream to write the zip file to. The stream is not closed once the book has been built.
+     * @throws BuildProcessingException Any unexpected errors that occur during building.
+     * @throws BuilderCreationException Any error that occurs while trying to setup/create the builder
+     */
+    public void buildBook(final ContentSpec contentSpec, final String requester, final DocBookBuildingOptions builderOptions,
+            final Map<String, byte[]> overrideFiles, final BuildType buildType,
+            final OutputStream outputStream) throws BuilderCreationException, BuildProcessingException {
+        checkBuildParameters(contentSpec, requester);
+
+        startBuild();
+        try {
+            final DocBookBuilder docbookBuilder = addBuilder(buildType);
+            docbookBuilder.buildBook(contentSpec, requester, builderOptions, overrideFiles, outputStream);
+        } finally {
+            finishBuild();
+        }
+    }
+
+    /**
+     * Builds a book into a zip file for the passed Content Specification, and writes the zip file to an OutputStream as the book
+     * is built.
+     *
+     * @param contentSpec    The content specification that is to be built. It should have already been validated, if not errors may occur.
+     * @param requester      The user who requested the book to be built.
+     * @param builderOptions The set of options what are to be when building the book.
+     * @param overrideFiles
+     * @param zanataDetails  The Zanata details to be used when editor links are turned on.
+     * @param buildType
+     * @param outputStream   The stream to write the zip file to. The stream is not closed once the book has been built.
+     * @throws BuildProcessingException Any unexpected errors that occur during building.
+     * @throws BuilderCreationException Any error that occurs while trying to setup/create the builder
+     */
+    public void buildTranslatedBook(final ContentSpec contentSpec, final String requester, final DocBookBuildingOptions builderOptions,
+            final Map<String, byte[]> overrideFiles, final ZanataDetails zanataDetails, final BuildType buildType,
+            final OutputStream outputStream) throws BuilderCreationException, BuildProcessingException {
+        checkBuildParameters(contentSpec, requester);
+
+        startBuild();
+        try {
+            final DocBookBuilder docbookBuilder = addBuilder(buildType);
+
+            // Always skip nested section validation for translation builds
+            builderOptions.setSkipNestedSectionValidation(true);
+
+            docbookBuilder.buildTranslatedBook(contentSpec, requester, builderOptions, overrideFiles, zanataDetails, outputStream);
+        } finally {
+            finishBuild();
+        }
+    }
+
+    /**
+     * Builds a translated book into a zip file for each locale of the passed Content Specifications. The source topics and images
+     * are only fetched once and are shared between the locales, and the locales are built in parallel. The thread count from the builder
+     * options is split between the locales, so the build never uses more threads than the thread count.
+     * <p/>
+     * Each locale must have its own Content Specification instance, as translated strings are replaced in the content spec during
+     * the build.
+     *
+     * @param contentSpecs   The content specification to build for each locale. They should have already been validated, if not
+     *                       errors may occur.
+     * @param requester      The user who requested the book to be built.
+     * @param builderOptions The set of options what are to be when building the books. The locale will be set for each build.
+     * @param overrideFiles
+     * @param zanataDetails  The Zanata details to be used when editor links are turned on.
+     * @param buildType
+     * @return A mapping of locales to the zip file built for the locale.
+     * @throws BuildProcessingException Any unexpected errors that occur during building.
+     * @throws BuilderCreationException Any error that occurs while trying to setup/create the builder
+     */
+    public Map<String, byte[]> buildTranslatedBooks(final Map<String, ContentSpec> contentSpecs, final String requester,
+            final DocBookBuildingOptions builderOptions, final Map<String, byte[]> overrideFiles, final ZanataDetails zanataDetails,
+            final BuildType buildType) throws BuilderCreationException, BuildProcessingException {
+        final Map<String, HashMap<String, byte[]>> localeFiles = buildTranslatedBookFiles(contentSpecs, requester, builderOptions,
+                overrideFiles, zanataDetails, buildType);
+
+        final Map<String, byte[]> zipFiles = new LinkedHashMap<String, byte[]>();
+        for (final Map.Entry<String, HashMap<String, byte[]>> entry : localeFiles.entrySet()) {
+            zipFiles.put(entry.getKey(), createZip(entry.getValue()));
+        }
+        return zipFiles;
+    }
+
+    /**
+     * Builds a translated book for each locale of the passed Content Specifications into a single zip file, where the files for
+     * each locale are stored in a directory named after the locale.
+     *
+     * @param contentSpecs   The content specification to build for each locale. They should have already been validated, if not
+     *                       errors may occur.
+     * @param requester      The user who requested the book to be built.
+     * @param builderOptions The set of options what are to be when building the books. The locale will be set for each build.
+     * @param overrideFiles
+     * @param zanataDetails  The Zanata details to be used when editor links are turned on.
+     * @param buildType
+     * @return A byte array that is the zip file
+     * @throws BuildProcessingException Any unexpected errors that occur during building.
+     * @throws BuilderCreationException Any error that occurs while trying to setup/create the builder
+     * @see #buildTranslatedBooks(Map, String, DocBookBuildingOptions, Map, ZanataDetails, BuildType)
+     */
+    public byte[] buildCombinedTranslatedBook(final Map<String, ContentSpec> contentSpecs, final String requester,
+            final DocBookBuildingOptions builderOptions, final Map<String, byte[]> overrideFiles, final ZanataDetails zanataDetails,
+            final BuildType buildType) throws BuilderCreationException, BuildProcessingException {
+        final Map<String, HashMap<String, byte[]>> localeFiles = buildTranslatedBookFiles(contentSpecs, requester, builderOptions,
+                overrideFiles, zanataDetails, buildType);
+
+        final HashMap<String, byte[]> files = new HashMap<String, byte[]>();
+        for (final Map.Entry<String, HashMap<String, byte[]>> entry : localeFiles.entrySet()) {
+            for (final Map.Entry<String, byte[]> file : entry.getValue().entrySet()) {
+                files.put(entry.getKey() + "/" + file.getKey(), file.getValue());
+            }
+        }
+        return createZip(files);
+    }
+
+    protected Map<String, HashMap<String, byte[]>> buildTranslatedBookFiles(final Map<String, ContentSpec> contentSpecs,
+            final String requester, final DocBookBuildingOptions builderOptions, final Map<String, byte[]> overrideFiles,
+            final ZanataDetails zanataDetails, final BuildType buildType) throws BuilderCreationException, BuildProcessingException {
+        if (contentSpecs == null || contentSpecs.isEmpty()) {
+            throw new BuilderCreationException("No content specification specified. Unable to build from nothing!");
+        } else if (requester == null) {
+            throw new BuilderCreationException("A user must be specified as the user who requested the build.");
+        } else if (contentSpecs.containsValue(null)) {
+            throw new BuilderCreationException("No content specification specified. Unable to build from nothing!");
+        }
+
+        // Split the threads between the locales, so that the locale builds don't use more threads than the options allow in total
+        final int threadCount = builderOptions.getThreadCount() == null ? 1 : Math.max(1, builderOptions.getThreadCount());
+        final int localeThreadCount = Math.min(threadCount, contentSpecs.size());
+        final int builderThreadCount = Math.max(1, threadCount / localeThreadCount);
+
+        startBuild();
+        try {
+            // Create a builder for each locale, that all share the same source data
+            final SharedSourceData sharedSourceData = new SharedSourceData();
+            final List<Callable<HashMap<String, byte[]>>> tasks = new ArrayList<Callable<HashMap<String, byte[]>>>();
+            for (final Map.Entry<String, ContentSpec> entry : contentSpecs.entrySet()) {
+                final DocBookBuilder localeBuilder = addBuilder(buildType);
+                localeBuilder.setSharedSourceData(sharedSourceData);
+
+                final DocBookBuildingOptions localeOptions = (DocBookBuildingOptions) SerializationUtils.clone(builderOptions);
+                localeOptions.setLocale(entry.getKey());
+                localeOptions.setThreadCount(builderThreadCount);
+                // Always skip nested section validation for translation builds
+                localeOptions.setSkipNestedSectionValidation(true);
+
+                tasks.add(new Callable<HashMap<String, byte[]>>() {
+                    @Override
+                    public HashMap<String, byte[]> call() throws Exception {
+                        return localeBuilder.buildTranslatedBook(entry.getValue(), requester, localeOptions, overrideFiles,
+                                zanataDetails);
+                    }
+                });
+            }
+
+            return buildLocales(contentSpecs, localeThreadCount, tasks);
+        } finally {
+            finishBuild();
+        }
+    }
+
+    private Map<String, HashMap<String, byte[]>> buildLocales(final Map<String, ContentSpec> contentSpecs, final int threadCount,
+            final List<Callable<HashMap<String, byte[]>>> tasks) throws BuilderCreationException, BuildProcessingException {
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<HashMap<String, byte[]>>> futures = new ArrayList<Future<HashMap<String, byte[]>>>();
+            for (final Callable<HashMap<String, byte[]>> task : tasks) {
+                futures.add(executorService.submit(task));
+            }
+
+            final Map<String, HashMap<String, byte[]>> localeFiles = new LinkedHashMap<String, HashMap<String, byte[]>>();
+            int i = 0;
+            for (final String locale : contentSpecs.keySet()) {
+                localeFiles.put(locale, futures.get(i++).get());
+            }
+            return localeFiles;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BuildProcessingException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BuildProcessingException) {
+                throw (BuildProcessingException) e.getCause();
+            } else if (e.getCause() instanceof BuilderCreationException) {
+                throw (BuilderCreationException) e.getCause();
+            } else {
+                throw new BuildProcessingException(e.getCause());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void checkBuildParameters(final ContentSpec contentSpec, final String requester) throws BuilderCreationException {
+        if (contentSpec == null) {
+            throw new BuilderCreationException("No content specification specified. Unable to build from nothing!");
+        } else if (requester == null) {
+            throw new BuilderCreationException("A user must be specified as the user who requested the build.");
+        }
+    }
+
+    /**
+     * Marks the session as building, and clears the builders from any previous build in the session.
+     *
+     * @throws BuilderCreationException Thrown if the session is already running a build.
+     */
+    private void startBuild() throws BuilderCreationException {
+        if (!building.compareAndSet(false, true)) {
+            throw new BuilderCreationException("The build session is already building a book. A separate session must be used for each "
+                    + "concurrent build.");
+        }
+
+        synchronized (builders) {
+            builders.clear();
+        }
+    }
+
+    private void finishBuild() {
+        if (isShuttingDown.get()) {
+            shutdown.set(true);
+        }
+        building.set(false);
+    }
+
+    /**
+     * Creates a new builder for the session, that will be shutdown if the session is shutdown.
+     *
+     * @param buildType The type of build the builder should perform.
+     * @return The new builder.
+     * @throws BuilderCreationException Thrown if the builder can't be created.
+     */
+    private DocBookBuilder addBuilder(final BuildType buildType) throws BuilderCreationException {
+        final DocBookBuilder builder = contentSpecBuilder.createDocBookBuilder(buildType);
+        synchronized (builders) {
+            builders.add(builder);
+            if (isShuttingDown.get()) {
+                builder.shutdown();
+            }
+        }
+        return builder;
+    }
+
+    private byte[] createZip(final HashMap<String, byte[]> files) throws BuildProcessingException {
+        // The builders return no files if they were shutdown before the build finished
+        if (files == null) {
+            throw new BuildProcessingException("The build was shutdown before it could be completed.");
+        }
+
+        try {
+            return ZipUtilities.createZip(files);
+        } catch (final Exception e) {
+            throw new BuildProcessingException(e);
+        }
+    }
+}
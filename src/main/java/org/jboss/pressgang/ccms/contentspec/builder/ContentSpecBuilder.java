@@ -19,8 +19,14 @@
 
 package org.jboss.pressgang.ccms.contentspec.builder;
 
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.jboss.pressgang.ccms.contentspec.ContentSpec;
@@ -29,20 +35,23 @@ import org.jboss.pressgang.ccms.contentspec.builder.exception.BuilderCreationExc
 import org.jboss.pressgang.ccms.contentspec.interfaces.ShutdownAbleApp;
 import org.jboss.pressgang.ccms.contentspec.builder.structures.DocBookBuildingOptions;
 import org.jboss.pressgang.ccms.provider.DataProviderFactory;
-import org.jboss.pressgang.ccms.utils.common.ZipUtilities;
 import org.jboss.pressgang.ccms.zanata.ZanataDetails;
 
 /**
- * A class that provides the ability to build a book from content specifications.
+ * A class that provides the ability to build a book from content specifications. Each build is run in its own
+ * {@link BuildSession}, so a single instance can be used to run multiple builds at the same time.
  *
  * @author lnewson
  */
 public class ContentSpecBuilder implements ShutdownAbleApp {
-    private final AtomicBoolean isShuttingDown = new AtomicBoolean(false);
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
     private final DataProviderFactory providerFactory;
-    private DocBookBuilder docbookBuilder;
+    /**
+     * The sessions that have been created by the builder, so that they can be shutdown with the builder.
+     */
+    private final Set<BuildSession> sessions = Collections.newSetFromMap(new WeakHashMap<BuildSession, Boolean>());
+    private volatile BuildSession lastSession;
 
     public ContentSpecBuilder(final DataProviderFactory providerFactory) {
         this.providerFactory = providerFactory;
@@ -50,8 +59,14 @@ public class ContentSpecBuilder implements ShutdownAbleApp {
 
     @Override
     public void shutdown() {
-        isShuttingDown.set(true);
-        docbookBuilder.shutdown();
+        final List<BuildSession> activeSessions;
+        synchronized (sessions) {
+            shutdown.set(true);
+            activeSessions = new ArrayList<BuildSession>(sessions);
+        }
+        for (final BuildSession session : activeSessions) {
+            session.shutdown();
+        }
     }
 
     @Override
@@ -59,12 +74,45 @@ public class ContentSpecBuilder implements ShutdownAbleApp {
         return shutdown.get();
     }
 
+    /**
+     * Gets the number of warnings that occurred during the last build started by the builder. If builds are run concurrently,
+     * then the number of warnings should be read from the {@link BuildSession} used for the build instead.
+     *
+     * @return The number of warnings that occurred.
+     */
     public int getNumWarnings() {
-        return docbookBuilder == null ? 0 : docbookBuilder.getNumWarnings();
+        final BuildSession session = lastSession;
+        return session == null ? 0 : session.getNumWarnings();
     }
 
+    /**
+     * Gets the number of errors that occurred during the last build started by the builder. If builds are run concurrently,
+     * then the number of errors should be read from the {@link BuildSession} used for the build instead.
+     *
+     * @return The number of errors that occurred.
+     */
     public int getNumErrors() {
-        return docbookBuilder == null ? 0 : docbookBuilder.getNumErrors();
+        final BuildSession session = lastSession;
+        return session == null ? 0 : session.getNumErrors();
+    }
+
+    /**
+     * Creates a new session to run a build in. Builds in separate sessions are isolated from each other, so a single
+     * ContentSpecBuilder can be used to run multiple builds at the same time by using a session for each build.
+     *
+     * @return A new build session.
+     * @throws BuilderCreationException Thrown if the builder has been shutdown.
+     */
+    public BuildSession createSession() throws BuilderCreationException {
+        final BuildSession session = new BuildSession(this);
+        synchronized (sessions) {
+            if (shutdown.get()) {
+                throw new BuilderCreationException("The builder has been shutdown. Unable to start a new build.");
+            }
+            sessions.add(session);
+        }
+        lastSession = session;
+        return session;
     }
 
     /**
@@ -97,32 +145,7 @@ public class ContentSpecBuilder implements ShutdownAbleApp {
      */
     public byte[] buildBook(final ContentSpec contentSpec, final String requester, final DocBookBuildingOptions builderOptions,
             final Map<String, byte[]> overrideFiles, final BuildType buildType) throws BuilderCreationException, BuildProcessingException {
-        if (contentSpec == null) {
-            throw new BuilderCreationException("No content specification specified. Unable to build from nothing!");
-        } else if (requester == null) {
-            throw new BuilderCreationException("A user must be specified as the user who requested the build.");
-        }
-
-        if (buildType == BuildType.PUBLICAN) {
-            docbookBuilder = new PublicanDocBookBuilder(providerFactory);
-        } else if (buildType == BuildType.PUBLICAN_PO) {
-            docbookBuilder = new PublicanPODocBookBuilder(providerFactory);
-        } else if (buildType == BuildType.JDOCBOOK) {
-            docbookBuilder = new JDocBookBuilder(providerFactory);
-        } else {
-            docbookBuilder = new DocBookBuilder(providerFactory);
-        }
-
-        final HashMap<String, byte[]> files = docbookBuilder.buildBook(contentSpec, requester, builderOptions, overrideFiles);
-
-        // Create the zip file
-        byte[] zipFile = null;
-        try {
-            zipFile = ZipUtilities.createZip(files);
-        } catch (final Exception e) {
-            e.printStackTrace();
-        }
-        return zipFile;
+        return createSession().buildBook(contentSpec, requester, builderOptions, overrideFiles, buildType);
     }
 
     /**
@@ -158,35 +181,112 @@ public class ContentSpecBuilder implements ShutdownAbleApp {
     public byte[] buildTranslatedBook(final ContentSpec contentSpec, final String requester, final DocBookBuildingOptions builderOptions,
             final Map<String, byte[]> overrideFiles, final ZanataDetails zanataDetails,
             final BuildType buildType) throws BuilderCreationException, BuildProcessingException {
-        if (contentSpec == null) {
-            throw new BuilderCreationException("No content specification specified. Unable to build from nothing!");
-        } else if (requester == null) {
-            throw new BuilderCreationException("A user must be specified as the user who requested the build.");
-        }
+        return createSession().buildTranslatedBook(contentSpec, requester, builderOptions, overrideFiles, zanataDetails, buildType);
+    }
 
+    /**
+     * Builds a book into a zip file for the passed Content Specification, and writes the zip file to an OutputStream as the book
+     * is built.
+     *
+     * @param contentSpec    The content specification that is to be built. It should have already been validated, if not errors may occur.
+     * @param requester      The user who requested the book to be built.
+     * @param builderOptions The set of options what are to be when building the book.
+     * @param overrideFiles
+     * @param buildType
+     * @param outputStream   The stream to write the zip file to. The stream is not closed once the book has been built.
+     * @throws BuildProcessingException Any unexpected errors that occur during building.
+     * @throws BuilderCreationException Any error that occurs while trying to setup/create the builder
+     */
+    public void buildBook(final ContentSpec contentSpec, final String requester, final DocBookBuildingOptions builderOptions,
+            final Map<String, byte[]> overrideFiles, final BuildType buildType,
+            final OutputStream outputStream) throws BuilderCreationException, BuildProcessingException {
+        createSession().buildBook(contentSpec, requester, builderOptions, overrideFiles, buildType, outputStream);
+    }
+
+    /**
+     * Builds a book into a zip file for the passed Content Specification, and writes the zip file to an OutputStream as the book
+     * is built.
+     *
+     * @param contentSpec    The content specification that is to be built. It should have already been validated, if not errors may occur.
+     * @param requester      The user who requested the book to be built.
+     * @param builderOptions The set of options what are to be when building the book.
+     * @param overrideFiles
+     * @param zanataDetails  The Zanata details to be used when editor links are turned on.
+     * @param buildType
+     * @param outputStream   The stream to write the zip file to. The stream is not closed once the book has been built.
+     * @throws BuildProcessingException Any unexpected errors that occur during building.
+     * @throws BuilderCreationException Any error that occurs while trying to setup/create the builder
+     */
+    public void buildTranslatedBook(final ContentSpec contentSpec, final String requester, final DocBookBuildingOptions builderOptions,
+            final Map<String, byte[]> overrideFiles, final ZanataDetails zanataDetails, final BuildType buildType,
+            final OutputStream outputStream) throws BuilderCreationException, BuildProcessingException {
+        createSession().buildTranslatedBook(contentSpec, requester, builderOptions, overrideFiles, zanataDetails, buildType, outputStream);
+    }
+
+    /**
+     * Builds a translated book into a zip file for each locale of the passed Content Specifications. The source topics and images
+     * are only fetched once and are shared between the locales, and the locales are built in parallel. The thread count from the builder
+     * options is split between the locales, so the build never uses more threads than the thread count.
+     * <p/>
+     * Each locale must have its own Content Specification instance, as translated strings are replaced in the content spec during
+     * the build.
+     *
+     * @param contentSpecs   The content specification to build for each locale. They should have already been validated, if not
+     *                       errors may occur.
+     * @param requester      The user who requested the book to be built.
+     * @param builderOptions The set of options what are to be when building the books. The locale will be set for each build.
+     * @param overrideFiles
+     * @param zanataDetails  The Zanata details to be used when editor links are turned on.
+     * @param buildType
+     * @return A mapping of locales to the zip file built for the locale.
+     * @throws BuildProcessingException Any unexpected errors that occur during building.
+     * @throws BuilderCreationException Any error that occurs while trying to setup/create the builder
+     */
+    public Map<String, byte[]> buildTranslatedBooks(final Map<String, ContentSpec> contentSpecs, final String requester,
+            final DocBookBuildingOptions builderOptions, final Map<String, byte[]> overrideFiles, final ZanataDetails zanataDetails,
+            final BuildType buildType) throws BuilderCreationException, BuildProcessingException {
+        return createSession().buildTranslatedBooks(contentSpecs, requester, builderOptions, overrideFiles, zanataDetails, buildType);
+    }
+
+    /**
+     * Builds a translated book for each locale of the passed Content Specifications into a single zip file, where the files for
+     * each locale are stored in a directory named after the locale.
+     *
+     * @param contentSpecs   The content specification to build for each locale. They should have already been validated, if not
+     *                       errors may occur.
+     * @param requester      The user who requested the book to be built.
+     * @param builderOptions The set of options what are to be when building the books. The locale will be set for each build.
+     * @param overrideFiles
+     * @param zanataDetails  The Zanata details to be used when editor links are turned on.
+     * @param buildType
+     * @return A byte array that is the zip file
+     * @throws BuildProcessingException Any unexpected errors that occur during building.
+     * @throws BuilderCreationException Any error that occurs while trying to setup/create the builder
+     * @see #buildTranslatedBooks(Map, String, DocBookBuildingOptions, Map, ZanataDetails, BuildType)
+     */
+    public byte[] buildCombinedTranslatedBook(final Map<String, ContentSpec> contentSpecs, final String requester,
+            final DocBookBuildingOptions builderOptions, final Map<String, byte[]> overrideFiles, final ZanataDetails zanataDetails,
+            final BuildType buildType) throws BuilderCreationException, BuildProcessingException {
+        return createSession().buildCombinedTranslatedBook(contentSpecs, requester, builderOptions, overrideFiles, zanataDetails,
+                buildType);
+    }
+
+    /**
+     * Creates the DocBook builder used to perform a build.
+     *
+     * @param buildType The type of build to be performed.
+     * @return A new builder for the build type.
+     * @throws BuilderCreationException Thrown if the builder can't be created.
+     */
+    protected DocBookBuilder createDocBookBuilder(final BuildType buildType) throws BuilderCreationException {
         if (buildType == BuildType.PUBLICAN) {
-            docbookBuilder = new PublicanDocBookBuilder(providerFactory);
+            return new PublicanDocBookBuilder(providerFactory);
         } else if (buildType == BuildType.PUBLICAN_PO) {
-            docbookBuilder = new PublicanPODocBookBuilder(providerFactory);
+            return new PublicanPODocBookBuilder(providerFactory);
         } else if (buildType == BuildType.JDOCBOOK) {
-            docbookBuilder = new JDocBookBuilder(providerFactory);
+            return new JDocBookBuilder(providerFactory);
         } else {
-            docbookBuilder = new DocBookBuilder(providerFactory);
-        }
-
-        // Always skip nested section validation for translation builds
-        builderOptions.setSkipNestedSectionValidation(true);
-
-        final HashMap<String, byte[]> files = docbookBuilder.buildTranslatedBook(contentSpec, requester, builderOptions, overrideFiles,
-                zanataDetails);
-
-        // Create the zip file
-        byte[] zipFile = null;
-        try {
-            zipFile = ZipUtilities.createZip(files);
-        } catch (final Exception e) {
-            e.printStackTrace();
+            return new DocBookBuilder(providerFactory);
         }
-        return zipFile;
     }
 }
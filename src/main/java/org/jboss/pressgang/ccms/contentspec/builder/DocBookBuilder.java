@@ -26,7 +26,7 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.StringReader;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -40,10 +40,14 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Properties;
 import java.util.ResourceBundle;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.lang.StringEscapeUtils;
@@ -64,15 +68,28 @@ import org.jboss.pressgang.ccms.contentspec.builder.constants.BuilderConstants;
 import org.jboss.pressgang.ccms.contentspec.builder.exception.BuildProcessingException;
 import org.jboss.pressgang.ccms.contentspec.builder.exception.BuilderCreationException;
 import org.jboss.pressgang.ccms.contentspec.builder.structures.BuildData;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.BuildManifest;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.BuilderResources;
 import org.jboss.pressgang.ccms.contentspec.builder.structures.DocBookBuildingOptions;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.IdAttributeIndex;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.OutputSink;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.SharedSourceData;
 import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorData;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorDatabase;
 import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorDatabase.ErrorLevel;
 import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorDatabase.ErrorType;
 import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicImageData;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicNodeIndex;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.ZipOutputSink;
 import org.jboss.pressgang.ccms.contentspec.builder.utils.DocBookBuildUtilities;
 import org.jboss.pressgang.ccms.contentspec.builder.utils.ReportUtilities;
+import org.jboss.pressgang.ccms.contentspec.builder.utils.TopicDocumentCache;
+import org.jboss.pressgang.ccms.contentspec.builder.utils.XMLValidatorPool;
 import org.jboss.pressgang.ccms.contentspec.constants.CSConstants;
 import org.jboss.pressgang.ccms.contentspec.entities.AuthorInformation;
+import org.jboss.pressgang.ccms.contentspec.entities.Relationship;
+import org.jboss.pressgang.ccms.contentspec.entities.TargetRelationship;
+import org.jboss.pressgang.ccms.contentspec.entities.TopicRelationship;
 import org.jboss.pressgang.ccms.contentspec.enums.BookType;
 import org.jboss.pressgang.ccms.contentspec.enums.LevelType;
 import org.jboss.pressgang.ccms.contentspec.enums.TopicType;
@@ -91,7 +108,6 @@ import org.jboss.pressgang.ccms.provider.DataProviderFactory;
 import org.jboss.pressgang.ccms.provider.FileProvider;
 import org.jboss.pressgang.ccms.provider.ImageProvider;
 import org.jboss.pressgang.ccms.provider.PropertyTagProvider;
-import org.jboss.pressgang.ccms.provider.ServerSettingsProvider;
 import org.jboss.pressgang.ccms.provider.StringConstantProvider;
 import org.jboss.pressgang.ccms.provider.TagProvider;
 import org.jboss.pressgang.ccms.provider.TopicProvider;
@@ -211,8 +227,13 @@ public class DocBookBuilder implements ShutdownAbleApp {
 
     protected final AtomicBoolean isShuttingDown = new AtomicBoolean(false);
     protected final AtomicBoolean shutdown = new AtomicBoolean(false);
+    /**
+     * Whether the builder is currently building a book. A builder holds the state for a single build, so it can't be used by more
+     * than one build at a time.
+     */
+    private final AtomicBoolean building = new AtomicBoolean(false);
 
-    protected final XMLFormatProperties xmlFormatProperties = new XMLFormatProperties();
+    protected final XMLFormatProperties xmlFormatProperties;
     protected final DataProviderFactory providerFactory;
     protected final ContentSpecProvider contentSpecProvider;
     protected final CSNodeProvider csNodeProvider;
@@ -225,6 +246,10 @@ public class DocBookBuilder implements ShutdownAbleApp {
     protected final BlobConstantProvider blobConstantProvider;
     protected final ImageProvider imageProvider;
 
+    /**
+     * The templates and settings loaded from the server, that are shared with other builders.
+     */
+    private final BuilderResources builderResources;
     private final BlobConstantWrapper rocbookDtd;
     private final BlobConstantWrapper docbookRng;
     private final String docbook45Entities;
@@ -246,9 +271,13 @@ public class DocBookBuilder implements ShutdownAbleApp {
     private final StringConstantWrapper errorInvalidValidationTopicTemplate;
 
     /**
-     * All data associated with the build.
+     * All data associated with the build. This is volatile as the warnings and errors may be read by other threads while building.
      */
-    private BuildData buildData;
+    private volatile BuildData buildData;
+    /**
+     * Source data that is shared with other builds, or null if the data isn't shared.
+     */
+    private SharedSourceData sharedSourceData;
 
     public DocBookBuilder(final DataProviderFactory providerFactory) throws BuilderCreationException {
         this.providerFactory = providerFactory;
@@ -264,36 +293,19 @@ public class DocBookBuilder implements ShutdownAbleApp {
         tagProvider = providerFactory.getProvider(TagProvider.class);
         imageProvider = providerFactory.getProvider(ImageProvider.class);
 
-        final ServerEntitiesWrapper serverEntities = providerFactory.getProvider(
-                ServerSettingsProvider.class).getServerSettings().getEntities();
-        rocbookDtd = blobConstantProvider.getBlobConstant(serverEntities.getRocBook45DTDBlobConstantId());
-        docbookRng = blobConstantProvider.getBlobConstant(serverEntities.getDocBook50RNGBlobConstantId());
-        errorEmptyTopicTemplate = stringConstantProvider.getStringConstant(serverEntities.getEmptyTopicStringConstantId());
-        errorInvalidInjectionTopicTemplate = stringConstantProvider.getStringConstant(serverEntities.getInvalidInjectionStringConstantId());
-        errorInvalidValidationTopicTemplate = stringConstantProvider.getStringConstant(serverEntities.getInvalidTopicStringConstantId());
-        final StringConstantWrapper xmlElementsProperties = stringConstantProvider.getStringConstant(
-                serverEntities.getXmlFormattingStringConstantId());
-
-        /*
-         * Get the XML formatting details. These are used to pretty-print the XML when it is converted into a String.
-         */
-        final Properties prop = new Properties();
-        try {
-            prop.load(new StringReader(xmlElementsProperties.getValue()));
-        } catch (IOException e) {
-            log.error(messagesResourceBundle.getString("FAILED_READING_XML_FORMATTING"));
-            throw new BuilderCreationException(messagesResourceBundle.getString("FAILED_READING_XML_FORMATTING"));
-        }
-
-        final String verbatimElementsString = prop.getProperty(CommonConstants.VERBATIM_XML_ELEMENTS_PROPERTY_KEY);
-        final String inlineElementsString = prop.getProperty(CommonConstants.INLINE_XML_ELEMENTS_PROPERTY_KEY);
-        final String contentsInlineElementsString = prop.getProperty(CommonConstants.CONTENTS_INLINE_XML_ELEMENTS_PROPERTY_KEY);
-
-        xmlFormatProperties.setVerbatimElements(CollectionUtilities.toArrayList(verbatimElementsString.split("[\\s]*,[\\s]*")));
-        xmlFormatProperties.setInlineElements(CollectionUtilities.toArrayList(inlineElementsString.split("[\\s]*,[\\s]*")));
-        xmlFormatProperties.setContentsInlineElements(CollectionUtilities.toArrayList(contentsInlineElementsString.split("[\\s]*,[\\s]*")));
+        // The templates and settings are shared with other builders, so they only need to be fetched from the server periodically
+        builderResources = BuilderResources.getSharedResources(providerFactory);
+        rocbookDtd = builderResources.getRocbookDtd();
+        docbookRng = builderResources.getDocbookRng();
+        errorEmptyTopicTemplate = builderResources.getErrorEmptyTopicTemplate();
+        errorInvalidInjectionTopicTemplate = builderResources.getErrorInvalidInjectionTopicTemplate();
+        errorInvalidValidationTopicTemplate = builderResources.getErrorInvalidValidationTopicTemplate();
+        xmlFormatProperties = builderResources.getXMLFormatProperties();
+        docbook45Entities = builderResources.getDocbook45Entities();
+    }
 
-        docbook45Entities = ResourceUtilities.resourceFileToString("/", "docbook.ent");
+    protected BuilderResources getBuilderResources() {
+        return builderResources;
     }
 
     protected StringConstantWrapper getErrorEmptyTopicTemplate() {
@@ -324,6 +336,20 @@ public class DocBookBuilder implements ShutdownAbleApp {
         this.buildData = buildData;
     }
 
+    public SharedSourceData getSharedSourceData() {
+        return sharedSourceData;
+    }
+
+    /**
+     * Sets the source data that should be shared with other builds, so that source topics and images only need to be fetched once
+     * when the same content spec is built multiple times (ie for different locales).
+     *
+     * @param sharedSourceData The shared source data, or null if the data shouldn't be shared.
+     */
+    public void setSharedSourceData(final SharedSourceData sharedSourceData) {
+        this.sharedSourceData = sharedSourceData;
+    }
+
     @Override
     public void shutdown() {
         isShuttingDown.set(true);
@@ -340,14 +366,12 @@ public class DocBookBuilder implements ShutdownAbleApp {
      * @return The number of warnings that occurred.
      */
     public int getNumWarnings() {
-        int numWarnings = 0;
-        if (getBuildData().getErrorDatabase() != null && getBuildData().getErrorDatabase().getErrors(
-                getBuildData().getBuildLocale()) != null) {
-            for (final TopicErrorData errorData : getBuildData().getErrorDatabase().getErrors(getBuildData().getBuildLocale())) {
-                numWarnings += errorData.getItemsOfType(ErrorLevel.WARNING).size();
-            }
+        final BuildData buildData = getBuildData();
+        if (buildData != null && buildData.getErrorDatabase() != null) {
+            return buildData.getErrorDatabase().getItemCount(buildData.getBuildLocale(), ErrorLevel.WARNING);
+        } else {
+            return 0;
         }
-        return numWarnings;
     }
 
     /**
@@ -356,14 +380,12 @@ public class DocBookBuilder implements ShutdownAbleApp {
      * @return The number of errors that occurred.
      */
     public int getNumErrors() {
-        int numErrors = 0;
-        if (getBuildData().getErrorDatabase() != null && getBuildData().getErrorDatabase().getErrors(
-                getBuildData().getBuildLocale()) != null) {
-            for (final TopicErrorData errorData : getBuildData().getErrorDatabase().getErrors(getBuildData().getBuildLocale())) {
-                numErrors += errorData.getItemsOfType(ErrorLevel.ERROR).size();
-            }
+        final BuildData buildData = getBuildData();
+        if (buildData != null && buildData.getErrorDatabase() != null) {
+            return buildData.getErrorDatabase().getItemCount(buildData.getBuildLocale(), ErrorLevel.ERROR);
+        } else {
+            return 0;
         }
-        return numErrors;
     }
 
     /**
@@ -445,10 +467,122 @@ public class DocBookBuilder implements ShutdownAbleApp {
         return buildBook(contentSpec, requester, buildingOptions, overrideFiles, zanataDetails, true);
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Builds a DocBook Formatted Book using a Content Specification to define the structure and contents of the book, and writes
+     * it as a ZIP archive to an OutputStream as the files are produced.
+     *
+     * @param contentSpec     The content specification to build from.
+     * @param requester       The user who requested the build.
+     * @param buildingOptions The options to be used when building.
+     * @param overrideFiles
+     * @param outputStream    The stream to write the ZIP archive to. The stream is not closed once the build has finished.
+     * @throws BuilderCreationException Thrown if the builder is unable to start due to incorrect passed variables.
+     * @throws BuildProcessingException Any build issue that should not occur under normal circumstances. Ie a Template can't be
+     *                                  converted to a DOM Document.
+     */
+    public void buildBook(final ContentSpec contentSpec, final String requester, final DocBookBuildingOptions buildingOptions,
+            final Map<String, byte[]> overrideFiles, final OutputStream outputStream) throws BuilderCreationException,
+            BuildProcessingException {
+        final OutputSink outputSink = new ZipOutputSink(outputStream);
+        try {
+            buildBook(contentSpec, requester, buildingOptions, overrideFiles, null, false, outputSink, null);
+        } finally {
+            outputSink.close();
+        }
+    }
+
+    /**
+     * Builds a DocBook Formatted Book using a Content Specification to define the structure and contents of the book, reusing the
+     * output of any topics that haven't changed since a previous build. The previous build must have been created with a build
+     * manifest, either by using this method or by setting {@link DocBookBuildingOptions#setCreateBuildManifest(Boolean)}.
+     *
+     * @param contentSpec        The content specification to build from.
+     * @param requester          The user who requested the build.
+     * @param buildingOptions    The options to be used when building.
+     * @param overrideFiles
+     * @param previousBuildFiles The files from a previous build of the content specification.
+     * @return Returns a mapping of file names/locations to files. This HashMap can be used to build a ZIP archive.
+     * @throws BuilderCreationException Thrown if the builder is unable to start due to incorrect passed variables.
+     * @throws BuildProcessingException Any build issue that should not occur under normal circumstances. Ie a Template can't be
+     *                                  converted to a DOM Document.
+     */
+    public HashMap<String, byte[]> buildBook(final ContentSpec contentSpec, final String requester,
+            final DocBookBuildingOptions buildingOptions, final Map<String, byte[]> overrideFiles,
+            final Map<String, byte[]> previousBuildFiles) throws BuilderCreationException, BuildProcessingException {
+        return buildBook(contentSpec, requester, buildingOptions, overrideFiles, null, false, null,
+                previousBuildFiles == null ? new HashMap<String, byte[]>() : previousBuildFiles);
+    }
+
+    /**
+     * Builds a DocBook Formatted Book using a Content Specification to define the structure and contents of the book, and writes
+     * it as a ZIP archive to an OutputStream as the files are produced.
+     *
+     * @param contentSpec     The content specification to build from.
+     * @param requester       The user who requested the build.
+     * @param buildingOptions The options to be used when building.
+     * @param overrideFiles
+     * @param zanataDetails   The Zanata server details to be used when populating links
+     * @param outputStream    The stream to write the ZIP archive to. The stream is not closed once the build has finished.
+     * @throws BuilderCreationException Thrown if the builder is unable to start due to incorrect passed variables.
+     * @throws BuildProcessingException Any build issue that should not occur under normal circumstances. Ie a Template can't be
+     *                                  converted to a DOM Document.
+     */
+    public void buildTranslatedBook(final ContentSpec contentSpec, final String requester, final DocBookBuildingOptions buildingOptions,
+            final Map<String, byte[]> overrideFiles, final ZanataDetails zanataDetails,
+            final OutputStream outputStream) throws BuilderCreationException, BuildProcessingException {
+        final OutputSink outputSink = new ZipOutputSink(outputStream);
+        try {
+            buildBook(contentSpec, requester, buildingOptions, overrideFiles, zanataDetails, true, outputSink, null);
+        } finally {
+            outputSink.close();
+        }
+    }
+
     protected HashMap<String, byte[]> buildBook(final ContentSpec contentSpec, final String requester,
             final DocBookBuildingOptions buildingOptions, final Map<String, byte[]> overrideFiles, final ZanataDetails zanataDetails,
             final boolean translationBuild) throws BuilderCreationException, BuildProcessingException {
+        return buildBook(contentSpec, requester, buildingOptions, overrideFiles, zanataDetails, translationBuild, null, null);
+    }
+
+    /**
+     * Builds a DocBook Formatted Book using a Content Specification to define the structure and contents of the book.
+     *
+     * @param contentSpec      The content specification to build from.
+     * @param requester        The user who requested the build.
+     * @param buildingOptions  The options to be used when building.
+     * @param overrideFiles
+     * @param zanataDetails    The Zanata server details to be used when populating links
+     * @param translationBuild If the build is a translation build.
+     * @param outputSink         The sink to write the book files to, or null to hold them in memory.
+     * @param previousBuildFiles The files from a previous build, that unchanged topics can be reused from, or null if the book
+     *                           shouldn't be built incrementally.
+     * @return Returns a mapping of file names/locations to files. If an output sink was specified then the mapping will be empty.
+     * @throws BuilderCreationException Thrown if the builder is unable to start due to incorrect passed variables.
+     * @throws BuildProcessingException Any build issue that should not occur under normal circumstances. Ie a Template can't be
+     *                                  converted to a DOM Document.
+     */
+    protected HashMap<String, byte[]> buildBook(final ContentSpec contentSpec, final String requester,
+            final DocBookBuildingOptions buildingOptions, final Map<String, byte[]> overrideFiles, final ZanataDetails zanataDetails,
+            final boolean translationBuild, final OutputSink outputSink,
+            final Map<String, byte[]> previousBuildFiles) throws BuilderCreationException, BuildProcessingException {
+        if (!building.compareAndSet(false, true)) {
+            throw new BuilderCreationException("The builder is already building a book. A separate builder must be used for each "
+                    + "concurrent build.");
+        }
+
+        try {
+            return doBuildBook(contentSpec, requester, buildingOptions, overrideFiles, zanataDetails, translationBuild, outputSink,
+                    previousBuildFiles);
+        } finally {
+            building.set(false);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private HashMap<String, byte[]> doBuildBook(final ContentSpec contentSpec, final String requester,
+            final DocBookBuildingOptions buildingOptions, final Map<String, byte[]> overrideFiles, final ZanataDetails zanataDetails,
+            final boolean translationBuild, final OutputSink outputSink,
+            final Map<String, byte[]> previousBuildFiles) throws BuilderCreationException, BuildProcessingException {
         if (contentSpec == null) {
             throw new BuilderCreationException("No content specification specified. Unable to build from nothing!");
         }
@@ -464,11 +598,34 @@ public class DocBookBuilder implements ShutdownAbleApp {
                 translationBuild);
         setBuildData(buildData);
 
+        // Write the files to the output sink if one was passed
+        if (outputSink != null) {
+            buildData.setOutputSink(outputSink);
+        }
+        addFinalOutputPaths(buildData);
+
         // Set the override files if any were passed
         if (overrideFiles != null) {
             buildData.getOverrideFiles().putAll(overrideFiles);
         }
 
+        // Create a manifest of the build, and load the manifest from the previous build if one was passed
+        if (buildData.getBuildOptions().getCreateBuildManifest() || previousBuildFiles != null) {
+            buildData.setBuildManifest(new BuildManifest());
+        }
+        if (previousBuildFiles != null) {
+            final byte[] previousManifest = previousBuildFiles.get(
+                    buildData.getRootBookFolder() + BuilderConstants.BUILD_MANIFEST_FILE_NAME);
+            if (previousManifest != null) {
+                try {
+                    buildData.setPreviousBuildManifest(BuildManifest.parse(new String(previousManifest, ENCODING)));
+                    buildData.setPreviousBuildFiles(previousBuildFiles);
+                } catch (UnsupportedEncodingException e) {
+                    throw new BuildProcessingException(e);
+                }
+            }
+        }
+
         // Check if the app should be shutdown
         if (isShuttingDown.get()) {
             shutdown.set(true);
@@ -522,10 +679,9 @@ public class DocBookBuilder implements ShutdownAbleApp {
          * We need to create a list of all id's in the book to check if links are valid. So generate the id attribute that are
          * used by topics, section and chapters. Then add any id's that were found in the topics.
          */
+        final IdAttributeIndex idAttributeIndex = new IdAttributeIndex(usedIdAttributes);
         final Set<String> bookIdAttributes = buildData.getBuildDatabase().getIdAttributes(buildData);
-        for (final Entry<SpecTopic, Set<String>> entry : usedIdAttributes.entrySet()) {
-            bookIdAttributes.addAll(entry.getValue());
-        }
+        bookIdAttributes.addAll(idAttributeIndex.getIds());
 
         doLinkPass(buildData, bookIdAttributes);
 
@@ -535,8 +691,19 @@ public class DocBookBuilder implements ShutdownAbleApp {
             return null;
         }
 
+        // Find the topics that haven't changed since the previous build, so that their output can be reused
+        if (buildData.getBuildManifest() != null) {
+            doIncrementalBuildPass(buildData, usedIdAttributes, idAttributeIndex);
+
+            // Check if the app should be shutdown
+            if (isShuttingDown.get()) {
+                shutdown.set(true);
+                return null;
+            }
+        }
+
         // second topic pass to set the ids and process injections
-        doSpecTopicSecondPass(buildData, usedIdAttributes);
+        doSpecTopicSecondPass(buildData, idAttributeIndex);
 
         // Check if the app should be shutdown
         if (isShuttingDown.get()) {
@@ -544,7 +711,7 @@ public class DocBookBuilder implements ShutdownAbleApp {
             return null;
         }
 
-        doLinkSecondPass(buildData, usedIdAttributes);
+        doLinkSecondPass(buildData, idAttributeIndex);
 
         // Check if the app should be shutdown
         if (isShuttingDown.get()) {
@@ -561,13 +728,31 @@ public class DocBookBuilder implements ShutdownAbleApp {
             return null;
         }
 
-        return doBuildZipPass(buildData);
+        final HashMap<String, byte[]> files = doBuildZipPass(buildData);
+
+        // Write any files that are still waiting to be written
+        buildData.getOutputSink().finish();
+
+        return files;
+    }
+
+    /**
+     * Marks the folders in the output that hold files that won't be replaced or read back later in the build, so that the output
+     * sink can write them as soon as they are added.
+     *
+     * @param buildData Information and data structures for the build.
+     */
+    protected void addFinalOutputPaths(final BuildData buildData) {
+        buildData.getOutputSink().addFinalPath(buildData.getBookTopicsFolder());
+        buildData.getOutputSink().addFinalPath(buildData.getBookImagesFolder());
+        buildData.getOutputSink().addFinalPath(buildData.getBookFilesFolder());
     }
 
     protected BuildData createBuildData(final String fixedRequester, final ContentSpec contentSpec,
             final DocBookBuildingOptions buildingOptions, final ZanataDetails zanataDetails, final DataProviderFactory providerFactory,
             final boolean translationBuild) {
-        return new BuildData(fixedRequester, contentSpec, buildingOptions, zanataDetails, providerFactory, translationBuild);
+        return new BuildData(fixedRequester, contentSpec, buildingOptions, zanataDetails, getBuilderResources().getServerSettings(),
+                translationBuild);
     }
 
     /**
@@ -596,6 +781,9 @@ public class DocBookBuilder implements ShutdownAbleApp {
             // Iterate over each translated node and build up the list of translated strings for the content spec.
             final List<TranslatedCSNodeWrapper> translatedCSNodes = translatedContentSpec.getTranslatedNodes().getItems();
             for (final TranslatedCSNodeWrapper translatedCSNode : translatedCSNodes) {
+                // Keep the node so it doesn't have to be downloaded again when populating the translated topics
+                getBuildData().getTranslatedCSNodes().put(translatedCSNode.getId(), translatedCSNode);
+
                 // Only process nodes that have content pushed to Zanata
                 if (!isNullOrEmpty(translatedCSNode.getOriginalString())) {
                     if (translatedCSNode.getTranslatedStrings() != null) {
@@ -630,10 +818,13 @@ public class DocBookBuilder implements ShutdownAbleApp {
      */
     protected void setTranslationUniqueIds(final ContentSpec contentSpec,
             final TranslatedContentSpecWrapper translatedContentSpec) throws BuildProcessingException {
+        final Map<String, org.jboss.pressgang.ccms.contentspec.Node> nodeIndex = DocBookBuildUtilities.getContentSpecNodeIndex(
+                contentSpec);
         final List<TranslatedCSNodeWrapper> translatedCSNodes = translatedContentSpec.getTranslatedNodes().getItems();
         for (final TranslatedCSNodeWrapper translatedCSNode : translatedCSNodes) {
-            final org.jboss.pressgang.ccms.contentspec.Node node = ContentSpecUtilities.findMatchingContentSpecNode(contentSpec,
-                    translatedCSNode.getNodeId());
+            // The index holds every node in the content spec, so a miss means there is no matching node
+            final org.jboss.pressgang.ccms.contentspec.Node node = translatedCSNode.getNodeId() == null ? null : nodeIndex.get(
+                    translatedCSNode.getNodeId().toString());
             if (node != null) {
                 node.setTranslationUniqueId(translatedCSNode.getId().toString());
                 if (node instanceof KeyValueNode && ((KeyValueNode) node).getValue() instanceof SpecTopic) {
@@ -671,8 +862,7 @@ public class DocBookBuilder implements ShutdownAbleApp {
                 processedTopics.add(topic.getId());
 
                 // Get the XRef links in the topic document
-                final Set<String> linkIds = new HashSet<String>();
-                DocBookBuildUtilities.getTopicLinkIds(doc, linkIds);
+                final Set<String> linkIds = buildData.getTopicNodeIndex(doc).getLinkIds();
 
                 final List<String> invalidLinks = new ArrayList<String>();
 
@@ -746,44 +936,174 @@ public class DocBookBuilder implements ShutdownAbleApp {
     }
 
     /**
-     * TODO
+     * Fetches the topics for all the topic nodes in the content spec and adds them to the build database. The topic ids are
+     * first grouped by the revision that needs to be fetched, so that each topic/revision is only downloaded once and the
+     * latest topics can be fetched in batches.
      *
      * @param buildData Information and data structures for the build.
-     * @param topics
-     * @return
+     * @param topics    The topics collection to add the fetched topics to.
      */
     protected void populateDatabaseTopics(final BuildData buildData,
             final Map<String, BaseTopicWrapper<?>> topics) throws BuildProcessingException {
-        final List<TopicWrapper> allTopics = new ArrayList<TopicWrapper>();
-        final List<TopicWrapper> latestTopics = new ArrayList<TopicWrapper>();
-        final List<TopicWrapper> revisionTopics = new ArrayList<TopicWrapper>();
-
-        // Calculate the ids of all the topics to get
         final List<ITopicNode> topicNodes = buildData.getContentSpec().getAllTopicNodes();
+
+        // Group the ids of the topics to fetch by the revision that needs to be fetched (a null revision means the latest)
+        final Map<Integer, Set<Integer>> revisionTopicIds = new HashMap<Integer, Set<Integer>>();
         for (final ITopicNode topicNode : topicNodes) {
-            // Determine which topics we need to fetch the latest topics for and which topics we need to fetch revisions for.
-            final TopicWrapper topic;
-            if (topicNode.getRevision() != null && !buildData.getBuildOptions().getUseLatestVersions()) {
-                topic = topicProvider.getTopic(topicNode.getDBId(), topicNode.getRevision());
-                revisionTopics.add(topic);
-                allTopics.add(topic);
-            } else if (buildData.getBuildOptions().getMaxRevision() != null && !buildData.getBuildOptions().getUseLatestVersions()) {
-                topic = topicProvider.getTopic(topicNode.getDBId(), buildData.getBuildOptions().getMaxRevision());
-                revisionTopics.add(topic);
-                allTopics.add(topic);
-            } else {
-                topic = topicProvider.getTopic(topicNode.getDBId());
-                latestTopics.add(topic);
-                allTopics.add(topic);
+            final Integer revision = getTopicNodeFetchRevision(buildData, topicNode);
+            if (!revisionTopicIds.containsKey(revision)) {
+                revisionTopicIds.put(revision, new HashSet<Integer>());
             }
+            revisionTopicIds.get(revision).add(topicNode.getDBId());
+        }
+
+        // Fetch the topics
+        final Map<Integer, Map<Integer, TopicWrapper>> revisionTopics = getRevisionTopics(revisionTopicIds);
+
+        // Check if the app should be shutdown
+        if (isShuttingDown.get()) {
+            return;
+        }
+
+        // Add the topics to the topics collection and build database
+        for (final ITopicNode topicNode : topicNodes) {
+            final Integer revision = getTopicNodeFetchRevision(buildData, topicNode);
+            final TopicWrapper topic = revisionTopics.get(revision).get(topicNode.getDBId());
 
-            // Add the topic to the topics collection
             final String key = DocBookBuildUtilities.getTopicBuildKey(topic);
             topics.put(key, topic);
             buildData.getBuildDatabase().add(topicNode, key);
         }
     }
 
+    /**
+     * Fetches a set of topics, where the topic ids are grouped by the revision that should be fetched. The latest topics are
+     * fetched in batches.
+     *
+     * @param revisionTopicIds The topic ids to fetch, grouped by revision (a null revision means the latest).
+     * @return A mapping of revisions to the topics that were fetched for that revision.
+     */
+    protected Map<Integer, Map<Integer, TopicWrapper>> getRevisionTopics(final Map<Integer, Set<Integer>> revisionTopicIds) {
+        final Map<Integer, Map<Integer, TopicWrapper>> revisionTopics = new HashMap<Integer, Map<Integer, TopicWrapper>>();
+        for (final Entry<Integer, Set<Integer>> entry : revisionTopicIds.entrySet()) {
+            // Check if the app should be shutdown
+            if (isShuttingDown.get()) {
+                break;
+            }
+
+            final Map<Integer, TopicWrapper> fetchedTopics = new HashMap<Integer, TopicWrapper>();
+            if (sharedSourceData == null) {
+                fetchedTopics.putAll(getTopics(entry.getKey(), entry.getValue()));
+            } else {
+                // Fetch the topics that no other build is fetching, and share them with the other builds
+                final Set<Integer> claimedTopicIds = sharedSourceData.claimTopics(entry.getKey(), entry.getValue());
+                try {
+                    fetchedTopics.putAll(getTopics(entry.getKey(), claimedTopicIds));
+                } finally {
+                    for (final Integer topicId : claimedTopicIds) {
+                        sharedSourceData.addTopic(topicId, entry.getKey(), fetchedTopics.get(topicId));
+                    }
+                }
+
+                // Wait for the topics being fetched by other builds, and fetch any topics that they failed to fetch
+                final Set<Integer> missingTopicIds = new HashSet<Integer>();
+                for (final Integer topicId : entry.getValue()) {
+                    if (!claimedTopicIds.contains(topicId)) {
+                        final TopicWrapper sharedTopic = getSharedTopic(topicId, entry.getKey());
+                        if (sharedTopic == null) {
+                            missingTopicIds.add(topicId);
+                        } else {
+                            fetchedTopics.put(topicId, sharedTopic);
+                        }
+                    }
+                }
+                fetchedTopics.putAll(getTopics(entry.getKey(), missingTopicIds));
+            }
+            revisionTopics.put(entry.getKey(), fetchedTopics);
+        }
+
+        return revisionTopics;
+    }
+
+    /**
+     * Fetches a set of topics at a revision. The latest topics are fetched in batches.
+     *
+     * @param revision The revision of the topics to fetch, or null for the latest revision.
+     * @param topicIds The ids of the topics to fetch.
+     * @return A mapping of topic ids to the topics that were fetched.
+     */
+    private Map<Integer, TopicWrapper> getTopics(final Integer revision, final Set<Integer> topicIds) {
+        if (topicIds.isEmpty()) {
+            return Collections.emptyMap();
+        } else if (revision == null) {
+            return getLatestTopics(topicIds);
+        } else {
+            final Map<Integer, TopicWrapper> topics = new HashMap<Integer, TopicWrapper>();
+            for (final Integer topicId : topicIds) {
+                topics.put(topicId, topicProvider.getTopic(topicId, revision));
+            }
+            return topics;
+        }
+    }
+
+    private TopicWrapper getSharedTopic(final Integer topicId, final Integer revision) {
+        try {
+            return sharedSourceData.getTopic(topicId, revision);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Gets the revision of the topic that should be fetched for a topic node, based on the build options.
+     *
+     * @param buildData Information and data structures for the build.
+     * @param topicNode The topic node to get the revision for.
+     * @return The revision to fetch, or null if the latest revision should be used.
+     */
+    protected Integer getTopicNodeFetchRevision(final BuildData buildData, final ITopicNode topicNode) {
+        if (buildData.getBuildOptions().getUseLatestVersions()) {
+            return null;
+        } else if (topicNode.getRevision() != null) {
+            return topicNode.getRevision();
+        } else {
+            return buildData.getBuildOptions().getMaxRevision();
+        }
+    }
+
+    /**
+     * Gets the latest revision of a set of topics, using batched queries to limit the number of calls made to the server.
+     *
+     * @param topicIds The ids of the topics to fetch.
+     * @return A mapping of topic ids to their latest topic.
+     */
+    protected Map<Integer, TopicWrapper> getLatestTopics(final Set<Integer> topicIds) {
+        final Map<Integer, TopicWrapper> retValue = new HashMap<Integer, TopicWrapper>();
+        final List<Integer> ids = new ArrayList<Integer>(topicIds);
+
+        for (int i = 0; i < ids.size(); i += BuilderConstants.TOPIC_BATCH_SIZE) {
+            final List<Integer> batchIds = ids.subList(i, Math.min(i + BuilderConstants.TOPIC_BATCH_SIZE, ids.size()));
+            final CollectionWrapper<TopicWrapper> batchTopics = topicProvider.getTopicsWithQuery(
+                    "query;" + CommonFilterConstants.TOPIC_IDS_FILTER_VAR + "=" + CollectionUtilities.toSeperatedString(batchIds, ","));
+
+            if (batchTopics != null) {
+                for (final TopicWrapper topic : batchTopics.getItems()) {
+                    retValue.put(topic.getId(), topic);
+                }
+            }
+        }
+
+        // Fetch any topics that weren't returned by the query individually, so that the providers can handle missing topics
+        for (final Integer topicId : ids) {
+            if (!retValue.containsKey(topicId)) {
+                retValue.put(topicId, topicProvider.getTopic(topicId));
+            }
+        }
+
+        return retValue;
+    }
+
     /**
      * Gets the translated topics from the REST Interface and also creates any dummy translations for topics that have yet to be
      * translated.
@@ -795,6 +1115,17 @@ public class DocBookBuilder implements ShutdownAbleApp {
             final Map<String, BaseTopicWrapper<?>> translatedTopics) throws BuildProcessingException {
         final List<ITopicNode> topicNodes = buildData.getContentSpec().getAllTopicNodes();
 
+        // Fetch all the source topics up front, grouped by the revision that needs to be fetched
+        final Map<Integer, Set<Integer>> revisionTopicIds = new HashMap<Integer, Set<Integer>>();
+        for (final ITopicNode topicNode : topicNodes) {
+            final Integer revision = getTranslatedTopicNodeFetchRevision(buildData, topicNode);
+            if (!revisionTopicIds.containsKey(revision)) {
+                revisionTopicIds.put(revision, new HashSet<Integer>());
+            }
+            revisionTopicIds.get(revision).add(topicNode.getDBId());
+        }
+        final Map<Integer, Map<Integer, TopicWrapper>> revisionTopics = getRevisionTopics(revisionTopicIds);
+
         final int showPercent = 10;
         final float total = topicNodes.size();
         float current = 0;
@@ -802,7 +1133,14 @@ public class DocBookBuilder implements ShutdownAbleApp {
 
         // Loop over each Topic Node in the content spec and get it's translated topic
         for (final ITopicNode topicNode : topicNodes) {
-            getTranslatedTopicForTopicNode(buildData, topicNode, translatedTopics);
+            // Check if the app should be shutdown
+            if (isShuttingDown.get()) {
+                return;
+            }
+
+            final TopicWrapper topic = revisionTopics.get(getTranslatedTopicNodeFetchRevision(buildData, topicNode)).get(
+                    topicNode.getDBId());
+            getTranslatedTopicForTopicNode(buildData, topicNode, topic, getTranslatedCSNode(buildData, topicNode), translatedTopics);
 
             ++current;
             final int percent = Math.round(current / total * 100);
@@ -823,19 +1161,68 @@ public class DocBookBuilder implements ShutdownAbleApp {
     protected void getTranslatedTopicForTopicNode(final BuildData buildData, final ITopicNode topicNode,
             final Map<String, BaseTopicWrapper<?>> translatedTopics) throws BuildProcessingException {
         final TopicWrapper topic;
-        if (topicNode.getRevision() != null) {
-            topic = topicProvider.getTopic(topicNode.getDBId(), topicNode.getRevision());
-        } else if (buildData.getBuildOptions().getMaxRevision() != null) {
-            topic = topicProvider.getTopic(topicNode.getDBId(), buildData.getBuildOptions().getMaxRevision());
+        final Integer revision = getTranslatedTopicNodeFetchRevision(buildData, topicNode);
+        if (revision != null) {
+            topic = topicProvider.getTopic(topicNode.getDBId(), revision);
         } else {
             topic = topicProvider.getTopic(topicNode.getDBId());
         }
 
-        // Check if the spec topic has a matching translated topic node, if not then create a dummy topic
-        if (topicNode.getTranslationUniqueId() != null) {
-            final TranslatedCSNodeWrapper translatedCSNode = translatedCSNodeProvider.getTranslatedCSNode(
-                    Integer.parseInt(topicNode.getTranslationUniqueId()));
+        getTranslatedTopicForTopicNode(buildData, topicNode, topic, getTranslatedCSNode(buildData, topicNode), translatedTopics);
+    }
 
+    /**
+     * Gets the revision of the source topic that should be fetched for a topic node in a translation build.
+     *
+     * @param buildData Information and data structures for the build.
+     * @param topicNode The topic node to get the revision for.
+     * @return The revision to fetch, or null if the latest revision should be used.
+     */
+    protected Integer getTranslatedTopicNodeFetchRevision(final BuildData buildData, final ITopicNode topicNode) {
+        if (topicNode.getRevision() != null) {
+            return topicNode.getRevision();
+        } else {
+            return buildData.getBuildOptions().getMaxRevision();
+        }
+    }
+
+    /**
+     * Gets the translated content spec node for a topic node. The node is taken from the nodes that were downloaded with the
+     * translated content spec if possible, otherwise it is fetched from the server.
+     *
+     * @param buildData Information and data structures for the build.
+     * @param topicNode The topic node to get the translated node for.
+     * @return The translated content spec node, or null if the topic node hasn't been pushed for translation.
+     */
+    protected TranslatedCSNodeWrapper getTranslatedCSNode(final BuildData buildData, final ITopicNode topicNode) {
+        if (topicNode.getTranslationUniqueId() == null) {
+            return null;
+        }
+
+        final Integer translatedCSNodeId = Integer.parseInt(topicNode.getTranslationUniqueId());
+        final TranslatedCSNodeWrapper translatedCSNode = buildData.getTranslatedCSNodes().get(translatedCSNodeId);
+        if (translatedCSNode != null) {
+            return translatedCSNode;
+        } else {
+            return translatedCSNodeProvider.getTranslatedCSNode(translatedCSNodeId);
+        }
+    }
+
+    /**
+     * Finds the translated topic for a topic node, or creates a dummy translated topic if one doesn't exist, and adds it to the
+     * build database.
+     *
+     * @param buildData        Information and data structures for the build.
+     * @param topicNode        The spec topic to find the Translated Topic for.
+     * @param topic            The source topic for the topic node.
+     * @param translatedCSNode The translated content spec node for the topic node, or null if it hasn't been pushed for translation.
+     * @param translatedTopics The translated topic collection to add translated topics to.
+     */
+    protected void getTranslatedTopicForTopicNode(final BuildData buildData, final ITopicNode topicNode, final TopicWrapper topic,
+            final TranslatedCSNodeWrapper translatedCSNode,
+            final Map<String, BaseTopicWrapper<?>> translatedTopics) throws BuildProcessingException {
+        // Check if the spec topic has a matching translated topic node, if not then create a dummy topic
+        if (translatedCSNode != null) {
             // Check if the translated node has a specific conditional translated topic, otherwise find the normal translated topic
             if (translatedCSNode.getTranslatedTopics() != null && !translatedCSNode.getTranslatedTopics().isEmpty()) {
                 // Get the matching latest translated topic and pushed translated topics
@@ -1059,119 +1446,49 @@ public class DocBookBuilder implements ShutdownAbleApp {
         if (topics != null) {
             log.info("\tProcessing " + topics.size() + " Topics");
 
-            final int showPercent = 10;
-            final float total = topics.size();
-            float current = 0;
-            int lastPercent = 0;
+            // Get the cache of previously processed topics, if one has been configured
+            final TopicDocumentCache topicCache = getTopicDocumentCache(buildData);
+            final String cacheKeyPrefix = topicCache == null ? null : getTopicCacheKeyPrefix(buildData);
 
-            // Process each topic
-            for (final Entry<String, BaseTopicWrapper<?>> topicEntry : topics.entrySet()) {
+            // Create a task to process each topic, so that the topics can be processed concurrently
+            final List<Entry<String, BaseTopicWrapper<?>>> topicEntries = new ArrayList<Entry<String, BaseTopicWrapper<?>>>(
+                    topics.entrySet());
+            final List<Callable<Pair<Document, TopicErrorDatabase>>> tasks = new ArrayList<Callable<Pair<Document,
+                    TopicErrorDatabase>>>();
+            for (final Entry<String, BaseTopicWrapper<?>> topicEntry : topicEntries) {
                 final BaseTopicWrapper<?> topic = topicEntry.getValue();
                 final String key = topicEntry.getKey();
-
-                ++current;
-                final int percent = Math.round(current / total * 100);
-                if (percent - lastPercent >= showPercent) {
-                    lastPercent = percent;
-                    log.info("\tFirst topic Pass " + percent + "% Done");
-                }
-
-                // Get the Topic ID
-                final Integer topicRevision = topic.getTopicRevision();
-
-                boolean revHistoryTopic = topic.hasTag(buildData.getServerEntities().getRevisionHistoryTagId());
-                boolean legalNoticeTopic = topic.hasTag(buildData.getServerEntities().getLegalNoticeTagId());
-                boolean authorGroupTopic = topic.hasTag(buildData.getServerEntities().getAuthorGroupTagId());
-                boolean abstractTopic = topic.hasTag(buildData.getServerEntities().getAbstractTagId());
-                boolean infoTopic = topic.hasTag(buildData.getServerEntities().getInfoTagId());
-
-                Document topicDoc = null;
-                final String topicXML = topic.getXml();
-
-                // Check if the app should be shutdown
-                if (isShuttingDown.get()) {
-                    return;
-                }
-
-                boolean xmlValid = true;
-
-                // Check that the Topic XML exists and isn't empty
-                if (topicXML == null || topicXML.trim().isEmpty()) {
-                    buildData.getErrorDatabase().addWarning(topic, ErrorType.NO_CONTENT, BuilderConstants.WARNING_EMPTY_TOPIC_XML);
-                    topicDoc = DocBookBuildUtilities.setTopicXMLForError(buildData, topic, getErrorEmptyTopicTemplate().getValue());
-                    xmlValid = false;
-                }
-
-                // Check if the app should be shutdown
-                if (isShuttingDown.get()) {
-                    return;
-                }
-
-                // Make sure we have valid XML
-                if (xmlValid) {
-                    try {
-                        final String fixedTopicXML;
-                        if (buildData.getDocBookVersion() == DocBookVersion.DOCBOOK_50) {
-                            fixedTopicXML = DocBookUtilities.addDocBook50Namespace(topicXML);
+                tasks.add(new Callable<Pair<Document, TopicErrorDatabase>>() {
+                    @Override
+                    public Pair<Document, TopicErrorDatabase> call() throws Exception {
+                        final TopicErrorDatabase errorDatabase = new TopicErrorDatabase();
+                        final Document topicDoc;
+                        if (topicCache == null) {
+                            topicDoc = doTopicFirstPass(buildData, errorDatabase, topic);
                         } else {
-                            fixedTopicXML = topicXML;
+                            topicDoc = doCachedTopicFirstPass(buildData, errorDatabase, topic, topicCache,
+                                    getTopicCacheKey(buildData, cacheKeyPrefix, key, topic));
                         }
-
-                        topicDoc = XMLUtilities.convertStringToDocument(fixedTopicXML);
-
-                        if (topicDoc == null) {
-                            final String xmlStringInCDATA = XMLUtilities.wrapStringInCDATA(topic.getXml());
-                            buildData.getErrorDatabase().addError(topic, ErrorType.INVALID_CONTENT,
-                                    BuilderConstants.ERROR_INVALID_XML_CONTENT + " The processed XML is <programlisting>" +
-                                            xmlStringInCDATA + "</programlisting>");
-                            topicDoc = DocBookBuildUtilities.setTopicXMLForError(buildData, topic,
-                                    getErrorInvalidValidationTopicTemplate().getValue());
-                        }
-                    } catch (Exception ex) {
-                        final String xmlStringInCDATA = XMLUtilities.wrapStringInCDATA(topic.getXml());
-                        buildData.getErrorDatabase().addError(topic, ErrorType.INVALID_CONTENT,
-                                BuilderConstants.ERROR_BAD_XML_STRUCTURE + " " + StringUtilities.escapeForXML(
-                                        ex.getMessage()) + " The processed XML is <programlisting>" + xmlStringInCDATA +
-                                        "</programlisting>");
-                        topicDoc = DocBookBuildUtilities.setTopicXMLForError(buildData, topic,
-                                getErrorInvalidValidationTopicTemplate().getValue());
+                        return new Pair<Document, TopicErrorDatabase>(topicDoc, errorDatabase);
                     }
-                }
+                });
+            }
 
-                // Make sure the topic has the correct root element and other items
-                if (revHistoryTopic) {
-                    // If it is a translated build then check if we have anything more to merge together
-                    if (buildData.isTranslationBuild()) {
-                        topicDoc = mergeAdditionalTranslatedXML(buildData, topicDoc, (TranslatedTopicWrapper) topic,
-                                TopicType.REVISION_HISTORY);
-                    }
+            final List<Pair<Document, TopicErrorDatabase>> results = runTasks(buildData, tasks, "First topic Pass");
 
-                    DocBookUtilities.wrapDocumentInAppendix(topicDoc);
-                } else if (authorGroupTopic) {
-                    // If it is a translated build then check if we have anything more to merge together
-                    if (buildData.isTranslationBuild()) {
-                        topicDoc = mergeAdditionalTranslatedXML(buildData, topicDoc, (TranslatedTopicWrapper) topic,
-                                TopicType.AUTHOR_GROUP);
-                    }
+            // Check if the app should be shutdown
+            if (isShuttingDown.get()) {
+                return;
+            }
 
-                    DocBookUtilities.wrapDocumentInAuthorGroup(topicDoc);
-                } else if (legalNoticeTopic) {
-                    DocBookUtilities.wrapDocumentInLegalNotice(topicDoc);
-                } else if (abstractTopic) {
-                    DocBookUtilities.wrapDocument(topicDoc, "abstract");
-                } else if (infoTopic) {
-                    if (buildData.getDocBookVersion() == DocBookVersion.DOCBOOK_50) {
-                        DocBookUtilities.wrapDocument(topicDoc, "info");
-                    } else {
-                        DocBookUtilities.wrapDocument(topicDoc, "sectioninfo");
-                    }
-                } else {
-                    // Ensure the topic is wrapped in a section and the title matches the topic
-                    DocBookUtilities.wrapDocumentInSection(topicDoc);
-                    DocBookUtilities.setSectionTitle(buildData.getDocBookVersion(), topic.getTitle(), topicDoc);
+            // Merge the errors and add the documents to the database spec topics, in the same order the topics were processed
+            for (int i = 0; i < topicEntries.size(); i++) {
+                final BaseTopicWrapper<?> topic = topicEntries.get(i).getValue();
+                final String key = topicEntries.get(i).getKey();
+                final Document topicDoc = results.get(i).getFirst();
+                final Integer topicRevision = topic.getTopicRevision();
 
-                    processTopicSectionInfo(buildData, topic, topicDoc);
-                }
+                buildData.getErrorDatabase().addAll(results.get(i).getSecond());
 
                 // Add the document & topic to the database spec topics
                 final List<ITopicNode> specTopics = buildData.getBuildDatabase().getTopicNodesForKey(key);
@@ -1197,24 +1514,315 @@ public class DocBookBuilder implements ShutdownAbleApp {
                         }
                     }
                 }
-
             }
         } else {
             log.info("\tProcessing 0 Topics");
         }
     }
 
+    /**
+     * Checks if the XML for a topic is valid and converts it to a DOM Document, wrapped in the root element required for the
+     * type of topic. This method doesn't modify any shared build state, so it can be safely run for multiple topics at once.
+     *
+     * @param buildData     Information and data structures for the build.
+     * @param errorDatabase The error database to add any errors or warnings for the topic to.
+     * @param topic         The topic to be processed.
+     * @return The DOM Document for the topic, or null if the build is shutting down.
+     * @throws BuildProcessingException Thrown if an unexpected error occurs during building.
+     */
+    protected Document doTopicFirstPass(final BuildData buildData, final TopicErrorDatabase errorDatabase,
+            final BaseTopicWrapper<?> topic) throws BuildProcessingException {
+        boolean revHistoryTopic = topic.hasTag(buildData.getServerEntities().getRevisionHistoryTagId());
+        boolean legalNoticeTopic = topic.hasTag(buildData.getServerEntities().getLegalNoticeTagId());
+        boolean authorGroupTopic = topic.hasTag(buildData.getServerEntities().getAuthorGroupTagId());
+        boolean abstractTopic = topic.hasTag(buildData.getServerEntities().getAbstractTagId());
+        boolean infoTopic = topic.hasTag(buildData.getServerEntities().getInfoTagId());
+
+        Document topicDoc = null;
+        final String topicXML = topic.getXml();
+
+        // Check if the app should be shutdown
+        if (isShuttingDown.get()) {
+            return null;
+        }
+
+        boolean xmlValid = true;
+
+        // Check that the Topic XML exists and isn't empty
+        if (topicXML == null || topicXML.trim().isEmpty()) {
+            errorDatabase.addWarning(topic, ErrorType.NO_CONTENT, BuilderConstants.WARNING_EMPTY_TOPIC_XML);
+            topicDoc = DocBookBuildUtilities.setTopicXMLForError(buildData, topic, getErrorEmptyTopicTemplate().getValue());
+            xmlValid = false;
+        }
+
+        // Check if the app should be shutdown
+        if (isShuttingDown.get()) {
+            return null;
+        }
+
+        // Make sure we have valid XML
+        if (xmlValid) {
+            try {
+                final String fixedTopicXML;
+                if (buildData.getDocBookVersion() == DocBookVersion.DOCBOOK_50) {
+                    fixedTopicXML = DocBookUtilities.addDocBook50Namespace(topicXML);
+                } else {
+                    fixedTopicXML = topicXML;
+                }
+
+                topicDoc = XMLUtilities.convertStringToDocument(fixedTopicXML);
+
+                if (topicDoc == null) {
+                    final String xmlStringInCDATA = XMLUtilities.wrapStringInCDATA(topic.getXml());
+                    errorDatabase.addError(topic, ErrorType.INVALID_CONTENT,
+                            BuilderConstants.ERROR_INVALID_XML_CONTENT + " The processed XML is <programlisting>" +
+                                    xmlStringInCDATA + "</programlisting>");
+                    topicDoc = DocBookBuildUtilities.setTopicXMLForError(buildData, topic,
+                            getErrorInvalidValidationTopicTemplate().getValue());
+                }
+            } catch (Exception ex) {
+                final String xmlStringInCDATA = XMLUtilities.wrapStringInCDATA(topic.getXml());
+                errorDatabase.addError(topic, ErrorType.INVALID_CONTENT,
+                        BuilderConstants.ERROR_BAD_XML_STRUCTURE + " " + StringUtilities.escapeForXML(
+                                ex.getMessage()) + " The processed XML is <programlisting>" + xmlStringInCDATA +
+                                "</programlisting>");
+                topicDoc = DocBookBuildUtilities.setTopicXMLForError(buildData, topic,
+                        getErrorInvalidValidationTopicTemplate().getValue());
+            }
+        }
+
+        // Make sure the topic has the correct root element and other items
+        if (revHistoryTopic) {
+            // If it is a translated build then check if we have anything more to merge together
+            if (buildData.isTranslationBuild()) {
+                topicDoc = mergeAdditionalTranslatedXML(buildData, errorDatabase, topicDoc, (TranslatedTopicWrapper) topic,
+                        TopicType.REVISION_HISTORY);
+            }
+
+            DocBookUtilities.wrapDocumentInAppendix(topicDoc);
+        } else if (authorGroupTopic) {
+            // If it is a translated build then check if we have anything more to merge together
+            if (buildData.isTranslationBuild()) {
+                topicDoc = mergeAdditionalTranslatedXML(buildData, errorDatabase, topicDoc, (TranslatedTopicWrapper) topic,
+                        TopicType.AUTHOR_GROUP);
+            }
+
+            DocBookUtilities.wrapDocumentInAuthorGroup(topicDoc);
+        } else if (legalNoticeTopic) {
+            DocBookUtilities.wrapDocumentInLegalNotice(topicDoc);
+        } else if (abstractTopic) {
+            DocBookUtilities.wrapDocument(topicDoc, "abstract");
+        } else if (infoTopic) {
+            if (buildData.getDocBookVersion() == DocBookVersion.DOCBOOK_50) {
+                DocBookUtilities.wrapDocument(topicDoc, "info");
+            } else {
+                DocBookUtilities.wrapDocument(topicDoc, "sectioninfo");
+            }
+        } else {
+            // Ensure the topic is wrapped in a section and the title matches the topic
+            DocBookUtilities.wrapDocumentInSection(topicDoc);
+            DocBookUtilities.setSectionTitle(buildData.getDocBookVersion(), topic.getTitle(), topicDoc);
+
+            processTopicSectionInfo(buildData, topic, topicDoc);
+        }
+
+        return topicDoc;
+    }
+
+    /**
+     * Does the first topic pass for a topic, using the result from the topic cache if the topic has been processed before.
+     *
+     * @param buildData     Information and data structures for the build.
+     * @param errorDatabase The error database to add any errors or warnings for the topic to.
+     * @param topic         The topic to be processed.
+     * @param topicCache    The cache of previously processed topics.
+     * @param cacheKey      The key of the topic in the cache.
+     * @return The DOM Document for the topic, or null if the build is shutting down.
+     * @throws BuildProcessingException Thrown if an unexpected error occurs during building.
+     */
+    protected Document doCachedTopicFirstPass(final BuildData buildData, final TopicErrorDatabase errorDatabase,
+            final BaseTopicWrapper<?> topic, final TopicDocumentCache topicCache, final String cacheKey) throws BuildProcessingException {
+        final TopicDocumentCache.CachedTopic cachedTopic = topicCache.get(cacheKey);
+        if (cachedTopic != null) {
+            try {
+                final Document topicDoc = XMLUtilities.convertStringToDocument(cachedTopic.getXml());
+                if (topicDoc != null) {
+                    cachedTopic.addErrors(errorDatabase, topic);
+                    return topicDoc;
+                }
+            } catch (Exception e) {
+                log.debug("Unable to use the cached XML for topic " + topic.getTopicId(), e);
+            }
+        }
+
+        final Document topicDoc = doTopicFirstPass(buildData, errorDatabase, topic);
+        if (topicDoc != null && !isShuttingDown.get()) {
+            topicCache.put(cacheKey, new TopicDocumentCache.CachedTopic(XMLUtilities.convertDocumentToString(topicDoc, ENCODING),
+                    errorDatabase.getErrorData(topic)));
+        }
+
+        return topicDoc;
+    }
+
+    /**
+     * Get the cache used to store the results of the first topic pass, as specified in the build options.
+     *
+     * @param buildData Information and data structures for the build.
+     * @return The topic cache, or null if no cache directory has been specified.
+     */
+    protected TopicDocumentCache getTopicDocumentCache(final BuildData buildData) {
+        final String cacheDirectory = buildData.getBuildOptions().getTopicCacheDirectory();
+        if (isNullOrEmpty(cacheDirectory)) {
+            return null;
+        }
+
+        final Long maxSize = buildData.getBuildOptions().getTopicCacheMaxSize();
+        return TopicDocumentCache.getCache(new File(cacheDirectory), maxSize == null ? BuilderConstants.DEFAULT_TOPIC_CACHE_MAX_SIZE :
+                maxSize);
+    }
+
+    /**
+     * Creates the part of a topic cache key that is the same for every topic in the build. This includes everything from the
+     * build and server settings that can change the result of the first topic pass.
+     *
+     * @param buildData Information and data structures for the build.
+     * @return The topic cache key prefix for the build.
+     */
+    protected String getTopicCacheKeyPrefix(final BuildData buildData) {
+        final ServerEntitiesWrapper serverEntities = buildData.getServerEntities();
+        final StringBuilder key = new StringBuilder();
+        key.append(getClass().getName()).append(":").append(buildData.getDocBookVersion()).append(":").append(
+                buildData.isTranslationBuild());
+        key.append(":").append(serverEntities.getRevisionHistoryTagId()).append(",").append(serverEntities.getLegalNoticeTagId());
+        key.append(",").append(serverEntities.getAuthorGroupTagId()).append(",").append(serverEntities.getAbstractTagId());
+        key.append(",").append(serverEntities.getInfoTagId());
+        key.append(":").append(buildData.getServerSettings().getSEOCategoryIds());
+        // The error templates link to the errors page, unless it has been suppressed
+        key.append(":").append(buildData.getBuildOptions().getSuppressErrorsPage());
+        key.append(":").append(TopicDocumentCache.hash(getErrorEmptyTopicTemplate().getValue() +
+                getErrorInvalidValidationTopicTemplate().getValue()));
+        return key.toString();
+    }
+
+    /**
+     * Creates the key used to store a topic in the topic cache. The key includes the content of the topic, so that any change to
+     * the topic, or its translation, will create a new cache entry.
+     *
+     * @param buildData      Information and data structures for the build.
+     * @param cacheKeyPrefix The key prefix for the build, as created by {@link #getTopicCacheKeyPrefix(BuildData)}.
+     * @param buildKey       The key of the topic in the build database.
+     * @param topic          The topic to create the key for.
+     * @return The topic cache key.
+     */
+    protected String getTopicCacheKey(final BuildData buildData, final String cacheKeyPrefix, final String buildKey,
+            final BaseTopicWrapper<?> topic) {
+        final List<Integer> seoCategoryIds = buildData.getServerSettings().getSEOCategoryIds();
+        final StringBuilder content = new StringBuilder();
+        content.append(topic.getLocale() == null ? null : topic.getLocale().getValue()).append("\n");
+        content.append(topic.getTitle()).append("\n");
+        if (topic.getTags() != null && topic.getTags().getItems() != null) {
+            for (final TagWrapper tag : topic.getTags().getItems()) {
+                content.append(tag.getId()).append("-").append(tag.getName());
+                if (seoCategoryIds != null && !seoCategoryIds.isEmpty()) {
+                    content.append("-").append(tag.containedInCategories(seoCategoryIds));
+                }
+                content.append(",");
+            }
+        }
+        content.append("\n");
+        if (topic instanceof TranslatedTopicWrapper) {
+            content.append(((TranslatedTopicWrapper) topic).getTranslatedAdditionalXML()).append("\n");
+        }
+        content.append(topic.getXml());
+
+        return cacheKeyPrefix + ":" + buildKey + ":" + TopicDocumentCache.hash(content.toString());
+    }
+
+    /**
+     * Runs a list of tasks using the number of threads specified in the build options. If only one thread should be used, then
+     * the tasks are run one after another in the current thread.
+     *
+     * @param buildData    Information and data structures for the build.
+     * @param tasks        The tasks to be run.
+     * @param progressName The name to use when logging the progress of the tasks, or null if progress shouldn't be logged.
+     * @param <T>          The type of result returned by the tasks.
+     * @return The results of each task, in the same order as the tasks that were passed.
+     * @throws BuildProcessingException Thrown if a task fails with an unexpected error.
+     */
+    protected <T> List<T> runTasks(final BuildData buildData, final List<? extends Callable<T>> tasks,
+            final String progressName) throws BuildProcessingException {
+        final List<T> results = new ArrayList<T>();
+        final Integer threadCount = buildData.getBuildOptions().getThreadCount();
+
+        final int showPercent = 10;
+        final float total = tasks.size();
+        float current = 0;
+        int lastPercent = 0;
+
+        if (threadCount == null || threadCount <= 1 || tasks.size() <= 1) {
+            for (final Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (BuildProcessingException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new BuildProcessingException(e);
+                }
+
+                ++current;
+                final int percent = Math.round(current / total * 100);
+                if (progressName != null && percent - lastPercent >= showPercent) {
+                    lastPercent = percent;
+                    log.info("\t" + progressName + " " + percent + "% Done");
+                }
+            }
+        } else {
+            final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, tasks.size()));
+            try {
+                final List<Future<T>> futures = new ArrayList<Future<T>>();
+                for (final Callable<T> task : tasks) {
+                    futures.add(executor.submit(task));
+                }
+
+                for (final Future<T> future : futures) {
+                    results.add(future.get());
+
+                    ++current;
+                    final int percent = Math.round(current / total * 100);
+                    if (progressName != null && percent - lastPercent >= showPercent) {
+                        lastPercent = percent;
+                        log.info("\t" + progressName + " " + percent + "% Done");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BuildProcessingException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof BuildProcessingException) {
+                    throw (BuildProcessingException) e.getCause();
+                } else {
+                    throw new BuildProcessingException(e.getCause());
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        return results;
+    }
+
     /**
      * Merges the Additional Translated XML of a Translated Topic into the original Topic XML content.
      *
      * @param buildData
+     * @param errorDatabase   The error database to add any errors to.
      * @param topicDoc        The transformed original XML content.
      * @param translatedTopic The Translated Topic that is being merged.
      * @param topicType       The type of topic being merged.
      * @return The merged DOM document.
      * @throws BuildProcessingException
      */
-    private Document mergeAdditionalTranslatedXML(BuildData buildData, final Document topicDoc,
+    private Document mergeAdditionalTranslatedXML(BuildData buildData, final TopicErrorDatabase errorDatabase, final Document topicDoc,
             final TranslatedTopicWrapper translatedTopic, final TopicType topicType) throws BuildProcessingException {
         Document retValue = topicDoc;
         if (!isNullOrEmpty(translatedTopic.getTranslatedAdditionalXML())) {
@@ -1222,7 +1830,7 @@ public class DocBookBuilder implements ShutdownAbleApp {
             try {
                 additionalXMLDoc = XMLUtilities.convertStringToDocument(translatedTopic.getTranslatedAdditionalXML());
             } catch (Exception ex) {
-                buildData.getErrorDatabase().addError(translatedTopic, ErrorType.INVALID_CONTENT,
+                errorDatabase.addError(translatedTopic, ErrorType.INVALID_CONTENT,
                         BuilderConstants.ERROR_INVALID_TOPIC_XML + " " + StringUtilities.escapeForXML(ex.getMessage()));
                 retValue = DocBookBuildUtilities.setTopicXMLForError(buildData, translatedTopic,
                         getErrorInvalidValidationTopicTemplate().getValue());
@@ -1238,7 +1846,7 @@ public class DocBookBuilder implements ShutdownAbleApp {
                     }
                 } catch (BuildProcessingException ex) {
                     final String xmlStringInCDATA = XMLUtilities.wrapStringInCDATA(translatedTopic.getTranslatedAdditionalXML());
-                    buildData.getErrorDatabase().addError(translatedTopic, ErrorType.INVALID_CONTENT,
+                    errorDatabase.addError(translatedTopic, ErrorType.INVALID_CONTENT,
                             BuilderConstants.ERROR_BAD_XML_STRUCTURE + " " + StringUtilities.escapeForXML(
                                     ex.getMessage()) + " The processed XML is <programlisting>" + xmlStringInCDATA +
                                     "</programlisting>");
@@ -1247,7 +1855,7 @@ public class DocBookBuilder implements ShutdownAbleApp {
                 }
             } else {
                 final String xmlStringInCDATA = XMLUtilities.wrapStringInCDATA(translatedTopic.getTranslatedAdditionalXML());
-                buildData.getErrorDatabase().addError(translatedTopic, ErrorType.INVALID_CONTENT,
+                errorDatabase.addError(translatedTopic, ErrorType.INVALID_CONTENT,
                         BuilderConstants.ERROR_INVALID_XML_CONTENT + " The processed XML is <programlisting>" +
                                 xmlStringInCDATA + "</programlisting>");
                 retValue = DocBookBuildUtilities.setTopicXMLForError(buildData, translatedTopic,
@@ -1333,57 +1941,299 @@ public class DocBookBuilder implements ShutdownAbleApp {
                     return;
                 }
 
-                // Check to see if the translated topic revision is an older topic than the topic revision specified in the map
-                if (topic instanceof TranslatedTopicWrapper) {
-                    final TranslatedTopicWrapper pushedTranslatedTopic = EntityUtilities.returnPushedTranslatedTopic(
-                            (TranslatedTopicWrapper) topic);
-                    if (pushedTranslatedTopic != null && specTopic.getRevision() != null && !pushedTranslatedTopic.getTopicRevision()
-                            .equals(specTopic.getRevision())) {
-                        if (EntityUtilities.isDummyTopic(topic)) {
-                            buildData.getErrorDatabase().addWarning(topic, ErrorType.OLD_UNTRANSLATED,
-                                    BuilderConstants.WARNING_OLD_UNTRANSLATED_TOPIC);
-                        } else {
-                            buildData.getErrorDatabase().addWarning(topic, ErrorType.OLD_TRANSLATION,
-                                    BuilderConstants.WARNING_OLD_TRANSLATED_TOPIC);
-                        }
-                    }
+                // Check to see if the translated topic revision is an older topic than the topic revision specified in the map
+                if (topic instanceof TranslatedTopicWrapper) {
+                    final TranslatedTopicWrapper pushedTranslatedTopic = EntityUtilities.returnPushedTranslatedTopic(
+                            (TranslatedTopicWrapper) topic);
+                    if (pushedTranslatedTopic != null && specTopic.getRevision() != null && !pushedTranslatedTopic.getTopicRevision()
+                            .equals(specTopic.getRevision())) {
+                        if (EntityUtilities.isDummyTopic(topic)) {
+                            buildData.getErrorDatabase().addWarning(topic, ErrorType.OLD_UNTRANSLATED,
+                                    BuilderConstants.WARNING_OLD_UNTRANSLATED_TOPIC);
+                        } else {
+                            buildData.getErrorDatabase().addWarning(topic, ErrorType.OLD_TRANSLATION,
+                                    BuilderConstants.WARNING_OLD_TRANSLATED_TOPIC);
+                        }
+                    }
+                }
+
+                /*
+                 * Extract the id attributes used in this topic. We'll use this data in the second pass to make sure that
+                 * individual topics don't repeat id attributes. The index also holds the links, so that the link pass doesn't
+                 * need to walk the document again.
+                 */
+                final Set<String> ids = buildData.getTopicNodeIndex(doc).getIds();
+                if (!ids.isEmpty()) {
+                    usedIdAttributes.put(specTopic, new HashSet<String>(ids));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the conditional pass should be performed.
+     *
+     * @param buildData Information and data structures for the build.
+     * @param specTopic The spec topic the conditions should be processed for,
+     * @param doc       The DOM Document to process the conditions against.
+     */
+    protected void processConditions(final BuildData buildData, final SpecTopic specTopic, final Document doc) {
+        final String condition = specTopic.getConditionStatement(true);
+        DocBookUtilities.processConditions(condition, doc, BuilderConstants.DEFAULT_CONDITION);
+    }
+
+    /**
+     * Go through each topic and ensure that the links are valid, and then sets the duplicate ids for the SpecTopics/Levels
+     *
+     * @param buildData
+     * @param bookIdAttributes The set of ids that have been used in the set of topics in the content spec.
+     * @throws BuildProcessingException
+     */
+    protected void doLinkPass(final BuildData buildData, final Set<String> bookIdAttributes) throws BuildProcessingException {
+        log.info("Doing " + buildData.getBuildLocale() + " Topic Link Pass");
+
+        validateTopicLinks(buildData, bookIdAttributes);
+
+        // Apply the duplicate ids for the spec topics
+        buildData.getBuildDatabase().setDatabaseDuplicateIds();
+    }
+
+    /**
+     * Creates the manifest entries for each spec topic in the build, and then finds the topics that haven't changed since the
+     * previous build so that their output can be reused. A topic is only reused if its content, revision, settings and everything
+     * it links to is the same as in the previous build, and it had no errors in the previous build.
+     *
+     * @param buildData        Information and data structures for the build.
+     * @param usedIdAttributes The set of ids that have been used in the set of topics in the content spec.
+     * @param idAttributeIndex The index of ids that have been used in the set of topics in the content spec.
+     * @throws BuildProcessingException Thrown if an unexpected error occurs during building.
+     */
+    protected void doIncrementalBuildPass(final BuildData buildData, final Map<SpecTopic, Set<String>> usedIdAttributes,
+            final IdAttributeIndex idAttributeIndex) throws BuildProcessingException {
+        final BuildManifest buildManifest = buildData.getBuildManifest();
+        final BuildManifest previousBuildManifest = buildData.getPreviousBuildManifest();
+        final boolean useFixedUrls = buildData.isUseFixedUrls();
+        final String cacheKeyPrefix = getTopicCacheKeyPrefix(buildData);
+
+        buildManifest.setBuildFingerprint(getBuildFingerprint(buildData, cacheKeyPrefix));
+
+        // Create the manifest entry for each spec topic
+        final List<SpecTopic> specTopics = buildData.getBuildDatabase().getAllSpecTopics();
+        final Map<SpecTopic, BuildManifest.TopicEntry> entries = new LinkedHashMap<SpecTopic, BuildManifest.TopicEntry>();
+        for (final SpecTopic specTopic : specTopics) {
+            final BaseTopicWrapper<?> topic = specTopic.getTopic();
+            if (topic == null) continue;
+
+            final String uniqueLinkId = specTopic.getUniqueLinkId(useFixedUrls);
+            final Set<String> ids = usedIdAttributes.containsKey(specTopic) ? usedIdAttributes.get(
+                    specTopic) : Collections.<String>emptySet();
+            final BuildManifest.TopicEntry entry = new BuildManifest.TopicEntry(uniqueLinkId, topic.getTopicId(),
+                    topic.getTopicRevision(), getSpecTopicFingerprint(buildData, cacheKeyPrefix, specTopic, ids, idAttributeIndex));
+            entry.getIds().add(uniqueLinkId);
+            entry.getIds().addAll(ids);
+
+            buildManifest.addTopicEntry(entry);
+            entries.put(specTopic, entry);
+        }
+
+        // Check that the previous build can be used
+        if (previousBuildManifest == null || !isIncrementalBuildSupported(buildData)
+                || !buildManifest.getBuildFingerprint().equals(previousBuildManifest.getBuildFingerprint())) {
+            return;
+        }
+
+        log.info("Doing " + buildData.getBuildLocale() + " Incremental Build Pass");
+
+        // Find the topics that could be reused, and the ids of the topics that have changed
+        final Map<SpecTopic, BuildManifest.TopicEntry> candidates = new LinkedHashMap<SpecTopic, BuildManifest.TopicEntry>();
+        final Set<String> changedIds = new HashSet<String>();
+        final Set<String> uniqueLinkIds = new HashSet<String>();
+        for (final Map.Entry<SpecTopic, BuildManifest.TopicEntry> entry : entries.entrySet()) {
+            final BuildManifest.TopicEntry topicEntry = entry.getValue();
+            final BuildManifest.TopicEntry previousEntry = previousBuildManifest.getTopicEntry(topicEntry.getUniqueLinkId());
+            uniqueLinkIds.add(topicEntry.getUniqueLinkId());
+
+            if (previousEntry != null && !previousEntry.hasErrors() && topicEntry.getFingerprint().equals(previousEntry.getFingerprint())
+                    && entry.getKey().getTopicType() == TopicType.NORMAL && previousEntry.getOutputPath() != null
+                    && buildData.getPreviousBuildFiles().containsKey(previousEntry.getOutputPath())) {
+                candidates.put(entry.getKey(), previousEntry);
+            } else {
+                changedIds.addAll(topicEntry.getIds());
+                if (previousEntry != null) {
+                    changedIds.addAll(previousEntry.getIds());
+                }
+            }
+        }
+
+        // Any topics that have been removed from the book have also changed
+        for (final BuildManifest.TopicEntry previousEntry : previousBuildManifest.getTopicEntries()) {
+            if (!uniqueLinkIds.contains(previousEntry.getUniqueLinkId())) {
+                changedIds.addAll(previousEntry.getIds());
+            }
+        }
+
+        // Reuse the output of any topics that don't link to a changed topic, or inject a topic that has been added to the book
+        for (final Map.Entry<SpecTopic, BuildManifest.TopicEntry> candidate : candidates.entrySet()) {
+            final SpecTopic specTopic = candidate.getKey();
+            final BuildManifest.TopicEntry previousEntry = candidate.getValue();
+            if (!Collections.disjoint(previousEntry.getLinkIds(), changedIds)) continue;
+            if (hasAddedInjections(buildData, previousEntry)) continue;
+
+            try {
+                final String previousXML = new String(buildData.getPreviousBuildFiles().get(previousEntry.getOutputPath()), ENCODING);
+
+                // Find and Remove the Doctype first
+                final String doctype = XMLUtilities.findDocumentType(previousXML);
+                final Document doc = XMLUtilities.convertStringToDocument(doctype == null ? previousXML : previousXML.replace(doctype, ""));
+                if (doc != null) {
+                    specTopic.setXMLDocument(doc);
+                    buildData.getReusedSpecTopics().put(specTopic, previousEntry);
                 }
+            } catch (Exception e) {
+                log.debug("Unable to reuse the previous output for topic " + specTopic.getId(), e);
+            }
+        }
 
-                /*
-                 * Extract the id attributes used in this topic. We'll use this data in the second pass to make sure that
-                 * individual topics don't repeat id attributes.
-                 */
-                DocBookBuildUtilities.collectIdAttributes(buildData.getDocBookVersion(), specTopic, doc, usedIdAttributes);
+        log.info("\tReusing " + buildData.getReusedSpecTopics().size() + " of " + entries.size() + " Spec Topics");
+    }
+
+    /**
+     * Checks if any of the custom injections that were missing from a topic in the previous build are now in the book, which means
+     * the topic's previous output is missing the injected links.
+     *
+     * @param buildData     Information and data structures for the build.
+     * @param previousEntry The manifest entry for the topic from the previous build.
+     * @return True if a missing injection has been added to the book, otherwise false.
+     */
+    protected boolean hasAddedInjections(final BuildData buildData, final BuildManifest.TopicEntry previousEntry) {
+        for (final String injectionId : previousEntry.getMissingInjectionIds()) {
+            if (DocBookXMLPreProcessor.isInjectionInContentSpec(buildData.getContentSpec(), buildData.getBuildDatabase(), injectionId)) {
+                return true;
             }
         }
+
+        return false;
     }
 
     /**
-     * Checks if the conditional pass should be performed.
+     * Checks if the build options allow topics to be reused from a previous build. Topics can't be reused if they contain content
+     * that changes every build, such as the build date in bug links.
      *
      * @param buildData Information and data structures for the build.
-     * @param specTopic The spec topic the conditions should be processed for,
-     * @param doc       The DOM Document to process the conditions against.
+     * @return True if topics can be reused from a previous build, otherwise false.
      */
-    protected void processConditions(final BuildData buildData, final SpecTopic specTopic, final Document doc) {
-        final String condition = specTopic.getConditionStatement(true);
-        DocBookUtilities.processConditions(condition, doc, BuilderConstants.DEFAULT_CONDITION);
+    protected boolean isIncrementalBuildSupported(final BuildData buildData) {
+        final DocBookBuildingOptions buildOptions = buildData.getBuildOptions();
+        if (buildOptions.getInsertBugLinks()) {
+            // Both old and new style bug links are generated using the build name, build date and bug link options
+            return false;
+        } else if (buildOptions.getInsertEditorLinks() && buildData.isTranslationBuild()) {
+            return false;
+        } else {
+            return !(buildOptions.isServerBuild() || buildOptions.getFlatten());
+        }
     }
 
     /**
-     * Go through each topic and ensure that the links are valid, and then sets the duplicate ids for the SpecTopics/Levels
+     * Creates a fingerprint of everything in the build, that isn't specific to a topic, that can change the output of a topic.
      *
-     * @param buildData
-     * @param bookIdAttributes The set of ids that have been used in the set of topics in the content spec.
-     * @throws BuildProcessingException
+     * @param buildData      Information and data structures for the build.
+     * @param cacheKeyPrefix The topic cache key prefix for the build, as created by {@link #getTopicCacheKeyPrefix(BuildData)}.
+     * @return The fingerprint for the build.
      */
-    protected void doLinkPass(final BuildData buildData, final Set<String> bookIdAttributes) throws BuildProcessingException {
-        log.info("Doing " + buildData.getBuildLocale() + " Topic Link Pass");
+    protected String getBuildFingerprint(final BuildData buildData, final String cacheKeyPrefix) {
+        final DocBookBuildingOptions buildOptions = buildData.getBuildOptions();
+        final ContentSpec contentSpec = buildData.getContentSpec();
+        final StringBuilder fingerprint = new StringBuilder(cacheKeyPrefix).append("\n");
+        fingerprint.append(buildData.getBuildLocale()).append(":").append(buildData.isUseFixedUrls()).append("\n");
+        fingerprint.append(buildOptions.getInjection()).append(":").append(buildOptions.getInjectionTypes()).append(":");
+        fingerprint.append(buildOptions.getInsertBugLinks()).append(":").append(buildOptions.getUseOldBugLinks()).append(":");
+        fingerprint.append(buildOptions.getForceInjectBugLinks()).append(":").append(buildOptions.getInsertEditorLinks()).append(":");
+        fingerprint.append(buildOptions.getFlattenTopics()).append(":").append(buildOptions.getPublicanShowRemarks()).append(":");
+        fingerprint.append(buildOptions.getDraft()).append(":").append(buildOptions.isResolveEntities()).append(":");
+        fingerprint.append(buildOptions.getIgnoreMissingCustomInjections()).append(":").append(buildData.getBuildName()).append("\n");
+        fingerprint.append(contentSpec.getId()).append(":").append(contentSpec.getTitle()).append(":").append(contentSpec.getProduct());
+        fingerprint.append(":").append(contentSpec.getVersion()).append(":").append(contentSpec.getBugLinks()).append("\n");
+        fingerprint.append(contentSpec.getEntities());
+
+        return TopicDocumentCache.hash(fingerprint.toString());
+    }
 
-        validateTopicLinks(buildData, bookIdAttributes);
+    /**
+     * Creates a fingerprint of everything that is used to process a spec topic, which includes the topic itself, its position in
+     * the book and the titles and ids of anything that will be injected into the topic.
+     *
+     * @param buildData        Information and data structures for the build.
+     * @param cacheKeyPrefix   The topic cache key prefix for the build, as created by {@link #getTopicCacheKeyPrefix(BuildData)}.
+     * @param specTopic        The spec topic to create the fingerprint for.
+     * @param ids              The ids that are used in the spec topics XML.
+     * @param idAttributeIndex The index of ids that have been used in the set of topics in the content spec.
+     * @return The fingerprint for the spec topic.
+     */
+    protected String getSpecTopicFingerprint(final BuildData buildData, final String cacheKeyPrefix, final SpecTopic specTopic,
+            final Set<String> ids, final IdAttributeIndex idAttributeIndex) {
+        final BaseTopicWrapper<?> topic = specTopic.getTopic();
+        final boolean useFixedUrls = buildData.isUseFixedUrls();
+        final StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append(getTopicCacheKey(buildData, cacheKeyPrefix, specTopic.getId(), topic)).append("\n");
+        fingerprint.append(topic.getTopicId()).append("-").append(topic.getTopicRevision()).append("\n");
+        fingerprint.append(specTopic.getUniqueLinkId(useFixedUrls)).append(":").append(specTopic.getTopicType()).append(":");
+        fingerprint.append(specTopic.getConditionStatement(true)).append(":").append(specTopic.getTitle()).append("\n");
+
+        // Add the parent, as it's used for previous/next links
+        if (specTopic.getParent() instanceof Level) {
+            final Level level = (Level) specTopic.getParent();
+            fingerprint.append(level.getUniqueLinkId(useFixedUrls)).append(":").append(level.getTitle()).append(":").append(
+                    level.getTranslatedTitle()).append("\n");
+        }
+
+        // Add the relationships, as they are injected into the topic
+        for (final TopicRelationship relationship : specTopic.getPrevTopicRelationships()) {
+            appendRelationshipFingerprint(fingerprint, "prev", relationship.getSecondaryRelationship(), useFixedUrls);
+        }
+        for (final TopicRelationship relationship : specTopic.getNextTopicRelationships()) {
+            appendRelationshipFingerprint(fingerprint, "next", relationship.getSecondaryRelationship(), useFixedUrls);
+        }
+        appendRelationshipsFingerprint(fingerprint, "prereq", specTopic.getPrerequisiteRelationships(), useFixedUrls);
+        appendRelationshipsFingerprint(fingerprint, "related", specTopic.getRelatedRelationships(), useFixedUrls);
+        appendRelationshipsFingerprint(fingerprint, "linklist", specTopic.getLinkListRelationships(), useFixedUrls);
+
+        // Add the ids that will be changed to be unique
+        for (final String id : new TreeSet<String>(ids)) {
+            if (idAttributeIndex.isUsedByOtherTopic(id, specTopic.getDBId())) {
+                fingerprint.append("duplicate:").append(id).append("\n");
+            }
+        }
 
-        // Apply the duplicate ids for the spec topics
-        buildData.getBuildDatabase().setDatabaseDuplicateIds();
+        return TopicDocumentCache.hash(fingerprint.toString());
+    }
+
+    private void appendRelationshipsFingerprint(final StringBuilder fingerprint, final String type,
+            final List<? extends Relationship> relationships, final boolean useFixedUrls) {
+        for (final Relationship relationship : relationships) {
+            if (relationship instanceof TopicRelationship) {
+                appendRelationshipFingerprint(fingerprint, type, ((TopicRelationship) relationship).getSecondaryRelationship(),
+                        useFixedUrls);
+            } else if (relationship instanceof TargetRelationship) {
+                appendRelationshipFingerprint(fingerprint, type, ((TargetRelationship) relationship).getSecondaryRelationship(),
+                        useFixedUrls);
+            }
+        }
+    }
+
+    private void appendRelationshipFingerprint(final StringBuilder fingerprint, final String type, final SpecNode specNode,
+            final boolean useFixedUrls) {
+        fingerprint.append(type).append(":");
+        if (specNode != null) {
+            fingerprint.append(specNode.getUniqueLinkId(useFixedUrls));
+            if (specNode instanceof SpecTopic) {
+                fingerprint.append(":").append(((SpecTopic) specNode).getTitle());
+            } else if (specNode instanceof Level) {
+                final Level level = (Level) specNode;
+                fingerprint.append(":").append(level.getTitle()).append(":").append(level.getTranslatedTitle());
+            }
+        }
+        fingerprint.append("\n");
     }
 
     /**
@@ -1391,93 +2241,120 @@ public class DocBookBuilder implements ShutdownAbleApp {
      * Topics XML.
      *
      * @param buildData        Information and data structures for the build.
-     * @param usedIdAttributes The set of ids that have been used in the set of topics in the content spec.
+     * @param idAttributeIndex The index of ids that have been used in the set of topics in the content spec.
      * @throws BuildProcessingException Thrown if an unexpected error occurs during building.
      */
     @SuppressWarnings("unchecked")
     private <T extends BaseTopicWrapper<T>> void doSpecTopicSecondPass(final BuildData buildData,
-            final Map<SpecTopic, Set<String>> usedIdAttributes) throws BuildProcessingException {
+            final IdAttributeIndex idAttributeIndex) throws BuildProcessingException {
         log.info("Doing " + buildData.getBuildLocale() + " Spec Topic Pass");
         final List<ITopicNode> topicNodes = buildData.getBuildDatabase().getAllTopicNodes();
 
         log.info("\tProcessing " + topicNodes.size() + " Spec Topics");
 
-        final int showPercent = 10;
-        final float total = topicNodes.size();
-        float current = 0;
-        int lastPercent = 0;
-
         final DocBookXMLPreProcessor xmlPreProcessor = buildData.getXMLPreProcessor();
 
+        // Create a task to process each topic node. Each node has its own DOM Document, so the nodes can be processed concurrently.
+        final List<Callable<TopicErrorDatabase>> tasks = new ArrayList<Callable<TopicErrorDatabase>>();
         for (final ITopicNode topicNode : topicNodes) {
-            // Check if the app should be shutdown
-            if (isShuttingDown.get()) {
-                return;
-            }
+            // Topics reused from a previous build have already been processed
+            if (buildData.getReusedSpecTopics().containsKey(topicNode)) continue;
+
+            tasks.add(new Callable<TopicErrorDatabase>() {
+                @Override
+                public TopicErrorDatabase call() throws Exception {
+                    final TopicErrorDatabase errorDatabase = new TopicErrorDatabase();
+                    doTopicNodeSecondPass(buildData, errorDatabase, topicNode, idAttributeIndex, xmlPreProcessor);
+                    return errorDatabase;
+                }
+            });
+        }
 
-            if (log.isDebugEnabled()) log.debug("\tProcessing SpecTopic " + topicNode.getId() + (topicNode.getRevision() != null ? (", " +
-                    "Revision " + topicNode.getRevision()) : ""));
+        final List<TopicErrorDatabase> errorDatabases = runTasks(buildData, tasks, "Processing Pass");
 
-            ++current;
-            final int percent = Math.round(current / total * 100);
-            if (percent - lastPercent >= showPercent) {
-                lastPercent = percent;
-                log.info("\tProcessing Pass " + percent + "% Done");
-            }
+        // Merge the errors in the same order as the topic nodes, so that the errors are the same as if they were processed serially
+        for (final TopicErrorDatabase errorDatabase : errorDatabases) {
+            buildData.getErrorDatabase().addAll(errorDatabase);
+        }
+    }
 
-            final BaseTopicWrapper<?> topic = topicNode.getTopic();
-            final Document doc = topicNode.getXMLDocument();
+    /**
+     * Sets the injections and unique ids for each id attribute in a topic nodes XML, and then validates the XML. This method only
+     * modifies the topic nodes XML and the error database passed, so it can be safely run for multiple topic nodes at once.
+     *
+     * @param buildData        Information and data structures for the build.
+     * @param errorDatabase    The error database to add any errors or warnings for the topic to.
+     * @param topicNode        The topic node to be processed.
+     * @param idAttributeIndex The index of ids that have been used in the set of topics in the content spec.
+     * @param xmlPreProcessor  The XML Processor to use for Injections.
+     * @throws BuildProcessingException Thrown if an unexpected error occurs during building.
+     */
+    protected void doTopicNodeSecondPass(final BuildData buildData, final TopicErrorDatabase errorDatabase, final ITopicNode topicNode,
+            final IdAttributeIndex idAttributeIndex,
+            final DocBookXMLPreProcessor xmlPreProcessor) throws BuildProcessingException {
+        // Check if the app should be shutdown
+        if (isShuttingDown.get()) {
+            return;
+        }
 
-            assert doc != null;
-            assert topic != null;
+        if (log.isDebugEnabled()) log.debug("\tProcessing SpecTopic " + topicNode.getId() + (topicNode.getRevision() != null ? (", " +
+                "Revision " + topicNode.getRevision()) : ""));
 
-            if (doc != null) {
-                final boolean valid = processSpecTopicInjections(buildData, topicNode, xmlPreProcessor);
+        final BaseTopicWrapper<?> topic = topicNode.getTopic();
+        final Document doc = topicNode.getXMLDocument();
 
-                // Check if the app should be shutdown
-                if (isShuttingDown.get()) {
-                    return;
-                }
+        assert doc != null;
+        assert topic != null;
 
-                if (!valid) {
-                    final String xmlStringInCDATA = DocBookBuildUtilities.convertDocumentToCDATAFormattedString(doc,
-                            getXMLFormatProperties());
-                    buildData.getErrorDatabase().addError(topic,
-                            BuilderConstants.ERROR_INVALID_INJECTIONS + " The processed XML is <programlisting>" + xmlStringInCDATA +
-                                    "</programlisting>");
+        if (doc != null) {
+            // The injections and unique ids will modify the document, so it will need to be indexed again
+            buildData.invalidateTopicNodeIndex(doc);
 
-                    DocBookBuildUtilities.setTopicNodeXMLForError(buildData, topicNode, getErrorInvalidInjectionTopicTemplate().getValue());
-                } else {
-                    // Check for any possible invalid injection references
-                    final List<InjectionError> injectionErrors = XMLUtilities.checkForInvalidInjections(doc);
-                    if (!injectionErrors.isEmpty()) {
-                        for (final InjectionError injectionError : injectionErrors) {
-                            final List<String> injectionErrorMsgs = new ArrayList<String>();
-                            for (final String msg : injectionError.getMessages()) {
-                                injectionErrorMsgs.add(DocBookUtilities.buildListItem(msg));
-                            }
+            final boolean valid = processSpecTopicInjections(buildData, errorDatabase, topicNode, xmlPreProcessor);
+
+            // Check if the app should be shutdown
+            if (isShuttingDown.get()) {
+                return;
+            }
+
+            if (!valid) {
+                final String xmlStringInCDATA = DocBookBuildUtilities.convertDocumentToCDATAFormattedString(doc,
+                        getXMLFormatProperties());
+                errorDatabase.addError(topic,
+                        BuilderConstants.ERROR_INVALID_INJECTIONS + " The processed XML is <programlisting>" + xmlStringInCDATA +
+                                "</programlisting>");
 
-                            final String errorMsg = "\"" + injectionError.getInjection().trim() + "\" " + BuilderConstants
-                                    .WARNING_POSSIBLE_INVALID_INJECTIONS + DocBookUtilities.wrapListItems(
-                                    injectionErrorMsgs);
-                            buildData.getErrorDatabase().addWarning(topic, ErrorType.POSSIBLE_INVALID_INJECTION, errorMsg);
+                DocBookBuildUtilities.setTopicNodeXMLForError(buildData, topicNode, getErrorInvalidInjectionTopicTemplate().getValue());
+            } else {
+                // Check for any possible invalid injection references
+                final List<InjectionError> injectionErrors = XMLUtilities.checkForInvalidInjections(doc);
+                if (!injectionErrors.isEmpty()) {
+                    for (final InjectionError injectionError : injectionErrors) {
+                        final List<String> injectionErrorMsgs = new ArrayList<String>();
+                        for (final String msg : injectionError.getMessages()) {
+                            injectionErrorMsgs.add(DocBookUtilities.buildListItem(msg));
                         }
+
+                        final String errorMsg = "\"" + injectionError.getInjection().trim() + "\" " + BuilderConstants
+                                .WARNING_POSSIBLE_INVALID_INJECTIONS + DocBookUtilities.wrapListItems(
+                                injectionErrorMsgs);
+                        errorDatabase.addWarning(topic, ErrorType.POSSIBLE_INVALID_INJECTION, errorMsg);
                     }
                 }
+            }
 
-                // Ensure that all of the id attributes are valid by setting any duplicates with a post fixed number.
-                DocBookBuildUtilities.setUniqueIds(buildData, topicNode, topicNode.getXMLDocument().getDocumentElement(),
-                        topicNode.getXMLDocument(), usedIdAttributes);
+            // Ensure that all of the id attributes are valid by setting any duplicates with a post fixed number.
+            DocBookBuildUtilities.setUniqueIds(buildData, topicNode, topicNode.getXMLDocument().getDocumentElement(),
+                    topicNode.getXMLDocument(), idAttributeIndex);
 
-                // Make sure the XML is valid docbook after the standard processing has been done
-                if (validateTopicXML(buildData, topicNode, doc) && topicNode instanceof SpecTopic) {
-                    // Add the editor/report a bug links (these should always be valid)
-                    xmlPreProcessor.processTopicAdditionalInfo(buildData, (SpecTopic) topicNode, doc);
-                } else {
-                    // Re-run the unique id pass, as the topic would have been replaced by an error template
-                    DocBookBuildUtilities.setUniqueIds(buildData, topicNode, topicNode.getXMLDocument().getDocumentElement(),
-                            topicNode.getXMLDocument(), usedIdAttributes);
-                }
+            // Make sure the XML is valid docbook after the standard processing has been done
+            if (validateTopicXML(buildData, errorDatabase, topicNode, doc) && topicNode instanceof SpecTopic) {
+                // Add the editor/report a bug links (these should always be valid)
+                xmlPreProcessor.processTopicAdditionalInfo(buildData, (SpecTopic) topicNode, doc);
+            } else {
+                // Re-run the unique id pass, as the topic would have been replaced by an error template
+                DocBookBuildUtilities.setUniqueIds(buildData, topicNode, topicNode.getXMLDocument().getDocumentElement(),
+                        topicNode.getXMLDocument(), idAttributeIndex);
             }
         }
     }
@@ -1486,18 +2363,18 @@ public class DocBookBuilder implements ShutdownAbleApp {
      * Fixes any topics links that have been broken due to the linked topics XML being invalid.
      *
      * @param buildData        Information and data structures for the build.
-     * @param usedIdAttributes The set of ids that have been used in the set of topics in the content spec.
+     * @param idAttributeIndex The index of ids that have been used in the set of topics in the content spec.
      * @throws BuildProcessingException
      */
     protected void doLinkSecondPass(final BuildData buildData,
-            final Map<SpecTopic, Set<String>> usedIdAttributes) throws BuildProcessingException {
+            final IdAttributeIndex idAttributeIndex) throws BuildProcessingException {
         final List<SpecTopic> topics = buildData.getBuildDatabase().getAllSpecTopics();
         for (final SpecTopic specTopic : topics) {
             final Document doc = specTopic.getXMLDocument();
 
             // Get the XRef links in the topic document
-            final Set<String> linkIds = new HashSet<String>();
-            DocBookBuildUtilities.getTopicLinkIds(doc, linkIds);
+            final TopicNodeIndex index = buildData.getTopicNodeIndex(doc);
+            final Set<String> linkIds = index.getLinkIds();
 
             final Map<String, SpecTopic> invalidLinks = new HashMap<String, SpecTopic>();
 
@@ -1506,13 +2383,7 @@ public class DocBookBuilder implements ShutdownAbleApp {
                 if (linkId.startsWith(CommonConstants.ERROR_XREF_ID_PREFIX)) continue;
 
                 // Find the linked topic
-                SpecTopic linkedTopic = null;
-                for (final Map.Entry<SpecTopic, Set<String>> usedIdEntry : usedIdAttributes.entrySet()) {
-                    if (usedIdEntry.getValue().contains(linkId)) {
-                        linkedTopic = usedIdEntry.getKey();
-                        break;
-                    }
-                }
+                final SpecTopic linkedTopic = idAttributeIndex.getSpecTopic(linkId);
 
                 // If the linked topic has been set as an error, than update the links to point to the topic id
                 if (linkedTopic != null && buildData.getErrorDatabase().hasErrorData(linkedTopic.getTopic())) {
@@ -1525,15 +2396,17 @@ public class DocBookBuilder implements ShutdownAbleApp {
 
             // Go through and fix any invalid links
             if (!invalidLinks.isEmpty()) {
-                final List<Node> linkNodes = XMLUtilities.getChildNodes(doc, "xref", "link");
-                for (final Node linkNode : linkNodes) {
-                    final String linkId = ((Element) linkNode).getAttribute("linkend");
+                for (final Element linkNode : index.getLinkNodes()) {
+                    final String linkId = linkNode.getAttribute("linkend");
 
                     if (invalidLinks.containsKey(linkId)) {
                         final SpecTopic linkedTopic = invalidLinks.get(linkId);
-                        ((Element) linkNode).setAttribute("linkend", linkedTopic.getUniqueLinkId(buildData.isUseFixedUrls()));
+                        linkNode.setAttribute("linkend", linkedTopic.getUniqueLinkId(buildData.isUseFixedUrls()));
                     }
                 }
+
+                // The links have changed, so the index is out of date
+                buildData.invalidateTopicNodeIndex(doc);
             }
         }
     }
@@ -1546,9 +2419,23 @@ public class DocBookBuilder implements ShutdownAbleApp {
      * @param xmlPreProcessor The XML Processor to use for Injections.
      * @return True if no errors occurred or if the build is set to ignore missing injections, otherwise false.
      */
-    @SuppressWarnings("unchecked")
     protected boolean processSpecTopicInjections(final BuildData buildData, final ITopicNode topicNode,
             final DocBookXMLPreProcessor xmlPreProcessor) {
+        return processSpecTopicInjections(buildData, buildData.getErrorDatabase(), topicNode, xmlPreProcessor);
+    }
+
+    /**
+     * Process the Injections for a SpecTopic and add any errors to an error database.
+     *
+     * @param buildData       Information and data structures for the build.
+     * @param errorDatabase   The error database to add any errors to.
+     * @param topicNode       The Build Topic to do injection processing on.
+     * @param xmlPreProcessor The XML Processor to use for Injections.
+     * @return True if no errors occurred or if the build is set to ignore missing injections, otherwise false.
+     */
+    @SuppressWarnings("unchecked")
+    protected boolean processSpecTopicInjections(final BuildData buildData, final TopicErrorDatabase errorDatabase,
+            final ITopicNode topicNode, final DocBookXMLPreProcessor xmlPreProcessor) {
         final BaseTopicWrapper<?> topic = topicNode.getTopic();
         final Document doc = topicNode.getXMLDocument();
         final boolean useFixedUrls = buildData.isUseFixedUrls();
@@ -1581,8 +2468,17 @@ public class DocBookBuilder implements ShutdownAbleApp {
                 return false;
             }
 
+            // Record the injections that weren't in the book, so later builds know to rebuild the topic if they are added
+            if (topicNode instanceof SpecTopic && buildData.getBuildManifest() != null) {
+                final BuildManifest.TopicEntry entry = buildData.getBuildManifest().getTopicEntry(
+                        ((SpecTopic) topicNode).getUniqueLinkId(useFixedUrls));
+                if (entry != null) {
+                    entry.getMissingInjectionIds().addAll(customInjectionErrors);
+                }
+            }
+
             // Handle any errors that occurred while processing the injections
-            valid = processSpecTopicInjectionErrors(buildData, topic, customInjectionErrors);
+            valid = processSpecTopicInjectionErrors(buildData, errorDatabase, topic, customInjectionErrors);
         }
 
         return valid;
@@ -1618,15 +2514,29 @@ public class DocBookBuilder implements ShutdownAbleApp {
      */
     protected boolean processSpecTopicInjectionErrors(final BuildData buildData, final BaseTopicWrapper<?> topic,
             final List<String> customInjectionErrors) {
+        return processSpecTopicInjectionErrors(buildData, buildData.getErrorDatabase(), topic, customInjectionErrors);
+    }
+
+    /**
+     * Process the Injection Errors and add them to an Error Database.
+     *
+     * @param buildData             Information and data structures for the build.
+     * @param errorDatabase         The error database to add the errors to.
+     * @param topic                 The topic that the errors occurred for.
+     * @param customInjectionErrors The List of Custom Injection Errors.
+     * @return True if no errors were processed or if the build is set to ignore missing injections, otherwise false.
+     */
+    protected boolean processSpecTopicInjectionErrors(final BuildData buildData, final TopicErrorDatabase errorDatabase,
+            final BaseTopicWrapper<?> topic, final List<String> customInjectionErrors) {
         boolean valid = true;
 
         if (!customInjectionErrors.isEmpty()) {
             final String message = "Topic has referenced Topic/Level(s) " + CollectionUtilities.toSeperatedString(
                     customInjectionErrors) + " in a custom injection point that was not included this book.";
             if (buildData.getBuildOptions().getIgnoreMissingCustomInjections()) {
-                buildData.getErrorDatabase().addWarning(topic, ErrorType.INVALID_INJECTION, message);
+                errorDatabase.addWarning(topic, ErrorType.INVALID_INJECTION, message);
             } else {
-                buildData.getErrorDatabase().addError(topic, ErrorType.INVALID_INJECTION, message);
+                errorDatabase.addError(topic, ErrorType.INVALID_INJECTION, message);
                 valid = false;
             }
         }
@@ -1660,9 +2570,32 @@ public class DocBookBuilder implements ShutdownAbleApp {
         // Build the book base
         buildBookBase(buildData);
 
+        // Add the manifest so that later builds can reuse the unchanged topics
+        if (buildData.getBuildManifest() != null) {
+            addBuildManifestToBook(buildData);
+        }
+
         return files;
     }
 
+    /**
+     * Adds the build manifest to the book, after marking any topics that had errors so they aren't reused by later builds.
+     *
+     * @param buildData Information and data structures for the build.
+     * @throws BuildProcessingException Thrown if the manifest could not be written to the build output.
+     */
+    protected void addBuildManifestToBook(final BuildData buildData) throws BuildProcessingException {
+        final BuildManifest buildManifest = buildData.getBuildManifest();
+        for (final SpecTopic specTopic : buildData.getBuildDatabase().getAllSpecTopics()) {
+            final BuildManifest.TopicEntry entry = buildManifest.getTopicEntry(specTopic.getUniqueLinkId(buildData.isUseFixedUrls()));
+            if (entry != null && specTopic.getTopic() != null && buildData.getErrorDatabase().hasErrorData(specTopic.getTopic())) {
+                entry.setHasErrors(true);
+            }
+        }
+
+        addToZip(buildData.getRootBookFolder() + BuilderConstants.BUILD_MANIFEST_FILE_NAME, buildManifest.toString(), buildData);
+    }
+
     /**
      * Builds the Book.xml file of a Docbook from the resource files for a specific content specification.
      *
@@ -1765,8 +2698,8 @@ public class DocBookBuilder implements ShutdownAbleApp {
         // Insert the editor link for the content spec if it's a translation
         if (buildData.getBuildOptions().getInsertEditorLinks() && buildData.isTranslationBuild()) {
             final String translateLinkChapter = buildTranslateCSChapter(buildData);
-            buildData.getOutputFiles().put(buildData.getBookLocaleFolder() + "Translate.xml", StringUtilities.getStringBytes(
-                    StringUtilities.cleanTextForXML(translateLinkChapter == null ? "" : translateLinkChapter)));
+            addToZip(buildData.getBookLocaleFolder() + "Translate.xml", StringUtilities.getStringBytes(
+                    StringUtilities.cleanTextForXML(translateLinkChapter == null ? "" : translateLinkChapter)), buildData);
 
             // Create and append the XI Include element
             final Element translateXMLNode = XMLUtilities.createXIInclude(bookBase, "Translate.xml");
@@ -1776,8 +2709,8 @@ public class DocBookBuilder implements ShutdownAbleApp {
         // Add any compiler errors
         if (!buildData.getBuildOptions().getSuppressErrorsPage() && buildData.getErrorDatabase().hasItems(buildData.getBuildLocale())) {
             final String compilerOutput = buildErrorChapter(buildData);
-            buildData.getOutputFiles().put(buildData.getBookLocaleFolder() + "Errors.xml",
-                    StringUtilities.getStringBytes(StringUtilities.cleanTextForXML(compilerOutput == null ? "" : compilerOutput)));
+            addToZip(buildData.getBookLocaleFolder() + "Errors.xml",
+                    StringUtilities.getStringBytes(StringUtilities.cleanTextForXML(compilerOutput == null ? "" : compilerOutput)), buildData);
 
             // Create and append the XI Include element
             final Element translateXMLNode = XMLUtilities.createXIInclude(bookBase, "Errors.xml");
@@ -1787,8 +2720,8 @@ public class DocBookBuilder implements ShutdownAbleApp {
         // Add the report chapter
         if (buildData.getBuildOptions().getShowReportPage()) {
             final String compilerOutput = buildReportChapter(buildData);
-            buildData.getOutputFiles().put(buildData.getBookLocaleFolder() + "Report.xml",
-                    StringUtilities.getStringBytes(StringUtilities.cleanTextForXML(compilerOutput == null ? "" : compilerOutput)));
+            addToZip(buildData.getBookLocaleFolder() + "Report.xml",
+                    StringUtilities.getStringBytes(StringUtilities.cleanTextForXML(compilerOutput == null ? "" : compilerOutput)), buildData);
 
             // Create and append the XI Include element
             final Element translateXMLNode = XMLUtilities.createXIInclude(bookBase, "Report.xml");
@@ -2660,11 +3593,33 @@ public class DocBookBuilder implements ShutdownAbleApp {
             final String fixedEntityPath = fixedParentFileLocation.replace(buildData.getBookLocaleFolder(), "").replaceAll(
                     ".*?" + File.separator + "", "../");
 
-            final String topicXML = DocBookBuildUtilities.convertDocumentToDocBookFormattedString(buildData.getDocBookVersion(),
-                    specTopic.getXMLDocument(), DocBookUtilities.TOPIC_ROOT_NODE_NAME, fixedEntityPath + buildData.getEntityFileName(),
-                    getXMLFormatProperties());
+            final String topicPath = fixedParentFileLocation + topicFileName;
+            final BuildManifest.TopicEntry previousEntry = buildData.getReusedSpecTopics().get(specTopic);
+            final BuildManifest.TopicEntry entry = buildData.getBuildManifest() == null ? null : buildData.getBuildManifest()
+                    .getTopicEntry(specTopic.getUniqueLinkId(buildData.isUseFixedUrls()));
+
+            if (previousEntry != null && topicPath.equals(previousEntry.getOutputPath())) {
+                // The topic hasn't changed since the previous build, so use the previous output as is
+                addToZip(topicPath, buildData.getPreviousBuildFiles().get(previousEntry.getOutputPath()), buildData);
+                if (entry != null) {
+                    entry.setOutputHash(previousEntry.getOutputHash());
+                }
+            } else {
+                final String topicXML = DocBookBuildUtilities.convertDocumentToDocBookFormattedString(buildData.getDocBookVersion(),
+                        specTopic.getXMLDocument(), DocBookUtilities.TOPIC_ROOT_NODE_NAME,
+                        fixedEntityPath + buildData.getEntityFileName(), getXMLFormatProperties());
+
+                addToZip(topicPath, topicXML, buildData);
+                if (entry != null) {
+                    entry.setOutputHash(TopicDocumentCache.hash(topicXML));
+                }
+            }
 
-            addToZip(fixedParentFileLocation + topicFileName, topicXML, buildData);
+            // Record where the topic was written and what it links to, so that later builds can reuse it
+            if (entry != null) {
+                entry.setOutputPath(topicPath);
+                entry.getLinkIds().addAll(buildData.getTopicNodeIndex(specTopic.getXMLDocument()).getLinkIds());
+            }
 
             return topicFileName;
         }
@@ -2672,129 +3627,204 @@ public class DocBookBuilder implements ShutdownAbleApp {
         return null;
     }
 
-    private void addImagesToBook(final BuildData buildData) {
+    private void addImagesToBook(final BuildData buildData) throws BuildProcessingException {
         addImagesToBook(buildData, buildData.getBuildLocale(), buildData.getBookLocaleFolder(), true, true);
     }
 
     /**
      * Adds all the images found using the {@link #processImageLocations(BuildData)} method to the files map that will alter be turned
-     * into a ZIP archive.
+     * into a ZIP archive. Each image is only downloaded once, regardless of how many topics reference it, and the downloads are done
+     * concurrently if the build options allow it.
      *
      * @param buildData Information and data structures for the build.
+     * @throws BuildProcessingException Thrown if an image could not be written to the build output.
      */
-    protected void addImagesToBook(final BuildData buildData, final String locale, final String imageFolder, boolean revertToDefaultLocale,
-            boolean logErrors) {
+    protected void addImagesToBook(final BuildData buildData, final String locale, final String imageFolder,
+            final boolean revertToDefaultLocale, final boolean logErrors) throws BuildProcessingException {
         // Load the database constants
         final byte[] failpenguinPng = blobConstantProvider.getBlobConstant(
                 buildData.getServerEntities().getFailPenguinBlobConstantId()).getValue();
 
-        // Download the image files that were identified in the processing stage
-        float imageProgress = 0;
-        final float imageTotal = buildData.getImageLocations().size();
-        final int showPercent = 10;
-        int lastPercent = 0;
-
+        // Find the unique image files that were identified in the processing stage
+        final Map<Integer, Pair<byte[], Exception>> images = new LinkedHashMap<Integer, Pair<byte[], Exception>>();
         for (final TopicImageData imageLocation : buildData.getImageLocations()) {
-            // Check if the app should be shutdown
-            if (isShuttingDown.get()) {
-                return;
+            final String imageID = getImageID(imageLocation.getImageName());
+            if (imageID != null && !imageID.equals(BuilderConstants.FAILPENGUIN_PNG_NAME)) {
+                try {
+                    images.put(Integer.parseInt(imageID), null);
+                } catch (final NumberFormatException ex) {
+                    // Invalid image IDs are reported when the image is added to the book
+                }
             }
+        }
 
-            boolean success = false;
-
-            final int extensionIndex = imageLocation.getImageName().lastIndexOf(".");
-            final int pathIndex = imageLocation.getImageName().lastIndexOf("/");
-            final int hypenIndex = imageLocation.getImageName().lastIndexOf("-");
+        // Download the image files
+        final List<Integer> imageIDs = new ArrayList<Integer>(images.keySet());
+        final List<Callable<Pair<byte[], Exception>>> tasks = new ArrayList<Callable<Pair<byte[], Exception>>>();
+        for (final Integer imageID : imageIDs) {
+            tasks.add(new Callable<Pair<byte[], Exception>>() {
+                @Override
+                public Pair<byte[], Exception> call() throws Exception {
+                    // Check if the app should be shutdown
+                    if (isShuttingDown.get()) {
+                        return null;
+                    }
 
-            if (    /* characters were found */
-                    extensionIndex != -1 && pathIndex != -1
-                    /* the path character was found before the extension */ && extensionIndex > pathIndex) {
-                try {
-                    /*
-                     * The file name minus the extension should be an integer that references an ImageFile record ID.
-                     */
-                    final String imageID;
-                    if (hypenIndex != -1) {
-                        imageID = imageLocation.getImageName().substring(pathIndex + 1, Math.min(extensionIndex, hypenIndex));
-                    } else {
-                        imageID = imageLocation.getImageName().substring(pathIndex + 1, extensionIndex);
+                    try {
+                        return new Pair<byte[], Exception>(getImageData(buildData, imageID, locale, revertToDefaultLocale), null);
+                    } catch (final Exception ex) {
+                        return new Pair<byte[], Exception>(null, ex);
                     }
+                }
+            });
+        }
 
-                    /*
-                     * If the image is the failpenguin the that means that an error has already occurred most likely from not
-                     * specifying an image file at all.
-                     */
-                    if (imageID.equals(BuilderConstants.FAILPENGUIN_PNG_NAME)) {
-                        success = false;
-                        buildData.getErrorDatabase().addError(imageLocation.getTopic(), ErrorType.INVALID_IMAGES,
-                                "No image filename specified. Must be in the format [ImageFileID].extension e.g. 123.png, " +
-                                        "" + "or images/321.jpg");
-                    } else {
-                        final ImageWrapper imageFile = imageProvider.getImage(Integer.parseInt(imageID));
-                        // TODO Uncomment this once Image Revisions are fixed.
-//                        if (imageLocation.getRevision() == null) {
-//                            imageFile = imageProvider.getImage(Integer.parseInt(imageID));
-//                        } else {
-//                            imageFile = imageProvider.getImage(Integer.parseInt(imageID), imageLocation.getRevision());
-//                        }
-
-                        // Find the image that matches this locale. If the locale isn't found then use the default locale
-                        LanguageImageWrapper languageImageFile = null;
-                        if (imageFile.getLanguageImages() != null && imageFile.getLanguageImages().getItems() != null) {
-                            final List<LanguageImageWrapper> languageImages = imageFile.getLanguageImages().getItems();
-                            for (final LanguageImageWrapper image : languageImages) {
-                                if (image.getLocale().getValue().equals(locale)) {
-                                    languageImageFile = image;
-                                    break;
-                                } else if (revertToDefaultLocale && image.getLocale().getValue().equals(
-                                        buildData.getDefaultLocale()) && languageImageFile == null) {
-                                    languageImageFile = image;
-                                }
-                            }
-                        }
+        final List<Pair<byte[], Exception>> results = runTasks(buildData, tasks, "Downloading " + locale + " Images");
 
-                        if (languageImageFile != null && languageImageFile.getImageData() != null) {
-                            success = true;
-                            addToZip(buildData.getBookLocaleFolder() + imageLocation.getImageName(), languageImageFile.getImageData(),
-                                    buildData);
-                        } else if (logErrors) {
+        // Check if the app should be shutdown
+        if (isShuttingDown.get()) {
+            return;
+        }
+
+        for (int i = 0; i < imageIDs.size(); i++) {
+            images.put(imageIDs.get(i), results.get(i));
+        }
+
+        // Add the images to the book, making sure each image is only added once
+        final Set<String> addedImages = new HashSet<String>();
+        for (final TopicImageData imageLocation : buildData.getImageLocations()) {
+            final String imageID = getImageID(imageLocation.getImageName());
+            byte[] imageData = null;
+
+            if (imageID != null) {
+                /*
+                 * If the image is the failpenguin the that means that an error has already occurred most likely from not
+                 * specifying an image file at all.
+                 */
+                if (imageID.equals(BuilderConstants.FAILPENGUIN_PNG_NAME)) {
+                    buildData.getErrorDatabase().addError(imageLocation.getTopic(), ErrorType.INVALID_IMAGES,
+                            "No image filename specified. Must be in the format [ImageFileID].extension e.g. 123.png, " +
+                                    "" + "or images/321.jpg");
+                } else {
+                    Exception error = null;
+                    try {
+                        final Pair<byte[], Exception> image = images.get(Integer.parseInt(imageID));
+                        imageData = image.getFirst();
+                        error = image.getSecond();
+                    } catch (final NumberFormatException ex) {
+                        error = ex;
+                    }
+
+                    if (error != null) {
+                        if (logErrors) {
                             buildData.getErrorDatabase().addError(imageLocation.getTopic(), ErrorType.INVALID_IMAGES,
-                                    "ImageFile ID " + imageID + " from image location " + imageLocation.getImageName() + " was not found!");
+                                    imageLocation.getImageName() + " is not a valid image. Must be in the format [ImageFileID].extension" +
+                                            " e.g. 123.png, or images/321.jpg");
+                            log.debug("", error);
                         }
-                    }
-                } catch (final NumberFormatException ex) {
-                    success = false;
-                    if (logErrors) {
-                        buildData.getErrorDatabase().addError(imageLocation.getTopic(), ErrorType.INVALID_IMAGES,
-                                imageLocation.getImageName() + " is not a valid image. Must be in the format [ImageFileID].extension e.g." +
-                                        " 123" +
-                                        ".png, or images/321.jpg");
-                        log.debug("", ex);
-                    }
-                } catch (final Exception ex) {
-                    success = false;
-                    if (logErrors) {
+                    } else if (imageData == null && logErrors) {
                         buildData.getErrorDatabase().addError(imageLocation.getTopic(), ErrorType.INVALID_IMAGES,
-                                imageLocation.getImageName() + " is not a valid image. Must be in the format [ImageFileID].extension e.g." +
-                                        " 123" +
-                                        ".png, or images/321.jpg");
-                        log.debug("", ex);
+                                "ImageFile ID " + imageID + " from image location " + imageLocation.getImageName() + " was not found!");
                     }
                 }
             }
 
-            // Put in a place holder in the image couldn't be found
-            if (logErrors && !success) {
-                buildData.getOutputFiles().put(imageFolder + imageLocation.getImageName(), failpenguinPng);
+            final String imagePath = imageFolder + imageLocation.getImageName();
+            if (!addedImages.contains(imagePath)) {
+                if (imageData != null) {
+                    addToZip(imagePath, imageData, buildData);
+                    addedImages.add(imagePath);
+                } else if (logErrors) {
+                    // Put in a place holder in the image couldn't be found
+                    addToZip(imagePath, failpenguinPng, buildData);
+                    addedImages.add(imagePath);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the ImageFile ID from an image location. The file name minus the extension and any hyphenated suffix should be an integer
+     * that references an ImageFile record ID.
+     *
+     * @param imageName The image location. eg. images/123.png
+     * @return The ImageFile ID, or null if the image location isn't in the correct format.
+     */
+    protected static String getImageID(final String imageName) {
+        final int extensionIndex = imageName.lastIndexOf(".");
+        final int pathIndex = imageName.lastIndexOf("/");
+        final int hypenIndex = imageName.lastIndexOf("-");
+
+        if (    /* characters were found */
+                extensionIndex != -1 && pathIndex != -1
+                /* the path character was found before the extension */ && extensionIndex > pathIndex) {
+            if (hypenIndex != -1) {
+                return imageName.substring(pathIndex + 1, Math.min(extensionIndex, hypenIndex));
+            } else {
+                return imageName.substring(pathIndex + 1, extensionIndex);
             }
+        }
+
+        return null;
+    }
 
-            final int progress = Math.round(imageProgress / imageTotal * 100);
-            if (progress - lastPercent >= showPercent) {
-                lastPercent = progress;
-                log.info("\tDownloading " + locale + " Images " + progress + "% done");
+    /**
+     * Downloads the data for an image that matches a locale. If the locale isn't found then the default locale can be used instead.
+     *
+     * @param buildData             Information and data structures for the build.
+     * @param imageID               The ImageFile ID.
+     * @param locale                The locale of the image to get.
+     * @param revertToDefaultLocale If the default locale image should be used, if no image exists for the locale.
+     * @return The image data, or null if no image exists for the locale.
+     */
+    protected byte[] getImageData(final BuildData buildData, final Integer imageID, final String locale,
+            final boolean revertToDefaultLocale) {
+        final ImageWrapper imageFile;
+        if (sharedSourceData == null) {
+            imageFile = imageProvider.getImage(imageID);
+        } else {
+            imageFile = sharedSourceData.getImage(imageID, new Callable<ImageWrapper>() {
+                @Override
+                public ImageWrapper call() {
+                    return imageProvider.getImage(imageID);
+                }
+            });
+        }
+        // TODO Uncomment this once Image Revisions are fixed.
+//        if (imageLocation.getRevision() == null) {
+//            imageFile = imageProvider.getImage(imageID);
+//        } else {
+//            imageFile = imageProvider.getImage(imageID, imageLocation.getRevision());
+//        }
+
+        // Find the image that matches this locale. If the locale isn't found then use the default locale
+        LanguageImageWrapper languageImageFile = null;
+        if (imageFile.getLanguageImages() != null && imageFile.getLanguageImages().getItems() != null) {
+            final List<LanguageImageWrapper> languageImages = imageFile.getLanguageImages().getItems();
+            for (final LanguageImageWrapper image : languageImages) {
+                if (image.getLocale().getValue().equals(locale)) {
+                    languageImageFile = image;
+                    break;
+                } else if (revertToDefaultLocale && image.getLocale().getValue().equals(
+                        buildData.getDefaultLocale()) && languageImageFile == null) {
+                    languageImageFile = image;
+                }
             }
+        }
 
-            ++imageProgress;
+        if (languageImageFile == null) {
+            return null;
+        } else if (sharedSourceData == null) {
+            return languageImageFile.getImageData();
+        } else {
+            // Language images are shared between locales, so only download the data once
+            final LanguageImageWrapper languageImage = languageImageFile;
+            return sharedSourceData.getImageData(imageID, languageImage.getLocale().getValue(), new Callable<byte[]>() {
+                @Override
+                public byte[] call() {
+                    return languageImage.getImageData();
+                }
+            });
         }
     }
 
@@ -3032,7 +4062,7 @@ public class DocBookBuilder implements ShutdownAbleApp {
                 }
             } else {
                 // Add the revision history directly to the book
-                buildData.getOutputFiles().put(buildData.getBookLocaleFolder() + REVISION_HISTORY_FILE_NAME, revHistory);
+                addToZip(buildData.getBookLocaleFolder() + REVISION_HISTORY_FILE_NAME, revHistory, buildData);
             }
         } else if (contentSpec.getRevisionHistory() != null) {
             final TopicErrorData errorData = buildData.getErrorDatabase().getErrorData(contentSpec.getRevisionHistory().getTopic());
@@ -3661,7 +4691,7 @@ public class DocBookBuilder implements ShutdownAbleApp {
              * Images have to be in the image folder in Publican. Here we loop through all the imagedata elements and fix up any
              * reference to an image that is not in the images folder.
              */
-            final List<Node> images = XMLUtilities.getChildNodes(topicNode.getXMLDocument(), "imagedata", "inlinegraphic");
+            final List<Node> images = buildData.getTopicNodeIndex(topicNode.getXMLDocument()).getImageNodes();
 
             for (final Node imageNode : images) {
                 final NamedNodeMap attributes = imageNode.getAttributes();
@@ -3693,19 +4723,30 @@ public class DocBookBuilder implements ShutdownAbleApp {
         }
     }
 
+    /**
+     * Checks if a string is plain text, that contains no markup or entities.
+     *
+     * @param text The text to be checked.
+     * @return True if the text contains no markup, otherwise false.
+     */
+    protected static boolean isPlainText(final String text) {
+        return text != null && text.indexOf('<') == -1 && text.indexOf('&') == -1 && !text.contains("]]>");
+    }
+
     /**
      * Validates the XML after the first set of injections have been processed.
      *
-     * @param buildData Information and data structures for the build.
-     * @param topicNode The topic that is being validated.
-     * @param topicDoc  A Document object that holds the Topic's XML
+     * @param buildData     Information and data structures for the build.
+     * @param errorDatabase The error database to add any errors to.
+     * @param topicNode     The topic that is being validated.
+     * @param topicDoc      A Document object that holds the Topic's XML
      * @return The validate document or a template if it failed validation.
      * @throws BuildProcessingException Thrown if an unexpected error occurs during building.
      */
     @SuppressWarnings("unchecked")
-    private boolean validateTopicXML(final BuildData buildData, final ITopicNode topicNode,
+    private boolean validateTopicXML(final BuildData buildData, final TopicErrorDatabase errorDatabase, final ITopicNode topicNode,
             final Document topicDoc) throws BuildProcessingException {
-        final XMLValidator validator = new XMLValidator();
+        final XMLValidatorPool validatorPool = XMLValidatorPool.getSharedPool();
         final ContentSpec contentSpec = buildData.getContentSpec();
         final BaseTopicWrapper<?> topic = topicNode.getTopic();
 
@@ -3740,22 +4781,25 @@ public class DocBookBuilder implements ShutdownAbleApp {
             titleXML = "<section><title>" + topic.getTitle() + "</title><para /></section>";
         }
         final String entityData = entity.toString();
+        final String validatorKey = validatorPool.getKey(buildData.getDocBookVersion(), validationMethod, docbookSchema, entityData);
 
-        // First check to see if the title is valid XML
-        if (!validator.validate(validationMethod, titleXML, docbookFileName, docbookSchema, entityData, "section")) {
+        // First check to see if the title is valid XML. Plain text titles will always be valid, so only validate titles with markup.
+        if (!isPlainText(topic.getTitle()) && validatorPool.validate(validatorKey, validationMethod, titleXML, docbookFileName,
+                docbookSchema, entityData, "section") != null) {
             // The title is invalid so replace it with something that is valid
             topic.setTitle("Invalid Topic");
             DocBookUtilities.setSectionTitle(buildData.getDocBookVersion(), topic.getTitle(), topicDoc);
         }
 
         // Validate the topic against its DTD/Schema
-        if (!validator.validate(validationMethod, fixedTopicXml, docbookFileName, docbookSchema, entityData, rootElementName)) {
+        final String errorMsg = validatorPool.validate(validatorKey, validationMethod, fixedTopicXml, docbookFileName, docbookSchema,
+                entityData, rootElementName);
+        if (errorMsg != null) {
             // Store the error message
-            final String errorMsg = validator.getErrorText();
             final String cleanedErrorMsg = errorMsg.replace("|", " | ").replace(",", ", ").replaceFirst("\\.$", "");
 
             final String xmlStringInCDATA = DocBookBuildUtilities.convertDocumentToCDATAFormattedString(topicDoc, getXMLFormatProperties());
-            buildData.getErrorDatabase().addError(topic, ErrorType.INVALID_CONTENT,
+            errorDatabase.addError(topic, ErrorType.INVALID_CONTENT,
                     BuilderConstants.ERROR_INVALID_TOPIC_XML + " The error is <emphasis>" + StringEscapeUtils.escapeXml(
                             cleanedErrorMsg) + "</emphasis>. The processed XML is <programlisting>" + xmlStringInCDATA +
                             "</programlisting>");
@@ -3783,7 +4827,7 @@ public class DocBookBuilder implements ShutdownAbleApp {
             } else {
                 errorMessage = escapedXmlErrors.get(0);
             }
-            buildData.getErrorDatabase().addError(topic, ErrorType.INVALID_CONTENT,
+            errorDatabase.addError(topic, ErrorType.INVALID_CONTENT,
                     BuilderConstants.ERROR_INVALID_TOPIC_XML + " " + errorMessage + "</para><para>The processed XML is <programlisting>" +
                             xmlStringInCDATA + "</programlisting>");
 
@@ -3896,7 +4940,7 @@ public class DocBookBuilder implements ShutdownAbleApp {
      */
     protected void addToZip(final String path, final String file, BuildData buildData) throws BuildProcessingException {
         try {
-            buildData.getOutputFiles().put(path, file.getBytes(ENCODING));
+            addToZip(path, file.getBytes(ENCODING), buildData);
         } catch (UnsupportedEncodingException e) {
             /* UTF-8 is a valid format so this should exception should never get thrown */
             throw new BuildProcessingException(e);
@@ -3908,10 +4952,11 @@ public class DocBookBuilder implements ShutdownAbleApp {
      *
      * @param path      The path to add the file to.
      * @param data      The data to add to the ZIP.
-     * @param buildData
+     * @param buildData Information and data structures for the build.
+     * @throws BuildProcessingException Thrown if the file could not be written to the build output.
      */
-    protected void addToZip(final String path, final byte[] data, final BuildData buildData) {
-        buildData.getOutputFiles().put(path, data);
+    protected void addToZip(final String path, final byte[] data, final BuildData buildData) throws BuildProcessingException {
+        buildData.getOutputSink().addFile(path, data);
     }
 
     /**
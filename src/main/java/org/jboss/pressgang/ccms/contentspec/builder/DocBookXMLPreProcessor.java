@@ -22,9 +22,11 @@ package org.jboss.pressgang.ccms.contentspec.builder;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 import com.google.code.regexp.Matcher;
@@ -96,6 +98,18 @@ public class DocBookXMLPreProcessor {
      * The text to be prefixed to a list item if a topic is optional
      */
     protected static final String OPTIONAL_LIST_PREFIX = "Optional: ";
+    /**
+     * The text that every custom injection point starts with
+     */
+    protected static final String INJECTION_KEYWORD_PREFIX = "Inject";
+    /**
+     * The keywords that identify each type of custom injection point
+     */
+    protected static final String INJECT_SEQUENCE_KEYWORD = "InjectSequence";
+    protected static final String INJECT_LIST_KEYWORD = "InjectList";
+    protected static final String INJECT_LIST_ITEMS_KEYWORD = "InjectListItems";
+    protected static final String INJECT_LIST_ALPHA_SORT_KEYWORD = "InjectListAlphaSort";
+    protected static final String INJECT_SINGLE_KEYWORD = "Inject";
 
     /**
      * A regular expression that identifies a topic id
@@ -557,41 +571,105 @@ public class DocBookXMLPreProcessor {
     protected void collectInjectionData(final ContentSpec contentSpec, final ITopicNode topic, final ArrayList<String> customInjectionIds,
             final Document xmlDocument, final BuildDatabase buildDatabase, final List<String> errorTopics,
             final HashMap<Node, InjectionListData> customInjections, final boolean useFixedUrls, final List<Integer> types) {
+        // Find and classify the injection point comments once, instead of scanning every comment for each injection type
+        final Map<String, List<Node>> injectionComments = getInjectionComments(xmlDocument);
+        if (injectionComments.isEmpty()) return;
+
         if (types.contains(ORDEREDLIST_INJECTION_POINT)) {
             errorTopics.addAll(
                     processInjections(contentSpec, topic, customInjectionIds, customInjections, ORDEREDLIST_INJECTION_POINT, xmlDocument,
-                            CUSTOM_INJECTION_SEQUENCE_RE, null, buildDatabase, useFixedUrls));
+                            injectionComments.get(INJECT_SEQUENCE_KEYWORD), CUSTOM_INJECTION_SEQUENCE_RE, null, buildDatabase,
+                            useFixedUrls));
         }
         if (types.contains(XREF_INJECTION_POINT)) {
             errorTopics.addAll(
                     processInjections(contentSpec, topic, customInjectionIds, customInjections, XREF_INJECTION_POINT, xmlDocument,
-                            CUSTOM_INJECTION_SINGLE_RE, null, buildDatabase, useFixedUrls));
+                            injectionComments.get(INJECT_SINGLE_KEYWORD), CUSTOM_INJECTION_SINGLE_RE, null, buildDatabase, useFixedUrls));
         }
         if (types.contains(ITEMIZEDLIST_INJECTION_POINT)) {
             errorTopics.addAll(
                     processInjections(contentSpec, topic, customInjectionIds, customInjections, ITEMIZEDLIST_INJECTION_POINT, xmlDocument,
-                            CUSTOM_INJECTION_LIST_RE, null, buildDatabase, useFixedUrls));
+                            injectionComments.get(INJECT_LIST_KEYWORD), CUSTOM_INJECTION_LIST_RE, null, buildDatabase, useFixedUrls));
             errorTopics.addAll(
                     processInjections(contentSpec, topic, customInjectionIds, customInjections, ITEMIZEDLIST_INJECTION_POINT, xmlDocument,
-                            CUSTOM_ALPHA_SORT_INJECTION_LIST_RE, new NodeTitleSorter(), buildDatabase, useFixedUrls));
+                            injectionComments.get(INJECT_LIST_ALPHA_SORT_KEYWORD), CUSTOM_ALPHA_SORT_INJECTION_LIST_RE,
+                            new NodeTitleSorter(buildDatabase), buildDatabase, useFixedUrls));
         }
         if (types.contains(LIST_INJECTION_POINT)) {
             errorTopics.addAll(
                     processInjections(contentSpec, topic, customInjectionIds, customInjections, LIST_INJECTION_POINT, xmlDocument,
-                            CUSTOM_INJECTION_LISTITEMS_RE, null, buildDatabase, useFixedUrls));
+                            injectionComments.get(INJECT_LIST_ITEMS_KEYWORD), CUSTOM_INJECTION_LISTITEMS_RE, null, buildDatabase,
+                            useFixedUrls));
+        }
+    }
+
+    /**
+     * Groups the comments in a document by the custom injection point keyword that they start with, so that each comment only
+     * needs to be matched against the regular expression for its injection type. Comments that can't be a custom injection point
+     * are discarded without running any regular expressions.
+     *
+     * @param xmlDocument The DOM Document to find the injection point comments in.
+     * @return The injection point comments mapped by their keyword (ie "InjectList"), in document order.
+     */
+    protected Map<String, List<Node>> getInjectionComments(final Document xmlDocument) {
+        final Map<String, List<Node>> injectionComments = new HashMap<String, List<Node>>();
+        if (xmlDocument == null) return injectionComments;
+
+        for (final Node comment : XMLUtilities.getComments(xmlDocument)) {
+            final String keyword = getInjectionKeyword(comment.getNodeValue());
+            if (keyword != null) {
+                if (!injectionComments.containsKey(keyword)) {
+                    injectionComments.put(keyword, new ArrayList<Node>());
+                }
+                injectionComments.get(keyword).add(comment);
+            }
+        }
+
+        return injectionComments;
+    }
+
+    /**
+     * Gets the custom injection point keyword that a comment starts with, ignoring any leading white space.
+     *
+     * @param commentContent The content of the comment.
+     * @return The keyword before the colon (ie "InjectSequence"), or null if the comment can't be a custom injection point.
+     */
+    protected static String getInjectionKeyword(final String commentContent) {
+        if (commentContent == null) return null;
+
+        final int length = commentContent.length();
+        int start = 0;
+        while (start < length && Character.isWhitespace(commentContent.charAt(start))) {
+            start++;
         }
+
+        if (!commentContent.startsWith(INJECTION_KEYWORD_PREFIX, start)) return null;
+
+        final int end = commentContent.indexOf(':', start);
+        return end == -1 ? null : commentContent.substring(start, end);
     }
 
     public List<String> processInjections(final ContentSpec contentSpec, final ITopicNode topic, final ArrayList<String> customInjectionIds,
             final HashMap<Node, InjectionListData> customInjections, final int injectionPointType, final Document xmlDocument,
             final Pattern regularExpression, final ExternalListSort<Integer, SpecNode, InjectionData> sortComparator,
             final BuildDatabase buildDatabase, final boolean useFixedUrls) {
+        if (xmlDocument == null) return new ArrayList<String>();
+
+        // check all of the comments in the document
+        return processInjections(contentSpec, topic, customInjectionIds, customInjections, injectionPointType, xmlDocument,
+                XMLUtilities.getComments(xmlDocument), regularExpression, sortComparator, buildDatabase, useFixedUrls);
+    }
+
+    protected List<String> processInjections(final ContentSpec contentSpec, final ITopicNode topic,
+            final ArrayList<String> customInjectionIds, final HashMap<Node, InjectionListData> customInjections,
+            final int injectionPointType, final Document xmlDocument, final List<Node> comments, final Pattern regularExpression,
+            final ExternalListSort<Integer, SpecNode, InjectionData> sortComparator, final BuildDatabase buildDatabase,
+            final boolean useFixedUrls) {
         final List<String> retValue = new ArrayList<String>();
 
-        if (xmlDocument == null) return retValue;
+        if (xmlDocument == null || comments == null) return retValue;
 
-        // loop over all of the comments in the document
-        for (final Node comment : XMLUtilities.getComments(xmlDocument)) {
+        for (final Node comment : comments) {
             processCommentInjection(contentSpec, topic, customInjectionIds, customInjections, injectionPointType, xmlDocument, comment,
                     regularExpression, sortComparator, buildDatabase, useFixedUrls, retValue);
         }
@@ -637,8 +715,12 @@ public class DocBookXMLPreProcessor {
                          * See if the topic/target is available in the content spec
                          */
                     final boolean isTopicId = BuilderConstants.TOPIC_ID_PATTERN.matcher(sequenceID.id).matches();
+                    final List<? extends SpecNode> indexedSpecNodes = getIndexedSpecNodes(buildDatabase, contentSpec.getBaseLevel(),
+                            sequenceID.id, isTopicId);
                     final boolean isInContentSpec;
-                    if (isTopicId) {
+                    if (!indexedSpecNodes.isEmpty()) {
+                        isInContentSpec = true;
+                    } else if (isTopicId) {
                         isInContentSpec = contentSpec.getBaseLevel().isSpecTopicInLevelByTopicID(Integer.parseInt(sequenceID.id));
                     } else {
                         isInContentSpec = contentSpec.getBaseLevel().isSpecNodeInLevelByTargetID(sequenceID.id);
@@ -662,8 +744,11 @@ public class DocBookXMLPreProcessor {
                              */
                         if (customInjections.containsKey(comment)) list = customInjections.get(comment).listItems;
 
+                        // If only one node matches then it has to be the closest, so the tree only needs to be searched for duplicates
                         final SpecNode closestSpecNode;
-                        if (isTopicId) {
+                        if (indexedSpecNodes.size() == 1) {
+                            closestSpecNode = indexedSpecNodes.get(0);
+                        } else if (isTopicId) {
                             closestSpecNode = topic.getClosestTopicByDBId(Integer.parseInt(sequenceID.id), true);
                         } else {
                             closestSpecNode = topic.getClosestSpecNodeByTargetId(sequenceID.id, true);
@@ -688,6 +773,69 @@ public class DocBookXMLPreProcessor {
         }
     }
 
+    /**
+     * Checks if a topic or target id used in a custom injection point can be injected, because it's in the content spec.
+     *
+     * @param contentSpec   The content spec that is being built.
+     * @param buildDatabase The build database for the content spec, or null if there is no build database.
+     * @param id            The topic or target id used in the injection.
+     * @return True if the id matches a node in the content spec, otherwise false.
+     */
+    public static boolean isInjectionInContentSpec(final ContentSpec contentSpec, final BuildDatabase buildDatabase, final String id) {
+        final boolean isTopicId = BuilderConstants.TOPIC_ID_PATTERN.matcher(id).matches();
+        if (!getIndexedSpecNodes(buildDatabase, contentSpec.getBaseLevel(), id, isTopicId).isEmpty()) {
+            return true;
+        } else if (isTopicId) {
+            return contentSpec.getBaseLevel().isSpecTopicInLevelByTopicID(Integer.parseInt(id));
+        } else {
+            return contentSpec.getBaseLevel().isSpecNodeInLevelByTargetID(id);
+        }
+    }
+
+    /**
+     * Get the nodes in the build database that match an injection id, and are in the content spec's levels. The database also
+     * holds nodes that aren't in the levels, such as the feedback, legal notice, revision history and abstract topics, and those
+     * can't be injected.
+     *
+     * @param buildDatabase The build database to search, or null if there is no build database.
+     * @param baseLevel     The base level of the content spec.
+     * @param id            The topic or target id used in the injection.
+     * @param isTopicId     Whether the id is a topic id or a target id.
+     * @return The matching nodes, or an empty list if none match.
+     */
+    protected static List<? extends SpecNode> getIndexedSpecNodes(final BuildDatabase buildDatabase, final Level baseLevel,
+            final String id, final boolean isTopicId) {
+        if (buildDatabase == null) return Collections.emptyList();
+
+        final List<? extends SpecNode> specNodes = isTopicId ? buildDatabase.getSpecTopicsForDBId(Integer.parseInt(id)) :
+                buildDatabase.getSpecNodesForTargetId(id);
+        final List<SpecNode> retValue = new ArrayList<SpecNode>(specNodes.size());
+        for (final SpecNode specNode : specNodes) {
+            if (isInLevel(specNode, baseLevel)) {
+                retValue.add(specNode);
+            }
+        }
+
+        return retValue;
+    }
+
+    /**
+     * Checks if a node is a level or is in a level, by following its parents.
+     *
+     * @param specNode The node to check.
+     * @param level    The level to look for.
+     * @return True if the node is the level or one of its parents is the level, otherwise false.
+     */
+    protected static boolean isInLevel(final SpecNode specNode, final Level level) {
+        org.jboss.pressgang.ccms.contentspec.Node node = specNode;
+        while (node != null) {
+            if (node == level) return true;
+            node = node.getParent();
+        }
+
+        return false;
+    }
+
     /**
      * Insert a itemized list into the start of the topic, below the title with any PREVIOUS relationships that exists for the
      * Spec Topic. The title for the list is set to "Previous Step(s) in <TOPIC_PARENT_NAME>".
@@ -21,14 +21,16 @@ package org.jboss.pressgang.ccms.contentspec.builder;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.jboss.pressgang.ccms.contentspec.ContentSpec;
 import org.jboss.pressgang.ccms.contentspec.ITopicNode;
@@ -48,6 +50,7 @@ import org.jboss.pressgang.ccms.contentspec.builder.structures.POBuildData;
 import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorData;
 import org.jboss.pressgang.ccms.contentspec.builder.structures.TranslationDetails;
 import org.jboss.pressgang.ccms.contentspec.builder.utils.DocBookBuildUtilities;
+import org.jboss.pressgang.ccms.contentspec.builder.utils.POFileWriter;
 import org.jboss.pressgang.ccms.contentspec.entities.Relationship;
 import org.jboss.pressgang.ccms.contentspec.entities.TargetRelationship;
 import org.jboss.pressgang.ccms.contentspec.entities.TopicRelationship;
@@ -107,11 +110,7 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
     public HashMap<String, byte[]> buildTranslatedBook(final ContentSpec contentSpec, final String requester,
             final DocBookBuildingOptions buildingOptions,
             final ZanataDetails zanataDetails) throws BuilderCreationException, BuildProcessingException {
-        buildingOptions.setResolveEntities(true);
-        // Translation builds ignore the publican.cfg condition parameter
-        if (contentSpec.getPublicanCfg() != null) {
-            contentSpec.setPublicanCfg(contentSpec.getPublicanCfg().replaceAll("condition:\\s*.*($|\\r\\n|\\n)", ""));
-        }
+        prepareTranslatedBuild(contentSpec, buildingOptions);
         // For PO builds just do a normal build initially and then add the POT/PO files later
         return buildBook(contentSpec, requester, buildingOptions, new HashMap<String, byte[]>());
     }
@@ -133,23 +132,61 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
     public HashMap<String, byte[]> buildTranslatedBook(final ContentSpec contentSpec, final String requester,
             final DocBookBuildingOptions buildingOptions, final Map<String, byte[]> overrideFiles,
             final ZanataDetails zanataDetails) throws BuilderCreationException, BuildProcessingException {
+        prepareTranslatedBuild(contentSpec, buildingOptions);
+        // For PO builds just do a normal build initially and then add the POT/PO files later
+        return buildBook(contentSpec, requester, buildingOptions, overrideFiles);
+    }
+
+    /**
+     * Builds a DocBook Formatted Book using a Content Specification to define the structure and contents of the book, and writes
+     * it as a ZIP archive to an OutputStream as the files are produced.
+     *
+     * @param contentSpec     The content specification to build from.
+     * @param requester       The user who requested the build.
+     * @param buildingOptions The options to be used when building.
+     * @param overrideFiles
+     * @param zanataDetails   The Zanata server details to be used when populating links
+     * @param outputStream    The stream to write the ZIP archive to. The stream is not closed once the build has finished.
+     * @throws BuilderCreationException Thrown if the builder is unable to start due to incorrect passed variables.
+     * @throws BuildProcessingException Any build issue that should not occur under normal circumstances. Ie a Template can't be
+     *                                  converted to a DOM Document.
+     */
+    @Override
+    public void buildTranslatedBook(final ContentSpec contentSpec, final String requester, final DocBookBuildingOptions buildingOptions,
+            final Map<String, byte[]> overrideFiles, final ZanataDetails zanataDetails,
+            final OutputStream outputStream) throws BuilderCreationException, BuildProcessingException {
+        prepareTranslatedBuild(contentSpec, buildingOptions);
+        // For PO builds just do a normal build initially and then add the POT/PO files later
+        buildBook(contentSpec, requester, buildingOptions, overrideFiles, outputStream);
+    }
+
+    private void prepareTranslatedBuild(final ContentSpec contentSpec, final DocBookBuildingOptions buildingOptions) {
         buildingOptions.setResolveEntities(true);
         // Translation builds ignore the publican.cfg condition parameter
         if (contentSpec.getPublicanCfg() != null) {
             contentSpec.setPublicanCfg(contentSpec.getPublicanCfg().replaceAll("condition:\\s*.*($|\\r\\n|\\n)", ""));
         }
-        // For PO builds just do a normal build initially and then add the POT/PO files later
-        return buildBook(contentSpec, requester, buildingOptions, overrideFiles);
     }
 
     @Override
     protected BuildData createBuildData(final String fixedRequester, final ContentSpec contentSpec,
             final DocBookBuildingOptions buildingOptions, final ZanataDetails zanataDetails, final DataProviderFactory providerFactory,
             final boolean translationBuild) {
-        return new POBuildData(fixedRequester, contentSpec, buildingOptions, zanataDetails, providerFactory,
+        return new POBuildData(fixedRequester, contentSpec, buildingOptions, zanataDetails, getBuilderResources().getServerSettings(),
                 translationBuild);
     }
 
+    @Override
+    protected void addFinalOutputPaths(final BuildData buildData) {
+        super.addFinalOutputPaths(buildData);
+
+        final POBuildData poBuildData = (POBuildData) buildData;
+        buildData.getOutputSink().addFinalPath(getPOTPath("topics/", poBuildData));
+        if (!buildData.getDefaultLocale().equals(poBuildData.getPOBuildLocale())) {
+            buildData.getOutputSink().addFinalPath(getPOPath("topics/", poBuildData));
+        }
+    }
+
     /**
      * Wrap all of the topics, images, common content, etc... files into a ZIP Archive.
      *
@@ -225,6 +262,7 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
             int lastPercent = 0;
 
             final Map<String, TranslationDetails> translations = new HashMap<String, TranslationDetails>();
+            final Map<String, Node> nodeIndex = DocBookBuildUtilities.getContentSpecNodeIndex(contentSpec);
 
             // Iterate over each translated node and build up the list of translated strings for the content spec.
             final List<TranslatedCSNodeWrapper> translatedCSNodes = translatedContentSpec.getTranslatedNodes().getItems();
@@ -270,14 +308,14 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
                     // Get the translations for the topic
                     if (EntityUtilities.isNodeATopic(csNode)) {
                         getTranslationsForTopic(buildData, locale, csNode.getId().toString(), csNode.getEntityId(),
-                                csNode.getEntityRevision(), translatedCSNode);
+                                csNode.getEntityRevision(), translatedCSNode, nodeIndex);
                     }
                 }
 
                 // Add in any info topic translation strings
                 if (csNode.getInfoTopicNode() != null) {
                     getTranslationsForTopic(buildData, locale, csNode.getId().toString(), csNode.getInfoTopicNode().getTopicId(),
-                            csNode.getInfoTopicNode().getTopicRevision(), translatedCSNode);
+                            csNode.getInfoTopicNode().getTopicRevision(), translatedCSNode, nodeIndex);
                 }
             }
 
@@ -305,6 +343,22 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
 
     protected void getTranslationsForTopic(final POBuildData buildData, final String locale, final String uniqueId, final Integer id,
             final Integer revision, final TranslatedCSNodeWrapper translatedCSNode) {
+        getTranslationsForTopic(buildData, locale, uniqueId, id, revision, translatedCSNode, null);
+    }
+
+    /**
+     * Gets the translation strings for a topic and adds them to the translation map.
+     *
+     * @param buildData        Information and data structures for the build.
+     * @param locale           The locale to get the translations for.
+     * @param uniqueId         The unique id of the content spec node the topic belongs to.
+     * @param id               The topic id.
+     * @param revision         The topic revision.
+     * @param translatedCSNode The translated content spec node for the topic.
+     * @param nodeIndex        An index of the content spec nodes by their unique id, or null if the nodes should be searched.
+     */
+    protected void getTranslationsForTopic(final POBuildData buildData, final String locale, final String uniqueId, final Integer id,
+            final Integer revision, final TranslatedCSNodeWrapper translatedCSNode, final Map<String, Node> nodeIndex) {
         // Find the actual content spec node relating to the DB cs node
         final List<ITopicNode> topicNodes = buildData.getBuildDatabase().getTopicNodesForTopicID(id);
 
@@ -313,11 +367,16 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
             return;
         }
 
+        final Node indexedNode = nodeIndex == null ? null : nodeIndex.get(uniqueId);
         ITopicNode topicNode = topicNodes.get(0);
-        for (final ITopicNode node : topicNodes) {
-            if (uniqueId.equals(node.getUniqueId())) {
-                topicNode = node;
-                break;
+        if (indexedNode instanceof ITopicNode && id.equals(((ITopicNode) indexedNode).getDBId())) {
+            topicNode = (ITopicNode) indexedNode;
+        } else {
+            for (final ITopicNode node : topicNodes) {
+                if (uniqueId.equals(node.getUniqueId())) {
+                    topicNode = node;
+                    break;
+                }
             }
         }
 
@@ -385,6 +444,9 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
             final List<StringToNodeCollection> stringToNodeCollections = DocBookUtilities.getTranslatableStringsV3(doc,
                     false);
 
+            // The V1 translations only depend on the document, so they are only broken down once when they are first needed
+            Map<String, TranslationDetails> v1Translations = null;
+
             for (final StringToNodeCollection stringToNode : stringToNodeCollections) {
                 final org.w3c.dom.Node parentNode = stringToNode.getNodeCollections().get(0).get(0).getParentNode();
                 final String tagName = parentNode.getNodeName();
@@ -402,7 +464,10 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
                     }
 
                     // See if it was a V1 translation and fix it if possible
-                    checkAndFixV1Translations(doc, currentTopicTranslations, topicTranslations);
+                    if (v1Translations == null) {
+                        v1Translations = getV1Translations(doc, currentTopicTranslations);
+                    }
+                    topicTranslations.putAll(v1Translations);
 
                     // Check to see if it was added as part of the V1 or V2 fix. If not then add it as having no translation
                     if (!topicTranslations.containsKey(stringToNode.getTranslationString())) {
@@ -492,9 +557,29 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
         }
     }
 
-    @SuppressWarnings("deprecation")
     protected void checkAndFixV1Translations(final Document doc, final Map<String, TranslationDetails> currentTopicTranslations,
             final Map<String, TranslationDetails> topicTranslations) {
+        topicTranslations.putAll(getV1Translations(doc, currentTopicTranslations));
+    }
+
+    /**
+     * Finds any translations that were created using V1 of the getTranslatableStrings() method, and breaks them down into the
+     * V3 strings and translations.
+     *
+     * @param doc                      The DOM Document to find the V1 strings in.
+     * @param currentTopicTranslations The translations that exist for the topic.
+     * @return A mapping of V3 original strings to the translations broken down from the V1 translations, in the order they were
+     *         found.
+     */
+    @SuppressWarnings("deprecation")
+    protected Map<String, TranslationDetails> getV1Translations(final Document doc,
+            final Map<String, TranslationDetails> currentTopicTranslations) {
+        final Map<String, TranslationDetails> topicTranslations = new LinkedHashMap<String, TranslationDetails>();
+
+        // If there are no translations, then there can't be any V1 translations
+        if (currentTopicTranslations.isEmpty()) {
+            return topicTranslations;
+        }
 
         // Get the namespaces to add to the individual strings
         final StringBuilder globalNamespaces = new StringBuilder();
@@ -551,6 +636,8 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
                 }
             }
         }
+
+        return topicTranslations;
     }
 
     protected void buildPOPass(final POBuildData buildData) throws BuildProcessingException {
@@ -566,8 +653,8 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
 
         if (!buildData.getDefaultLocale().equals(buildData.getPOBuildLocale())) {
             // Add the translated images to the book
-            final String imageFolder = buildData.getRootBookFolder() + buildData.getPOOutputLocale() + "/images/";
-            addImagesToBook(buildData, buildData.getPOBuildLocale(), imageFolder, false, false);
+            final String localeFolder = buildData.getRootBookFolder() + buildData.getPOOutputLocale() + "/";
+            addImagesToBook(buildData, buildData.getPOBuildLocale(), localeFolder, false, false);
         }
     }
 
@@ -686,7 +773,7 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
 
         // Get any untranslated strings from the XML
         try {
-            final String revisionHistoryXML = new String(buildData.getOutputFiles().get(buildData.getBookLocaleFolder() +
+            final String revisionHistoryXML = new String(buildData.getOutputSink().getFile(buildData.getBookLocaleFolder() +
                     REVISION_HISTORY_FILE_NAME), ENCODING);
             final Document doc = XMLUtilities.convertStringToDocument(revisionHistoryXML);
             final List<StringToNodeCollection> stringToNodeCollections = DocBookUtilities.getTranslatableStringsV3(doc, false);
@@ -709,7 +796,7 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
 
         // Get any untranslated strings from the XML
         try {
-            final String xml = new String(buildData.getOutputFiles().get(buildData.getBookLocaleFolder() +
+            final String xml = new String(buildData.getOutputSink().getFile(buildData.getBookLocaleFolder() +
                     fileName), ENCODING);
             final Document doc = XMLUtilities.convertStringToDocument(xml);
             final List<StringToNodeCollection> stringToNodeCollections = DocBookUtilities.getTranslatableStringsV3(doc, false);
@@ -793,11 +880,14 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
                 } else {
                     final String topicFileName = specTopic.getUniqueLinkId(buildData.isUseFixedUrls());
 
-                    buildPOTopic(buildData, specTopic, "topics/" + topicFileName);
+                    queuePOTopic(buildData, specTopic, "topics/" + topicFileName);
                 }
             }
         }
 
+        // Build the PO/POT files for the topics
+        buildQueuedPOTopics(buildData);
+
         createPOFile(buildData, buildData.getRootBookFileName(), containerTranslations);
 
         // Add the default error content
@@ -892,7 +982,7 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
                     final String topicFileName = specTopic.getUniqueLinkId(buildData.isUseFixedUrls());
                     final String fixedParentFileLocation = buildData.getBuildOptions().getFlattenTopics() ? "topics/" : parentFileLocation;
 
-                    buildPOTopic(buildData, specTopic, fixedParentFileLocation + topicFileName);
+                    queuePOTopic(buildData, specTopic, fixedParentFileLocation + topicFileName);
                 }
             }
         }
@@ -933,6 +1023,89 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
         }
     }
 
+    /**
+     * Queues a topic to have its POT/PO files built, once all the topics in the book have been queued.
+     *
+     * @param buildData       Information and data structures for the build.
+     * @param specTopic       The spec topic to create the POT/PO files for.
+     * @param filePathAndName The path and filename for the topic relative to the locale directory.
+     * @see #buildQueuedPOTopics(POBuildData)
+     */
+    protected void queuePOTopic(final POBuildData buildData, final SpecTopic specTopic, final String filePathAndName) {
+        if (specTopic != null) {
+            buildData.getQueuedPOTopics().put(filePathAndName, specTopic);
+        }
+    }
+
+    /**
+     * Builds the POT/PO files for all the queued topics. The files for each topic are independent of each other, so they are
+     * created concurrently using the number of threads specified in the build options. The files are then added to the book in
+     * the order the topics were queued, so that the output is the same as if the topics were built one after another.
+     *
+     * @param buildData Information and data structures for the build.
+     * @throws BuildProcessingException
+     */
+    protected void buildQueuedPOTopics(final POBuildData buildData) throws BuildProcessingException {
+        // Initialise any lazily loaded state that the tasks share, so that it isn't created or loaded concurrently
+        buildData.getXMLPreProcessor();
+        for (final SpecTopic specTopic : buildData.getQueuedPOTopics().values()) {
+            loadPOTopicData(buildData, specTopic);
+        }
+
+        final List<Callable<Map<String, byte[]>>> tasks = new ArrayList<Callable<Map<String, byte[]>>>();
+        for (final Map.Entry<String, SpecTopic> entry : buildData.getQueuedPOTopics().entrySet()) {
+            tasks.add(new Callable<Map<String, byte[]>>() {
+                @Override
+                public Map<String, byte[]> call() throws Exception {
+                    // Check if the app should be shutdown
+                    if (isShuttingDown.get()) {
+                        return new HashMap<String, byte[]>();
+                    }
+
+                    final Map<String, TranslationDetails> translations = new LinkedHashMap<String, TranslationDetails>();
+                    addStringsForTopic(buildData, entry.getValue(), translations);
+                    return createPOFiles(buildData, entry.getKey(), translations);
+                }
+            });
+        }
+        buildData.getQueuedPOTopics().clear();
+
+        final List<Map<String, byte[]>> results = runTasks(buildData, tasks, "Building PO Files");
+        for (final Map<String, byte[]> files : results) {
+            for (final Map.Entry<String, byte[]> file : files.entrySet()) {
+                addToZip(file.getKey(), file.getValue(), buildData);
+            }
+        }
+    }
+
+    /**
+     * Loads the data from a topic wrapper that is used when adding the strings for a topic, so that the wrapper isn't
+     * accessed by multiple threads when the topics POT/PO files are built concurrently.
+     *
+     * @param buildData Information and data structures for the build.
+     * @param specTopic The spec topic to load the topic data for.
+     */
+    protected void loadPOTopicData(final POBuildData buildData, final SpecTopic specTopic) {
+        final BaseTopicWrapper<?> topic = specTopic.getTopic();
+        if (topic == null) return;
+
+        final List<Integer> seoCategoryIds = buildData.getServerSettings().getSEOCategoryIds();
+        if (specTopic.getTopicType() != TopicType.INITIAL_CONTENT && seoCategoryIds != null && !seoCategoryIds.isEmpty()) {
+            final CollectionWrapper<TagWrapper> tags = topic.getTags();
+            if (tags != null && tags.getItems() != null) {
+                for (final TagWrapper tag : tags.getItems()) {
+                    tag.getName();
+                    tag.containedInCategories(seoCategoryIds);
+                }
+            }
+        }
+
+        if (buildData.getBuildOptions().getInsertEditorLinks()) {
+            topic.getEditorURL(buildData.getZanataDetails());
+            topic.getPressGangURL();
+        }
+    }
+
     protected void addStringsForTopic(final POBuildData buildData, final SpecTopic specTopic, final Map<String,
             TranslationDetails> translations) throws BuildProcessingException {
         addStringsForTopic(buildData, specTopic, translations, null);
@@ -1014,6 +1187,59 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
     protected String cleanForPublican(final BuildData buildData, final SpecTopic specTopic, final String translationString) {
         if (translationString == null) return null;
 
+        // Plain text won't be changed by parsing and cleaning it, so there is no need to convert it to a DOM
+        if (isPlainTranslationString(translationString)) {
+            return translationString;
+        }
+
+        // Check if the string has already been cleaned. Injections are comments, so strings with comments depend on the topic.
+        final Map<String, String> cleanedStrings = buildData instanceof POBuildData ? ((POBuildData) buildData).getCleanedStrings() : null;
+        final String key = translationString.contains("<!--") ? (specTopic.getUniqueId() + ":" + translationString) : translationString;
+        if (cleanedStrings != null && cleanedStrings.containsKey(key)) {
+            return cleanedStrings.get(key);
+        }
+
+        final String cleanedString = cleanForPublicanUsingDOM(buildData, specTopic, translationString);
+        if (cleanedStrings != null) {
+            cleanedStrings.put(key, cleanedString);
+        }
+        return cleanedString;
+    }
+
+    /**
+     * Checks if a translation string is plain text that won't be altered by parsing and serializing it as XML. That is, it has no
+     * markup, entities, comments or injections, no quotes or control characters and no leading or trailing whitespace.
+     *
+     * @param translationString The string to check.
+     * @return True if the string is plain text, otherwise false.
+     */
+    protected static boolean isPlainTranslationString(final String translationString) {
+        final int length = translationString.length();
+        if (!isPlainText(translationString) || length == 0 || Character.isWhitespace(translationString.charAt(0))
+                || Character.isWhitespace(translationString.charAt(length - 1))) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            final char c = translationString.charAt(i);
+            if (c == '>' || c == '"' || c == '\'' || c < ' ') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Resolves the injections, changes &apos; and &quot; entities to characters and removes any left over comments from
+     * source/translation strings, by converting the string to a DOM.
+     *
+     * @param buildData         Information and data structures for the build.
+     * @param specTopic         The topic to resolve the injections for.
+     * @param translationString The string to have its injections resolved and comments cleaned.
+     * @return The cleaned string that can be used in a publican POT/PO file.
+     */
+    private String cleanForPublicanUsingDOM(final BuildData buildData, final SpecTopic specTopic, final String translationString) {
         try {
             final Document doc = TopicUtilities.convertXMLStringToDocument("<temp>" + translationString + "</temp>",
                     buildData.getDocBookVersion().getId());
@@ -1081,14 +1307,28 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
      * @return The formatted string.
      */
     protected String formatTranslationString(POBuildData buildData, final String translationString) {
+        // Plain text won't be changed by formatting it, so there is no need to convert it to a DOM
+        final boolean cacheable = translationString != null;
+        if (cacheable && isPlainTranslationString(translationString)) {
+            return translationString;
+        } else if (cacheable && buildData.getFormattedStrings().containsKey(translationString)) {
+            return buildData.getFormattedStrings().get(translationString);
+        }
+
+        String formattedString;
         try {
             final Document doc = TopicUtilities.convertXMLStringToDocument("<temp>" + translationString + "</temp>",
                     buildData.getDocBookVersion().getId());
 
-            return XMLUtilities.convertNodeToString(doc.getDocumentElement(), false);
+            formattedString = XMLUtilities.convertNodeToString(doc.getDocumentElement(), false);
         } catch (Exception e) {
-            return translationString;
+            formattedString = translationString;
         }
+
+        if (cacheable) {
+            buildData.getFormattedStrings().put(translationString, formattedString);
+        }
+        return formattedString;
     }
 
     /**
@@ -1396,26 +1636,60 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
      */
     protected void createPOFile(final POBuildData buildData, final String filePathAndName,
             final Map<String, TranslationDetails> translations) throws BuildProcessingException {
+        for (final Map.Entry<String, byte[]> file : createPOFiles(buildData, filePathAndName, translations).entrySet()) {
+            addToZip(file.getKey(), file.getValue(), buildData);
+        }
+    }
+
+    /**
+     * Creates the actual PO/POT files for a specific file, without adding them to the book.
+     *
+     * @param buildData       Information and data structures for the build.
+     * @param filePathAndName The path and filename relative to the locale directory, without an extension.
+     * @param translations    The mapping of original strings to translation strings, that will be used to build the po/pot files.
+     * @return A mapping of the full file paths to the content of the PO/POT files.
+     * @throws BuildProcessingException
+     */
+    protected Map<String, byte[]> createPOFiles(final POBuildData buildData, final String filePathAndName,
+            final Map<String, TranslationDetails> translations) throws BuildProcessingException {
+        final Map<String, byte[]> files = new LinkedHashMap<String, byte[]>();
+
         // Don't create files where there is nothing to translate
         if (!translations.isEmpty()) {
-            final StringBuilder potFile = createBasePOFile(buildData);
-            final StringBuilder poFile = createBasePOFile(buildData);
+            final String formattedDate;
+            synchronized (POT_DATE_FORMAT) {
+                formattedDate = POT_DATE_FORMAT.format(buildData.getBuildDate());
+            }
+            final boolean createPOFile = !buildData.getDefaultLocale().equals(buildData.getPOBuildLocale());
+            final POFileWriter potFile;
+            final POFileWriter poFile;
+            try {
+                potFile = new POFileWriter(formattedDate, ENCODING);
+                poFile = createPOFile ? new POFileWriter(formattedDate, ENCODING) : null;
+            } catch (UnsupportedEncodingException e) {
+                /* UTF-8 is a valid format so this should exception should never get thrown */
+                throw new BuildProcessingException(e);
+            }
 
             for (final Map.Entry<String, TranslationDetails> entry : translations.entrySet()) {
                 final String tagName = entry.getValue() == null ? null : entry.getValue().getTagName();
-                addPOTEntry(tagName, entry.getKey(), potFile);
-                if (entry.getValue() == null) {
-                    addPOEntry(tagName, entry.getKey(), null, false, poFile);
+                potFile.addTemplateEntry(tagName, entry.getKey());
+                if (poFile == null) {
+                    continue;
+                } else if (entry.getValue() == null) {
+                    poFile.addEntry(tagName, entry.getKey(), null, false);
                 } else {
-                    addPOEntry(tagName, entry.getKey(), entry.getValue().getTranslation(), entry.getValue().isFuzzy(), poFile);
+                    poFile.addEntry(tagName, entry.getKey(), entry.getValue().getTranslation(), entry.getValue().isFuzzy());
                 }
             }
 
-            addPOTToZip(filePathAndName + ".pot", potFile.toString(), buildData);
-            if (!buildData.getDefaultLocale().equals(buildData.getPOBuildLocale())) {
-                addPOToZip(filePathAndName + ".po", poFile.toString(), buildData);
+            files.put(getPOTPath(filePathAndName + ".pot", buildData), potFile.toByteArray());
+            if (poFile != null) {
+                files.put(getPOPath(filePathAndName + ".po", buildData), poFile.toByteArray());
             }
         }
+
+        return files;
     }
 
     /**
@@ -1423,23 +1697,21 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
      *
      * @param buildData Information and data structures for the build.
      * @return A {@link StringBuilder} instance initialised with the base content required for a PO/POT file.
+     * @deprecated Use {@link POFileWriter} instead.
      */
+    @Deprecated
     protected StringBuilder createBasePOFile(final BuildData buildData) {
-        final String formattedDate = POT_DATE_FORMAT.format(buildData.getBuildDate());
-
-        return new StringBuilder("# \n")
-                .append("# AUTHOR <EMAIL@ADDRESS>, YEAR.\n")
-                .append("#\n")
-                .append("msgid \"\"\n")
-                .append("msgstr \"\"\n")
-                .append("\"Project-Id-Version: 0\\n\"\n")
-                .append("\"POT-Creation-Date: ").append(formattedDate).append("\\n\"\n")
-                .append("\"PO-Revision-Date: ").append(formattedDate).append("\\n\"\n")
-                .append("\"Last-Translator: Automatically generated\\n\"\n")
-                .append("\"Language-Team: None\\n\"\n")
-                .append("\"MIME-Version: 1.0\\n\"\n")
-                .append("\"Content-Type: application/x-pressgang-ccms; charset=").append(ENCODING).append("\\n\"\n")
-                .append("\"Content-Transfer-Encoding: 8bit\\n\"\n");
+        final String formattedDate;
+        synchronized (POT_DATE_FORMAT) {
+            formattedDate = POT_DATE_FORMAT.format(buildData.getBuildDate());
+        }
+
+        try {
+            return new StringBuilder(new String(new POFileWriter(formattedDate, ENCODING).toByteArray(), ENCODING));
+        } catch (UnsupportedEncodingException e) {
+            /* UTF-8 is a valid format so this should exception should never get thrown */
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
@@ -1448,7 +1720,9 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
      * @param tag     The XML element name.
      * @param source  The original source string.
      * @param potFile The POT file to add to.
+     * @deprecated Use {@link POFileWriter#addTemplateEntry(String, String)} instead.
      */
+    @Deprecated
     protected void addPOTEntry(final String tag, final String source, final StringBuilder potFile) {
         addPOEntry(tag, source, "", false, potFile);
     }
@@ -1461,7 +1735,9 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
      * @param translation The translated string.
      * @param fuzzy       If the translation is fuzzy.
      * @param poFile      The PO file to add to.
+     * @deprecated Use {@link POFileWriter#addEntry(String, String, String, boolean)} instead.
      */
+    @Deprecated
     protected void addPOEntry(final String tag, final String source, final String translation, final boolean fuzzy,
             final StringBuilder poFile) {
         // perform a check to make sure the source isn't an empty string, as this could be the case after removing the comments
@@ -1475,73 +1751,23 @@ public class PublicanPODocBookBuilder extends PublicanDocBookBuilder {
             poFile.append("#, fuzzy\n");
         }
         poFile.append("#, no-c-format\n")
-                .append("msgid \"").append(escapeForPOFile(source, true)).append("\"\n")
-                .append("msgstr \"").append(escapeForPOFile(translation, false)).append("\"\n");
+                .append("msgid \"").append(POFileWriter.escape(source, true)).append("\"\n")
+                .append("msgstr \"").append(POFileWriter.escape(translation, false)).append("\"\n");
     }
 
-    /**
-     * Escape a string so that it can be added to a PO/POT file.
-     *
-     * @param input The string to be escaped.
-     * @param fix   If the string should have greater/lesser than symbols fixed.
-     * @return The escaped string, or an empty string if the input is null.
-     */
-    private String escapeForPOFile(final String input, boolean fix) {
-        if (input == null) return "";
-
-        String escapedString = input;
-
-        // Publican escapes greater/lesser than to XML entities
-        if (fix && (input.contains(" < ") || input.contains(" > "))) {
-            // Loop over and find all the XML Elements as they should remain untouched.
-            final LinkedList<String> elements = new LinkedList<String>();
-            if (input.indexOf('<') != -1) {
-                int index = -1;
-                while ((index = input.indexOf('<', index + 1)) != -1) {
-                    int endIndex = input.indexOf('>', index);
-                    int nextIndex = input.indexOf('<', index + 1);
-
-                    /*
-                      * If the next opening tag is less than the next ending tag, than the current opening tag isn't a match for the next
-                      * ending tag, so continue to the next one
-                      */
-                    if (endIndex == -1 || (nextIndex != -1 && nextIndex < endIndex)) {
-                        continue;
-                    } else if (index + 1 == endIndex) {
-                        // This is a <> sequence, so it should be ignored as well.
-                        continue;
-                    } else {
-                        elements.add(input.substring(index, endIndex + 1));
-                    }
-
-                }
-            }
-
-            // Find all the elements and replace them with a marker
-            for (int count = 0; count < elements.size(); count++) {
-                escapedString = escapedString.replace(elements.get(count), "###" + count + "###");
-            }
-
-            // Perform the replacements on what's left
-            escapedString = escapedString.replace("<", "&lt;").replace(">", "&gt;");
-
-            // Replace the markers
-            for (int count = 0; count < elements.size(); count++) {
-                escapedString = escapedString.replace("###" + count + "###", elements.get(count));
-            }
-        }
+    protected void addPOTToZip(final String path, final byte[] file, final POBuildData buildData) throws BuildProcessingException {
+        addToZip(getPOTPath(path, buildData), file, buildData);
+    }
 
-        return escapedString.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r");
+    protected void addPOToZip(final String path, final byte[] file, final POBuildData buildData) throws BuildProcessingException {
+        addToZip(getPOPath(path, buildData), file, buildData);
     }
 
-    protected void addPOTToZip(final String path, final String file, final POBuildData buildData) throws BuildProcessingException {
-        addToZip(buildData.getRootBookFolder() + "pot/" + path, file, buildData);
+    protected String getPOTPath(final String path, final POBuildData buildData) {
+        return buildData.getRootBookFolder() + "pot/" + path;
     }
 
-    protected void addPOToZip(final String path, final String file, final POBuildData buildData) throws BuildProcessingException {
-        addToZip(buildData.getRootBookFolder() + buildData.getPOOutputLocale() + "/" + path, file, buildData);
+    protected String getPOPath(final String path, final POBuildData buildData) {
+        return buildData.getRootBookFolder() + buildData.getPOOutputLocale() + "/" + path;
     }
 }
@@ -31,6 +31,22 @@ public class BuilderConstants {
      */
     public static final Integer MAXIMUM_SET_PROP_TAG_NAME_RETRY = 50;
     public static final Integer FIXED_URL_BATCH_SIZE = 50;
+    /**
+     * The maximum number of topics to fetch in a single query
+     */
+    public static final int TOPIC_BATCH_SIZE = 100;
+    /**
+     * The default maximum size, in bytes, of the on disk topic cache
+     */
+    public static final long DEFAULT_TOPIC_CACHE_MAX_SIZE = 512L * 1024 * 1024;
+    /**
+     * The default time, in milliseconds, that the templates and settings loaded from the server are reused by builders
+     */
+    public static final long DEFAULT_BUILDER_RESOURCES_TTL = 5L * 60 * 1000;
+    /**
+     * The name of the build manifest file, that is used to do incremental builds
+     */
+    public static final String BUILD_MANIFEST_FILE_NAME = "build.manifest";
 
     public static final String DOCBOOK_45_DTD = "docbookx.dtd";
     public static final String ROCBOOK_45_DTD = "rocbookx.dtd";
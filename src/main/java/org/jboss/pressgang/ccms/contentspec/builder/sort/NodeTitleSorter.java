@@ -21,61 +21,95 @@ package org.jboss.pressgang.ccms.contentspec.builder.sort;
 
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.jboss.pressgang.ccms.contentspec.SpecNode;
 import org.jboss.pressgang.ccms.contentspec.SpecTopic;
 import org.jboss.pressgang.ccms.contentspec.builder.constants.BuilderConstants;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.BuildDatabase;
 import org.jboss.pressgang.ccms.contentspec.builder.structures.InjectionData;
 import org.jboss.pressgang.ccms.utils.sort.ExternalListSort;
 
 public class NodeTitleSorter implements ExternalListSort<Integer, SpecNode, InjectionData> {
+    private final BuildDatabase buildDatabase;
+
+    public NodeTitleSorter() {
+        this(null);
+    }
+
+    /**
+     * @param buildDatabase The database to find the nodes in, or null if the nodes passed to
+     *                      {@link #sort(List, List)} should be searched instead.
+     */
+    public NodeTitleSorter(final BuildDatabase buildDatabase) {
+        this.buildDatabase = buildDatabase;
+    }
+
     public void sort(final List<SpecNode> nodes, final List<InjectionData> list) {
-        if (nodes == null || list == null) return;
+        if ((nodes == null && buildDatabase == null) || list == null) return;
+
+        // Find the node and sort key for each item once, instead of each time two items are compared
+        final Map<InjectionData, String> sortKeys = new IdentityHashMap<InjectionData, String>();
+        for (final InjectionData injectionData : list) {
+            final SpecNode node = findNode(nodes, injectionData.id);
+            if (node != null) {
+                sortKeys.put(injectionData, getSortKey(node.getTitle()));
+            }
+        }
 
         Collections.sort(list, new Comparator<InjectionData>() {
             public int compare(final InjectionData o1, final InjectionData o2) {
-                SpecNode node1 = null;
-                SpecNode node2 = null;
-
-                final boolean isTopicId1 = BuilderConstants.TOPIC_ID_PATTERN.matcher(o1.id).matches();
-                final boolean isTopicId2 = BuilderConstants.TOPIC_ID_PATTERN.matcher(o2.id).matches();
-
-                // Find the nodes
-                for (final SpecNode node : nodes) {
-                    if (isTopicId1 && node instanceof SpecTopic) {
-                        if (((SpecTopic) node).getDBId().equals(o1.id)) node1 = node;
-                    } else if (!isTopicId1) {
-                        if (node.getTargetId() != null && node.getTargetId().equals(o1.id)) node1 = node;
-                    }
-                    if (isTopicId2 && node instanceof SpecTopic) {
-                        if (((SpecTopic) node).getDBId().equals(o2.id)) node2 = node;
-                    } else if (!isTopicId2) {
-                        if (node.getTargetId() != null && node.getTargetId().equals(o2.id)) node2 = node;
-                    }
-
-                    if (node1 != null && node2 != null) break;
-                }
-
-                final boolean v1Exists = node1 != null;
-                final boolean v2Exists = node2 != null;
+                final boolean v1Exists = sortKeys.containsKey(o1);
+                final boolean v2Exists = sortKeys.containsKey(o2);
 
                 if (!v1Exists && !v2Exists) return 0;
                 if (!v1Exists) return -1;
                 if (!v2Exists) return 1;
 
-                final SpecNode v1 = node1;
-                final SpecNode v2 = node2;
+                final String v1 = sortKeys.get(o1);
+                final String v2 = sortKeys.get(o2);
 
-                if (v1.getTitle() == null && v2.getTitle() == null) return 0;
+                if (v1 == null && v2 == null) return 0;
 
-                if (v1.getTitle() == null) return -1;
+                if (v1 == null) return -1;
 
-                if (v2.getTitle() == null) return 1;
+                if (v2 == null) return 1;
 
-                return v1.getTitle().toLowerCase().compareTo(v2.getTitle().toLowerCase());
+                return v1.compareTo(v2);
             }
         });
     }
-}
 
+    /**
+     * Find the node for a topic or target id.
+     *
+     * @param nodes The nodes to search, if there is no build database.
+     * @param id    The topic or target id.
+     * @return The first node that matches the id, or null if no node matches.
+     */
+    protected SpecNode findNode(final List<SpecNode> nodes, final String id) {
+        final boolean isTopicId = BuilderConstants.TOPIC_ID_PATTERN.matcher(id).matches();
+
+        if (buildDatabase != null) {
+            final List<? extends SpecNode> matchingNodes = isTopicId ? buildDatabase.getSpecTopicsForDBId(Integer.parseInt(id)) :
+                    buildDatabase.getSpecNodesForTargetId(id);
+            return matchingNodes.isEmpty() ? null : matchingNodes.get(0);
+        }
+
+        for (final SpecNode node : nodes) {
+            if (isTopicId && node instanceof SpecTopic) {
+                if (id.equals(String.valueOf(((SpecTopic) node).getDBId()))) return node;
+            } else if (!isTopicId) {
+                if (node.getTargetId() != null && node.getTargetId().equals(id)) return node;
+            }
+        }
+
+        return null;
+    }
+
+    protected String getSortKey(final String title) {
+        return title == null ? null : title.toLowerCase();
+    }
+}
@@ -26,9 +26,11 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.LocaleUtils;
 import org.jboss.pressgang.ccms.contentspec.ContentSpec;
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
 import org.jboss.pressgang.ccms.contentspec.buglinks.BaseBugLinkStrategy;
 import org.jboss.pressgang.ccms.contentspec.buglinks.BugLinkOptions;
 import org.jboss.pressgang.ccms.contentspec.buglinks.BugLinkStrategyFactory;
@@ -46,8 +48,10 @@ import org.jboss.pressgang.ccms.utils.structures.DocBookVersion;
 import org.jboss.pressgang.ccms.wrapper.LocaleWrapper;
 import org.jboss.pressgang.ccms.wrapper.ServerEntitiesWrapper;
 import org.jboss.pressgang.ccms.wrapper.ServerSettingsWrapper;
+import org.jboss.pressgang.ccms.wrapper.TranslatedCSNodeWrapper;
 import org.jboss.pressgang.ccms.wrapper.collection.CollectionWrapper;
 import org.jboss.pressgang.ccms.zanata.ZanataDetails;
+import org.w3c.dom.Document;
 
 public class BuildData {
     private final ServerSettingsWrapper serverSettings;
@@ -119,15 +123,54 @@ public class BuildData {
      * The Mapping of file names to file contents to be used to build the ZIP archive.
      */
     private final HashMap<String, byte[]> files = new HashMap<String, byte[]>();
+    /**
+     * The sink that the output files are written to. By default the files are stored in the files map.
+     */
+    private OutputSink outputSink = new MapOutputSink(files);
     private final ContentSpec contentSpec;
     private final Map<String, LocaleWrapper> localeMap;
 
     private boolean useFixedUrls = false;
     private BaseBugLinkStrategy bugLinkStrategy = null;
     private DocBookXMLPreProcessor xmlPreProcessor = null;
+    /**
+     * The manifest of the topics in this build, or null if no manifest should be created.
+     */
+    private BuildManifest buildManifest = null;
+    /**
+     * The manifest and files from a previous build of the book, that can be used to reuse unchanged topics.
+     */
+    private BuildManifest previousBuildManifest = null;
+    private Map<String, byte[]> previousBuildFiles = null;
+    /**
+     * The spec topics that have reused the output from the previous build, mapped to their entry in the previous manifest.
+     */
+    private final Map<SpecTopic, BuildManifest.TopicEntry> reusedSpecTopics = new HashMap<SpecTopic, BuildManifest.TopicEntry>();
+    /**
+     * The translated content spec nodes that were downloaded with the translated content spec, mapped by their id.
+     */
+    private final Map<Integer, TranslatedCSNodeWrapper> translatedCSNodes = new HashMap<Integer, TranslatedCSNodeWrapper>();
+    /**
+     * The indexes of the topic XML documents, so that the documents only need to be traversed again once they have changed.
+     */
+    private final Map<Document, TopicNodeIndex> topicNodeIndexes = new ConcurrentHashMap<Document, TopicNodeIndex>();
 
     public BuildData(final String requester, final ContentSpec contentSpec, final DocBookBuildingOptions buildOptions,
             final ZanataDetails zanataDetails, final DataProviderFactory providerFactory, boolean translationBuild) {
+        this(requester, contentSpec, buildOptions, zanataDetails, providerFactory.getProvider(ServerSettingsProvider.class)
+                .getServerSettings(), translationBuild);
+    }
+
+    /**
+     * @param requester        The user who requested the build.
+     * @param contentSpec      The content spec being built.
+     * @param buildOptions     The options to use when building.
+     * @param zanataDetails    The zanata server details to use for translations.
+     * @param serverSettings   The settings that have already been loaded from the server.
+     * @param translationBuild If the build is a translation build.
+     */
+    public BuildData(final String requester, final ContentSpec contentSpec, final DocBookBuildingOptions buildOptions,
+            final ZanataDetails zanataDetails, final ServerSettingsWrapper serverSettings, boolean translationBuild) {
         this.contentSpec = contentSpec;
         this.requester = requester;
         this.buildOptions = buildOptions;
@@ -141,8 +184,7 @@ public class BuildData {
         this.translationBuild = translationBuild;
         buildDate = new Date();
 
-        // Load the server settings
-        serverSettings = providerFactory.getProvider(ServerSettingsProvider.class).getServerSettings();
+        this.serverSettings = serverSettings;
 
         // Load the locales from the server
         localeMap = buildLocaleMap(serverSettings.getLocales());
@@ -365,12 +407,86 @@ public class BuildData {
     }
 
     /**
-     * @return
+     * Get the files that have been added to the output of the build. If a different OutputSink has been set, then this will be
+     * empty.
+     *
+     * @return The mapping of file names to file contents.
      */
     public HashMap<String, byte[]> getOutputFiles() {
         return files;
     }
 
+    public OutputSink getOutputSink() {
+        return outputSink;
+    }
+
+    public void setOutputSink(final OutputSink outputSink) {
+        this.outputSink = outputSink;
+    }
+
+    public BuildManifest getBuildManifest() {
+        return buildManifest;
+    }
+
+    public void setBuildManifest(final BuildManifest buildManifest) {
+        this.buildManifest = buildManifest;
+    }
+
+    public BuildManifest getPreviousBuildManifest() {
+        return previousBuildManifest;
+    }
+
+    public void setPreviousBuildManifest(final BuildManifest previousBuildManifest) {
+        this.previousBuildManifest = previousBuildManifest;
+    }
+
+    public Map<String, byte[]> getPreviousBuildFiles() {
+        return previousBuildFiles;
+    }
+
+    public void setPreviousBuildFiles(final Map<String, byte[]> previousBuildFiles) {
+        this.previousBuildFiles = previousBuildFiles;
+    }
+
+    public Map<SpecTopic, BuildManifest.TopicEntry> getReusedSpecTopics() {
+        return reusedSpecTopics;
+    }
+
+    public Map<Integer, TranslatedCSNodeWrapper> getTranslatedCSNodes() {
+        return translatedCSNodes;
+    }
+
+    /**
+     * Get the index for a topic's XML document, creating it if the document hasn't been indexed yet.
+     *
+     * @param doc The topic XML document.
+     * @return The index for the document, or an empty index if the document is null.
+     */
+    public TopicNodeIndex getTopicNodeIndex(final Document doc) {
+        if (doc == null) {
+            return new TopicNodeIndex(getDocBookVersion());
+        }
+
+        TopicNodeIndex index = topicNodeIndexes.get(doc);
+        if (index == null) {
+            index = TopicNodeIndex.create(getDocBookVersion(), doc);
+            topicNodeIndexes.put(doc, index);
+        }
+        return index;
+    }
+
+    /**
+     * Discard the index for a topic's XML document. This must be called once the document has been modified, so that the index is
+     * rebuilt the next time it is used.
+     *
+     * @param doc The topic XML document that has been modified.
+     */
+    public void invalidateTopicNodeIndex(final Document doc) {
+        if (doc != null) {
+            topicNodeIndexes.remove(doc);
+        }
+    }
+
     public String getRequester() {
         return requester;
     }
@@ -418,7 +534,7 @@ public class BuildData {
         return bugLinkOptions;
     }
 
-    public BaseBugLinkStrategy getBugLinkStrategy() {
+    public synchronized BaseBugLinkStrategy getBugLinkStrategy() {
         if (bugLinkStrategy == null) {
             final BugLinkType bugLinkType = getContentSpec().getBugLinks();
             final BugLinkOptions bugOptions = getBugLinkOptions();
@@ -440,7 +556,7 @@ public class BuildData {
         return constantsResourceBundle;
     }
 
-    public DocBookXMLPreProcessor getXMLPreProcessor() {
+    public synchronized DocBookXMLPreProcessor getXMLPreProcessor() {
         if (xmlPreProcessor == null) {
             xmlPreProcessor = new DocBookXMLPreProcessor(getConstants(), getBugLinkStrategy());
         }
@@ -40,6 +40,13 @@ public class BuildDatabase {
     private Map<Integer, List<ITopicNode>> topics = new HashMap<Integer, List<ITopicNode>>();
     private Map<String, List<ITopicNode>> topicsKeys = new HashMap<String, List<ITopicNode>>();
     private List<Level> levels = new ArrayList<Level>();
+    /**
+     * All the spec nodes, the spec topics mapped by their topic id, and the spec nodes mapped by their target id. The indexes are
+     * built when they are first used, and are discarded when anything is added to the database.
+     */
+    private List<SpecNode> specNodes = null;
+    private Map<Integer, List<SpecTopic>> specTopicIndex = null;
+    private Map<String, List<SpecNode>> targetIdIndex = null;
 
     /**
      * Add a SpecTopic to the database.
@@ -47,8 +54,9 @@ public class BuildDatabase {
      * @param specTopic The SpecTopic object to be added.
      * @param key       A key that represents the Topic mapped to the SpecTopic
      */
-    public void add(final ITopicNode specTopic, final String key) {
+    public synchronized void add(final ITopicNode specTopic, final String key) {
         if (specTopic == null) return;
+        clearIndexes();
 
         final Integer topicId = specTopic.getDBId();
         if (!topics.containsKey(topicId)) {
@@ -69,8 +77,9 @@ public class BuildDatabase {
      *
      * @param level        The Level object to be added.
      */
-    public void add(final Level level) {
+    public synchronized void add(final Level level) {
         if (level == null) return;
+        clearIndexes();
 
         levels.add(level);
     }
@@ -179,26 +188,96 @@ public class BuildDatabase {
     }
 
     /**
-     * Get a List of all the SpecNodes in the Database.
+     * Get a List of all the SpecNodes in the Database. The list is only created again once something has been added to the
+     * database, so it can be fetched for each injection without copying the nodes each time.
      *
-     * @return A list of Level objects.
+     * @return A list of the levels followed by the topics.
      */
-    public List<SpecNode> getAllSpecNodes() {
-        final ArrayList<SpecNode> retValue = new ArrayList<SpecNode>();
+    public synchronized List<SpecNode> getAllSpecNodes() {
+        if (specNodes == null) {
+            buildIndexes();
+        }
+        return specNodes;
+    }
+
+    /**
+     * Get the spec topics in the database that use a topic.
+     *
+     * @param topicId The Topic ID to find SpecTopics for.
+     * @return The SpecTopics whose Topic ID matches, in the order they were added to the database.
+     */
+    public List<SpecTopic> getSpecTopicsForDBId(final Integer topicId) {
+        final List<SpecTopic> specTopics = getSpecTopicIndex().get(topicId);
+        return specTopics == null ? Collections.<SpecTopic>emptyList() : Collections.unmodifiableList(specTopics);
+    }
+
+    /**
+     * Get the spec nodes in the database that use a target id. Target ids should be unique in a content spec, so the list will
+     * normally hold at most one node.
+     *
+     * @param targetId The Target ID to find SpecNodes for.
+     * @return The SpecNodes whose Target ID matches, with the levels first and then in the order they were added to the database.
+     */
+    public List<SpecNode> getSpecNodesForTargetId(final String targetId) {
+        final List<SpecNode> specNodes = getTargetIdIndex().get(targetId);
+        return specNodes == null ? Collections.<SpecNode>emptyList() : Collections.unmodifiableList(specNodes);
+    }
+
+    private synchronized Map<Integer, List<SpecTopic>> getSpecTopicIndex() {
+        if (specTopicIndex == null) {
+            buildIndexes();
+        }
+        return specTopicIndex;
+    }
+
+    private synchronized Map<String, List<SpecNode>> getTargetIdIndex() {
+        if (targetIdIndex == null) {
+            buildIndexes();
+        }
+        return targetIdIndex;
+    }
 
-        // Add all the levels
-        retValue.addAll(levels);
+    private void buildIndexes() {
+        final List<SpecNode> allSpecNodes = new ArrayList<SpecNode>(levels);
+        specTopicIndex = new HashMap<Integer, List<SpecTopic>>();
+        targetIdIndex = new HashMap<String, List<SpecNode>>();
+
+        for (final Level level : levels) {
+            addToTargetIdIndex(level);
+        }
 
-        // Add all the topics
         for (final Entry<Integer, List<ITopicNode>> topicEntry : topics.entrySet()) {
             for (final ITopicNode topic : topicEntry.getValue()) {
+                if (topic instanceof SpecTopic) {
+                    if (!specTopicIndex.containsKey(topicEntry.getKey())) {
+                        specTopicIndex.put(topicEntry.getKey(), new ArrayList<SpecTopic>());
+                    }
+                    specTopicIndex.get(topicEntry.getKey()).add((SpecTopic) topic);
+                }
                 if (topic instanceof SpecNode) {
-                    retValue.add((SpecNode) topic);
+                    allSpecNodes.add((SpecNode) topic);
+                    addToTargetIdIndex((SpecNode) topic);
                 }
             }
         }
 
-        return retValue;
+        specNodes = Collections.unmodifiableList(allSpecNodes);
+    }
+
+    private void addToTargetIdIndex(final SpecNode specNode) {
+        final String targetId = specNode.getTargetId();
+        if (targetId != null) {
+            if (!targetIdIndex.containsKey(targetId)) {
+                targetIdIndex.put(targetId, new ArrayList<SpecNode>());
+            }
+            targetIdIndex.get(targetId).add(specNode);
+        }
+    }
+
+    private void clearIndexes() {
+        specNodes = null;
+        specTopicIndex = null;
+        targetIdIndex = null;
     }
 
     /**
@@ -0,0 +1,228 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.structures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.pressgang.ccms.utils.common.CollectionUtilities;
+
+/**
+ * A manifest of the topics that were built in a book, that can be used by later builds to reuse the output of topics that
+ * haven't changed.
+ */
+public class BuildManifest {
+    private static final String HEADER = "# PressGang CCMS Build Manifest";
+    private static final String VERSION = "2";
+    private static final String BUILD_PREFIX = "build";
+    private static final String TOPIC_PREFIX = "topic";
+    private static final String SEPARATOR = "\t";
+    private static final String LIST_SEPARATOR = ",";
+
+    private String buildFingerprint;
+    private final Map<String, TopicEntry> topicEntries = new LinkedHashMap<String, TopicEntry>();
+
+    /**
+     * Parses a manifest that was created by {@link #toString()}.
+     *
+     * @param manifest The manifest content.
+     * @return The parsed manifest, or null if the content isn't a valid manifest.
+     */
+    public static BuildManifest parse(final String manifest) {
+        if (manifest == null) return null;
+
+        final String[] lines = manifest.split("\r?\n");
+        if (lines.length < 2 || !lines[0].equals(HEADER + " " + VERSION)) return null;
+
+        final BuildManifest buildManifest = new BuildManifest();
+        for (int i = 1; i < lines.length; i++) {
+            final String[] values = lines[i].split(SEPARATOR, -1);
+            if (values[0].equals(BUILD_PREFIX) && values.length == 2) {
+                buildManifest.setBuildFingerprint(values[1]);
+            } else if (values[0].equals(TOPIC_PREFIX) && values.length == 11) {
+                try {
+                    final TopicEntry entry = new TopicEntry(values[1], toInteger(values[2]), toInteger(values[3]), values[4]);
+                    entry.setOutputPath(toString(values[5]));
+                    entry.setOutputHash(toString(values[6]));
+                    entry.getIds().addAll(toSet(values[7]));
+                    entry.getLinkIds().addAll(toSet(values[8]));
+                    entry.getMissingInjectionIds().addAll(toSet(values[9]));
+                    entry.setHasErrors(Boolean.parseBoolean(values[10]));
+                    buildManifest.addTopicEntry(entry);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            } else if (!lines[i].trim().isEmpty()) {
+                return null;
+            }
+        }
+
+        return buildManifest;
+    }
+
+    public String getBuildFingerprint() {
+        return buildFingerprint;
+    }
+
+    public void setBuildFingerprint(final String buildFingerprint) {
+        this.buildFingerprint = buildFingerprint;
+    }
+
+    public void addTopicEntry(final TopicEntry entry) {
+        topicEntries.put(entry.getUniqueLinkId(), entry);
+    }
+
+    /**
+     * Get the entry for a topic.
+     *
+     * @param uniqueLinkId The unique link id of the spec topic.
+     * @return The entry for the topic, or null if the topic isn't in the manifest.
+     */
+    public TopicEntry getTopicEntry(final String uniqueLinkId) {
+        return topicEntries.get(uniqueLinkId);
+    }
+
+    public Collection<TopicEntry> getTopicEntries() {
+        return Collections.unmodifiableCollection(topicEntries.values());
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder retValue = new StringBuilder(HEADER).append(" ").append(VERSION).append("\n");
+        retValue.append(BUILD_PREFIX).append(SEPARATOR).append(fromString(buildFingerprint)).append("\n");
+        for (final TopicEntry entry : topicEntries.values()) {
+            retValue.append(TOPIC_PREFIX);
+            retValue.append(SEPARATOR).append(entry.getUniqueLinkId());
+            retValue.append(SEPARATOR).append(fromString(entry.getTopicId() == null ? null : entry.getTopicId().toString()));
+            retValue.append(SEPARATOR).append(fromString(entry.getTopicRevision() == null ? null : entry.getTopicRevision().toString()));
+            retValue.append(SEPARATOR).append(fromString(entry.getFingerprint()));
+            retValue.append(SEPARATOR).append(fromString(entry.getOutputPath()));
+            retValue.append(SEPARATOR).append(fromString(entry.getOutputHash()));
+            retValue.append(SEPARATOR).append(CollectionUtilities.toSeperatedString(new ArrayList<String>(entry.getIds()), LIST_SEPARATOR));
+            retValue.append(SEPARATOR).append(CollectionUtilities.toSeperatedString(new ArrayList<String>(entry.getLinkIds()),
+                    LIST_SEPARATOR));
+            retValue.append(SEPARATOR).append(CollectionUtilities.toSeperatedString(new ArrayList<String>(entry.getMissingInjectionIds()),
+                    LIST_SEPARATOR));
+            retValue.append(SEPARATOR).append(entry.hasErrors());
+            retValue.append("\n");
+        }
+        return retValue.toString();
+    }
+
+    private static String fromString(final String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String toString(final String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Integer toInteger(final String value) {
+        return value.isEmpty() ? null : Integer.parseInt(value);
+    }
+
+    private static List<String> toSet(final String value) {
+        return value.isEmpty() ? Collections.<String>emptyList() : Arrays.asList(value.split(LIST_SEPARATOR));
+    }
+
+    /**
+     * The details of a topic in a build. The fingerprint identifies everything that was used to process the topic, and the ids
+     * are the id attributes the topic defines, while the link ids are the ids the topic links to. The missing injection ids are the
+     * topic and target ids used in the topic's custom injection points that weren't in the book, so they weren't injected.
+     */
+    public static class TopicEntry {
+        private final String uniqueLinkId;
+        private final Integer topicId;
+        private final Integer topicRevision;
+        private final String fingerprint;
+        private String outputPath;
+        private String outputHash;
+        private final Set<String> ids = new LinkedHashSet<String>();
+        private final Set<String> linkIds = new LinkedHashSet<String>();
+        private final Set<String> missingInjectionIds = new LinkedHashSet<String>();
+        private boolean hasErrors = false;
+
+        public TopicEntry(final String uniqueLinkId, final Integer topicId, final Integer topicRevision, final String fingerprint) {
+            this.uniqueLinkId = uniqueLinkId;
+            this.topicId = topicId;
+            this.topicRevision = topicRevision;
+            this.fingerprint = fingerprint;
+        }
+
+        public String getUniqueLinkId() {
+            return uniqueLinkId;
+        }
+
+        public Integer getTopicId() {
+            return topicId;
+        }
+
+        public Integer getTopicRevision() {
+            return topicRevision;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public String getOutputPath() {
+            return outputPath;
+        }
+
+        public void setOutputPath(final String outputPath) {
+            this.outputPath = outputPath;
+        }
+
+        public String getOutputHash() {
+            return outputHash;
+        }
+
+        public void setOutputHash(final String outputHash) {
+            this.outputHash = outputHash;
+        }
+
+        public Set<String> getIds() {
+            return ids;
+        }
+
+        public Set<String> getLinkIds() {
+            return linkIds;
+        }
+
+        public Set<String> getMissingInjectionIds() {
+            return missingInjectionIds;
+        }
+
+        public boolean hasErrors() {
+            return hasErrors;
+        }
+
+        public void setHasErrors(final boolean hasErrors) {
+            this.hasErrors = hasErrors;
+        }
+    }
+}
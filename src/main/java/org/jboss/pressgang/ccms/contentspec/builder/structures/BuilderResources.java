@@ -0,0 +1,308 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.structures;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.jboss.pressgang.ccms.contentspec.builder.constants.BuilderConstants;
+import org.jboss.pressgang.ccms.contentspec.builder.exception.BuilderCreationException;
+import org.jboss.pressgang.ccms.contentspec.structures.XMLFormatProperties;
+import org.jboss.pressgang.ccms.provider.BlobConstantProvider;
+import org.jboss.pressgang.ccms.provider.DataProviderFactory;
+import org.jboss.pressgang.ccms.provider.ServerSettingsProvider;
+import org.jboss.pressgang.ccms.provider.StringConstantProvider;
+import org.jboss.pressgang.ccms.utils.common.CollectionUtilities;
+import org.jboss.pressgang.ccms.utils.common.ResourceUtilities;
+import org.jboss.pressgang.ccms.utils.constants.CommonConstants;
+import org.jboss.pressgang.ccms.wrapper.BlobConstantWrapper;
+import org.jboss.pressgang.ccms.wrapper.ServerEntitiesWrapper;
+import org.jboss.pressgang.ccms.wrapper.ServerSettingsWrapper;
+import org.jboss.pressgang.ccms.wrapper.StringConstantWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The server settings, templates and schemas that a builder needs from the server. Loading these requires a number of calls to
+ * the server, so the resources are shared by all builders in the JVM that use the same provider factory, and are reloaded once
+ * they are older than their time to live.
+ * <p/>
+ * The task that loads the shared resources references their provider factory, so the task is held through a soft reference.
+ * Otherwise the weak key for the provider factory could never be cleared, and the resources for discarded provider factories
+ * would never be released.
+ * <p/>
+ * The resources are shared between threads, however the server settings and constant wrappers are mutable. They must be
+ * treated as read only once they have been loaded. The XML formatting properties are also mutable, so each call to
+ * {@link #getXMLFormatProperties()} returns a new copy.
+ */
+public class BuilderResources {
+    private static final Logger log = LoggerFactory.getLogger(BuilderResources.class);
+    private static final Map<DataProviderFactory, SoftReference<Future<BuilderResources>>> SHARED_RESOURCES =
+            new WeakHashMap<DataProviderFactory, SoftReference<Future<BuilderResources>>>();
+
+    private final ServerSettingsWrapper serverSettings;
+    private final BlobConstantWrapper rocbookDtd;
+    private final BlobConstantWrapper docbookRng;
+    private final StringConstantWrapper errorEmptyTopicTemplate;
+    private final StringConstantWrapper errorInvalidInjectionTopicTemplate;
+    private final StringConstantWrapper errorInvalidValidationTopicTemplate;
+    private final XMLFormatProperties xmlFormatProperties;
+    private final String docbook45Entities;
+    private final long loadTime = System.currentTimeMillis();
+
+    /**
+     * Get the resources that are shared by all builders using a provider factory, using the default time to live.
+     *
+     * @param providerFactory The provider factory to load the resources from.
+     * @return The shared resources.
+     * @throws BuilderCreationException Thrown if the resources can't be loaded.
+     */
+    public static BuilderResources getSharedResources(final DataProviderFactory providerFactory) throws BuilderCreationException {
+        return getSharedResources(providerFactory, BuilderConstants.DEFAULT_BUILDER_RESOURCES_TTL);
+    }
+
+    /**
+     * Get the resources that are shared by all builders using a provider factory. If the shared resources are older than the time
+     * to live, then they are reloaded from the server. The resources are loaded outside of the lock on the shared resources, so
+     * that loading the resources for one provider factory doesn't block the builders for another. Builders that need the
+     * resources while they are being loaded wait for that load to finish, instead of loading them again.
+     *
+     * @param providerFactory The provider factory to load the resources from.
+     * @param timeToLive      The time in milliseconds that the resources can be reused for.
+     * @return The shared resources.
+     * @throws BuilderCreationException Thrown if the resources can't be loaded.
+     */
+    public static BuilderResources getSharedResources(final DataProviderFactory providerFactory,
+            final long timeToLive) throws BuilderCreationException {
+        final FutureTask<BuilderResources> newResources = new FutureTask<BuilderResources>(new Callable<BuilderResources>() {
+            @Override
+            public BuilderResources call() throws BuilderCreationException {
+                return load(providerFactory);
+            }
+        });
+
+        Future<BuilderResources> resources;
+        synchronized (SHARED_RESOURCES) {
+            resources = getSharedResourcesFuture(providerFactory);
+            if (resources == null || isExpired(resources, timeToLive)) {
+                resources = newResources;
+                SHARED_RESOURCES.put(providerFactory, new SoftReference<Future<BuilderResources>>(resources));
+            }
+        }
+
+        if (resources == newResources) {
+            newResources.run();
+        }
+
+        try {
+            return resources.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BuilderCreationException("Interrupted while waiting for the builder resources to be loaded");
+        } catch (ExecutionException e) {
+            // Let the next builder try to load the resources again
+            synchronized (SHARED_RESOURCES) {
+                if (getSharedResourcesFuture(providerFactory) == resources) {
+                    SHARED_RESOURCES.remove(providerFactory);
+                }
+            }
+
+            if (e.getCause() instanceof BuilderCreationException) {
+                throw (BuilderCreationException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            } else {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Get the shared resources for a provider factory. The caller must hold the lock on the shared resources.
+     *
+     * @param providerFactory The provider factory to get the resources for.
+     * @return The shared resources, or null if they haven't been loaded or have been released.
+     */
+    private static Future<BuilderResources> getSharedResourcesFuture(final DataProviderFactory providerFactory) {
+        final SoftReference<Future<BuilderResources>> reference = SHARED_RESOURCES.get(providerFactory);
+        return reference == null ? null : reference.get();
+    }
+
+    /**
+     * Checks if some shared resources should be reloaded. Resources that are still being loaded aren't expired, while resources
+     * that failed to load are.
+     *
+     * @param resources  The shared resources.
+     * @param timeToLive The time in milliseconds that the resources can be reused for.
+     * @return True if the resources should be reloaded, otherwise false.
+     */
+    private static boolean isExpired(final Future<BuilderResources> resources, final long timeToLive) {
+        if (!resources.isDone()) return false;
+
+        try {
+            return resources.get().isExpired(timeToLive);
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    /**
+     * Remove the shared resources for a provider factory, so that they will be reloaded by the next builder that uses them. This
+     * should be called when the templates or settings have been changed on the server.
+     *
+     * @param providerFactory The provider factory to remove the resources for.
+     */
+    public static void invalidateSharedResources(final DataProviderFactory providerFactory) {
+        synchronized (SHARED_RESOURCES) {
+            SHARED_RESOURCES.remove(providerFactory);
+        }
+    }
+
+    /**
+     * Load the resources from the server, without using the shared resources.
+     *
+     * @param providerFactory The provider factory to load the resources from.
+     * @return The loaded resources.
+     * @throws BuilderCreationException Thrown if the resources can't be loaded.
+     */
+    public static BuilderResources load(final DataProviderFactory providerFactory) throws BuilderCreationException {
+        final StringConstantProvider stringConstantProvider = providerFactory.getProvider(StringConstantProvider.class);
+        final BlobConstantProvider blobConstantProvider = providerFactory.getProvider(BlobConstantProvider.class);
+
+        final ServerSettingsWrapper serverSettings = providerFactory.getProvider(ServerSettingsProvider.class).getServerSettings();
+        final ServerEntitiesWrapper serverEntities = serverSettings.getEntities();
+        final StringConstantWrapper xmlElementsProperties = stringConstantProvider.getStringConstant(
+                serverEntities.getXmlFormattingStringConstantId());
+
+        return new BuilderResources(serverSettings, blobConstantProvider.getBlobConstant(serverEntities.getRocBook45DTDBlobConstantId()),
+                blobConstantProvider.getBlobConstant(serverEntities.getDocBook50RNGBlobConstantId()),
+                stringConstantProvider.getStringConstant(serverEntities.getEmptyTopicStringConstantId()),
+                stringConstantProvider.getStringConstant(serverEntities.getInvalidInjectionStringConstantId()),
+                stringConstantProvider.getStringConstant(serverEntities.getInvalidTopicStringConstantId()),
+                parseXMLFormatProperties(xmlElementsProperties.getValue()), ResourceUtilities.resourceFileToString("/", "docbook.ent"));
+    }
+
+    /**
+     * Get the XML formatting details. These are used to pretty-print the XML when it is converted into a String.
+     *
+     * @param xmlElementsProperties The XML formatting properties string constant value.
+     * @return The parsed formatting details.
+     * @throws BuilderCreationException Thrown if the properties can't be read.
+     */
+    protected static XMLFormatProperties parseXMLFormatProperties(final String xmlElementsProperties) throws BuilderCreationException {
+        final Properties prop = new Properties();
+        try {
+            prop.load(new StringReader(xmlElementsProperties));
+        } catch (IOException e) {
+            final String message = ResourceBundle.getBundle("org.jboss.pressgang.ccms.contentspec.builder.Messages").getString(
+                    "FAILED_READING_XML_FORMATTING");
+            log.error(message);
+            throw new BuilderCreationException(message);
+        }
+
+        final String verbatimElementsString = prop.getProperty(CommonConstants.VERBATIM_XML_ELEMENTS_PROPERTY_KEY);
+        final String inlineElementsString = prop.getProperty(CommonConstants.INLINE_XML_ELEMENTS_PROPERTY_KEY);
+        final String contentsInlineElementsString = prop.getProperty(CommonConstants.CONTENTS_INLINE_XML_ELEMENTS_PROPERTY_KEY);
+
+        final XMLFormatProperties xmlFormatProperties = new XMLFormatProperties();
+        xmlFormatProperties.setVerbatimElements(CollectionUtilities.toArrayList(verbatimElementsString.split("[\\s]*,[\\s]*")));
+        xmlFormatProperties.setInlineElements(CollectionUtilities.toArrayList(inlineElementsString.split("[\\s]*,[\\s]*")));
+        xmlFormatProperties.setContentsInlineElements(CollectionUtilities.toArrayList(contentsInlineElementsString.split("[\\s]*,[\\s]*")));
+        return xmlFormatProperties;
+    }
+
+    public BuilderResources(final ServerSettingsWrapper serverSettings, final BlobConstantWrapper rocbookDtd,
+            final BlobConstantWrapper docbookRng, final StringConstantWrapper errorEmptyTopicTemplate,
+            final StringConstantWrapper errorInvalidInjectionTopicTemplate, final StringConstantWrapper errorInvalidValidationTopicTemplate,
+            final XMLFormatProperties xmlFormatProperties, final String docbook45Entities) {
+        this.serverSettings = serverSettings;
+        this.rocbookDtd = rocbookDtd;
+        this.docbookRng = docbookRng;
+        this.errorEmptyTopicTemplate = errorEmptyTopicTemplate;
+        this.errorInvalidInjectionTopicTemplate = errorInvalidInjectionTopicTemplate;
+        this.errorInvalidValidationTopicTemplate = errorInvalidValidationTopicTemplate;
+        this.xmlFormatProperties = xmlFormatProperties;
+        this.docbook45Entities = docbook45Entities;
+    }
+
+    /**
+     * Checks if the resources are older than a time to live.
+     *
+     * @param timeToLive The time in milliseconds that the resources can be used for.
+     * @return True if the resources should be reloaded, otherwise false.
+     */
+    public boolean isExpired(final long timeToLive) {
+        return System.currentTimeMillis() - loadTime >= timeToLive;
+    }
+
+    public ServerSettingsWrapper getServerSettings() {
+        return serverSettings;
+    }
+
+    public BlobConstantWrapper getRocbookDtd() {
+        return rocbookDtd;
+    }
+
+    public BlobConstantWrapper getDocbookRng() {
+        return docbookRng;
+    }
+
+    public StringConstantWrapper getErrorEmptyTopicTemplate() {
+        return errorEmptyTopicTemplate;
+    }
+
+    public StringConstantWrapper getErrorInvalidInjectionTopicTemplate() {
+        return errorInvalidInjectionTopicTemplate;
+    }
+
+    public StringConstantWrapper getErrorInvalidValidationTopicTemplate() {
+        return errorInvalidValidationTopicTemplate;
+    }
+
+    public XMLFormatProperties getXMLFormatProperties() {
+        final XMLFormatProperties copy = new XMLFormatProperties();
+        copy.setVerbatimElements(copyElements(xmlFormatProperties.getVerbatimElements()));
+        copy.setInlineElements(copyElements(xmlFormatProperties.getInlineElements()));
+        copy.setContentsInlineElements(copyElements(xmlFormatProperties.getContentsInlineElements()));
+        return copy;
+    }
+
+    private static ArrayList<String> copyElements(final List<String> elements) {
+        return elements == null ? null : new ArrayList<String>(elements);
+    }
+
+    public String getDocbook45Entities() {
+        return docbook45Entities;
+    }
+}
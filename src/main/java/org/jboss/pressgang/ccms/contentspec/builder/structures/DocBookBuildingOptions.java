@@ -55,6 +55,10 @@ public class DocBookBuildingOptions implements Serializable {
     private Boolean calculateChunkDepth = false;
     private Boolean resolveEntities = false;
     private Boolean skipNestedSectionValidation = false;
+    private Integer threadCount = 1;
+    private String topicCacheDirectory = null;
+    private Long topicCacheMaxSize = null;
+    private Boolean createBuildManifest = false;
 
     public DocBookBuildingOptions() {
 
@@ -283,4 +287,36 @@ public class DocBookBuildingOptions implements Serializable {
     public void setSkipNestedSectionValidation(Boolean skipNestedSectionValidation) {
         this.skipNestedSectionValidation = skipNestedSectionValidation;
     }
+
+    public Integer getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(Integer threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public String getTopicCacheDirectory() {
+        return topicCacheDirectory;
+    }
+
+    public void setTopicCacheDirectory(String topicCacheDirectory) {
+        this.topicCacheDirectory = topicCacheDirectory;
+    }
+
+    public Long getTopicCacheMaxSize() {
+        return topicCacheMaxSize;
+    }
+
+    public void setTopicCacheMaxSize(Long topicCacheMaxSize) {
+        this.topicCacheMaxSize = topicCacheMaxSize;
+    }
+
+    public Boolean getCreateBuildManifest() {
+        return createBuildManifest;
+    }
+
+    public void setCreateBuildManifest(Boolean createBuildManifest) {
+        this.createBuildManifest = createBuildManifest;
+    }
 }
@@ -0,0 +1,102 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.structures;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
+
+/**
+ * An index of the id attributes used in the topics of a book, that maps each id to the topics that use it.
+ */
+public class IdAttributeIndex {
+    private final Map<String, SpecTopic> idSpecTopics = new HashMap<String, SpecTopic>();
+    private final Map<String, Set<Integer>> idTopicIds = new HashMap<String, Set<Integer>>();
+
+    public IdAttributeIndex() {
+
+    }
+
+    /**
+     * Creates an index from a mapping of spec topics to the id attributes used in the spec topics XML.
+     *
+     * @param usedIdAttributes The set of ids that have been used in the set of topics in the content spec.
+     */
+    public IdAttributeIndex(final Map<SpecTopic, Set<String>> usedIdAttributes) {
+        for (final Map.Entry<SpecTopic, Set<String>> entry : usedIdAttributes.entrySet()) {
+            for (final String id : entry.getValue()) {
+                add(entry.getKey(), id);
+            }
+        }
+    }
+
+    /**
+     * Add an id attribute that is used by a spec topic.
+     *
+     * @param specTopic The spec topic that uses the id.
+     * @param id        The id attribute value.
+     */
+    public void add(final SpecTopic specTopic, final String id) {
+        if (!idSpecTopics.containsKey(id)) {
+            idSpecTopics.put(id, specTopic);
+            idTopicIds.put(id, new HashSet<Integer>());
+        }
+        idTopicIds.get(id).add(specTopic.getDBId());
+    }
+
+    /**
+     * Checks if an id attribute is used by any topic, other than the topic specified.
+     *
+     * @param id        The id attribute value.
+     * @param topicDBId The database id of the topic to ignore.
+     * @return True if the id is used by another topic, otherwise false.
+     */
+    public boolean isUsedByOtherTopic(final String id, final Integer topicDBId) {
+        final Set<Integer> topicIds = idTopicIds.get(id);
+        if (topicIds == null) {
+            return false;
+        } else {
+            return topicIds.size() > 1 || !topicIds.contains(topicDBId);
+        }
+    }
+
+    /**
+     * Get the spec topic that uses an id attribute. If multiple spec topics use the id, then the first one added is returned.
+     *
+     * @param id The id attribute value.
+     * @return The spec topic that uses the id, or null if no topic uses the id.
+     */
+    public SpecTopic getSpecTopic(final String id) {
+        return idSpecTopics.get(id);
+    }
+
+    /**
+     * Get all of the id attributes in the index.
+     *
+     * @return The set of id attributes.
+     */
+    public Set<String> getIds() {
+        return Collections.unmodifiableSet(idSpecTopics.keySet());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.structures;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An OutputSink that holds all the output files in memory, mapped by their path.
+ */
+public class MapOutputSink implements OutputSink {
+    private final HashMap<String, byte[]> files;
+    private final List<String> finalPaths = new ArrayList<String>();
+    private final Set<String> finalFiles = new HashSet<String>();
+
+    public MapOutputSink() {
+        this(new HashMap<String, byte[]>());
+    }
+
+    /**
+     * @param files The map to store the output files in.
+     */
+    public MapOutputSink(final HashMap<String, byte[]> files) {
+        this.files = files;
+    }
+
+    @Override
+    public synchronized void addFile(final String path, final byte[] data) {
+        // Final files can't be replaced once they have been streamed by other sinks, so ignore them here as well
+        if (isFinal(path) && !finalFiles.add(path)) return;
+
+        files.put(path, data);
+    }
+
+    @Override
+    public synchronized byte[] getFile(final String path) {
+        return files.get(path);
+    }
+
+    @Override
+    public void finish() {
+    }
+
+    @Override
+    public synchronized void addFinalPath(final String path) {
+        if (!finalPaths.contains(path)) {
+            finalPaths.add(path);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    public HashMap<String, byte[]> getFiles() {
+        return files;
+    }
+
+    private boolean isFinal(final String path) {
+        for (final String finalPath : finalPaths) {
+            if (path.startsWith(finalPath)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.structures;
+
+import org.jboss.pressgang.ccms.contentspec.builder.exception.BuildProcessingException;
+
+/**
+ * A destination for the files that are produced when building a book.
+ */
+public interface OutputSink {
+    /**
+     * Add a file to the output. If a file already exists at the path, then it will be replaced, unless the path is under a final
+     * path and the file was added after the path was marked as final. In that case the file can't be replaced, so the new file
+     * is ignored.
+     *
+     * @param path The path of the file in the output.
+     * @param data The content of the file.
+     * @throws BuildProcessingException Thrown if the file could not be written to the output.
+     */
+    void addFile(String path, byte[] data) throws BuildProcessingException;
+
+    /**
+     * Get a file that has been added to the output.
+     *
+     * @param path The path of the file in the output.
+     * @return The content of the file, or null if the file doesn't exist or is no longer held by the sink.
+     */
+    byte[] getFile(String path);
+
+    /**
+     * Finish writing any files that are still held by the sink. No more files can be added once the sink has finished.
+     *
+     * @throws BuildProcessingException Thrown if the files could not be written to the output.
+     */
+    void finish() throws BuildProcessingException;
+
+    /**
+     * Mark the files under a path as final, so that they won't be replaced or read back later in the build. Sinks that don't
+     * hold their files in memory can then write them straight away, instead of waiting until the sink is finished. Files that
+     * were added before the path was marked as final can still be replaced once.
+     *
+     * @param path The path of the folder in the output.
+     */
+    void addFinalPath(String path);
+
+    /**
+     * Release any resources held by the sink. If the sink hasn't been finished, then any files that are still held will be
+     * discarded.
+     */
+    void close();
+}
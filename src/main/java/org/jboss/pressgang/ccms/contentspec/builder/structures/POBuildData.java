@@ -20,18 +20,35 @@
 package org.jboss.pressgang.ccms.contentspec.builder.structures;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.LocaleUtils;
 import org.jboss.pressgang.ccms.contentspec.ContentSpec;
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
 import org.jboss.pressgang.ccms.contentspec.builder.UTF8ResourceBundleControl;
 import org.jboss.pressgang.ccms.provider.DataProviderFactory;
+import org.jboss.pressgang.ccms.provider.ServerSettingsProvider;
+import org.jboss.pressgang.ccms.wrapper.ServerSettingsWrapper;
 import org.jboss.pressgang.ccms.zanata.ZanataDetails;
 
 public class POBuildData extends BuildData {
     private final Map<String, Map<String, TranslationDetails>> translationMap = new HashMap<String, Map<String, TranslationDetails>>();
+    /**
+     * The strings that have already been cleaned for publican, so that repeated strings don't need to be cleaned again.
+     */
+    private final Map<String, String> cleanedStrings = new ConcurrentHashMap<String, String>();
+    /**
+     * The strings that have already been formatted for publican, so that repeated strings don't need to be formatted again.
+     */
+    private final Map<String, String> formattedStrings = new ConcurrentHashMap<String, String>();
+    /**
+     * The spec topics that need PO/POT files to be created, mapped by the files path and name.
+     */
+    private final Map<String, SpecTopic> queuedPOTopics = new LinkedHashMap<String, SpecTopic>();
     private String translatedRevisionHistory;
     private String translatedAuthorGroup;
     private final String poLocale;
@@ -41,7 +58,13 @@ public class POBuildData extends BuildData {
 
     public POBuildData(String requester, ContentSpec contentSpec, DocBookBuildingOptions buildOptions, ZanataDetails zanataDetails,
             DataProviderFactory providerFactory, boolean translationBuild) {
-        super(requester, contentSpec, buildOptions, zanataDetails, providerFactory, translationBuild);
+        this(requester, contentSpec, buildOptions, zanataDetails, providerFactory.getProvider(ServerSettingsProvider.class)
+                .getServerSettings(), translationBuild);
+    }
+
+    public POBuildData(String requester, ContentSpec contentSpec, DocBookBuildingOptions buildOptions, ZanataDetails zanataDetails,
+            ServerSettingsWrapper serverSettings, boolean translationBuild) {
+        super(requester, contentSpec, buildOptions, zanataDetails, serverSettings, translationBuild);
 
         // Setup the locales
         poLocale = getBuildOptions().getLocale() == null ? getBuildLocale() : getBuildOptions().getLocale();
@@ -72,6 +95,18 @@ public class POBuildData extends BuildData {
         return translationMap;
     }
 
+    public Map<String, String> getCleanedStrings() {
+        return cleanedStrings;
+    }
+
+    public Map<String, String> getFormattedStrings() {
+        return formattedStrings;
+    }
+
+    public Map<String, SpecTopic> getQueuedPOTopics() {
+        return queuedPOTopics;
+    }
+
     public String getTranslatedRevisionHistory() {
         return translatedRevisionHistory;
     }
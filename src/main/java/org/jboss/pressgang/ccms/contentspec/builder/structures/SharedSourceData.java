@@ -0,0 +1,191 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.structures;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.jboss.pressgang.ccms.wrapper.ImageWrapper;
+import org.jboss.pressgang.ccms.wrapper.TopicWrapper;
+
+/**
+ * Source data that can be shared between multiple builds of the same content specification, such as when a content spec is
+ * built for multiple locales. The data is safe to be used by multiple threads, and each topic, image and image data is only
+ * fetched by one build. Any other builds that need the same data while it is being fetched will wait for that fetch to finish.
+ */
+public class SharedSourceData {
+    private final ConcurrentMap<String, SharedValue<TopicWrapper>> topics = new ConcurrentHashMap<String, SharedValue<TopicWrapper>>();
+    private final ConcurrentMap<Integer, FutureTask<ImageWrapper>> images = new ConcurrentHashMap<Integer, FutureTask<ImageWrapper>>();
+    private final ConcurrentMap<String, FutureTask<byte[]>> imageData = new ConcurrentHashMap<String, FutureTask<byte[]>>();
+
+    public SharedSourceData() {
+
+    }
+
+    /**
+     * Claims the topics that haven't already been fetched or claimed by another build. The caller must then fetch the claimed
+     * topics and pass each one to {@link #addTopic(Integer, Integer, TopicWrapper)}, even if the fetch fails, so that any other
+     * builds waiting on the topics can continue.
+     *
+     * @param revision The revision of the topics, or null for the latest revision.
+     * @param topicIds The ids of the topics that the caller needs.
+     * @return The ids of the topics that the caller should fetch.
+     */
+    public Set<Integer> claimTopics(final Integer revision, final Collection<Integer> topicIds) {
+        final Set<Integer> claimedTopicIds = new LinkedHashSet<Integer>();
+        for (final Integer topicId : topicIds) {
+            if (topics.putIfAbsent(getTopicKey(topicId, revision), new SharedValue<TopicWrapper>()) == null) {
+                claimedTopicIds.add(topicId);
+            }
+        }
+        return claimedTopicIds;
+    }
+
+    /**
+     * Get a topic that has been fetched, waiting for it if another build is still fetching it.
+     *
+     * @param topicId  The id of the topic.
+     * @param revision The revision of the topic, or null for the latest revision.
+     * @return The topic, or null if the topic hasn't been claimed or couldn't be fetched.
+     * @throws InterruptedException Thrown if the thread is interrupted while waiting for the topic.
+     */
+    public TopicWrapper getTopic(final Integer topicId, final Integer revision) throws InterruptedException {
+        final SharedValue<TopicWrapper> topic = topics.get(getTopicKey(topicId, revision));
+        if (topic == null) {
+            return null;
+        }
+
+        try {
+            return topic.get();
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Add a topic that has been fetched, after it was claimed using {@link #claimTopics(Integer, Collection)}.
+     *
+     * @param topicId  The id of the topic.
+     * @param revision The revision of the topic, or null for the latest revision.
+     * @param topic    The topic that was fetched, or null if it couldn't be fetched.
+     */
+    public void addTopic(final Integer topicId, final Integer revision, final TopicWrapper topic) {
+        final String key = getTopicKey(topicId, revision);
+        final SharedValue<TopicWrapper> sharedTopic = topics.get(key);
+        if (sharedTopic == null) {
+            if (topic != null) {
+                final SharedValue<TopicWrapper> newSharedTopic = new SharedValue<TopicWrapper>();
+                newSharedTopic.set(topic);
+                topics.putIfAbsent(key, newSharedTopic);
+            }
+        } else if (topic == null) {
+            // Let the next build that needs the topic try to fetch it again
+            topics.remove(key, sharedTopic);
+            sharedTopic.set(null);
+        } else {
+            sharedTopic.set(topic);
+        }
+    }
+
+    /**
+     * Get an image, fetching it with the loader if no other build has fetched it or is fetching it.
+     *
+     * @param imageId The id of the image.
+     * @param loader  Fetches the image.
+     * @return The image.
+     */
+    public ImageWrapper getImage(final Integer imageId, final Callable<ImageWrapper> loader) {
+        return getOrLoad(images, imageId, loader);
+    }
+
+    /**
+     * Get the data for a language image, downloading it with the loader if no other build has downloaded it or is downloading it.
+     *
+     * @param imageId The id of the image.
+     * @param locale  The locale of the language image.
+     * @param loader  Downloads the image data.
+     * @return The image data.
+     */
+    public byte[] getImageData(final Integer imageId, final String locale, final Callable<byte[]> loader) {
+        return getOrLoad(imageData, imageId + "-" + locale, loader);
+    }
+
+    private static <K, V> V getOrLoad(final ConcurrentMap<K, FutureTask<V>> values, final K key, final Callable<V> loader) {
+        FutureTask<V> value = values.get(key);
+        if (value == null) {
+            final FutureTask<V> newValue = new FutureTask<V>(loader);
+            value = values.putIfAbsent(key, newValue);
+            if (value == null) {
+                value = newValue;
+                newValue.run();
+            }
+        }
+
+        try {
+            final V retValue = value.get();
+            if (retValue == null) {
+                values.remove(key, value);
+            }
+            return retValue;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            // Let the next build that needs the value try to load it again
+            values.remove(key, value);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            } else {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    private String getTopicKey(final Integer topicId, final Integer revision) {
+        return topicId + "-" + (revision == null ? "latest" : revision);
+    }
+
+    /**
+     * A value that is set by the build that claimed it, which other builds can wait on.
+     */
+    private static class SharedValue<T> extends FutureTask<T> {
+        public SharedValue() {
+            super(new Callable<T>() {
+                @Override
+                public T call() {
+                    throw new IllegalStateException("Shared values are set by the build that claimed them");
+                }
+            });
+        }
+
+        @Override
+        public void set(final T value) {
+            super.set(value);
+        }
+    }
+}
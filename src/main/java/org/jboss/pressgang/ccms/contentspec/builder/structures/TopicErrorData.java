@@ -19,10 +19,10 @@
 
 package org.jboss.pressgang.ccms.contentspec.builder.structures;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -33,8 +33,13 @@ import org.jboss.pressgang.ccms.wrapper.base.BaseTopicWrapper;
  */
 public class TopicErrorData {
     private BaseTopicWrapper<?> topic;
-    private Map<TopicErrorDatabase.ErrorLevel, Set<String>> errors = new HashMap<TopicErrorDatabase.ErrorLevel, Set<String>>();
-    private List<TopicErrorDatabase.ErrorType> errorTypes = new ArrayList<TopicErrorDatabase.ErrorType>();
+    private Map<TopicErrorDatabase.ErrorLevel, Set<String>> errors = new EnumMap<TopicErrorDatabase.ErrorLevel, Set<String>>(
+            TopicErrorDatabase.ErrorLevel.class);
+    private final Set<TopicErrorDatabase.ErrorType> errorTypes = EnumSet.noneOf(TopicErrorDatabase.ErrorType.class);
+    /**
+     * The database that this data has been added to, so that it can index any error types that are added.
+     */
+    private TopicErrorDatabase errorDatabase;
 
     public BaseTopicWrapper<?> getTopic() {
         return topic;
@@ -57,10 +62,28 @@ public class TopicErrorData {
         errors.get(level).add(item);
 
         if (errorType != null) {
-            if (!errorTypes.contains(errorType)) errorTypes.add(errorType);
+            addErrorType(errorType);
+        }
+    }
+
+    public void addErrorType(final TopicErrorDatabase.ErrorType errorType) {
+        if (errorTypes.add(errorType) && errorDatabase != null) {
+            errorDatabase.indexErrorType(this, errorType);
         }
     }
 
+    public Set<TopicErrorDatabase.ErrorType> getErrorTypes() {
+        return Collections.unmodifiableSet(errorTypes);
+    }
+
+    TopicErrorDatabase getErrorDatabase() {
+        return errorDatabase;
+    }
+
+    void setErrorDatabase(final TopicErrorDatabase errorDatabase) {
+        this.errorDatabase = errorDatabase;
+    }
+
     public boolean hasItemsOfType(final TopicErrorDatabase.ErrorLevel level) {
         return errors.containsKey(level);
     }
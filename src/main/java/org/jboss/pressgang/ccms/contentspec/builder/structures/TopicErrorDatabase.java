@@ -21,16 +21,23 @@ package org.jboss.pressgang.ccms.contentspec.builder.structures;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jboss.pressgang.ccms.utils.common.CollectionUtilities;
 import org.jboss.pressgang.ccms.wrapper.base.BaseTopicWrapper;
 
 /**
  * Provides a central location for storing and adding messages that are
- * generated while compiling to docbook.
+ * generated while compiling to docbook. The database is safe to be used
+ * by multiple threads, and topics are indexed by their id and error types
+ * so that the errors for a topic can be looked up without scanning every
+ * topic in the database.
  */
 public class TopicErrorDatabase {
     public static enum ErrorLevel {ERROR, WARNING}
@@ -46,17 +53,45 @@ public class TopicErrorDatabase {
     public static final List<ErrorType> FATAL_ERROR_TYPES = Arrays.asList(ErrorType.NO_CONTENT, ErrorType.INVALID_INJECTION,
             ErrorType.INVALID_CONTENT);
 
-    private Map<String, List<TopicErrorData>> errors = new HashMap<String, List<TopicErrorData>>();
+    private final Map<String, List<TopicErrorData>> errors = new HashMap<String, List<TopicErrorData>>();
+    /**
+     * The error data for each topic id. This can be read without holding the database lock.
+     */
+    private final Map<Integer, TopicErrorData> topicErrors = new ConcurrentHashMap<Integer, TopicErrorData>();
+    /**
+     * The position of each error data in its locale list, so that the error type index can be kept in the same order.
+     */
+    private final Map<TopicErrorData, Integer> positions = new HashMap<TopicErrorData, Integer>();
+    private final Map<String, Map<ErrorType, TreeMap<Integer, TopicErrorData>>> errorTypeIndex = new HashMap<String, Map<ErrorType,
+            TreeMap<Integer, TopicErrorData>>>();
 
-    public int getErrorCount(final String locale) {
+    public synchronized int getErrorCount(final String locale) {
         return errors.containsKey(locale) ? errors.get(locale).size() : 0;
     }
 
-    public boolean hasItems() {
+    /**
+     * Gets the number of errors or warnings for a locale. The items are counted while holding the lock on the database, so it
+     * is safe to call while a build is still adding errors.
+     *
+     * @param locale     The locale to count the items for.
+     * @param errorLevel The level of item to count.
+     * @return The number of items of the level for the locale.
+     */
+    public synchronized int getItemCount(final String locale, final ErrorLevel errorLevel) {
+        int count = 0;
+        if (errors.containsKey(locale)) {
+            for (final TopicErrorData errorData : errors.get(locale)) {
+                count += errorData.getItemsOfType(errorLevel).size();
+            }
+        }
+        return count;
+    }
+
+    public synchronized boolean hasItems() {
         return errors.size() != 0;
     }
 
-    public boolean hasItems(final String locale) {
+    public synchronized boolean hasItems(final String locale) {
         return errors.containsKey(locale) ? errors.get(locale).size() != 0 : false;
     }
 
@@ -90,61 +125,145 @@ public class TopicErrorDatabase {
         addItem(topic, error, ErrorLevel.WARNING, errorType);
     }
 
-    private void addItem(final BaseTopicWrapper<?> topic, final String item, final ErrorLevel errorLevel, final ErrorType errorType) {
+    private synchronized void addItem(final BaseTopicWrapper<?> topic, final String item, final ErrorLevel errorLevel,
+            final ErrorType errorType) {
         final TopicErrorData topicErrorData = addOrGetTopicErrorData(topic);        /* don't add duplicates */
         if (!(topicErrorData.getErrors().containsKey(errorLevel) && topicErrorData.getErrors().get(errorLevel).contains(item)))
             topicErrorData.addError(item, errorLevel, errorType);
     }
 
     public boolean hasErrorData(final BaseTopicWrapper<?> topic) {
-        for (final String locale : errors.keySet())
-            for (final TopicErrorData topicErrorData : errors.get(locale)) {
-                if (topicErrorData.getTopic().getTopicId().equals(topic.getTopicId())) return true;
-            }
-        return false;
+        return topic.getTopicId() != null && topicErrors.containsKey(topic.getTopicId());
     }
 
     public TopicErrorData getErrorData(final BaseTopicWrapper<?> topic) {
-        for (final String locale : errors.keySet())
-            for (final TopicErrorData topicErrorData : errors.get(locale)) {
-                if (topicErrorData.getTopic().getTopicId().equals(topic.getTopicId())) return topicErrorData;
-            }
-        return null;
+        return topic.getTopicId() == null ? null : topicErrors.get(topic.getTopicId());
     }
 
-    private TopicErrorData addOrGetTopicErrorData(final BaseTopicWrapper<?> topic) {
+    private synchronized TopicErrorData addOrGetTopicErrorData(final BaseTopicWrapper<?> topic) {
         TopicErrorData topicErrorData = getErrorData(topic);
         if (topicErrorData == null) {
             topicErrorData = new TopicErrorData();
             topicErrorData.setTopic(topic);
-            if (!errors.containsKey(topic.getLocale().getValue())) {
-                errors.put(topic.getLocale().getValue(), new ArrayList<TopicErrorData>());
+            final String locale = topic.getLocale().getValue();
+            if (!errors.containsKey(locale)) {
+                errors.put(locale, new ArrayList<TopicErrorData>());
             }
-            errors.get(topic.getLocale().getValue()).add(topicErrorData);
+            errors.get(locale).add(topicErrorData);
+            index(locale, topicErrorData, errors.get(locale).size() - 1);
         }
         return topicErrorData;
     }
 
-    public List<String> getLocales() {
+    /**
+     * Adds some error data to the topic id and error type indexes.
+     *
+     * @param locale         The locale the error data was added to.
+     * @param topicErrorData The error data to be indexed.
+     * @param position       The position of the error data in the locales list.
+     */
+    private void index(final String locale, final TopicErrorData topicErrorData, final int position) {
+        final Integer topicId = topicErrorData.getTopic().getTopicId();
+        if (topicId != null && !topicErrors.containsKey(topicId)) {
+            topicErrors.put(topicId, topicErrorData);
+        }
+        positions.put(topicErrorData, position);
+        topicErrorData.setErrorDatabase(this);
+
+        for (final ErrorType errorType : topicErrorData.getErrorTypes()) {
+            getErrorTypeIndex(locale, errorType).put(position, topicErrorData);
+        }
+    }
+
+    /**
+     * Adds a topics error data to the index for an error type. This is called by the error data when a new error type is added.
+     *
+     * @param topicErrorData The error data that has had an error type added.
+     * @param errorType      The error type that was added.
+     */
+    synchronized void indexErrorType(final TopicErrorData topicErrorData, final ErrorType errorType) {
+        final Integer position = positions.get(topicErrorData);
+        if (position != null) {
+            getErrorTypeIndex(topicErrorData.getTopic().getLocale().getValue(), errorType).put(position, topicErrorData);
+        }
+    }
+
+    private TreeMap<Integer, TopicErrorData> getErrorTypeIndex(final String locale, final ErrorType errorType) {
+        if (!errorTypeIndex.containsKey(locale)) {
+            errorTypeIndex.put(locale, new EnumMap<ErrorType, TreeMap<Integer, TopicErrorData>>(ErrorType.class));
+        }
+
+        final Map<ErrorType, TreeMap<Integer, TopicErrorData>> localeIndex = errorTypeIndex.get(locale);
+        if (!localeIndex.containsKey(errorType)) {
+            localeIndex.put(errorType, new TreeMap<Integer, TopicErrorData>());
+        }
+        return localeIndex.get(errorType);
+    }
+
+    public synchronized List<String> getLocales() {
         return CollectionUtilities.toArrayList(errors.keySet());
     }
 
-    public List<TopicErrorData> getErrors(final String locale) {
+    public synchronized List<TopicErrorData> getErrors(final String locale) {
         return errors.containsKey(locale) ? errors.get(locale) : null;
     }
 
-    public List<TopicErrorData> getErrorsOfType(final String locale, final ErrorType errorType) {
-        final List<TopicErrorData> localeErrors = errors.containsKey(locale) ? errors.get(locale) : new ArrayList<TopicErrorData>();
-
-        final List<TopicErrorData> typeErrorDatas = new ArrayList<TopicErrorData>();
-        for (final TopicErrorData errorData : localeErrors) {
-            if (errorData.hasErrorType(errorType)) typeErrorDatas.add(errorData);
+    public synchronized List<TopicErrorData> getErrorsOfType(final String locale, final ErrorType errorType) {
+        final Map<ErrorType, TreeMap<Integer, TopicErrorData>> localeIndex = errorTypeIndex.get(locale);
+        if (localeIndex == null || !localeIndex.containsKey(errorType)) {
+            return new ArrayList<TopicErrorData>();
+        } else {
+            return new ArrayList<TopicErrorData>(localeIndex.get(errorType).values());
         }
+    }
 
-        return typeErrorDatas;
+    /**
+     * Adds all the errors and warnings from another error database to this database. The topics from the other database are
+     * added in the order they were added to it, so that errors collected by separate threads can be merged in a deterministic
+     * order.
+     *
+     * @param errorDatabase The error database to merge into this database.
+     */
+    public synchronized void addAll(final TopicErrorDatabase errorDatabase) {
+        if (errorDatabase == null || errorDatabase == this) return;
+
+        for (final String locale : errorDatabase.getLocales()) {
+            for (final TopicErrorData errorData : errorDatabase.getErrors(locale)) {
+                final TopicErrorData topicErrorData = addOrGetTopicErrorData(errorData.getTopic());
+                for (final Map.Entry<ErrorLevel, Set<String>> entry : errorData.getErrors().entrySet()) {
+                    for (final String item : entry.getValue()) {
+                        topicErrorData.addError(item, entry.getKey(), null);
+                    }
+                }
+                for (final ErrorType errorType : errorData.getErrorTypes()) {
+                    topicErrorData.addErrorType(errorType);
+                }
+            }
+        }
     }
 
-    public void setErrors(final String locale, final List<TopicErrorData> errors) {
+    public synchronized void setErrors(final String locale, final List<TopicErrorData> errors) {
+        // Remove the existing errors for the locale from the indexes
+        final List<TopicErrorData> existingErrors = this.errors.get(locale);
+        if (existingErrors != null) {
+            for (final TopicErrorData errorData : existingErrors) {
+                final Integer topicId = errorData.getTopic().getTopicId();
+                if (topicId != null && topicErrors.get(topicId) == errorData) {
+                    topicErrors.remove(topicId);
+                }
+                positions.remove(errorData);
+                if (errorData.getErrorDatabase() == this) {
+                    errorData.setErrorDatabase(null);
+                }
+            }
+        }
+        errorTypeIndex.remove(locale);
+
         this.errors.put(locale, errors);
+        if (errors != null) {
+            for (int i = 0; i < errors.size(); i++) {
+                index(locale, errors.get(i), i);
+            }
+        }
     }
 }
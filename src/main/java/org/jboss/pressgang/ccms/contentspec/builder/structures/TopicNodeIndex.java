@@ -0,0 +1,127 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.structures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.pressgang.ccms.contentspec.builder.utils.DocBookBuildUtilities;
+import org.jboss.pressgang.ccms.contentspec.builder.utils.NodeVisitor;
+import org.jboss.pressgang.ccms.utils.structures.DocBookVersion;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * An index of the parts of a topic's XML that are used by the build passes, that is gathered in a single traversal of the DOM.
+ * The index holds the id attributes, the ids referenced by "xref" and "link" elements and the image elements, so that later
+ * passes can query the index instead of walking the tree again.
+ * <p/>
+ * The index isn't updated when the DOM is changed, so it must be discarded once any nodes or attributes that it holds have been
+ * modified.
+ */
+public class TopicNodeIndex implements NodeVisitor {
+    private final String idAttributeName;
+    private final Set<String> ids = new LinkedHashSet<String>();
+    private final Set<String> linkIds = new LinkedHashSet<String>();
+    private final List<Element> linkNodes = new ArrayList<Element>();
+    private final List<Node> imageNodes = new ArrayList<Node>();
+
+    /**
+     * Creates an index for a DOM node and all of its children.
+     *
+     * @param docBookVersion The DocBook version of the XML, that determines the id attribute name.
+     * @param node           The node to index.
+     * @return The index for the node.
+     */
+    public static TopicNodeIndex create(final DocBookVersion docBookVersion, final Node node) {
+        final TopicNodeIndex index = new TopicNodeIndex(docBookVersion);
+        DocBookBuildUtilities.visitNodes(node, index);
+        return index;
+    }
+
+    public TopicNodeIndex(final DocBookVersion docBookVersion) {
+        idAttributeName = docBookVersion == DocBookVersion.DOCBOOK_50 ? "xml:id" : "id";
+    }
+
+    @Override
+    public void visit(final Node node) {
+        if (node.getNodeType() != Node.ELEMENT_NODE) return;
+
+        final NamedNodeMap attributes = node.getAttributes();
+        if (attributes == null) return;
+
+        final Node idAttribute = attributes.getNamedItem(idAttributeName);
+        if (idAttribute != null) {
+            ids.add(idAttribute.getNodeValue());
+        }
+
+        final String nodeName = node.getNodeName();
+        if (nodeName.equals("xref") || nodeName.equals("link")) {
+            linkNodes.add((Element) node);
+            final Node linkendAttribute = attributes.getNamedItem("linkend");
+            if (linkendAttribute != null) {
+                linkIds.add(linkendAttribute.getNodeValue());
+            }
+        } else if (nodeName.equals("imagedata") || nodeName.equals("inlinegraphic")) {
+            imageNodes.add(node);
+        }
+    }
+
+    /**
+     * Get the id attribute values used in the XML.
+     *
+     * @return The set of ids, in document order.
+     */
+    public Set<String> getIds() {
+        return Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Get the ids referenced by the "linkend" attribute of "xref" and "link" elements.
+     *
+     * @return The set of linked ids, in document order.
+     */
+    public Set<String> getLinkIds() {
+        return Collections.unmodifiableSet(linkIds);
+    }
+
+    /**
+     * Get the "xref" and "link" elements in the XML.
+     *
+     * @return The link elements, in document order.
+     */
+    public List<Element> getLinkNodes() {
+        return Collections.unmodifiableList(linkNodes);
+    }
+
+    /**
+     * Get the "imagedata" and "inlinegraphic" elements in the XML.
+     *
+     * @return The image elements, in document order.
+     */
+    public List<Node> getImageNodes() {
+        return Collections.unmodifiableList(imageNodes);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.structures;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.pressgang.ccms.contentspec.builder.exception.BuildProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An OutputSink that writes the output files to a ZIP archive as they are produced, instead of holding them in memory.
+ * <p/>
+ * Files under the paths that have been marked as final (ie topics, images and additional files) are written straight away, since
+ * they make up the bulk of a book. All other files (ie Book_Info.xml, Revision_History.xml, publican.cfg, etc...) are small, may
+ * be replaced or read back later in the build, so they are held until {@link #finish()} is called. As with the
+ * {@link MapOutputSink}, a file under a final path is never replaced once it has been added after the path was marked as final.
+ */
+public class ZipOutputSink implements OutputSink {
+    private static final Logger log = LoggerFactory.getLogger(ZipOutputSink.class);
+
+    private final ZipOutputStream zipOutputStream;
+    private final List<String> finalPaths = new ArrayList<String>();
+    private final Set<String> writtenFiles = new HashSet<String>();
+    private final Map<String, byte[]> heldFiles = new LinkedHashMap<String, byte[]>();
+    private boolean finished = false;
+    private boolean closed = false;
+
+    /**
+     * @param outputStream The stream to write the ZIP archive to. The stream will not be closed once the sink has finished.
+     */
+    public ZipOutputSink(final OutputStream outputStream) {
+        // Closing the ZIP stream releases its deflater, but the stream being written to belongs to the caller so only flush it
+        zipOutputStream = new ZipOutputStream(new FilterOutputStream(outputStream) {
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+    }
+
+    @Override
+    public synchronized void addFile(final String path, final byte[] data) throws BuildProcessingException {
+        if (finished || closed) {
+            throw new BuildProcessingException("Unable to add " + path + " as the ZIP archive has already been finished.");
+        }
+
+        if (isFinal(path)) {
+            if (writtenFiles.contains(path)) {
+                // The entry can't be replaced once it has been written, so ignore the new file
+                log.debug("Ignoring " + path + " as it has already been written to the ZIP archive");
+            } else {
+                // Replace any file that was held before the path was marked as final, so it isn't written twice
+                heldFiles.remove(path);
+                writeEntry(path, data);
+            }
+        } else {
+            heldFiles.put(path, data);
+        }
+    }
+
+    @Override
+    public synchronized byte[] getFile(final String path) {
+        return heldFiles.get(path);
+    }
+
+    @Override
+    public synchronized void addFinalPath(final String path) {
+        if (!finalPaths.contains(path)) {
+            finalPaths.add(path);
+        }
+    }
+
+    @Override
+    public synchronized void finish() throws BuildProcessingException {
+        if (finished) return;
+        if (closed) {
+            throw new BuildProcessingException("Unable to finish the ZIP archive as the sink has been closed.");
+        }
+
+        for (final Map.Entry<String, byte[]> entry : heldFiles.entrySet()) {
+            writeEntry(entry.getKey(), entry.getValue());
+        }
+
+        try {
+            zipOutputStream.finish();
+            zipOutputStream.flush();
+        } catch (IOException e) {
+            throw new BuildProcessingException("Failed to finish the ZIP archive.", e);
+        }
+
+        heldFiles.clear();
+        finished = true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+
+        heldFiles.clear();
+        closed = true;
+        try {
+            zipOutputStream.close();
+        } catch (IOException e) {
+            log.debug("Failed to close the ZIP archive", e);
+        }
+    }
+
+    /**
+     * Checks if a file should be written straight away, or held until the sink is finished.
+     *
+     * @param path The path of the file in the output.
+     * @return True if the file is under a final path and should be written straight away, otherwise false.
+     */
+    protected boolean isFinal(final String path) {
+        for (final String finalPath : finalPaths) {
+            if (path.startsWith(finalPath)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void writeEntry(final String path, final byte[] data) throws BuildProcessingException {
+        try {
+            zipOutputStream.putNextEntry(new ZipEntry(path));
+            zipOutputStream.write(data);
+            zipOutputStream.closeEntry();
+            writtenFiles.add(path);
+        } catch (IOException e) {
+            throw new BuildProcessingException("Failed to write " + path + " to the ZIP archive.", e);
+        }
+    }
+}
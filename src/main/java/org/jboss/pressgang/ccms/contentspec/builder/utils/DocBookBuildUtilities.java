@@ -19,13 +19,14 @@
 
 package org.jboss.pressgang.ccms.contentspec.builder.utils;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import org.jboss.pressgang.ccms.contentspec.ContentSpec;
@@ -38,6 +39,7 @@ import org.jboss.pressgang.ccms.contentspec.builder.constants.BuilderConstants;
 import org.jboss.pressgang.ccms.contentspec.builder.exception.BuildProcessingException;
 import org.jboss.pressgang.ccms.contentspec.builder.structures.BuildData;
 import org.jboss.pressgang.ccms.contentspec.builder.structures.BuildDatabase;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.IdAttributeIndex;
 import org.jboss.pressgang.ccms.contentspec.enums.TopicType;
 import org.jboss.pressgang.ccms.contentspec.sort.RevisionNodeSort;
 import org.jboss.pressgang.ccms.contentspec.structures.XMLFormatProperties;
@@ -83,6 +85,39 @@ public class DocBookBuildUtilities {
         }
     }
 
+    /**
+     * Creates an index of all the nodes in a content spec, mapped by their unique id, so that nodes can be looked up without
+     * searching the whole content spec each time.
+     *
+     * @param contentSpec The content spec to index.
+     * @return A mapping of unique ids to content spec nodes.
+     */
+    public static Map<String, org.jboss.pressgang.ccms.contentspec.Node> getContentSpecNodeIndex(final ContentSpec contentSpec) {
+        final Map<String, org.jboss.pressgang.ccms.contentspec.Node> nodeIndex = new HashMap<String,
+                org.jboss.pressgang.ccms.contentspec.Node>();
+        for (final org.jboss.pressgang.ccms.contentspec.Node node : contentSpec.getNodes()) {
+            addNodeToIndex(nodeIndex, node);
+        }
+        if (contentSpec.getBaseLevel() != null) {
+            addNodeToIndex(nodeIndex, contentSpec.getBaseLevel());
+        }
+
+        return nodeIndex;
+    }
+
+    private static void addNodeToIndex(final Map<String, org.jboss.pressgang.ccms.contentspec.Node> nodeIndex,
+            final org.jboss.pressgang.ccms.contentspec.Node node) {
+        if (node.getUniqueId() != null && !nodeIndex.containsKey(node.getUniqueId())) {
+            nodeIndex.put(node.getUniqueId(), node);
+        }
+
+        if (node instanceof Level) {
+            for (final org.jboss.pressgang.ccms.contentspec.Node childNode : ((Level) node).getChildNodes()) {
+                addNodeToIndex(nodeIndex, childNode);
+            }
+        }
+    }
+
     /**
      * Cleans a string to escape any characters that will break a {@link java.lang.String.replaceAll()} operation
      *
@@ -108,6 +143,34 @@ public class DocBookBuildUtilities {
      */
     public static void setUniqueIds(final BuildData buildData, final ITopicNode topicNode, final Node node, final Document doc,
             final Map<SpecTopic, Set<String>> usedIdAttributes) {
+        setUniqueIds(buildData, topicNode, node, doc, new IdAttributeIndex(usedIdAttributes));
+    }
+
+    /**
+     * Sets the "id" attributes in the supplied XML node so that they will be
+     * unique within the book. Any attributes in the document that reference
+     * an id that was changed are also updated.
+     *
+     * @param buildData
+     * @param topicNode        The topic the node belongs to.
+     * @param node             The node to process for id attributes.
+     * @param idAttributeIndex The index of id attributes used in the book.
+     */
+    public static void setUniqueIds(final BuildData buildData, final ITopicNode topicNode, final Node node, final Document doc,
+            final IdAttributeIndex idAttributeIndex) {
+        // Fix the id attributes and keep track of the ids that were changed, in the order they were changed
+        final List<String> fixedIds = new ArrayList<String>();
+        final Map<String, List<Integer>> changedIds = new HashMap<String, List<Integer>>();
+        setUniqueIds(buildData, topicNode, node, doc, idAttributeIndex, fixedIds, changedIds);
+
+        // Update any references to the changed ids
+        if (!fixedIds.isEmpty()) {
+            setUniqueIdReferences(doc.getDocumentElement(), fixedIds, changedIds);
+        }
+    }
+
+    private static void setUniqueIds(final BuildData buildData, final ITopicNode topicNode, final Node node, final Document doc,
+            final IdAttributeIndex idAttributeIndex, final List<String> fixedIds, final Map<String, List<Integer>> changedIds) {
         // The root node needs to be handled slightly differently
         boolean isRootNode = doc.getDocumentElement() == node;
 
@@ -130,12 +193,19 @@ public class DocBookBuildUtilities {
                     }
 
                     // The same id may be used across multiple topics, so add the step/line number to make it unique
-                    if (!DocBookBuildUtilities.isUniqueAttributeId(buildData, fixedIdAttributeValue, topicNode, usedIdAttributes)) {
+                    if (!DocBookBuildUtilities.isUniqueAttributeId(buildData, fixedIdAttributeValue, topicNode, idAttributeIndex)) {
                         fixedIdAttributeValue += "-" + topicNode.getStep();
                     }
                 }
 
-                setUniqueIdReferences(doc.getDocumentElement(), idAttributeValue, fixedIdAttributeValue);
+                // Store the change so that any references can be updated later
+                if (!fixedIdAttributeValue.equals(idAttributeValue)) {
+                    if (!changedIds.containsKey(idAttributeValue)) {
+                        changedIds.put(idAttributeValue, new ArrayList<Integer>());
+                    }
+                    changedIds.get(idAttributeValue).add(fixedIds.size());
+                    fixedIds.add(fixedIdAttributeValue);
+                }
 
                 idAttribute.setNodeValue(fixedIdAttributeValue);
             }
@@ -143,7 +213,7 @@ public class DocBookBuildUtilities {
 
         final NodeList elements = node.getChildNodes();
         for (int i = 0; i < elements.getLength(); ++i) {
-            setUniqueIds(buildData, topicNode, elements.item(i), doc, usedIdAttributes);
+            setUniqueIds(buildData, topicNode, elements.item(i), doc, idAttributeIndex, fixedIds, changedIds);
         }
     }
 
@@ -152,11 +222,11 @@ public class DocBookBuildUtilities {
      * locally in the XML. When an ID is updated, and attribute that referenced
      * that ID is also updated.
      *
-     * @param node    The node to check for attributes
-     * @param id      The old ID attribute value
-     * @param fixedId The new ID attribute
+     * @param node       The node to check for attributes
+     * @param fixedIds   The new ID attribute values, in the order they were changed.
+     * @param changedIds A mapping of the old ID attribute values to the position of their new value in fixedIds.
      */
-    private static void setUniqueIdReferences(final Node node, final String id, final String fixedId) {
+    private static void setUniqueIdReferences(final Node node, final List<String> fixedIds, final Map<String, List<Integer>> changedIds) {
         final NamedNodeMap attributes = node.getAttributes();
         if (attributes != null) {
             for (int i = 0; i < attributes.getLength(); ++i) {
@@ -164,8 +234,8 @@ public class DocBookBuildUtilities {
                 // Ignore id attributes, as we only care about references (ie linkend)
                 if (!(attr.getName().equalsIgnoreCase("id") || attr.getName().equalsIgnoreCase("xml:id"))) {
                     final String attributeValue = attr.getValue();
-                    if (attributeValue.equals(id)) {
-                        attributes.item(i).setNodeValue(fixedId);
+                    if (changedIds.containsKey(attributeValue)) {
+                        attributes.item(i).setNodeValue(getFixedIdReference(attributeValue, fixedIds, changedIds));
                     }
                 }
             }
@@ -173,10 +243,41 @@ public class DocBookBuildUtilities {
 
         final NodeList elements = node.getChildNodes();
         for (int i = 0; i < elements.getLength(); ++i) {
-            setUniqueIdReferences(elements.item(i), id, fixedId);
+            setUniqueIdReferences(elements.item(i), fixedIds, changedIds);
         }
     }
 
+    /**
+     * Gets the value a reference to an id should be changed to. The changes are applied in the order the ids were changed, so
+     * that a reference to an id that was changed to a value that was then itself changed will get the final value.
+     *
+     * @param id         The id being referenced.
+     * @param fixedIds   The new ID attribute values, in the order they were changed.
+     * @param changedIds A mapping of the old ID attribute values to the position of their new value in fixedIds.
+     * @return The fixed id value for the reference.
+     */
+    private static String getFixedIdReference(final String id, final List<String> fixedIds, final Map<String, List<Integer>> changedIds) {
+        String fixedId = id;
+        int lastChange = -1;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            final List<Integer> changes = changedIds.get(fixedId);
+            if (changes != null) {
+                for (final Integer change : changes) {
+                    if (change > lastChange) {
+                        fixedId = fixedIds.get(change);
+                        lastChange = change;
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        return fixedId;
+    }
+
     /**
      * Checks to see if a supplied attribute id is unique within this book, based
      * upon the used id attributes that were calculated earlier.
@@ -188,6 +289,21 @@ public class DocBookBuildUtilities {
      */
     public static boolean isUniqueAttributeId(final BuildData buildData, final String id, final ITopicNode topicNode,
             final Map<SpecTopic, Set<String>> usedIdAttributes) {
+        return isUniqueAttributeId(buildData, id, topicNode, new IdAttributeIndex(usedIdAttributes));
+    }
+
+    /**
+     * Checks to see if a supplied attribute id is unique within this book, based
+     * upon the index of used id attributes that was calculated earlier.
+     *
+     * @param buildData
+     * @param id               The Attribute id to be checked
+     * @param topicNode        The id of the topic the attribute id was found in
+     * @param idAttributeIndex The index of id attributes used in the book.
+     * @return True if the id is unique otherwise false.
+     */
+    public static boolean isUniqueAttributeId(final BuildData buildData, final String id, final ITopicNode topicNode,
+            final IdAttributeIndex idAttributeIndex) {
         // Make sure the id doesn't match the spec topic's unique link
         if (topicNode instanceof SpecTopic && id.equals(
                 ((SpecTopic) topicNode).getUniqueLinkId(buildData.isUseFixedUrls()))) {
@@ -195,20 +311,7 @@ public class DocBookBuildUtilities {
         }
 
         // Make sure the id isn't used else where in another topic
-        for (final Entry<SpecTopic, Set<String>> entry : usedIdAttributes.entrySet()) {
-            final SpecTopic topic2 = entry.getKey();
-            final Integer topicId2 = topic2.getDBId();
-            if (topicId2.equals(topicNode.getDBId())) {
-                continue;
-            }
-
-            final Set<String> ids2 = entry.getValue();
-            if (ids2.contains(id)) {
-                return false;
-            }
-        }
-
-        return true;
+        return !idAttributeIndex.isUsedByOtherTopic(id, topicNode.getDBId());
     }
 
     /**
@@ -242,6 +345,37 @@ public class DocBookBuildUtilities {
         }
     }
 
+    /**
+     * Traverse a DOM node and all of its children in document order, passing each node to the visitors. The tree is only walked
+     * once, no matter how many visitors are passed.
+     *
+     * @param node     The DOM XML node to start the traversal from.
+     * @param visitors The visitors to be called for each node.
+     */
+    public static void visitNodes(final Node node, final NodeVisitor... visitors) {
+        // If the node is null then there isn't anything to visit, so just return.
+        if (node == null) {
+            return;
+        }
+
+        Node current = node;
+        while (current != null) {
+            for (final NodeVisitor visitor : visitors) {
+                visitor.visit(current);
+            }
+
+            // Move to the next node in document order, without leaving the starting nodes subtree
+            if (current.getFirstChild() != null) {
+                current = current.getFirstChild();
+            } else {
+                while (current != node && current.getNextSibling() == null) {
+                    current = current.getParentNode();
+                }
+                current = current == node ? null : current.getNextSibling();
+            }
+        }
+    }
+
     /**
      * Build up an error template by replacing key pointers in
      * the template. The pointers that get replaced are:
@@ -0,0 +1,37 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.utils;
+
+import org.w3c.dom.Node;
+
+/**
+ * A visitor that is called for each node when a DOM tree is traversed using
+ * {@link DocBookBuildUtilities#visitNodes(Node, NodeVisitor...)}. Multiple visitors can be passed to the traversal, so that
+ * the information needed by a number of passes can be gathered by walking the tree once.
+ */
+public interface NodeVisitor {
+    /**
+     * Visit a node in the tree. Visitors must not add or remove nodes from the tree while it is being traversed.
+     *
+     * @param node The node being visited.
+     */
+    void visit(Node node);
+}
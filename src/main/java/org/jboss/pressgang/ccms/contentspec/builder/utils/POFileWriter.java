@@ -0,0 +1,223 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.utils;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+
+/**
+ * Writes a PO or POT file in the format that publican expects. Entries are escaped and encoded as they are added, so that no
+ * intermediate strings have to be created for the file content.
+ */
+public class POFileWriter {
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final Writer writer;
+
+    /**
+     * Creates a new PO file, with the base content that is required for all PO and POT files.
+     *
+     * @param creationDate The formatted date the file was created.
+     * @param encoding     The character encoding to write the file in.
+     * @throws UnsupportedEncodingException Thrown if the encoding isn't supported.
+     */
+    public POFileWriter(final String creationDate, final String encoding) throws UnsupportedEncodingException {
+        writer = new OutputStreamWriter(outputStream, encoding);
+        try {
+            writer.write("# \n");
+            writer.write("# AUTHOR <EMAIL@ADDRESS>, YEAR.\n");
+            writer.write("#\n");
+            writer.write("msgid \"\"\n");
+            writer.write("msgstr \"\"\n");
+            writer.write("\"Project-Id-Version: 0\\n\"\n");
+            writer.write("\"POT-Creation-Date: " + creationDate + "\\n\"\n");
+            writer.write("\"PO-Revision-Date: " + creationDate + "\\n\"\n");
+            writer.write("\"Last-Translator: Automatically generated\\n\"\n");
+            writer.write("\"Language-Team: None\\n\"\n");
+            writer.write("\"MIME-Version: 1.0\\n\"\n");
+            writer.write("\"Content-Type: application/x-pressgang-ccms; charset=" + encoding + "\\n\"\n");
+            writer.write("\"Content-Transfer-Encoding: 8bit\\n\"\n");
+        } catch (IOException e) {
+            // Writing to a byte array should never fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Add an entry to a POT file.
+     *
+     * @param tag    The XML element name.
+     * @param source The original source string.
+     */
+    public void addTemplateEntry(final String tag, final String source) {
+        addEntry(tag, source, "", false);
+    }
+
+    /**
+     * Add an entry to a PO file.
+     *
+     * @param tag         The XML element name.
+     * @param source      The original source string.
+     * @param translation The translated string.
+     * @param fuzzy       If the translation is fuzzy.
+     */
+    public void addEntry(final String tag, final String source, final String translation, final boolean fuzzy) {
+        // perform a check to make sure the source isn't an empty string, as this could be the case after removing the comments
+        if (source == null || source.length() == 0) return;
+
+        try {
+            writer.write("\n");
+            if (!isNullOrEmpty(tag)) {
+                writer.write("#. Tag: ");
+                writer.write(tag);
+                writer.write("\n");
+            }
+            if (fuzzy) {
+                writer.write("#, fuzzy\n");
+            }
+            writer.write("#, no-c-format\n");
+            writer.write("msgid \"");
+            escape(source, true, writer);
+            writer.write("\"\n");
+            writer.write("msgstr \"");
+            escape(translation, false, writer);
+            writer.write("\"\n");
+        } catch (IOException e) {
+            // Writing to a byte array should never fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the encoded content of the file.
+     *
+     * @return The file content.
+     */
+    public byte[] toByteArray() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            // Writing to a byte array should never fail
+            throw new IllegalStateException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Escape a string so that it can be added to a PO/POT file.
+     *
+     * @param input The string to be escaped.
+     * @param fix   If the string should have greater/lesser than symbols fixed.
+     * @return The escaped string, or an empty string if the input is null.
+     */
+    public static String escape(final String input, final boolean fix) {
+        if (input == null) return "";
+
+        final StringWriter escapedString = new StringWriter(input.length() + 16);
+        escape(input, fix, escapedString);
+        return escapedString.toString();
+    }
+
+    /**
+     * Escape a string so that it can be added to a PO/POT file, and write it to a Writer. The string is escaped in a single scan,
+     * and any runs of characters that don't need escaping are written as is.
+     *
+     * @param input  The string to be escaped.
+     * @param fix    If the string should have greater/lesser than symbols fixed.
+     * @param writer The writer to write the escaped string to.
+     */
+    protected static void escape(final String input, final boolean fix, final Writer writer) {
+        if (input == null) return;
+
+        // Publican escapes greater/lesser than to XML entities, however any XML Elements should remain untouched.
+        final boolean fixBrackets = fix && (input.contains(" < ") || input.contains(" > "));
+
+        try {
+            final int length = input.length();
+            int start = 0;
+            int elementEndIndex = -1;
+            for (int i = 0; i < length; i++) {
+                final String replacement;
+                switch (input.charAt(i)) {
+                    case '\\':
+                        replacement = "\\\\";
+                        break;
+                    case '"':
+                        replacement = "\\\"";
+                        break;
+                    case '\n':
+                        replacement = "\\n";
+                        break;
+                    case '\r':
+                        replacement = "\\r";
+                        break;
+                    case '<':
+                        if (fixBrackets && i > elementEndIndex) {
+                            elementEndIndex = getElementEndIndex(input, i);
+                            replacement = elementEndIndex == -1 ? "&lt;" : null;
+                        } else {
+                            replacement = null;
+                        }
+                        break;
+                    case '>':
+                        replacement = fixBrackets && i > elementEndIndex ? "&gt;" : null;
+                        break;
+                    default:
+                        replacement = null;
+                }
+
+                if (replacement != null) {
+                    writer.write(input, start, i - start);
+                    writer.write(replacement);
+                    start = i + 1;
+                }
+            }
+            writer.write(input, start, length - start);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Find the end of an XML Element that starts at a specific index. An element is a '<' followed by a '>', with no '<' in
+     * between. A "<>" sequence isn't considered to be an element.
+     *
+     * @param input The string to look for the element in.
+     * @param index The index of the '<' character that starts the element.
+     * @return The index of the '>' character that ends the element, or -1 if the index isn't the start of an element.
+     */
+    private static int getElementEndIndex(final String input, final int index) {
+        final int nextIndex = input.indexOf('<', index + 1);
+        final int limit = nextIndex == -1 ? input.length() : nextIndex;
+        for (int i = index + 1; i < limit; i++) {
+            if (input.charAt(i) == '>') {
+                return i == index + 1 ? -1 : i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,445 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorData;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorDatabase;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorDatabase.ErrorLevel;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorDatabase.ErrorType;
+import org.jboss.pressgang.ccms.utils.common.StringUtilities;
+import org.jboss.pressgang.ccms.wrapper.base.BaseTopicWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache stored on the local disk, that holds the processed XML and errors from the first topic pass of a build. Entries are
+ * stored as text by the hash of their key, and the least recently used entries are removed when the cache grows over its maximum
+ * size.
+ */
+public class TopicDocumentCache {
+    private static final Logger log = LoggerFactory.getLogger(TopicDocumentCache.class);
+    private static final String FILE_EXTENSION = ".topic";
+    private static final String FILE_HEADER = "PressGang Topic Cache 1";
+    private static final String ENCODING = "UTF-8";
+    private static final Map<File, TopicDocumentCache> CACHES = new HashMap<File, TopicDocumentCache>();
+
+    private final File directory;
+    private long maxSize;
+    private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private long size = 0;
+
+    /**
+     * Get the cache for a directory, so that builds using the same directory share the same cache. If the cache already exists
+     * with a different maximum size, then its maximum size is updated.
+     *
+     * @param directory The directory to store the cache entries in.
+     * @param maxSize   The maximum size of the cache in bytes.
+     * @return The cache for the directory.
+     */
+    public static TopicDocumentCache getCache(final File directory, final long maxSize) {
+        final File cacheDirectory = directory.getAbsoluteFile();
+        synchronized (CACHES) {
+            TopicDocumentCache cache = CACHES.get(cacheDirectory);
+            if (cache == null) {
+                cache = new TopicDocumentCache(cacheDirectory, maxSize);
+                CACHES.put(cacheDirectory, cache);
+            } else {
+                cache.setMaxSize(maxSize);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * @param directory The directory to store the cache entries in.
+     * @param maxSize   The maximum size of the cache in bytes.
+     */
+    public TopicDocumentCache(final File directory, final long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            log.warn("Unable to create the topic cache directory {}", directory.getAbsolutePath());
+        }
+
+        loadEntries();
+    }
+
+    /**
+     * Get a cached topic.
+     *
+     * @param key The key of the cached topic.
+     * @return The cached topic, or null if the topic isn't in the cache.
+     */
+    public CachedTopic get(final String key) {
+        final String fileName = getFileName(key);
+        synchronized (this) {
+            // Use get() so the entry is marked as the most recently used
+            if (entrySizes.get(fileName) == null) {
+                return null;
+            }
+        }
+
+        final File file = new File(directory, fileName);
+        Reader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+            final CachedTopic cachedTopic = CachedTopic.read(reader);
+            file.setLastModified(System.currentTimeMillis());
+            return cachedTopic;
+        } catch (Exception e) {
+            log.debug("Unable to read the cached topic " + file.getAbsolutePath(), e);
+            remove(fileName);
+            return null;
+        } finally {
+            close(reader);
+        }
+    }
+
+    /**
+     * Add a topic to the cache. If the cache is then bigger than its maximum size, the least recently used topics are removed.
+     *
+     * @param key         The key of the cached topic.
+     * @param cachedTopic The topic to be cached.
+     */
+    public void put(final String key, final CachedTopic cachedTopic) {
+        final String fileName = getFileName(key);
+        final File file = new File(directory, fileName);
+
+        Writer writer = null;
+        try {
+            // Write to a temp file first, so that other builds never read a partially written entry
+            final File tempFile = File.createTempFile(fileName, ".tmp", directory);
+            try {
+                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), ENCODING));
+                cachedTopic.write(writer);
+                writer.close();
+                writer = null;
+
+                synchronized (this) {
+                    if (file.exists() && !file.delete()) {
+                        return;
+                    }
+
+                    if (tempFile.renameTo(file)) {
+                        final Long previousSize = entrySizes.put(fileName, file.length());
+                        size += file.length() - (previousSize == null ? 0 : previousSize);
+                        evict();
+                    }
+                }
+            } finally {
+                close(writer);
+                if (tempFile.exists()) {
+                    tempFile.delete();
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Unable to write the cached topic " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Removes all the entries from the cache.
+     */
+    public synchronized void clear() {
+        for (final String fileName : new ArrayList<String>(entrySizes.keySet())) {
+            remove(fileName);
+        }
+    }
+
+    /**
+     * Set the maximum size of the cache. If the cache is bigger than the new size, the least recently used topics are removed.
+     *
+     * @param maxSize The maximum size of the cache in bytes.
+     */
+    public synchronized void setMaxSize(final long maxSize) {
+        this.maxSize = maxSize;
+        evict();
+    }
+
+    public synchronized long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the current size of the cache.
+     *
+     * @return The size of the cache entries in bytes.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private synchronized void loadEntries() {
+        final File[] files = directory.listFiles();
+        if (files == null) return;
+
+        // Add the entries from oldest to newest, so that the least recently used order is maintained
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(final File file1, final File file2) {
+                final long lastModified1 = file1.lastModified();
+                final long lastModified2 = file2.lastModified();
+                return lastModified1 < lastModified2 ? -1 : (lastModified1 == lastModified2 ? 0 : 1);
+            }
+        });
+
+        for (final File file : files) {
+            if (file.isFile() && file.getName().endsWith(FILE_EXTENSION)) {
+                entrySizes.put(file.getName(), file.length());
+                size += file.length();
+            }
+        }
+
+        evict();
+    }
+
+    private synchronized void evict() {
+        final Iterator<Map.Entry<String, Long>> iter = entrySizes.entrySet().iterator();
+        while (size > maxSize && iter.hasNext()) {
+            final Map.Entry<String, Long> entry = iter.next();
+            new File(directory, entry.getKey()).delete();
+            size -= entry.getValue();
+            iter.remove();
+        }
+    }
+
+    private synchronized void remove(final String fileName) {
+        final Long fileSize = entrySizes.remove(fileName);
+        if (fileSize != null) {
+            size -= fileSize;
+        }
+        new File(directory, fileName).delete();
+    }
+
+    private static void close(final Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // Do nothing, as the entry has either already been read or will be deleted
+            }
+        }
+    }
+
+    protected static String getFileName(final String key) {
+        return hash(key) + FILE_EXTENSION;
+    }
+
+    /**
+     * Create a SHA-1 hash of a string, that can be used to build a cache key.
+     *
+     * @param value The string to hash.
+     * @return The hex representation of the hash.
+     */
+    public static String hash(final String value) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return new BigInteger(1, digest.digest(StringUtilities.getStringBytes(value == null ? "" : value))).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 should always be available, so fallback to the string hash if it isn't
+            return Integer.toHexString(value == null ? 0 : value.hashCode()) + "-" + (value == null ? 0 : value.length());
+        }
+    }
+
+    /**
+     * The processed XML and errors for a topic, after the first topic pass.
+     */
+    public static class CachedTopic {
+        private final String xml;
+        private final Map<ErrorLevel, Set<String>> errors = new HashMap<ErrorLevel, Set<String>>();
+        private final List<ErrorType> errorTypes = new ArrayList<ErrorType>();
+
+        /**
+         * @param xml       The processed topic XML.
+         * @param errorData The errors and warnings for the topic, or null if there were none.
+         */
+        public CachedTopic(final String xml, final TopicErrorData errorData) {
+            this.xml = xml;
+
+            if (errorData != null) {
+                for (final Map.Entry<ErrorLevel, Set<String>> entry : errorData.getErrors().entrySet()) {
+                    errors.put(entry.getKey(), new HashSet<String>(entry.getValue()));
+                }
+                errorTypes.addAll(errorData.getErrorTypes());
+            }
+        }
+
+        private CachedTopic(final String xml) {
+            this.xml = xml;
+        }
+
+        public String getXml() {
+            return xml;
+        }
+
+        /**
+         * Writes the topic as text. Each value is written on its own line, and strings are prefixed with their length so that
+         * they can contain line breaks.
+         *
+         * @param writer The writer to write the topic to.
+         * @throws IOException Thrown if the topic can't be written.
+         */
+        public void write(final Writer writer) throws IOException {
+            writer.write(FILE_HEADER);
+            writer.write("\n");
+            for (final ErrorType errorType : errorTypes) {
+                writer.write("TYPE " + errorType.name() + "\n");
+            }
+            for (final Map.Entry<ErrorLevel, Set<String>> entry : errors.entrySet()) {
+                for (final String item : entry.getValue()) {
+                    writeString(writer, entry.getKey().name(), item);
+                }
+            }
+            writeString(writer, "XML", xml);
+        }
+
+        /**
+         * Reads a topic that was written by {@link #write(Writer)}.
+         *
+         * @param reader The reader to read the topic from.
+         * @return The topic that was read.
+         * @throws IOException Thrown if the topic can't be read, or isn't in the expected format.
+         */
+        public static CachedTopic read(final Reader reader) throws IOException {
+            if (!FILE_HEADER.equals(readLine(reader))) {
+                throw new IOException("The cached topic is not in the expected format");
+            }
+
+            final List<ErrorType> errorTypes = new ArrayList<ErrorType>();
+            final Map<ErrorLevel, Set<String>> errors = new HashMap<ErrorLevel, Set<String>>();
+            while (true) {
+                final String line = readLine(reader);
+                final int index = line.indexOf(' ');
+                if (index == -1) {
+                    throw new IOException("The cached topic is not in the expected format");
+                }
+
+                final String name = line.substring(0, index);
+                final String value = line.substring(index + 1);
+                try {
+                    if (name.equals("TYPE")) {
+                        errorTypes.add(ErrorType.valueOf(value));
+                    } else if (name.equals("XML")) {
+                        final CachedTopic cachedTopic = new CachedTopic(readString(reader, Integer.parseInt(value)));
+                        cachedTopic.errors.putAll(errors);
+                        cachedTopic.errorTypes.addAll(errorTypes);
+                        return cachedTopic;
+                    } else {
+                        final ErrorLevel errorLevel = ErrorLevel.valueOf(name);
+                        if (!errors.containsKey(errorLevel)) {
+                            errors.put(errorLevel, new HashSet<String>());
+                        }
+                        errors.get(errorLevel).add(readString(reader, Integer.parseInt(value)));
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("The cached topic is not in the expected format", e);
+                }
+            }
+        }
+
+        private static void writeString(final Writer writer, final String name, final String value) throws IOException {
+            writer.write(name + " " + value.length() + "\n");
+            writer.write(value);
+            writer.write("\n");
+        }
+
+        private static String readString(final Reader reader, final int length) throws IOException {
+            final char[] value = new char[length];
+            int read = 0;
+            while (read < length) {
+                final int count = reader.read(value, read, length - read);
+                if (count == -1) {
+                    throw new IOException("Unexpected end of the cached topic");
+                }
+                read += count;
+            }
+
+            if (reader.read() != '\n') {
+                throw new IOException("The cached topic is not in the expected format");
+            }
+            return new String(value);
+        }
+
+        private static String readLine(final Reader reader) throws IOException {
+            final StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = reader.read()) != '\n') {
+                if (c == -1) {
+                    throw new IOException("Unexpected end of the cached topic");
+                }
+                line.append((char) c);
+            }
+            return line.toString();
+        }
+
+        /**
+         * Adds the cached errors and warnings for a topic to an error database.
+         *
+         * @param errorDatabase The error database to add the errors to.
+         * @param topic         The topic the errors are for.
+         */
+        public void addErrors(final TopicErrorDatabase errorDatabase, final BaseTopicWrapper<?> topic) {
+            if (errors.isEmpty() && errorTypes.isEmpty()) return;
+
+            for (final Map.Entry<ErrorLevel, Set<String>> entry : errors.entrySet()) {
+                for (final String item : entry.getValue()) {
+                    if (entry.getKey() == ErrorLevel.ERROR) {
+                        errorDatabase.addError(topic, item);
+                    } else {
+                        errorDatabase.addWarning(topic, item);
+                    }
+                }
+            }
+
+            final TopicErrorData errorData = errorDatabase.getErrorData(topic);
+            if (errorData != null) {
+                for (final ErrorType errorType : errorTypes) {
+                    errorData.addErrorType(errorType);
+                }
+            }
+        }
+    }
+}
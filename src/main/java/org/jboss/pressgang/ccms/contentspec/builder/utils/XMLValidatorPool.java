@@ -0,0 +1,235 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package org.jboss.pressgang.ccms.contentspec.builder.utils;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.jboss.pressgang.ccms.utils.common.StringUtilities;
+import org.jboss.pressgang.ccms.utils.common.XMLValidator;
+import org.jboss.pressgang.ccms.utils.structures.DocBookVersion;
+
+/**
+ * A pool of XMLValidators that can be shared between topics and builds. Validators are pooled by a key made from the DocBook
+ * Version, validation method, a digest of the schema and the entities used to validate, so a validator is only ever reused for
+ * the same validation settings. The pool also remembers the result of previous validations so that identical XML doesn't have to
+ * be validated again.
+ */
+public class XMLValidatorPool {
+    private static final int DEFAULT_MAX_RESULTS = 5000;
+    private static final int DEFAULT_MAX_KEYS = 16;
+    private static final XMLValidatorPool SHARED_POOL = new XMLValidatorPool(DEFAULT_MAX_RESULTS, DEFAULT_MAX_KEYS);
+
+    private final Map<String, PooledValidators> validators;
+    private final Map<byte[], String> schemaDigests = new WeakHashMap<byte[], String>();
+    private final Map<String, String> results;
+
+    /**
+     * Get the pool that is shared by all builders in the JVM.
+     *
+     * @return The shared validator pool.
+     */
+    public static XMLValidatorPool getSharedPool() {
+        return SHARED_POOL;
+    }
+
+    /**
+     * @param maxResults The maximum number of validation results to keep.
+     */
+    public XMLValidatorPool(final int maxResults) {
+        this(maxResults, DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * @param maxResults The maximum number of validation results to keep.
+     * @param maxKeys    The maximum number of validation settings to keep validators for.
+     */
+    public XMLValidatorPool(final int maxResults, final int maxKeys) {
+        results = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 4563478521345728790L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+                return size() > maxResults;
+            }
+        };
+        validators = new LinkedHashMap<String, PooledValidators>(16, 0.75f, true) {
+            private static final long serialVersionUID = -2318423874591872366L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, PooledValidators> eldest) {
+                return size() > maxKeys;
+            }
+        };
+    }
+
+    /**
+     * Creates the key used to identify a set of validation settings.
+     *
+     * @param docBookVersion   The DocBook version being validated against.
+     * @param validationMethod The method used to validate.
+     * @param schema           The DTD or Schema data.
+     * @param entities         Any entities used during validation.
+     * @return The key that identifies the validation settings.
+     */
+    public String getKey(final DocBookVersion docBookVersion, final XMLValidator.ValidationMethod validationMethod, final byte[] schema,
+            final String entities) {
+        String schemaDigest;
+        synchronized (schemaDigests) {
+            schemaDigest = schema == null ? "" : schemaDigests.get(schema);
+            if (schemaDigest == null) {
+                schemaDigest = hash(schema);
+                schemaDigests.put(schema, schemaDigest);
+            }
+        }
+
+        return docBookVersion + ":" + validationMethod + ":" + schemaDigest + ":" + hash(entities == null ? "" : entities);
+    }
+
+    /**
+     * Validates some XML using a pooled validator, or the result of a previous validation of the same XML.
+     *
+     * @param key              The key for the validation settings, as returned by
+     *                         {@link #getKey(DocBookVersion, XMLValidator.ValidationMethod, byte[], String)}.
+     * @param validationMethod The method used to validate.
+     * @param xml              The XML to be validated.
+     * @param fileName         The file name of the DTD or Schema.
+     * @param schema           The DTD or Schema data.
+     * @param entities         Any entities used during validation.
+     * @param rootElementName  The name of the root element in the XML.
+     * @return Null if the XML is valid, otherwise the validation error text.
+     */
+    public String validate(final String key, final XMLValidator.ValidationMethod validationMethod, final String xml, final String fileName,
+            final byte[] schema, final String entities, final String rootElementName) {
+        final String resultKey = key + ":" + rootElementName + ":" + hash(xml);
+        synchronized (results) {
+            if (results.containsKey(resultKey)) {
+                return results.get(resultKey);
+            }
+        }
+
+        final String result = getValidators(key, validationMethod, fileName, schema, entities).validate(xml, rootElementName);
+
+        synchronized (results) {
+            results.put(resultKey, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes all pooled validators and previous results.
+     */
+    public void clear() {
+        synchronized (validators) {
+            validators.clear();
+        }
+        synchronized (results) {
+            results.clear();
+        }
+    }
+
+    protected PooledValidators getValidators(final String key, final XMLValidator.ValidationMethod validationMethod,
+            final String fileName, final byte[] schema, final String entities) {
+        // Creating the pool doesn't load anything, as the validators are only created when they are first used
+        synchronized (validators) {
+            PooledValidators pooledValidators = validators.get(key);
+            if (pooledValidators == null) {
+                pooledValidators = new PooledValidators(validationMethod, fileName, schema, entities);
+                validators.put(key, pooledValidators);
+            }
+            return pooledValidators;
+        }
+    }
+
+    protected static String hash(final String value) {
+        return hash(StringUtilities.getStringBytes(value));
+    }
+
+    protected static String hash(final byte[] value) {
+        if (value == null) return "";
+
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return new BigInteger(1, digest.digest(value)).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required to be available in every JVM
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The idle XMLValidators for one set of validation settings. An XMLValidator can only validate one document at a time, so
+     * each validation borrows a validator and returns it once it's done.
+     */
+    protected static class PooledValidators {
+        private final int maxIdleValidators = Runtime.getRuntime().availableProcessors();
+        private final LinkedList<XMLValidator> validators = new LinkedList<XMLValidator>();
+        private final XMLValidator.ValidationMethod validationMethod;
+        private final String fileName;
+        private final byte[] schema;
+        private final String entities;
+
+        public PooledValidators(final XMLValidator.ValidationMethod validationMethod, final String fileName, final byte[] schema,
+                final String entities) {
+            this.validationMethod = validationMethod;
+            this.fileName = fileName;
+            this.schema = schema;
+            this.entities = entities;
+        }
+
+        /**
+         * @param xml             The XML to be validated.
+         * @param rootElementName The name of the root element in the XML.
+         * @return Null if the XML is valid, otherwise the validation error text.
+         */
+        public String validate(final String xml, final String rootElementName) {
+            XMLValidator validator = null;
+            synchronized (validators) {
+                if (!validators.isEmpty()) {
+                    validator = validators.removeFirst();
+                }
+            }
+            if (validator == null) {
+                validator = new XMLValidator();
+            }
+
+            try {
+                if (validator.validate(validationMethod, xml, fileName, schema, entities, rootElementName)) {
+                    return null;
+                } else {
+                    return validator.getErrorText() == null ? "" : validator.getErrorText();
+                }
+            } finally {
+                synchronized (validators) {
+                    if (validators.size() < maxIdleValidators) {
+                        validators.add(validator);
+                    }
+                }
+            }
+        }
+    }
+}
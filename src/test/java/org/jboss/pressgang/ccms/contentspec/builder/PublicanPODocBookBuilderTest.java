@@ -0,0 +1,163 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.pressgang.ccms.contentspec.ITopicNode;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.BuildData;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.POBuildData;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TranslationDetails;
+import org.jboss.pressgang.ccms.wrapper.ServerEntitiesWrapper;
+import org.jboss.pressgang.ccms.wrapper.TopicWrapper;
+import org.jboss.pressgang.ccms.wrapper.TranslatedTopicStringWrapper;
+import org.jboss.pressgang.ccms.wrapper.TranslatedTopicWrapper;
+import org.jboss.pressgang.ccms.wrapper.collection.CollectionWrapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+public class PublicanPODocBookBuilderTest {
+    private static final String XML = "<section><title>Title</title><para>First para</para><para>Second para</para></section>";
+
+    private PublicanPODocBookBuilder builder;
+    private POBuildData buildData;
+    private ITopicNode topicNode;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        // Only the translation string methods are used, so the builder doesn't need to be connected to a server
+        builder = mock(PublicanPODocBookBuilder.class, CALLS_REAL_METHODS);
+        doNothing().when(builder).checkAndAddListInjections(any(BuildData.class), any(Document.class), any(ITopicNode.class), anyMap());
+
+        buildData = mock(POBuildData.class);
+        when(buildData.getServerEntities()).thenReturn(mock(ServerEntitiesWrapper.class));
+
+        topicNode = mock(ITopicNode.class);
+        doReturn(mock(TopicWrapper.class)).when(topicNode).getTopic();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldUseV3TranslationsWhenThereAreNoUntranslatedStrings() {
+        // Given a topic where every string has a V3 translation
+        final Map<String, String> translations = new LinkedHashMap<String, String>();
+        translations.put("Title", "Translated title");
+        translations.put("First para", "Translated first para");
+        translations.put("Second para", "Translated second para");
+        doReturn(createV1Translations()).when(builder).getV1Translations(any(Document.class), anyMap());
+
+        // When getting the translation strings
+        final Map<String, TranslationDetails> topicTranslations = getTranslationStrings(translations);
+
+        // Then the V1 translations should not be used
+        assertEquals("Translated title", topicTranslations.get("Title").getTranslation());
+        assertEquals("Translated first para", topicTranslations.get("First para").getTranslation());
+        assertEquals("Translated second para", topicTranslations.get("Second para").getTranslation());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldMergeV1TranslationsAtTheFirstUntranslatedString() {
+        // Given a topic with V3 translations before and after a string that only has a V1 translation
+        final Map<String, String> translations = new LinkedHashMap<String, String>();
+        translations.put("Title", "Translated title");
+        translations.put("Second para", "Translated second para");
+        doReturn(createV1Translations()).when(builder).getV1Translations(any(Document.class), anyMap());
+
+        // When getting the translation strings
+        final Map<String, TranslationDetails> topicTranslations = getTranslationStrings(translations);
+
+        // Then the V1 translations should replace the V3 translations before the untranslated string, but not after it
+        assertEquals("V1 title", topicTranslations.get("Title").getTranslation());
+        assertEquals("V1 first para", topicTranslations.get("First para").getTranslation());
+        assertEquals("Translated second para", topicTranslations.get("Second para").getTranslation());
+        assertEquals("para", topicTranslations.get("Second para").getTagName());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldAddUntranslatedStringsWithNoV1Translation() {
+        // Given a topic with no translations
+        doReturn(new HashMap<String, TranslationDetails>()).when(builder).getV1Translations(any(Document.class), anyMap());
+
+        // When getting the translation strings
+        final Map<String, TranslationDetails> topicTranslations = getTranslationStrings(new HashMap<String, String>());
+
+        // Then each string should be added without a translation
+        assertEquals(3, topicTranslations.size());
+        assertNull(topicTranslations.get("First para").getTranslation());
+        assertEquals("para", topicTranslations.get("First para").getTagName());
+    }
+
+    private Map<String, TranslationDetails> getTranslationStrings(final Map<String, String> translations) {
+        final TranslatedTopicWrapper pushedTranslatedTopic = mock(TranslatedTopicWrapper.class);
+        when(pushedTranslatedTopic.getTopicRevision()).thenReturn(1);
+        when(pushedTranslatedTopic.getXml()).thenReturn(XML);
+
+        final TranslatedTopicWrapper translatedTopic = mock(TranslatedTopicWrapper.class);
+        when(translatedTopic.getTopicRevision()).thenReturn(1);
+        final CollectionWrapper<TranslatedTopicStringWrapper> translatedStrings = createTranslatedStrings(translations);
+        when(translatedTopic.getTranslatedTopicStrings()).thenReturn(translatedStrings);
+
+        final Map<String, TranslationDetails> topicTranslations = new HashMap<String, TranslationDetails>();
+        builder.getTranslationStringsFromTranslatedTopic(buildData, topicNode, translatedTopic, pushedTranslatedTopic,
+                topicTranslations);
+        return topicTranslations;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CollectionWrapper<TranslatedTopicStringWrapper> createTranslatedStrings(final Map<String, String> translations) {
+        final List<TranslatedTopicStringWrapper> items = new ArrayList<TranslatedTopicStringWrapper>();
+        for (final Map.Entry<String, String> translation : translations.entrySet()) {
+            final TranslatedTopicStringWrapper translatedString = mock(TranslatedTopicStringWrapper.class);
+            when(translatedString.getOriginalString()).thenReturn(translation.getKey());
+            when(translatedString.getTranslatedString()).thenReturn(translation.getValue());
+            items.add(translatedString);
+        }
+
+        final CollectionWrapper<TranslatedTopicStringWrapper> collection = mock(CollectionWrapper.class);
+        when(collection.getItems()).thenReturn(items);
+        return collection;
+    }
+
+    private static Map<String, TranslationDetails> createV1Translations() {
+        final Map<String, TranslationDetails> v1Translations = new LinkedHashMap<String, TranslationDetails>();
+        v1Translations.put("Title", new TranslationDetails("V1 title", false, "title"));
+        v1Translations.put("First para", new TranslationDetails("V1 first para", false, "para"));
+        v1Translations.put("Second para", new TranslationDetails("V1 second para", false, "para"));
+        return v1Translations;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.sort;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.pressgang.ccms.contentspec.SpecNode;
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.BuildDatabase;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.InjectionData;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NodeTitleSorterTest {
+    private List<SpecNode> nodes;
+    private BuildDatabase buildDatabase;
+
+    @Before
+    public void setUp() {
+        final SpecTopic charlieTopic = new SpecTopic(10, "Charlie");
+        final SpecTopic alphaTopic = new SpecTopic(20, "alpha");
+        final SpecTopic bravoTopic = new SpecTopic(30, "Bravo");
+        bravoTopic.setTargetId("T-Bravo");
+        nodes = Arrays.<SpecNode>asList(charlieTopic, alphaTopic, bravoTopic);
+
+        buildDatabase = new BuildDatabase();
+        buildDatabase.add(charlieTopic, "10-1");
+        buildDatabase.add(alphaTopic, "20-1");
+        buildDatabase.add(bravoTopic, "30-1");
+    }
+
+    @Test
+    public void shouldSortTopicIdsByTitle() {
+        // Given an injection list of topic ids
+        final List<InjectionData> list = createInjectionList("10", "20", "30");
+
+        // When sorting the list using the nodes
+        new NodeTitleSorter().sort(nodes, list);
+
+        // Then the ids should be in the order of the topic titles, ignoring case
+        assertEquals(Arrays.asList("20", "30", "10"), getIds(list));
+    }
+
+    @Test
+    public void shouldSortTopicIdsByTitleUsingTheBuildDatabase() {
+        // Given an injection list of topic ids
+        final List<InjectionData> list = createInjectionList("10", "20", "30");
+
+        // When sorting the list using the build database
+        new NodeTitleSorter(buildDatabase).sort(null, list);
+
+        // Then the ids should be in the order of the topic titles, ignoring case
+        assertEquals(Arrays.asList("20", "30", "10"), getIds(list));
+    }
+
+    @Test
+    public void shouldSortTargetIdsAndTopicIdsTogether() {
+        // Given an injection list with a target id and topic ids
+        final List<InjectionData> list = createInjectionList("10", "T-Bravo", "20");
+
+        // When sorting the list
+        new NodeTitleSorter().sort(nodes, list);
+
+        // Then the ids should be in the order of the titles
+        assertEquals(Arrays.asList("20", "T-Bravo", "10"), getIds(list));
+    }
+
+    @Test
+    public void shouldSortMissingIdsFirst() {
+        // Given an injection list with ids that aren't in the book
+        final List<InjectionData> list = createInjectionList("10", "40", "20", "T-Missing");
+
+        // When sorting the list
+        new NodeTitleSorter(buildDatabase).sort(null, list);
+
+        // Then the missing ids should be first, in their original order
+        assertEquals(Arrays.asList("40", "T-Missing", "20", "10"), getIds(list));
+    }
+
+    private static List<InjectionData> createInjectionList(final String... ids) {
+        final List<InjectionData> list = new ArrayList<InjectionData>();
+        for (final String id : ids) {
+            list.add(new InjectionData(id, false));
+        }
+        return list;
+    }
+
+    private static List<String> getIds(final List<InjectionData> list) {
+        final List<String> ids = new ArrayList<String>();
+        for (final InjectionData injectionData : list) {
+            ids.add(injectionData.id);
+        }
+        return ids;
+    }
+}
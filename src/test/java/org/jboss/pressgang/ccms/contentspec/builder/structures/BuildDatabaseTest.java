@@ -0,0 +1,171 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.pressgang.ccms.contentspec.Chapter;
+import org.jboss.pressgang.ccms.contentspec.ITopicNode;
+import org.jboss.pressgang.ccms.contentspec.SpecNode;
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BuildDatabaseTest {
+    private BuildDatabase buildDatabase;
+    private SpecTopic specTopic;
+    private SpecTopic duplicateSpecTopic;
+    private SpecTopic targetSpecTopic;
+    private Chapter chapter;
+
+    @Before
+    public void setUp() {
+        specTopic = new SpecTopic(10, "Topic 10");
+        duplicateSpecTopic = new SpecTopic(10, "Topic 10");
+        targetSpecTopic = new SpecTopic(20, "Topic 20");
+        targetSpecTopic.setTargetId("T-Topic");
+        chapter = new Chapter("Chapter");
+        chapter.setTargetId("T-Chapter");
+
+        buildDatabase = new BuildDatabase();
+        buildDatabase.add(specTopic, "10-1");
+        buildDatabase.add(duplicateSpecTopic, "10-1");
+        buildDatabase.add(targetSpecTopic, "20-1");
+        buildDatabase.add(chapter);
+    }
+
+    @Test
+    public void shouldFindSpecTopicsForDBId() {
+        // Given a database with two spec topics for the same topic
+
+        // When finding the spec topics for the topic
+        final List<SpecTopic> specTopics = buildDatabase.getSpecTopicsForDBId(10);
+
+        // Then both spec topics should be found in the order they were added
+        assertEquals(Arrays.asList(specTopic, duplicateSpecTopic), specTopics);
+        assertEquals(Arrays.asList(targetSpecTopic), buildDatabase.getSpecTopicsForDBId(20));
+        assertTrue(buildDatabase.getSpecTopicsForDBId(30).isEmpty());
+    }
+
+    @Test
+    public void shouldFindSpecNodesForTargetId() {
+        // Given a database with a topic and a level that have target ids
+
+        // When finding the nodes for the target ids
+        final List<SpecNode> topicNodes = buildDatabase.getSpecNodesForTargetId("T-Topic");
+        final List<SpecNode> levelNodes = buildDatabase.getSpecNodesForTargetId("T-Chapter");
+
+        // Then only the matching node should be found
+        assertEquals(Arrays.<SpecNode>asList(targetSpecTopic), topicNodes);
+        assertEquals(Arrays.<SpecNode>asList(chapter), levelNodes);
+        assertTrue(buildDatabase.getSpecNodesForTargetId("T-Missing").isEmpty());
+    }
+
+    @Test
+    public void shouldFindLevelsFirstForDuplicateTargetIds() {
+        // Given a topic that was added before a level with the same target id
+        final SpecTopic duplicateTargetSpecTopic = new SpecTopic(30, "Topic 30");
+        duplicateTargetSpecTopic.setTargetId("T-Duplicate");
+        final Chapter duplicateTargetChapter = new Chapter("Duplicate Chapter");
+        duplicateTargetChapter.setTargetId("T-Duplicate");
+        buildDatabase.add(duplicateTargetSpecTopic, "30-1");
+        buildDatabase.add(duplicateTargetChapter);
+
+        // When finding the nodes for the target id
+        final List<SpecNode> specNodes = buildDatabase.getSpecNodesForTargetId("T-Duplicate");
+
+        // Then the level should be first
+        assertEquals(Arrays.<SpecNode>asList(duplicateTargetChapter, duplicateTargetSpecTopic), specNodes);
+    }
+
+    @Test
+    public void shouldGetAllSpecNodesWithLevelsFirst() {
+        // Given a database with topics and a level
+
+        // When getting all the spec nodes
+        final List<SpecNode> specNodes = buildDatabase.getAllSpecNodes();
+
+        // Then the level should be first, followed by every topic
+        assertEquals(4, specNodes.size());
+        assertSame(chapter, specNodes.get(0));
+        assertTrue(specNodes.containsAll(Arrays.asList(specTopic, duplicateSpecTopic, targetSpecTopic)));
+    }
+
+    @Test
+    public void shouldReuseSpecNodesUntilTheDatabaseChanges() {
+        // Given the spec nodes have been fetched
+        final List<SpecNode> specNodes = buildDatabase.getAllSpecNodes();
+        assertSame(specNodes, buildDatabase.getAllSpecNodes());
+
+        // When a new topic is added
+        final SpecTopic newSpecTopic = new SpecTopic(10, "Topic 10");
+        newSpecTopic.setTargetId("T-New");
+        buildDatabase.add(newSpecTopic, "10-2");
+
+        // Then the indexes should include the new topic
+        final List<SpecNode> newSpecNodes = buildDatabase.getAllSpecNodes();
+        assertNotSame(specNodes, newSpecNodes);
+        assertEquals(5, newSpecNodes.size());
+        assertTrue(newSpecNodes.contains(newSpecTopic));
+        assertEquals(Arrays.asList(specTopic, duplicateSpecTopic, newSpecTopic), buildDatabase.getSpecTopicsForDBId(10));
+        assertEquals(Arrays.<SpecNode>asList(newSpecTopic), buildDatabase.getSpecNodesForTargetId("T-New"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowSpecNodesToBeModified() {
+        buildDatabase.getAllSpecNodes().add(new SpecTopic(40, "Topic 40"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowIndexedSpecTopicsToBeModified() {
+        buildDatabase.getSpecTopicsForDBId(10).clear();
+    }
+
+    @Test
+    public void shouldFindTopicNodesForKey() {
+        // Given a database with two spec topics for the same key
+
+        // When finding the topic nodes for the key
+        final List<ITopicNode> topicNodes = buildDatabase.getTopicNodesForKey("10-1");
+
+        // Then both spec topics should be found
+        assertEquals(Arrays.<ITopicNode>asList(specTopic, duplicateSpecTopic), topicNodes);
+        assertTrue(buildDatabase.getTopicNodesForKey("30-1").isEmpty());
+    }
+
+    @Test
+    public void shouldIgnoreNullNodes() {
+        // Given the spec nodes have been fetched
+        final List<SpecNode> specNodes = buildDatabase.getAllSpecNodes();
+
+        // When null nodes are added
+        buildDatabase.add(null, "null");
+        buildDatabase.add(null);
+
+        // Then the database should be unchanged
+        assertSame(specNodes, buildDatabase.getAllSpecNodes());
+    }
+}
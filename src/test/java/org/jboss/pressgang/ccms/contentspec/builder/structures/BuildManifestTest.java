@@ -0,0 +1,165 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BuildManifestTest {
+    private static final String HEADER = "# PressGang CCMS Build Manifest 2\n";
+
+    @Test
+    public void shouldRoundTripManifest() {
+        // Given a manifest with a complete entry and an entry with no optional values
+        final BuildManifest buildManifest = new BuildManifest();
+        buildManifest.setBuildFingerprint("build-fingerprint");
+        final BuildManifest.TopicEntry entry = new BuildManifest.TopicEntry("Topic-10", 10, 5, "topic-fingerprint");
+        entry.setOutputPath("Book/en-US/topics/Topic_10.xml");
+        entry.setOutputHash("output-hash");
+        entry.getIds().addAll(Arrays.asList("Topic-10", "para-1", "para-2"));
+        entry.getLinkIds().addAll(Arrays.asList("Topic-20", "Chapter-1"));
+        entry.getMissingInjectionIds().addAll(Arrays.asList("30", "T-Missing"));
+        entry.setHasErrors(true);
+        buildManifest.addTopicEntry(entry);
+        buildManifest.addTopicEntry(new BuildManifest.TopicEntry("Topic-20", null, null, "other-fingerprint"));
+
+        // When the manifest is written and parsed again
+        final BuildManifest parsedManifest = BuildManifest.parse(buildManifest.toString());
+
+        // Then the parsed manifest should match the original
+        assertNotNull(parsedManifest);
+        assertEquals("build-fingerprint", parsedManifest.getBuildFingerprint());
+        assertEquals(2, parsedManifest.getTopicEntries().size());
+        assertEquals(buildManifest.toString(), parsedManifest.toString());
+
+        final BuildManifest.TopicEntry parsedEntry = parsedManifest.getTopicEntry("Topic-10");
+        assertEquals(Integer.valueOf(10), parsedEntry.getTopicId());
+        assertEquals(Integer.valueOf(5), parsedEntry.getTopicRevision());
+        assertEquals("topic-fingerprint", parsedEntry.getFingerprint());
+        assertEquals("Book/en-US/topics/Topic_10.xml", parsedEntry.getOutputPath());
+        assertEquals("output-hash", parsedEntry.getOutputHash());
+        assertEquals(Arrays.asList("Topic-10", "para-1", "para-2"), new ArrayList<String>(parsedEntry.getIds()));
+        assertEquals(Arrays.asList("Topic-20", "Chapter-1"), new ArrayList<String>(parsedEntry.getLinkIds()));
+        assertEquals(Arrays.asList("30", "T-Missing"), new ArrayList<String>(parsedEntry.getMissingInjectionIds()));
+        assertTrue(parsedEntry.hasErrors());
+
+        final BuildManifest.TopicEntry emptyEntry = parsedManifest.getTopicEntry("Topic-20");
+        assertNull(emptyEntry.getTopicId());
+        assertNull(emptyEntry.getTopicRevision());
+        assertNull(emptyEntry.getOutputPath());
+        assertNull(emptyEntry.getOutputHash());
+        assertTrue(emptyEntry.getIds().isEmpty());
+        assertTrue(emptyEntry.getLinkIds().isEmpty());
+        assertTrue(emptyEntry.getMissingInjectionIds().isEmpty());
+        assertFalse(emptyEntry.hasErrors());
+    }
+
+    @Test
+    public void shouldKeepEntryOrder() {
+        // Given a manifest with entries added out of order
+        final BuildManifest buildManifest = new BuildManifest();
+        buildManifest.setBuildFingerprint("build-fingerprint");
+        for (final String uniqueLinkId : Arrays.asList("Topic-3", "Topic-1", "Topic-2")) {
+            buildManifest.addTopicEntry(new BuildManifest.TopicEntry(uniqueLinkId, 1, 1, "fingerprint"));
+        }
+
+        // When the manifest is written and parsed again
+        final BuildManifest parsedManifest = BuildManifest.parse(buildManifest.toString());
+
+        // Then the entries should be in the order they were added
+        final List<String> uniqueLinkIds = new ArrayList<String>();
+        for (final BuildManifest.TopicEntry entry : parsedManifest.getTopicEntries()) {
+            uniqueLinkIds.add(entry.getUniqueLinkId());
+        }
+        assertEquals(Arrays.asList("Topic-3", "Topic-1", "Topic-2"), uniqueLinkIds);
+    }
+
+    @Test
+    public void shouldReplaceEntriesWithTheSameUniqueLinkId() {
+        // Given a manifest with an entry
+        final BuildManifest buildManifest = new BuildManifest();
+        buildManifest.addTopicEntry(new BuildManifest.TopicEntry("Topic-1", 1, 1, "old-fingerprint"));
+
+        // When an entry with the same unique link id is added
+        buildManifest.addTopicEntry(new BuildManifest.TopicEntry("Topic-1", 1, 2, "new-fingerprint"));
+
+        // Then only the new entry should exist
+        assertEquals(1, buildManifest.getTopicEntries().size());
+        assertEquals("new-fingerprint", buildManifest.getTopicEntry("Topic-1").getFingerprint());
+    }
+
+    @Test
+    public void shouldParseWindowsLineEndings() {
+        // Given a manifest that uses windows line endings
+        final String manifest = HEADER.replace("\n", "\r\n") + "build\tbuild-fingerprint\r\n"
+                + "topic\tTopic-1\t1\t1\tfingerprint\t\t\tTopic-1\t\t\tfalse\r\n";
+
+        // When the manifest is parsed
+        final BuildManifest buildManifest = BuildManifest.parse(manifest);
+
+        // Then the entries should be found
+        assertNotNull(buildManifest);
+        assertEquals("build-fingerprint", buildManifest.getBuildFingerprint());
+        assertEquals("fingerprint", buildManifest.getTopicEntry("Topic-1").getFingerprint());
+    }
+
+    @Test
+    public void shouldNotParseMissingManifest() {
+        assertNull(BuildManifest.parse(null));
+        assertNull(BuildManifest.parse(""));
+        assertNull(BuildManifest.parse(HEADER));
+    }
+
+    @Test
+    public void shouldNotParseOtherManifestVersions() {
+        // Given a manifest from a different version of the builder
+        final String manifest = "# PressGang CCMS Build Manifest 1\nbuild\tbuild-fingerprint\n";
+
+        // When the manifest is parsed
+        final BuildManifest buildManifest = BuildManifest.parse(manifest);
+
+        // Then it should be ignored, so that nothing is reused from the previous build
+        assertNull(buildManifest);
+    }
+
+    @Test
+    public void shouldNotParseManifestsWithUnknownLines() {
+        assertNull(BuildManifest.parse(HEADER + "build\tbuild-fingerprint\nunknown\tvalue\n"));
+    }
+
+    @Test
+    public void shouldNotParseManifestsWithTruncatedEntries() {
+        assertNull(BuildManifest.parse(HEADER + "build\tbuild-fingerprint\ntopic\tTopic-1\t1\t1\tfingerprint\n"));
+    }
+
+    @Test
+    public void shouldNotParseManifestsWithInvalidIds() {
+        assertNull(BuildManifest.parse(HEADER + "build\tbuild-fingerprint\ntopic\tTopic-1\tone\t1\tfingerprint\t\t\t\t\t\tfalse\n"));
+    }
+}
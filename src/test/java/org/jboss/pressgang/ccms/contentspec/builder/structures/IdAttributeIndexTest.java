@@ -0,0 +1,119 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.pressgang.ccms.contentspec.SpecTopic;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IdAttributeIndexTest {
+    private SpecTopic specTopic;
+    private SpecTopic duplicateSpecTopic;
+    private SpecTopic otherSpecTopic;
+    private IdAttributeIndex idAttributeIndex;
+
+    @Before
+    public void setUp() {
+        specTopic = new SpecTopic(10, "Topic 10");
+        duplicateSpecTopic = new SpecTopic(10, "Topic 10");
+        otherSpecTopic = new SpecTopic(20, "Topic 20");
+
+        final Map<SpecTopic, Set<String>> usedIdAttributes = new LinkedHashMap<SpecTopic, Set<String>>();
+        usedIdAttributes.put(specTopic, new HashSet<String>(Arrays.asList("para-1", "shared")));
+        usedIdAttributes.put(duplicateSpecTopic, new HashSet<String>(Arrays.asList("para-1")));
+        usedIdAttributes.put(otherSpecTopic, new HashSet<String>(Arrays.asList("para-2", "shared")));
+        idAttributeIndex = new IdAttributeIndex(usedIdAttributes);
+    }
+
+    @Test
+    public void shouldNotTreatTheSameTopicAsAnotherTopic() {
+        // Given an id that is only used by two spec topics for the same topic
+
+        // When checking if the id is used by another topic
+        final boolean usedByOtherTopic = idAttributeIndex.isUsedByOtherTopic("para-1", 10);
+
+        // Then it should only be used by another topic when checking for a different topic
+        assertFalse(usedByOtherTopic);
+        assertTrue(idAttributeIndex.isUsedByOtherTopic("para-1", 20));
+    }
+
+    @Test
+    public void shouldFindIdsUsedByMultipleTopics() {
+        // Given an id that is used by two different topics
+
+        // When checking if the id is used by another topic
+        final boolean usedByOtherTopic = idAttributeIndex.isUsedByOtherTopic("shared", 10);
+
+        // Then it should be used by another topic, no matter which topic is checked
+        assertTrue(usedByOtherTopic);
+        assertTrue(idAttributeIndex.isUsedByOtherTopic("shared", 20));
+        assertTrue(idAttributeIndex.isUsedByOtherTopic("shared", 30));
+    }
+
+    @Test
+    public void shouldNotFindUnusedIds() {
+        assertFalse(idAttributeIndex.isUsedByOtherTopic("missing", 10));
+        assertNull(idAttributeIndex.getSpecTopic("missing"));
+    }
+
+    @Test
+    public void shouldGetTheFirstSpecTopicAddedForAnId() {
+        // Given ids that are used by multiple spec topics
+
+        // When getting the spec topics for the ids
+        final SpecTopic duplicateIdSpecTopic = idAttributeIndex.getSpecTopic("para-1");
+        final SpecTopic sharedIdSpecTopic = idAttributeIndex.getSpecTopic("shared");
+
+        // Then the first spec topic that was added should be returned
+        assertSame(specTopic, duplicateIdSpecTopic);
+        assertSame(specTopic, sharedIdSpecTopic);
+        assertSame(otherSpecTopic, idAttributeIndex.getSpecTopic("para-2"));
+    }
+
+    @Test
+    public void shouldIndexIdsAddedAfterCreation() {
+        // Given an index
+
+        // When a new id is added for a topic
+        idAttributeIndex.add(otherSpecTopic, "para-3");
+
+        // Then the id should be found
+        assertSame(otherSpecTopic, idAttributeIndex.getSpecTopic("para-3"));
+        assertFalse(idAttributeIndex.isUsedByOtherTopic("para-3", 20));
+        assertEquals(new HashSet<String>(Arrays.asList("para-1", "para-2", "para-3", "shared")), idAttributeIndex.getIds());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowIdsToBeModified() {
+        idAttributeIndex.getIds().add("para-3");
+    }
+}
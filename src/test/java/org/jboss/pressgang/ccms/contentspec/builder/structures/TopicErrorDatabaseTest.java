@@ -0,0 +1,183 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorDatabase.ErrorLevel;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorDatabase.ErrorType;
+import org.jboss.pressgang.ccms.wrapper.LocaleWrapper;
+import org.jboss.pressgang.ccms.wrapper.TopicWrapper;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TopicErrorDatabaseTest {
+    private static final String LOCALE = "en-US";
+
+    private TopicErrorDatabase errorDatabase;
+    private TopicWrapper firstTopic;
+    private TopicWrapper secondTopic;
+    private TopicWrapper thirdTopic;
+
+    @Before
+    public void setUp() {
+        errorDatabase = new TopicErrorDatabase();
+        firstTopic = createTopic(1, LOCALE);
+        secondTopic = createTopic(2, LOCALE);
+        thirdTopic = createTopic(3, LOCALE);
+    }
+
+    @Test
+    public void shouldFindErrorDataByTopicId() {
+        // Given a database with an error for a topic
+        errorDatabase.addError(firstTopic, ErrorType.INVALID_CONTENT, "Invalid content");
+
+        // When looking up the error data for the topic and a different topic object with the same id
+        final TopicErrorData errorData = errorDatabase.getErrorData(firstTopic);
+
+        // Then the same error data should be found, and topics without errors should not be found
+        assertTrue(errorDatabase.hasErrorData(firstTopic));
+        assertSame(errorData, errorDatabase.getErrorData(createTopic(1, LOCALE)));
+        assertTrue(errorData.getItemsOfType(ErrorLevel.ERROR).contains("Invalid content"));
+        assertFalse(errorDatabase.hasErrorData(secondTopic));
+        assertNull(errorDatabase.getErrorData(secondTopic));
+    }
+
+    @Test
+    public void shouldNotAddDuplicateItems() {
+        // Given a database with an error for a topic
+        errorDatabase.addError(firstTopic, ErrorType.INVALID_CONTENT, "Invalid content");
+
+        // When the same error is added again
+        errorDatabase.addError(firstTopic, ErrorType.INVALID_CONTENT, "Invalid content");
+
+        // Then the topic and error should only be stored once
+        assertEquals(1, errorDatabase.getErrorCount(LOCALE));
+        assertEquals(1, errorDatabase.getItemCount(LOCALE, ErrorLevel.ERROR));
+        assertEquals(Arrays.asList(errorDatabase.getErrorData(firstTopic)), errorDatabase.getErrorsOfType(LOCALE,
+                ErrorType.INVALID_CONTENT));
+    }
+
+    @Test
+    public void shouldFindErrorsOfTypeInTheOrderTheTopicsWereAdded() {
+        // Given a database where the first and third topics have an error type
+        errorDatabase.addError(firstTopic, ErrorType.INVALID_CONTENT, "Invalid content");
+        errorDatabase.addWarning(secondTopic, ErrorType.UNTRANSLATED, "Untranslated");
+        errorDatabase.addError(thirdTopic, ErrorType.INVALID_CONTENT, "Invalid content");
+
+        // When the error type is added to the second topic after the third topic
+        errorDatabase.addError(secondTopic, ErrorType.INVALID_CONTENT, "Invalid content");
+
+        // Then the topics should be found in the order they were first added
+        assertEquals(Arrays.asList(errorDatabase.getErrorData(firstTopic), errorDatabase.getErrorData(secondTopic),
+                errorDatabase.getErrorData(thirdTopic)), errorDatabase.getErrorsOfType(LOCALE, ErrorType.INVALID_CONTENT));
+        assertEquals(Arrays.asList(errorDatabase.getErrorData(secondTopic)), errorDatabase.getErrorsOfType(LOCALE,
+                ErrorType.UNTRANSLATED));
+        assertTrue(errorDatabase.getErrorsOfType(LOCALE, ErrorType.NO_CONTENT).isEmpty());
+        assertTrue(errorDatabase.getErrorsOfType("ja-JP", ErrorType.INVALID_CONTENT).isEmpty());
+    }
+
+    @Test
+    public void shouldMergeErrorDatabasesInOrder() {
+        // Given a database with an error, and another database with errors for a new topic and the existing topic
+        errorDatabase.addError(firstTopic, ErrorType.INVALID_CONTENT, "Invalid content");
+        final TopicErrorDatabase otherErrorDatabase = new TopicErrorDatabase();
+        otherErrorDatabase.addError(secondTopic, ErrorType.INVALID_CONTENT, "Invalid content");
+        otherErrorDatabase.addWarning(firstTopic, ErrorType.UNTRANSLATED, "Untranslated");
+
+        // When the other database is merged
+        errorDatabase.addAll(otherErrorDatabase);
+
+        // Then the existing topic should keep its position, and have the merged items and types
+        final TopicErrorData firstErrorData = errorDatabase.getErrorData(firstTopic);
+        final TopicErrorData secondErrorData = errorDatabase.getErrorData(secondTopic);
+        assertEquals(Arrays.asList(firstErrorData, secondErrorData), errorDatabase.getErrors(LOCALE));
+        assertEquals(Arrays.asList(firstErrorData, secondErrorData), errorDatabase.getErrorsOfType(LOCALE,
+                ErrorType.INVALID_CONTENT));
+        assertEquals(Arrays.asList(firstErrorData), errorDatabase.getErrorsOfType(LOCALE, ErrorType.UNTRANSLATED));
+        assertTrue(firstErrorData.getItemsOfType(ErrorLevel.WARNING).contains("Untranslated"));
+        assertEquals(3, errorDatabase.getItemCount(LOCALE, ErrorLevel.ERROR) + errorDatabase.getItemCount(LOCALE,
+                ErrorLevel.WARNING));
+    }
+
+    @Test
+    public void shouldReindexWhenErrorsAreSet() {
+        // Given a database with errors for two topics
+        errorDatabase.addError(firstTopic, ErrorType.INVALID_CONTENT, "Invalid content");
+        errorDatabase.addError(secondTopic, ErrorType.INVALID_CONTENT, "Invalid content");
+        final TopicErrorData firstErrorData = errorDatabase.getErrorData(firstTopic);
+        final TopicErrorData secondErrorData = errorDatabase.getErrorData(secondTopic);
+
+        // When the errors are replaced with the second topic and a new topic, in a different order
+        final TopicErrorData thirdErrorData = new TopicErrorData();
+        thirdErrorData.setTopic(thirdTopic);
+        thirdErrorData.addError("No content", ErrorLevel.ERROR, ErrorType.NO_CONTENT);
+        errorDatabase.setErrors(LOCALE, Arrays.asList(thirdErrorData, secondErrorData));
+
+        // Then the removed topic should no longer be found, and the indexes should follow the new order
+        assertFalse(errorDatabase.hasErrorData(firstTopic));
+        assertSame(secondErrorData, errorDatabase.getErrorData(secondTopic));
+        assertSame(thirdErrorData, errorDatabase.getErrorData(thirdTopic));
+        assertEquals(Arrays.asList(secondErrorData), errorDatabase.getErrorsOfType(LOCALE, ErrorType.INVALID_CONTENT));
+        assertEquals(Arrays.asList(thirdErrorData), errorDatabase.getErrorsOfType(LOCALE, ErrorType.NO_CONTENT));
+
+        // And error types added afterwards should only be indexed for error data still in the database
+        firstErrorData.addErrorType(ErrorType.UNTRANSLATED);
+        secondErrorData.addErrorType(ErrorType.UNTRANSLATED);
+        thirdErrorData.addErrorType(ErrorType.UNTRANSLATED);
+        assertEquals(Arrays.asList(thirdErrorData, secondErrorData), errorDatabase.getErrorsOfType(LOCALE, ErrorType.UNTRANSLATED));
+    }
+
+    @Test
+    public void shouldKeepLocalesSeparate() {
+        // Given errors for topics in two locales
+        errorDatabase.addError(firstTopic, ErrorType.INVALID_CONTENT, "Invalid content");
+        errorDatabase.addError(createTopic(2, "ja-JP"), ErrorType.INVALID_CONTENT, "Invalid content");
+
+        // When getting the errors for each locale
+        final int englishCount = errorDatabase.getErrorCount(LOCALE);
+        final int japaneseCount = errorDatabase.getErrorCount("ja-JP");
+
+        // Then each locale should only have its own errors
+        assertEquals(1, englishCount);
+        assertEquals(1, japaneseCount);
+        assertEquals(Arrays.asList(errorDatabase.getErrorData(firstTopic)), errorDatabase.getErrorsOfType(LOCALE,
+                ErrorType.INVALID_CONTENT));
+        assertEquals(2, errorDatabase.getLocales().size());
+    }
+
+    private static TopicWrapper createTopic(final Integer topicId, final String localeValue) {
+        final LocaleWrapper locale = mock(LocaleWrapper.class);
+        when(locale.getValue()).thenReturn(localeValue);
+
+        final TopicWrapper topic = mock(TopicWrapper.class);
+        when(topic.getTopicId()).thenReturn(topicId);
+        when(topic.getLocale()).thenReturn(locale);
+        return topic;
+    }
+}
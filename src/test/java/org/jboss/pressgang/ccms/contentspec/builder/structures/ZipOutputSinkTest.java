@@ -0,0 +1,185 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.structures;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.jboss.pressgang.ccms.contentspec.builder.exception.BuildProcessingException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZipOutputSinkTest {
+    private static final String ENCODING = "UTF-8";
+    private static final String TOPICS_FOLDER = "Book/en-US/topics/";
+
+    private ByteArrayOutputStream outputStream;
+    private ZipOutputSink zipOutputSink;
+    private MapOutputSink mapOutputSink;
+
+    @Before
+    public void setUp() {
+        outputStream = new ByteArrayOutputStream();
+        zipOutputSink = new ZipOutputSink(outputStream);
+        mapOutputSink = new MapOutputSink();
+    }
+
+    @Test
+    public void shouldWriteFinalFilesBeforeHeldFiles() throws Exception {
+        // Given a sink with a final path
+        zipOutputSink.addFinalPath(TOPICS_FOLDER);
+
+        // When a held file is added before a final file
+        zipOutputSink.addFile("Book/en-US/Book_Info.xml", getBytes("Book Info"));
+        zipOutputSink.addFile(TOPICS_FOLDER + "Topic.xml", getBytes("Topic"));
+        zipOutputSink.finish();
+
+        // Then the final file should be written first, and only the held file should be readable
+        assertEquals(Arrays.asList(TOPICS_FOLDER + "Topic.xml", "Book/en-US/Book_Info.xml"), getEntryNames(outputStream.toByteArray()));
+        assertNull(zipOutputSink.getFile(TOPICS_FOLDER + "Topic.xml"));
+    }
+
+    @Test
+    public void shouldReadBackAndReplaceHeldFiles() throws Exception {
+        // Given a sink with a held file
+        zipOutputSink.addFile("Book/en-US/Book_Info.xml", getBytes("Old"));
+
+        // When the file is replaced
+        zipOutputSink.addFile("Book/en-US/Book_Info.xml", getBytes("New"));
+
+        // Then the new file should be read back and written once
+        assertArrayEquals(getBytes("New"), zipOutputSink.getFile("Book/en-US/Book_Info.xml"));
+        zipOutputSink.finish();
+        final Map<String, byte[]> entries = unzip(outputStream.toByteArray());
+        assertEquals(1, entries.size());
+        assertArrayEquals(getBytes("New"), entries.get("Book/en-US/Book_Info.xml"));
+    }
+
+    @Test
+    public void shouldIgnoreFinalFilesThatAreAddedAgain() throws Exception {
+        // Given sinks with a final path
+        final String path = TOPICS_FOLDER + "Topic.xml";
+        zipOutputSink.addFinalPath(TOPICS_FOLDER);
+        mapOutputSink.addFinalPath(TOPICS_FOLDER);
+
+        // When a final file is added twice
+        for (final OutputSink outputSink : Arrays.<OutputSink>asList(zipOutputSink, mapOutputSink)) {
+            outputSink.addFile(path, getBytes("First"));
+            outputSink.addFile(path, getBytes("Second"));
+        }
+        zipOutputSink.finish();
+
+        // Then both sinks should only contain the first file
+        final Map<String, byte[]> entries = unzip(outputStream.toByteArray());
+        assertEquals(1, entries.size());
+        assertArrayEquals(getBytes("First"), entries.get(path));
+        assertArrayEquals(getBytes("First"), mapOutputSink.getFile(path));
+    }
+
+    @Test
+    public void shouldReplaceFilesHeldBeforeThePathWasFinal() throws Exception {
+        // Given sinks with a file that was added before its path was marked as final
+        final String path = TOPICS_FOLDER + "Topic.xml";
+        for (final OutputSink outputSink : Arrays.<OutputSink>asList(zipOutputSink, mapOutputSink)) {
+            outputSink.addFile(path, getBytes("Held"));
+            outputSink.addFinalPath(TOPICS_FOLDER);
+        }
+
+        // When the file is added again
+        zipOutputSink.addFile(path, getBytes("Final"));
+        mapOutputSink.addFile(path, getBytes("Final"));
+        zipOutputSink.finish();
+
+        // Then both sinks should contain a single copy of the new file
+        final Map<String, byte[]> entries = unzip(outputStream.toByteArray());
+        assertEquals(Arrays.asList(path), getEntryNames(outputStream.toByteArray()));
+        assertArrayEquals(getBytes("Final"), entries.get(path));
+        assertArrayEquals(getBytes("Final"), mapOutputSink.getFile(path));
+    }
+
+    @Test
+    public void shouldNotCloseTheOutputStream() throws Exception {
+        // Given a finished sink
+        zipOutputSink.addFile("Book/publican.cfg", getBytes("brand: common"));
+        zipOutputSink.finish();
+        final int size = outputStream.size();
+
+        // When the sink is closed
+        zipOutputSink.close();
+
+        // Then the output stream should still be usable
+        outputStream.write(0);
+        assertEquals(size + 1, outputStream.size());
+    }
+
+    @Test(expected = BuildProcessingException.class)
+    public void shouldNotAddFilesOnceFinished() throws Exception {
+        zipOutputSink.finish();
+        zipOutputSink.addFile("Book/publican.cfg", getBytes("brand: common"));
+    }
+
+    @Test(expected = BuildProcessingException.class)
+    public void shouldNotFinishOnceClosed() throws Exception {
+        zipOutputSink.close();
+        zipOutputSink.finish();
+    }
+
+    private static byte[] getBytes(final String value) throws UnsupportedEncodingException {
+        return value.getBytes(ENCODING);
+    }
+
+    private static List<String> getEntryNames(final byte[] zip) throws IOException {
+        return new ArrayList<String>(unzip(zip).keySet());
+    }
+
+    private static Map<String, byte[]> unzip(final byte[] zip) throws IOException {
+        final Map<String, byte[]> files = new LinkedHashMap<String, byte[]>();
+        final ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zip));
+        try {
+            final byte[] buffer = new byte[8192];
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                final ByteArrayOutputStream entryOutputStream = new ByteArrayOutputStream();
+                int count;
+                while ((count = zipInputStream.read(buffer)) != -1) {
+                    entryOutputStream.write(buffer, 0, count);
+                }
+                // Fail on duplicate entries, instead of hiding them in the map
+                assertNull("Duplicate entry " + entry.getName(), files.put(entry.getName(), entryOutputStream.toByteArray()));
+            }
+        } finally {
+            zipInputStream.close();
+        }
+        return files;
+    }
+}
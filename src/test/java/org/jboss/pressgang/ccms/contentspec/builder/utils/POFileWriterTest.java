@@ -0,0 +1,134 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.UnsupportedEncodingException;
+
+import org.junit.Test;
+
+public class POFileWriterTest {
+    private static final String DATE = "2014-01-01 00:00+1000";
+    private static final String ENCODING = "UTF-8";
+
+    @Test
+    public void shouldEscapeSpecialCharacters() {
+        assertEquals("back\\\\slash \\\"quoted\\\" new\\nline carriage\\rreturn",
+                POFileWriter.escape("back\\slash \"quoted\" new\nline carriage\rreturn", false));
+    }
+
+    @Test
+    public void shouldReturnEmptyStringForNull() {
+        assertEquals("", POFileWriter.escape(null, true));
+        assertEquals("", POFileWriter.escape(null, false));
+    }
+
+    @Test
+    public void shouldFixBracketsOutsideOfElements() {
+        assertEquals("a &lt; b <emphasis>c</emphasis> d &gt; e", POFileWriter.escape("a < b <emphasis>c</emphasis> d > e", true));
+    }
+
+    @Test
+    public void shouldFixEmptyElementSequences() {
+        assertEquals("a &lt; b &lt;&gt; c", POFileWriter.escape("a < b <> c", true));
+    }
+
+    @Test
+    public void shouldNotFixBracketsWithoutSpacedComparison() {
+        assertEquals("<para>a<b</para>", POFileWriter.escape("<para>a<b</para>", true));
+    }
+
+    @Test
+    public void shouldNotFixBracketsWhenNotRequested() {
+        assertEquals("a < b > c", POFileWriter.escape("a < b > c", false));
+    }
+
+    @Test
+    public void shouldWriteHeader() throws UnsupportedEncodingException {
+        // Given a writer with no entries
+        final POFileWriter writer = new POFileWriter(DATE, ENCODING);
+
+        // When getting the content
+        final String content = new String(writer.toByteArray(), ENCODING);
+
+        // Then the header should be the only entry
+        assertTrue(content.contains("msgid \"\"\nmsgstr \"\"\n"));
+        assertTrue(content.contains("\"POT-Creation-Date: " + DATE + "\\n\"\n"));
+        assertTrue(content.contains("\"Content-Type: application/x-pressgang-ccms; charset=" + ENCODING + "\\n\"\n"));
+        assertEquals(1, countOccurrences(content, "msgid "));
+    }
+
+    @Test
+    public void shouldWriteEscapedEntries() throws UnsupportedEncodingException {
+        // Given a writer
+        final POFileWriter writer = new POFileWriter(DATE, ENCODING);
+
+        // When adding a template entry and a fuzzy translated entry
+        writer.addTemplateEntry("para", "Hello \"World\" 1 < 2");
+        writer.addEntry("title", "Source", "Translated\nText", true);
+        final String content = new String(writer.toByteArray(), ENCODING);
+
+        // Then both entries should be written in order and escaped
+        assertTrue(content.contains("\n#. Tag: para\n#, no-c-format\nmsgid \"Hello \\\"World\\\" 1 &lt; 2\"\nmsgstr \"\"\n"));
+        assertTrue(content.contains("\n#. Tag: title\n#, fuzzy\n#, no-c-format\nmsgid \"Source\"\nmsgstr \"Translated\\nText\"\n"));
+        assertEquals(3, countOccurrences(content, "msgid "));
+    }
+
+    @Test
+    public void shouldSkipEntriesWithNoSource() throws UnsupportedEncodingException {
+        // Given a writer
+        final POFileWriter writer = new POFileWriter(DATE, ENCODING);
+
+        // When adding entries with no source
+        writer.addTemplateEntry("para", "");
+        writer.addEntry("para", null, "Translated", false);
+        final String content = new String(writer.toByteArray(), ENCODING);
+
+        // Then only the header should exist
+        assertFalse(content.contains("#. Tag:"));
+        assertEquals(1, countOccurrences(content, "msgid "));
+    }
+
+    @Test
+    public void shouldNotWriteTagWhenTagIsEmpty() throws UnsupportedEncodingException {
+        // Given a writer
+        final POFileWriter writer = new POFileWriter(DATE, ENCODING);
+
+        // When adding an entry with no tag
+        writer.addTemplateEntry(null, "Source");
+        final String content = new String(writer.toByteArray(), ENCODING);
+
+        // Then no tag comment should be written
+        assertFalse(content.contains("#. Tag:"));
+        assertTrue(content.contains("\n#, no-c-format\nmsgid \"Source\"\nmsgstr \"\"\n"));
+    }
+
+    private static int countOccurrences(final String content, final String value) {
+        int count = 0;
+        int index = -1;
+        while ((index = content.indexOf(value, index + 1)) != -1) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,247 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorData;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorDatabase;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorDatabase.ErrorLevel;
+import org.jboss.pressgang.ccms.contentspec.builder.structures.TopicErrorDatabase.ErrorType;
+import org.jboss.pressgang.ccms.contentspec.builder.utils.TopicDocumentCache.CachedTopic;
+import org.jboss.pressgang.ccms.wrapper.LocaleWrapper;
+import org.jboss.pressgang.ccms.wrapper.TopicWrapper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TopicDocumentCacheTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private TopicDocumentCache cache;
+    private long entrySize;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("cache");
+        cache = new TopicDocumentCache(directory, Long.MAX_VALUE);
+
+        // Every entry in the tests has the same size, so find out what it is from the first entry
+        cache.put("a", createCachedTopic("a"));
+        entrySize = cache.getSize();
+    }
+
+    @Test
+    public void shouldGetEntries() {
+        // Given a cache with an entry
+
+        // When getting the entry
+        final CachedTopic cachedTopic = cache.get("a");
+
+        // Then the XML should match and missing entries should not be found
+        assertNotNull(cachedTopic);
+        assertEquals(createXml("a"), cachedTopic.getXml());
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntry() {
+        // Given a cache that can hold two entries
+        cache.setMaxSize(entrySize * 2);
+        cache.put("b", createCachedTopic("b"));
+
+        // When the first entry is used and a third entry is added
+        assertNotNull(cache.get("a"));
+        cache.put("c", createCachedTopic("c"));
+
+        // Then the least recently used entry should have been evicted
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(entrySize * 2, cache.getSize());
+        assertEquals(2, countCacheFiles());
+    }
+
+    @Test
+    public void shouldEvictWhenMaxSizeIsReduced() {
+        // Given a cache with three entries, where the first entry was used last
+        cache.put("b", createCachedTopic("b"));
+        cache.put("c", createCachedTopic("c"));
+        assertNotNull(cache.get("a"));
+
+        // When the max size is reduced to one entry
+        cache.setMaxSize(entrySize);
+
+        // Then only the most recently used entry should remain
+        assertEquals(entrySize, cache.getSize());
+        assertEquals(1, countCacheFiles());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNull(cache.get("c"));
+    }
+
+    @Test
+    public void shouldNotCountReplacedEntriesTwice() {
+        // Given a cache with an entry
+
+        // When the entry is replaced
+        cache.put("a", createCachedTopic("a"));
+
+        // Then the size should be unchanged
+        assertEquals(entrySize, cache.getSize());
+        assertEquals(1, countCacheFiles());
+    }
+
+    @Test
+    public void shouldClearEntries() {
+        // Given a cache with two entries
+        cache.put("b", createCachedTopic("b"));
+
+        // When the cache is cleared
+        cache.clear();
+
+        // Then no entries should remain
+        assertEquals(0, cache.getSize());
+        assertEquals(0, countCacheFiles());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void shouldLoadEntriesFromDirectory() {
+        // Given a cache with two entries
+        cache.put("b", createCachedTopic("b"));
+
+        // When a new cache is created for the directory
+        final TopicDocumentCache newCache = new TopicDocumentCache(directory, Long.MAX_VALUE);
+
+        // Then the entries should be found
+        assertEquals(entrySize * 2, newCache.getSize());
+        assertEquals(createXml("a"), newCache.get("a").getXml());
+        assertEquals(createXml("b"), newCache.get("b").getXml());
+    }
+
+    @Test
+    public void shouldEvictLoadedEntriesOverMaxSize() {
+        // Given a cache with two entries
+        cache.put("b", createCachedTopic("b"));
+
+        // When a new cache that can only hold one entry is created for the directory
+        final TopicDocumentCache newCache = new TopicDocumentCache(directory, entrySize);
+
+        // Then one entry should have been evicted
+        assertEquals(entrySize, newCache.getSize());
+        assertEquals(1, countCacheFiles());
+    }
+
+    @Test
+    public void shouldRemoveUnreadableEntries() throws IOException {
+        // Given a cache entry that has been corrupted
+        final FileOutputStream outputStream = new FileOutputStream(new File(directory, TopicDocumentCache.getFileName("a")));
+        try {
+            outputStream.write("Not a cached topic".getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+
+        // When getting the entry
+        final CachedTopic cachedTopic = cache.get("a");
+
+        // Then it should be treated as missing and removed
+        assertNull(cachedTopic);
+        assertEquals(0, cache.getSize());
+        assertEquals(0, countCacheFiles());
+    }
+
+    @Test
+    public void shouldRestoreErrors() {
+        // Given a cached topic with errors that has been written to the cache
+        final TopicErrorData errorData = new TopicErrorData();
+        errorData.addError("Invalid content", ErrorLevel.ERROR, ErrorType.INVALID_CONTENT);
+        errorData.addError("Line one\nLine two", ErrorLevel.WARNING, null);
+        cache.put("errors", new CachedTopic(createXml("errors"), errorData));
+
+        // When the errors are added to an error database
+        final TopicWrapper topic = createTopic();
+        final TopicErrorDatabase errorDatabase = new TopicErrorDatabase();
+        cache.get("errors").addErrors(errorDatabase, topic);
+
+        // Then the errors should match the original errors
+        final TopicErrorData restoredErrorData = errorDatabase.getErrorData(topic);
+        assertNotNull(restoredErrorData);
+        assertTrue(restoredErrorData.getItemsOfType(ErrorLevel.ERROR).contains("Invalid content"));
+        assertTrue(restoredErrorData.getItemsOfType(ErrorLevel.WARNING).contains("Line one\nLine two"));
+        assertTrue(restoredErrorData.hasErrorType(ErrorType.INVALID_CONTENT));
+        assertEquals(1, restoredErrorData.getErrorTypes().size());
+    }
+
+    @Test
+    public void shouldShareCachesForTheSameDirectory() {
+        // Given a shared cache for a directory
+        final File sharedDirectory = new File(folder.getRoot(), "shared");
+        final TopicDocumentCache sharedCache = TopicDocumentCache.getCache(sharedDirectory, 100L);
+
+        // When getting the cache again with a different max size
+        final TopicDocumentCache sameCache = TopicDocumentCache.getCache(sharedDirectory, 200L);
+
+        // Then the same cache should be used, with the new max size
+        assertSame(sharedCache, sameCache);
+        assertEquals(200L, sameCache.getMaxSize());
+    }
+
+    private int countCacheFiles() {
+        int count = 0;
+        for (final File file : directory.listFiles()) {
+            if (file.getName().endsWith(".topic")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String createXml(final String name) {
+        return "<section><title>" + name + "</title><para>Some \"text\"\nover two lines</para></section>";
+    }
+
+    private static CachedTopic createCachedTopic(final String name) {
+        return new CachedTopic(createXml(name), null);
+    }
+
+    private static TopicWrapper createTopic() {
+        final LocaleWrapper locale = mock(LocaleWrapper.class);
+        when(locale.getValue()).thenReturn("en-US");
+
+        final TopicWrapper topic = mock(TopicWrapper.class);
+        when(topic.getTopicId()).thenReturn(1);
+        when(topic.getLocale()).thenReturn(locale);
+        return topic;
+    }
+}
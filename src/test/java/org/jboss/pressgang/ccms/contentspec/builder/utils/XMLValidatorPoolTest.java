@@ -0,0 +1,154 @@
+/*
+  Copyright 2011-2014 Red Hat, Inc
+
+  This file is part of PressGang CCMS.
+
+  PressGang CCMS is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Lesser General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  PressGang CCMS is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Lesser General Public License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License
+  along with PressGang CCMS.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package org.jboss.pressgang.ccms.contentspec.builder.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.pressgang.ccms.utils.common.XMLValidator;
+import org.jboss.pressgang.ccms.utils.structures.DocBookVersion;
+import org.junit.Before;
+import org.junit.Test;
+
+public class XMLValidatorPoolTest {
+    private static final String DTD_FILE_NAME = "rocbookx.dtd";
+    private static final String ROOT_ELEMENT_NAME = "section";
+    private static final String ENTITIES = "<!ENTITY PRODUCT \"PressGang CCMS\">\n<!ENTITY QUOTED \"a &quot;quoted&quot; value\">\n";
+    private static final List<String> TOPICS = Arrays.asList(
+            // Valid topics
+            "<section><title>Title</title><para>Some text</para></section>",
+            "<section><title>&PRODUCT; Title</title><para>&PRODUCT; &amp; &lt;text&gt; &quot;quoted&quot; &apos;s</para></section>",
+            "<section><title>Title</title><para><ulink url=\"http://example.com/?a=&quot;b&quot;\">Link</ulink></para></section>",
+            "<section><title>Title</title><para role=\"a &quot;b&quot; &apos;c&apos;\">Text</para></section>",
+            "<section><title>Title</title><para role=\"&PRODUCT; &QUOTED;\">&QUOTED;</para></section>",
+            "<section><title>Title</title><para>Some text<!-- &UNDEFINED; --></para><programlisting><![CDATA[&UNDEFINED;]]>" +
+                    "</programlisting></section>",
+            // Invalid topics
+            "<section><para>No title</para></section>",
+            "<section><title>Title</title><unknown>Unknown element</unknown></section>",
+            "<section><title>Title</title><para unknown=\"attribute\">Text</para></section>",
+            "<section><title>Title</title><para>&UNDEFINED;</para></section>",
+            "<section><title>Title</title><para role=\"&UNDEFINED;\">Text</para></section>",
+            "<section><title>Title</title><para>Not closed</section>");
+
+    private byte[] dtd;
+    private XMLValidatorPool pool;
+    private String key;
+
+    @Before
+    public void setUp() throws IOException {
+        dtd = readResource("/" + DTD_FILE_NAME);
+        pool = new XMLValidatorPool(100);
+        key = pool.getKey(DocBookVersion.DOCBOOK_45, XMLValidator.ValidationMethod.DTD, dtd, ENTITIES);
+    }
+
+    @Test
+    public void shouldGiveTheSameResultAsXMLValidator() {
+        for (final String topic : TOPICS) {
+            // Given the result from a new XMLValidator
+            final String expected = validateWithXMLValidator(topic);
+
+            // When validating using the pool
+            final String result = validateWithPool(topic);
+
+            // Then the result and error text should be the same
+            assertEquals(topic, expected, result);
+        }
+    }
+
+    @Test
+    public void shouldGiveTheSameResultForRepeatedValidations() {
+        // Given every topic has already been validated once
+        for (final String topic : TOPICS) {
+            validateWithPool(topic);
+        }
+
+        // When the topics are validated again, in reverse order so the pooled validators see a different previous topic
+        for (int i = TOPICS.size() - 1; i >= 0; i--) {
+            final String topic = TOPICS.get(i);
+
+            // Then the result should be the same as a new XMLValidator
+            assertEquals(topic, validateWithXMLValidator(topic), validateWithPool(topic));
+        }
+    }
+
+    @Test
+    public void shouldAcceptEntitiesInAttributes() {
+        assertNull(validateWithPool(TOPICS.get(2)));
+        assertNull(validateWithPool(TOPICS.get(3)));
+        assertNull(validateWithPool(TOPICS.get(4)));
+    }
+
+    @Test
+    public void shouldRejectInvalidTopics() {
+        for (final String topic : TOPICS.subList(6, TOPICS.size())) {
+            assertNotNull(topic, validateWithPool(topic));
+        }
+    }
+
+    @Test
+    public void shouldUseDifferentKeysForDifferentEntities() {
+        final String otherKey = pool.getKey(DocBookVersion.DOCBOOK_45, XMLValidator.ValidationMethod.DTD, dtd, "");
+        assertEquals(key, pool.getKey(DocBookVersion.DOCBOOK_45, XMLValidator.ValidationMethod.DTD, dtd, ENTITIES));
+        assertFalse(key.equals(otherKey));
+
+        // The custom entities should only be available when validating with the settings that declare them
+        assertNull(pool.validate(key, XMLValidator.ValidationMethod.DTD, TOPICS.get(4), DTD_FILE_NAME, dtd, ENTITIES,
+                ROOT_ELEMENT_NAME));
+        assertNotNull(pool.validate(otherKey, XMLValidator.ValidationMethod.DTD, TOPICS.get(4), DTD_FILE_NAME, dtd, "",
+                ROOT_ELEMENT_NAME));
+    }
+
+    private String validateWithPool(final String xml) {
+        return pool.validate(key, XMLValidator.ValidationMethod.DTD, xml, DTD_FILE_NAME, dtd, ENTITIES, ROOT_ELEMENT_NAME);
+    }
+
+    private String validateWithXMLValidator(final String xml) {
+        final XMLValidator validator = new XMLValidator();
+        if (validator.validate(XMLValidator.ValidationMethod.DTD, xml, DTD_FILE_NAME, dtd, ENTITIES, ROOT_ELEMENT_NAME)) {
+            return null;
+        } else {
+            return validator.getErrorText() == null ? "" : validator.getErrorText();
+        }
+    }
+
+    private static byte[] readResource(final String name) throws IOException {
+        final InputStream inputStream = XMLValidatorPoolTest.class.getResourceAsStream(name);
+        try {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int count;
+            while ((count = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, count);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+    }
+}